@@ -0,0 +1,57 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+plugins {
+    id("it.unicam.quasylab.sibilla.java-common-conventions")
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+dependencies {
+    jmh(project(":core:simulator"))
+    jmh(project(":langs:pm"))
+    jmh(project(":langs:lio"))
+    jmh(project(":langs:yoda"))
+    jmh(project(":langs:slam"))
+}
+
+/*
+ * Benchmarks load the models bundled with the test resources of the runtime project, so that they are not
+ * duplicated. Models that are only used in benchmarks are in src/jmh/resources.
+ */
+sourceSets {
+    named("jmh") {
+        resources.srcDir(rootProject.file("core/runtime/src/test/resources"))
+    }
+}
+
+/*
+ * Benchmarks are executed with ./gradlew :core:benchmark:jmh. A subset can be selected with
+ * -Pjmh.includes=<regex>. Results are stored in JSON format so that they can be compared across releases.
+ */
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(project.layout.buildDirectory.file("results/jmh/results-${project.version}.json"))
+    (project.findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+}
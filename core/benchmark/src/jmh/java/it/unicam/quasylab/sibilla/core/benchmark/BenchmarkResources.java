@@ -0,0 +1,57 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility class used to load the models used in benchmarks.
+ */
+final class BenchmarkResources {
+
+    private BenchmarkResources() {
+    }
+
+    /**
+     * Returns the content of the resource with the given name.
+     *
+     * @param name resource name.
+     * @return the content of the resource with the given name.
+     */
+    static String load(String name) {
+        try (InputStream input = BenchmarkResources.class.getClassLoader().getResourceAsStream(name)) {
+            if (input == null) {
+                throw new IllegalArgumentException("Unknown resource " + name);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
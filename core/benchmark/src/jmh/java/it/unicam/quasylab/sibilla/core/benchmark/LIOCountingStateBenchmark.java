@@ -0,0 +1,80 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.benchmark;
+
+import it.unicam.quasylab.sibilla.core.models.lio.LIOAgentDefinitions;
+import it.unicam.quasylab.sibilla.core.models.lio.LIOState;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.langs.lio.LIOModelGenerator;
+import it.unicam.quasylab.sibilla.langs.lio.LIOModelParseError;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a step of the counting semantics of LIO models, including the computation of the
+ * probability matrix of agents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LIOCountingStateBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int population;
+
+    private LIOState initial;
+
+    private LIOState state;
+
+    private RandomGenerator rg;
+
+    @Setup(Level.Trial)
+    public void setup() throws LIOModelParseError {
+        LIOAgentDefinitions definitions = new LIOModelGenerator(BenchmarkResources.load("lio/rb.lio")).getDefinition().createModel().getAgentDefinitions();
+        int[] occupancy = new int[definitions.numberOfAgents()];
+        Arrays.fill(occupancy, population / occupancy.length);
+        initial = definitions.getCountingState(occupancy);
+        state = initial;
+        rg = new SplittableRandomGenerator(42);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        state = initial;
+    }
+
+    @Benchmark
+    public LIOState step() {
+        state = state.step(rg, state.getAgentsDefinition().getAgentProbabilityMatrix(state));
+        return state;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.benchmark;
+
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
+import it.unicam.quasylab.sibilla.core.tools.stl.QualitativeMonitor;
+import it.unicam.quasylab.sibilla.core.tools.stl.QuantitativeMonitor;
+import it.unicam.quasylab.sibilla.core.util.BooleanSignal;
+import it.unicam.quasylab.sibilla.core.util.Interval;
+import it.unicam.quasylab.sibilla.core.util.Signal;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the qualitative and quantitative monitoring of the STL formula
+ * <code>F[0,10] G[0,5] (A &gt; 600)</code> over long trajectories.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonitoringBenchmark {
+
+    @Param({"10000", "100000"})
+    public int length;
+
+    private Trajectory<PopulationState> trajectory;
+
+    private QualitativeMonitor<PopulationState> qualitativeMonitor;
+
+    private QuantitativeMonitor<PopulationState> quantitativeMonitor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RandomGenerator rg = new SplittableRandomGenerator(42);
+        trajectory = new Trajectory<>();
+        int[] vector = new int[] { 500, 500 };
+        double time = 0.0;
+        for (int i = 0; i < length; i++) {
+            trajectory.add(time, new PopulationState(vector.clone()));
+            int from = rg.nextInt(2);
+            if (vector[from] > 0) {
+                vector[from]--;
+                vector[1 - from]++;
+            }
+            time += rg.nextDouble() * 0.02;
+        }
+        trajectory.setEnd(time);
+        qualitativeMonitor = QualitativeMonitor.eventually(new Interval(0, 10),
+                QualitativeMonitor.globally(new Interval(0, 5), QualitativeMonitor.atomicFormula(s -> s.getOccupancy(0) > 600)));
+        quantitativeMonitor = QuantitativeMonitor.eventually(new Interval(0, 10),
+                QuantitativeMonitor.globally(new Interval(0, 5), QuantitativeMonitor.atomicFormula(s -> s.getOccupancy(0) - 600)));
+    }
+
+    @Benchmark
+    public BooleanSignal qualitative() {
+        return qualitativeMonitor.monitor(trajectory);
+    }
+
+    @Benchmark
+    public Signal quantitative() {
+        return quantitativeMonitor.monitor(trajectory);
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.benchmark;
+
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModelDefinition;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.langs.pm.ModelGenerationException;
+import it.unicam.quasylab.sibilla.langs.pm.PopulationModelGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the throughput of the simulation steps of population models. Each invocation performs
+ * {@link #STEPS} steps, restarting the simulation when a terminal state is reached.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopulationModelBenchmark {
+
+    public static final int STEPS = 1000;
+
+    @Param({"seir", "crowds", "taxis"})
+    public String model;
+
+    @Param({"SSA", "DEPENDENCY_GRAPH", "TAU_LEAPING"})
+    public String mode;
+
+    private SimulatorCursor<PopulationState> cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws ModelGenerationException {
+        PopulationModelDefinition definition = new PopulationModelGenerator(BenchmarkResources.load("pm/" + model + "/" + model + ".pm")).getPopulationModelDefinition();
+        PopulationModel populationModel = definition.createModel();
+        Function<RandomGenerator, PopulationState> initialState = definition.getDefaultConfiguration();
+        RandomGenerator rg = new SplittableRandomGenerator(42);
+        switch (mode) {
+            case "DEPENDENCY_GRAPH":
+                cursor = populationModel.createDependencyGraphSimulationCursor(rg, initialState);
+                break;
+            case "TAU_LEAPING":
+                cursor = populationModel.createTauLeapingSimulationCursor(rg, initialState);
+                break;
+            default:
+                cursor = populationModel.createSimulationCursor(rg, initialState);
+        }
+        cursor.start();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public double steps() {
+        for (int i = 0; i < STEPS; i++) {
+            if (!cursor.step()) {
+                cursor.restart();
+                cursor.start();
+            }
+        }
+        return cursor.time();
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.benchmark;
+
+import it.unicam.quasylab.sibilla.core.util.datastructures.SibillaMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the cost of the basic operations of {@link SibillaMap}, that is used to store agents in SLAM states.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SibillaMapBenchmark {
+
+    private static final UnaryOperator<Integer> INCREMENT = v -> v + 1;
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private SibillaMap<Integer, Integer> map;
+
+    private int[] keys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = IntStream.range(0, size).map(i -> (int) ((i * 2654435761L) % size)).toArray();
+        map = add();
+    }
+
+    @Benchmark
+    public SibillaMap<Integer, Integer> add() {
+        SibillaMap<Integer, Integer> result = new SibillaMap<>();
+        for (int k : keys) {
+            result = result.add(k, k);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (int k : keys) {
+            blackhole.consume(map.get(k));
+        }
+    }
+
+    @Benchmark
+    public SibillaMap<Integer, Integer> apply() {
+        return map.apply(INCREMENT);
+    }
+
+    @Benchmark
+    public SibillaMap<Integer, Integer> applyToKey() {
+        return map.apply(keys[size / 2], INCREMENT);
+    }
+
+}
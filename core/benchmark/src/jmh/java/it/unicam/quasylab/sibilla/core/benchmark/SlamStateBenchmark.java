@@ -0,0 +1,77 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.benchmark;
+
+import it.unicam.quasylab.sibilla.core.models.ModelDefinition;
+import it.unicam.quasylab.sibilla.core.models.slam.SlamState;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.langs.slam.SlamModelGenerationException;
+import it.unicam.quasylab.sibilla.langs.slam.SlamModelGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the execution of an agent step in a SLAM state. Each invocation starts from the initial
+ * configuration and executes a step of each agent; each step broadcasts a message to all the agents in the system.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlamStateBenchmark {
+
+    /**
+     * Number of agents in the initial configuration of the model.
+     */
+    public static final int AGENTS = 50;
+
+    private SlamState initial;
+
+    private RandomGenerator rg;
+
+    @Setup(Level.Trial)
+    public void setup() throws SlamModelGenerationException {
+        SlamModelGenerator generator = new SlamModelGenerator(BenchmarkResources.load("slam/gossip.slam"));
+        generator.getParseTree();
+        ModelDefinition<SlamState> definition = generator.getDefinition();
+        rg = new SplittableRandomGenerator(42);
+        initial = definition.getDefaultConfiguration().apply(rg);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AGENTS)
+    public SlamState executeAgentStep() {
+        SlamState state = initial;
+        for (int i = 0; i < AGENTS; i++) {
+            state = state.executeAgentStep(rg, i);
+        }
+        return state;
+    }
+
+}
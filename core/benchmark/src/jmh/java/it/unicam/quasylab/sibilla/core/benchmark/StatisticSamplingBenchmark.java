@@ -0,0 +1,108 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.benchmark;
+
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.MomentStatisticSampling;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SamplingHandler;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SimpleMeasure;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.StatisticSampling;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SummaryStatisticSampling;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of collecting statistics of a measure along a simulation run. Each invocation feeds a
+ * sampling handler with a pre-generated sequence of {@link #EVENTS} states.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticSamplingBenchmark {
+
+    public static final int EVENTS = 10000;
+
+    public static final double DEADLINE = 100.0;
+
+    @Param({"moment", "summary"})
+    public String statistics;
+
+    @Param({"100", "1000"})
+    public int samplings;
+
+    private double[] times;
+
+    private PopulationState[] states;
+
+    private StatisticSampling<PopulationState> sampling;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RandomGenerator rg = new SplittableRandomGenerator(42);
+        times = new double[EVENTS];
+        states = new PopulationState[EVENTS];
+        int[] vector = new int[] { 500, 500 };
+        double time = 0.0;
+        for (int i = 0; i < EVENTS; i++) {
+            int from = rg.nextInt(2);
+            if (vector[from] > 0) {
+                vector[from]--;
+                vector[1 - from]++;
+            }
+            time += rg.nextDouble() * 2 * DEADLINE / EVENTS;
+            times[i] = time;
+            states[i] = new PopulationState(vector.clone());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        Measure<PopulationState> measure = new SimpleMeasure<>("A", s -> s.getOccupancy(0));
+        if ("summary".equals(statistics)) {
+            sampling = new SummaryStatisticSampling<>(samplings, DEADLINE / samplings, measure);
+        } else {
+            sampling = new MomentStatisticSampling<>(samplings, DEADLINE / samplings, measure);
+        }
+    }
+
+    @Benchmark
+    public StatisticSampling<PopulationState> collect() {
+        SamplingHandler<PopulationState> handler = sampling.getSamplingHandler();
+        handler.start();
+        for (int i = 0; i < EVENTS; i++) {
+            handler.sample(times[i], states[i]);
+        }
+        handler.end(DEADLINE);
+        return sampling;
+    }
+
+}
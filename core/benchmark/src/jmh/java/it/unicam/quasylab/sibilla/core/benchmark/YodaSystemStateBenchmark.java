@@ -0,0 +1,78 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.benchmark;
+
+import it.unicam.quasylab.sibilla.core.models.yoda.YodaModelDefinition;
+import it.unicam.quasylab.sibilla.core.models.yoda.YodaSystemState;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
+import it.unicam.quasylab.sibilla.langs.yoda.YodaModelGenerationException;
+import it.unicam.quasylab.sibilla.langs.yoda.YodaModelGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a step of a YODA system. The flock model is used, where <code>nbirds*nbirds</code>
+ * agents are placed in the initial configuration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YodaSystemStateBenchmark {
+
+    @Param({"5", "10", "20"})
+    public int nbirds;
+
+    private YodaSystemState initial;
+
+    private YodaSystemState state;
+
+    private RandomGenerator rg;
+
+    @Setup(Level.Trial)
+    public void setup() throws YodaModelGenerationException {
+        YodaModelDefinition definition = new YodaModelGenerator(BenchmarkResources.load("yoda/flock.yoda")).getYodaModelDefinition();
+        definition.setParameter("nbirds", SibillaValue.of(nbirds));
+        rg = new SplittableRandomGenerator(42);
+        initial = definition.getDefaultConfiguration().apply(rg);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        state = initial;
+    }
+
+    @Benchmark
+    public YodaSystemState next() {
+        state = state.next(rg);
+        return state;
+    }
+
+}
@@ -0,0 +1,31 @@
+/* Crowds protocol: a message is forwarded among N agents before being delivered. */
+
+param lambdaS = 1.0; /* Forwarding rate */
+param pF = 0.9; /* Forwarding probability */
+
+const N = 10; /* Number of agents */
+
+species A of [0,N];
+species AM of [0,N];
+species M1;
+species M2;
+
+rule m1_to_a for i in [0,N] {
+    A[i]|M1 -[ lambdaS/N ]-> AM[i]
+}
+
+rule m2_to_a for i in [0,N] {
+    A[i]|M2 -[ lambdaS/N ]-> AM[i]
+}
+
+rule forward for i in [0,N] and j in [0,N] when (i<j)||(i>j) {
+    AM[i]|A[j] -[ pF*lambdaS/N ]-> A[i]|AM[j]
+}
+
+rule deliver for i in [0,N] {
+    AM[i] -[ (1-pF)*lambdaS ]-> A[i]
+}
+
+system start = M1<1>|A[i for i in [0,N]]<1>;
+
+measure messages = #M1 + #M2 + #AM[i for i in [0,N]];
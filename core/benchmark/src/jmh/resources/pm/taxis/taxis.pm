@@ -0,0 +1,56 @@
+/* Taxis serving users in a city. */
+
+param lambdaA = 1.0; /* Rate of user requests */
+param lambdaS = 0.5; /* Rate of taxi assignment */
+param lambdaD = 5.0; /* Rate of taxis leaving the deposit */
+param lambdaShortEnd = 1.0/15.0; /* Rate of short travels */
+param lambdaLongEnd = 1.0/45.0; /* Rate of long travels */
+param lambdaAngry = 1.0/30.0; /* Rate of users getting angry */
+param probShort = 0.5; /* Probability of a short travel */
+param weight = 100.0; /* Priority of angry users */
+
+species T; /* Taxi ready to collect a user */
+species W; /* User waiting for a taxi */
+species S; /* Taxi travelling on a short trip */
+species L; /* Taxi travelling on a long trip */
+species I; /* Inactive user */
+species D; /* Taxi in the deposit */
+species A; /* Angry user */
+
+rule user_arrival {
+    I -[ lambdaA*#I ]-> W
+}
+
+rule user_angry {
+    W -[ lambdaAngry*#W ]-> A
+}
+
+rule taxi_short {
+    T|W -[ (#W==0) ? 0.0 : (#T*(#W/(weight*#A+#W))*lambdaS*probShort) ]-> S
+}
+
+rule taxi_long {
+    T|W -[ (#W==0) ? 0.0 : (#T*(#W/(weight*#A+#W))*lambdaS*(1-probShort)) ]-> L
+}
+
+rule taxi_short_angry {
+    T|A -[ (#A==0) ? 0.0 : (#T*((weight*#A)/(weight*#A+#W))*lambdaS*probShort) ]-> S
+}
+
+rule taxi_long_angry {
+    T|A -[ (#A==0) ? 0.0 : (#T*((weight*#A)/(weight*#A+#W))*lambdaS*(1-probShort)) ]-> L
+}
+
+rule short_end {
+    S -[ lambdaShortEnd*#S ]-> T|I
+}
+
+rule long_end {
+    L -[ lambdaLongEnd*#L ]-> T|I
+}
+
+rule taxi_exit {
+    D -[ lambdaD*#D ]-> T
+}
+
+system start = I<2000>|D<50>;
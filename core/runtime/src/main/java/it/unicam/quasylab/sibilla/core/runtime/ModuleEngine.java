@@ -29,10 +29,13 @@ import it.unicam.quasylab.sibilla.core.models.ParametricDataSet;
 import it.unicam.quasylab.sibilla.core.models.State;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationMonitor;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
 import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTime;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTimeResults;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.MergeableSamplingFunction;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.SamplingFunction;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SamplingHandler;
 import it.unicam.quasylab.sibilla.core.util.BooleanSignal;
 import it.unicam.quasylab.sibilla.core.util.SimulationData;
 import it.unicam.quasylab.sibilla.core.util.Signal;
@@ -42,8 +45,10 @@ import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
 
 public class ModuleEngine<S extends State> {
@@ -150,17 +155,54 @@ public class ModuleEngine<S extends State> {
                                             double dt,
                                             String[] measures,
                                             boolean summary) {
+        return simulate(simulationEnvironment, monitor, rg, this::getCursorSupplier, replica, deadline, dt, measures, summary);
+    }
+
+    /**
+     * Simulates the current model using the simulation cursors built by the function returned by
+     * <code>cursorSupplier</code> for the current model. This allows subclasses to select a simulation
+     * algorithm that depends on the parameters of a single simulation.
+     */
+    protected Map<String, double[][]> simulate(SimulationEnvironment simulationEnvironment,
+                                               SimulationMonitor monitor,
+                                               RandomGenerator rg,
+                                               Function<Model<S>, BiFunction<RandomGenerator, Function<RandomGenerator, S>, SimulatorCursor<S>>> cursorSupplier,
+                                               long replica,
+                                               double deadline,
+                                               double dt,
+                                               String[] measures,
+                                               boolean summary) {
         loadModel();
         setDefaultConfiguration();
         SamplingFunction<S> samplingFunction = currentModel.selectSamplingFunction(summary, deadline, dt, measures);
         try {
-            simulationEnvironment.simulate(monitor, rg, currentModel, state, samplingFunction::getSamplingHandler, replica, deadline);
+            simulationEnvironment.simulate(monitor, rg, cursorSupplier.apply(currentModel), state, getHandlerSupplier(samplingFunction), replica, deadline);
             return samplingFunction.getSimulationTimeSeries();
         } catch (InterruptedException e) {
             throw new IllegalStateException(e);
         }
     }
 
+    /**
+     * Returns the function used to build the simulation cursors of the given model. By default, the cursor
+     * provided by the model is used. Subclasses can override this method to select a different simulation
+     * algorithm.
+     */
+    protected BiFunction<RandomGenerator, Function<RandomGenerator, S>, SimulatorCursor<S>> getCursorSupplier(Model<S> model) {
+        return model::createSimulationCursor;
+    }
+
+    /**
+     * Returns the supplier of sampling handlers associated with the given function. When the function is
+     * mergeable, the function itself is returned so that simulation managers can collect data in partial copies.
+     */
+    private Supplier<SamplingHandler<S>> getHandlerSupplier(SamplingFunction<S> samplingFunction) {
+        if (samplingFunction instanceof MergeableSamplingFunction) {
+            return (MergeableSamplingFunction<S>) samplingFunction;
+        }
+        return samplingFunction::getSamplingHandler;
+    }
+
     public FirstPassageTimeResults firstPassageTime(SimulationEnvironment simulationEnvironment,
                                                     SimulationMonitor monitor,
                                                     RandomGenerator rg,
@@ -176,7 +218,7 @@ public class ModuleEngine<S extends State> {
         }
         FirstPassageTime<S> fpt = new FirstPassageTime<>(predicateName, predicate);
         try {
-            simulationEnvironment.simulate(monitor, rg, currentModel, state, fpt, replica, deadline);
+            simulationEnvironment.simulate(monitor, rg, getCursorSupplier(currentModel), state, fpt, replica, deadline);
             return fpt.getResults();
         } catch (InterruptedException e) {
             throw new IllegalStateException(e);
@@ -194,7 +236,7 @@ public class ModuleEngine<S extends State> {
         setDefaultConfiguration();
         Predicate<? super S> targetPredicate = currentModel.getPredicate(targetName);
         try {
-            return simulationEnvironment.reachability(monitor, rg, pError,delta,time, currentModel, state, s -> true, targetPredicate::test);
+            return simulationEnvironment.reachability(monitor, rg, pError,delta,time, getCursorSupplier(currentModel), state, s -> true, targetPredicate::test);
         } catch (InterruptedException e) {
             throw new IllegalStateException(e.getMessage());
         }
@@ -213,7 +255,7 @@ public class ModuleEngine<S extends State> {
         Predicate<? super S> transientPredicate = currentModel.getPredicate(transientCondition);
         Predicate<? super S> targetPredicate = currentModel.getPredicate(targetCondition);
         try {
-            return simulationEnvironment.reachability(monitor, rg, pError,delta,time, currentModel, state, transientPredicate::test, targetPredicate::test);
+            return simulationEnvironment.reachability(monitor, rg, pError,delta,time, getCursorSupplier(currentModel), state, transientPredicate::test, targetPredicate::test);
         } catch (InterruptedException e) {
             throw new IllegalStateException(e.getMessage());
         }
@@ -256,7 +298,7 @@ public class ModuleEngine<S extends State> {
         loadModel();
         setDefaultConfiguration();
         S initialState = state.apply(rg);
-        Trajectory<S> trajectory = simulationEnvironment.sampleTrajectory(rg, currentModel, initialState, deadline);
+        Trajectory<S> trajectory = simulationEnvironment.sampleTrajectory(rg, getCursorSupplier(currentModel), initialState, deadline, currentModel::createTrajectory);
         Map<String, Map<String, ToDoubleFunction<S>>> traceFunctions = currentModel.trace(initialState);
         return traceFunctions.entrySet().stream().map(e -> SimulationData.getDataSet(e.getKey(), trajectory, e.getValue())).toList();
     }
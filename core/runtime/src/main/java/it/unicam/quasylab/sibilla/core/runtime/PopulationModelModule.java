@@ -30,6 +30,7 @@ import it.unicam.quasylab.sibilla.langs.pm.PopulationModelGenerator;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 
 
@@ -37,7 +38,16 @@ public class PopulationModelModule extends AbstractSibillaModule {
 
     public final static String MODULE_NAME = "population";
 
-    private ModuleEngine<PopulationState> moduleEngine;
+    public enum PopulationModes {
+        SSA,
+        DEPENDENCY_GRAPH,
+        TAU_LEAPING,
+        FLUID
+    }
+
+    private PopulationModes mode = PopulationModes.SSA;
+
+    private PopulationModuleEngine moduleEngine;
 
     @Override
     public String getModuleName() {
@@ -65,7 +75,7 @@ public class PopulationModelModule extends AbstractSibillaModule {
     }
 
     private void generateModuleEngine(PopulationModelGenerator pmg) throws ModelGenerationException {
-        this.moduleEngine = new ModuleEngine<>(pmg.getPopulationModelDefinition());
+        this.moduleEngine = new PopulationModuleEngine(this.mode, pmg.getPopulationModelDefinition());
     }
 
     @Override
@@ -74,6 +84,24 @@ public class PopulationModelModule extends AbstractSibillaModule {
         return null;
     }
 
+    @Override
+    public String[] getModes() {
+        return Arrays.stream(PopulationModes.values()).map(Enum::toString).toArray(String[]::new);
+    }
+
+    @Override
+    public void setMode(String name) {
+        this.mode = PopulationModes.valueOf(name);
+        if (this.moduleEngine != null) {
+            this.moduleEngine.setMode(this.mode);
+        }
+    }
+
+    @Override
+    public String getMode() {
+        return this.mode.name();
+    }
+
     @Override
     protected ModuleEngine<?> getModuleEngine() {
         return moduleEngine;
@@ -0,0 +1,96 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.runtime;
+
+import it.unicam.quasylab.sibilla.core.models.Model;
+import it.unicam.quasylab.sibilla.core.models.pm.FluidSimulationCursor;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModelDefinition;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationMonitor;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+public class PopulationModuleEngine extends ModuleEngine<PopulationState> {
+
+    private PopulationModelModule.PopulationModes mode;
+
+    public PopulationModuleEngine(PopulationModelModule.PopulationModes mode, PopulationModelDefinition modelDefinition) {
+        super(modelDefinition);
+        this.mode = mode;
+    }
+
+    @Override
+    protected BiFunction<RandomGenerator, Function<RandomGenerator, PopulationState>, SimulatorCursor<PopulationState>> getCursorSupplier(Model<PopulationState> model) {
+        return getCursorSupplier(model, FluidSimulationCursor.DEFAULT_MAX_STEP);
+    }
+
+    private BiFunction<RandomGenerator, Function<RandomGenerator, PopulationState>, SimulatorCursor<PopulationState>> getCursorSupplier(Model<PopulationState> model, double fluidStep) {
+        if (model instanceof PopulationModel) {
+            PopulationModel populationModel = (PopulationModel) model;
+            switch (mode) {
+                case DEPENDENCY_GRAPH: return populationModel::createDependencyGraphSimulationCursor;
+                case TAU_LEAPING: return populationModel::createTauLeapingSimulationCursor;
+                case FLUID: return (rg, initialStateBuilder) -> populationModel.createFluidSimulationCursor(rg, initialStateBuilder, fluidStep);
+            }
+        }
+        return super.getCursorSupplier(model);
+    }
+
+    /**
+     * When the fluid mode is selected, a single run is performed, since the fluid approximation is
+     * deterministic, and the integration step is bounded by the sampling interval.
+     */
+    @Override
+    public Map<String, double[][]> simulate(SimulationEnvironment simulationEnvironment,
+                                            SimulationMonitor monitor,
+                                            RandomGenerator rg,
+                                            long replica,
+                                            double deadline,
+                                            double dt,
+                                            String[] measures,
+                                            boolean summary) {
+        if (mode == PopulationModelModule.PopulationModes.FLUID) {
+            double fluidStep = Math.min(dt, FluidSimulationCursor.DEFAULT_MAX_STEP);
+            return simulate(simulationEnvironment, monitor, rg, model -> getCursorSupplier(model, fluidStep), 1, deadline, dt, measures, summary);
+        }
+        return super.simulate(simulationEnvironment, monitor, rg, replica, deadline, dt, measures, summary);
+    }
+
+    /**
+     * Sets the mode of this engine to the given value.
+     *
+     * @param mode the mode to set.
+     */
+    public void setMode(PopulationModelModule.PopulationModes mode) {
+        this.mode = mode;
+    }
+
+}
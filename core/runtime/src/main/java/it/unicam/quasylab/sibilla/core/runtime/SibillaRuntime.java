@@ -23,7 +23,7 @@
 
 package it.unicam.quasylab.sibilla.core.runtime;
 
-import it.unicam.quasylab.sibilla.core.simulator.DefaultRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationManagerFactory;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationMonitor;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTimeResults;
@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -47,11 +48,12 @@ public final class SibillaRuntime {
 
     private static final String UNKNOWN_MODULE_MESSAGE = "Module %s is unknown!";
     private static final String NO_MODULE_HAS_BEEN_LOADED =  "No module has been loaded!";
+    private static final String UNKNOWN_MODE = "Mode %s is unknown (expected one of: %s)!";
     private final Map<String,SibillaModule> moduleIndex = new TreeMap<>();
     private SibillaModule currentModule;
     private final Map<String, Map<String,double[][]>> simulations = new TreeMap<>();
     private Map<String,double[][]> lastSimulation;
-    private final RandomGenerator rg = new DefaultRandomGenerator();
+    private final RandomGenerator rg = new SplittableRandomGenerator();
     private long replica = 1;
     private double deadline = Double.NaN;
     private double dt = Double.NaN;
@@ -407,7 +409,8 @@ public final class SibillaRuntime {
      *
      * @return the module modes.
      */
-    public String[] getModes() {
+    public String[] getModes() throws CommandExecutionException {
+        checkLoadedModule();
         return currentModule.getModes();
     }
 
@@ -416,7 +419,11 @@ public final class SibillaRuntime {
      *
      * @param name mode name.
      */
-    public void setMode(String name) {
+    public void setMode(String name) throws CommandExecutionException {
+        checkLoadedModule();
+        if (Arrays.stream(currentModule.getModes()).noneMatch(name::equals)) {
+            throw new CommandExecutionException(String.format(UNKNOWN_MODE, name, String.join(", ", currentModule.getModes())));
+        }
         currentModule.setMode(name);
     }
 
@@ -425,7 +432,8 @@ public final class SibillaRuntime {
      *
      * @return the current module mode.
      */
-    public String getMode() {
+    public String getMode() throws CommandExecutionException {
+        checkLoadedModule();
         return currentModule.getMode();
     }
 
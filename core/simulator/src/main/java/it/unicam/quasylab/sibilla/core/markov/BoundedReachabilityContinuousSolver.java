@@ -23,21 +23,21 @@
 
 package it.unicam.quasylab.sibilla.core.markov;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
-
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
+ * Computes, for each state of a continuous time Markov chain, the probability of reaching a goal state within
+ * a given time while only traversing states satisfying a condition. Iterates of the uniformised matrix are
+ * computed backward on a {@link SparseMatrix}; when several time points are requested, they are computed once
+ * and shared.
+ *
  * @author loreti
  * @param <S>
  *
@@ -47,9 +47,8 @@ public class BoundedReachabilityContinuousSolver<S> {
 	private final Predicate<S> condition;
 	private final Predicate<S> goal;
 	private final ContinuousTimeMarkovChain<S> chain;
-	private RealMatrix matrix;
-	private RealVector p0;
-	private LinkedList<RealVector> vectorResults;
+	private SparseUniformisation uniformisation;
+	private double[] p0;
 	private Set<S> yesNodes;
 	private Set<S> computingNodes;
 	private Map<S, Integer> index;
@@ -74,66 +73,63 @@ public class BoundedReachabilityContinuousSolver<S> {
 	}
 
 
-	private RealVector buildRealVector() {
-		return MarkovChain.generateVector(ArrayRealVector::new, index, s -> (yesNodes.contains(s)?1.0:0.0));
+	private double[] buildVector() {
+		double[] v = new double[index.size()];
+		yesNodes.forEach(s -> v[index.get(s)] = 1.0);
+		return v;
 	}
 
-	private RealMatrix buidProbabilityMatrix(  ) {
-		return MarkovChain.generateMatrix(i -> MatrixUtils.createRealMatrix(i, i), 
-				s -> {			
+	private SparseMatrix buidProbabilityMatrix(  ) {
+		return SparseMatrix.of(index,
+				s -> {
 					if (yesNodes.contains(s)) {
 						HashMap<S,Double> unitRow = new HashMap<>();
 						unitRow.put(s, 1.0);
-						return unitRow.entrySet().stream();
+						return unitRow;
 					} else {
 						return chain.uniformisedMatrixRow(s)
-								.entrySet().stream() 
-								.filter(p -> computingNodes.contains(p.getKey())||yesNodes.contains(p.getKey()));
+								.entrySet().stream()
+								.filter(p -> computingNodes.contains(p.getKey())||yesNodes.contains(p.getKey()))
+								.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 					}
-		
-				},
-				index);
+				});
 	}
 	
 	public Map<S,Double> compute(double t) {
-		if (vectorResults == null) {
-			computeReachabilitySets();
-			computeStateIndex();
-			matrix = buidProbabilityMatrix( ).transpose();
-			p0 = buildRealVector( );
-			vectorResults = new LinkedList<>();
-			vectorResults.add(p0);
-		}
-		FoxGlynn fg = (t>0?FoxGlynn.compute(chain.getMaxRate()*t, epsilon):null);
-		if (fg != null) {
-			generateSteps(fg.rightPoint());			
-		}
-		return generateMap( fg );
+		init();
+		return generateMap(uniformisation.compute(p0, t));
 	}
 
-
-	private Map<S, Double> generateMap( FoxGlynn fg ) {
-		HashMap<S,Double> toReturn = new HashMap<>();
-		yesNodes.forEach(s -> toReturn.put(s, 1.0));
-		if (fg!=null) {
-			RealVector v = sum(fg);
-			index.forEach((s,i) -> toReturn.put(s, v.getEntry(i)));
+	/**
+	 * Returns the reachability probabilities for each of the given time bounds. Uniformisation iterates are
+	 * computed once, up to the Fox-Glynn right point of the largest bound, and are shared by all the bounds.
+	 *
+	 * @param times time bounds.
+	 * @return the list whose i-th element contains the reachability probabilities within time <code>times[i]</code>.
+	 */
+	public List<Map<S,Double>> compute(double[] times) {
+		init();
+		List<Map<S,Double>> toReturn = new ArrayList<>(times.length);
+		for (double[] v: uniformisation.compute(p0, times)) {
+			toReturn.add(generateMap(v));
 		}
 		return toReturn;
 	}
 
-
-	private RealVector sum(FoxGlynn fg ) {
-		return IntStream.range(fg.leftPoint(), fg.rightPoint()).boxed()
-				.map(i -> vectorResults.get(i).mapMultiply(fg.weight(i)/fg.totalWeight()))
-				.reduce(new ArrayRealVector(index.size()), (v1,v2) -> v1.add(v2));
+	private void init() {
+		if (uniformisation == null) {
+			computeReachabilitySets();
+			computeStateIndex();
+			uniformisation = SparseUniformisation.backward(buidProbabilityMatrix(), chain.getMaxRate(), epsilon);
+			p0 = buildVector();
+		}
 	}
 
 
-	private void generateSteps(int k) {
-		while (vectorResults.size()<k) {
-			vectorResults.add(matrix.preMultiply(vectorResults.getLast()));
-		}
+	private Map<S, Double> generateMap( double[] v ) {
+		HashMap<S,Double> toReturn = new HashMap<>();
+		index.forEach((s,i) -> toReturn.put(s, v[i]));
+		return toReturn;
 	}
 
 
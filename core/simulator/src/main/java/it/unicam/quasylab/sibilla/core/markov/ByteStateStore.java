@@ -0,0 +1,293 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.Model;
+import it.unicam.quasylab.sibilla.core.models.State;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An exact state store where each state is encoded in a byte array of fixed length. Encoded states are packed
+ * in segments allocated outside of the heap, and ids are retrieved via an open addressing hash table that is
+ * also allocated outside of the heap. When a file is provided, segments and table are mapped in the file so
+ * that the operating system can move them to disk when memory is exhausted. Regions used by a table that has
+ * been resized are not reclaimed until the store is closed.
+ *
+ * @param <S> type of states.
+ */
+public final class ByteStateStore<S> implements StateStore<S> {
+
+    private static final int SEGMENT_SIZE = 1 << 26;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 28;
+
+    private final Function<S, byte[]> encoder;
+    private final Function<byte[], S> decoder;
+    private final FileChannel channel;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private long fileSize;
+    private int keySize = -1;
+    private int keysPerSegment;
+    private IntBuffer table;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates a store whose data are allocated in direct memory.
+     *
+     * @param encoder function used to encode states.
+     * @param decoder function used to decode states.
+     */
+    public ByteStateStore(Function<S, byte[]> encoder, Function<byte[], S> decoder) {
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.channel = null;
+        allocateTable(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a store whose data are mapped in the given file. The file is truncated if it exists.
+     *
+     * @param encoder function used to encode states.
+     * @param decoder function used to decode states.
+     * @param file file where data are stored.
+     * @throws IOException if an I/O error occurs while opening the file.
+     */
+    public ByteStateStore(Function<S, byte[]> encoder, Function<byte[], S> decoder, Path file) throws IOException {
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        allocateTable(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns a store that encodes states with the methods {@link Model#byteOf(State)} and
+     * {@link Model#fromByte(byte[])} of the given model.
+     *
+     * @param model a model.
+     * @param <S> type of states.
+     * @return a store that encodes states with the given model.
+     */
+    public static <S extends State> ByteStateStore<S> of(Model<S> model) {
+        return new ByteStateStore<>(encoderOf(model), decoderOf(model));
+    }
+
+    /**
+     * Returns a store that encodes states with the methods {@link Model#byteOf(State)} and
+     * {@link Model#fromByte(byte[])} of the given model and whose data are mapped in the given file.
+     *
+     * @param model a model.
+     * @param file file where data are stored.
+     * @param <S> type of states.
+     * @return a store that encodes states with the given model.
+     * @throws IOException if an I/O error occurs while opening the file.
+     */
+    public static <S extends State> ByteStateStore<S> of(Model<S> model, Path file) throws IOException {
+        return new ByteStateStore<>(encoderOf(model), decoderOf(model), file);
+    }
+
+    static <S extends State> Function<S, byte[]> encoderOf(Model<S> model) {
+        return s -> {
+            try {
+                return model.byteOf(s);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static <S extends State> Function<byte[], S> decoderOf(Model<S> model) {
+        return bytes -> {
+            try {
+                return model.fromByte(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Returns a 64 bits hash of the given byte array.
+     */
+    static long hash(byte[] key) {
+        long h = 0x9e3779b97f4a7c15L ^ key.length;
+        int i = 0;
+        for (; i + 8 <= key.length; i += 8) {
+            long word = 0;
+            for (int j = 0; j < 8; j++) {
+                word = (word << 8) | (key[i + j] & 0xff);
+            }
+            h = mix64(h ^ word) + 0x9e3779b97f4a7c15L;
+        }
+        long word = 0;
+        for (; i < key.length; i++) {
+            word = (word << 8) | (key[i] & 0xff);
+        }
+        return mix64(h ^ word);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public int add(S state) {
+        byte[] key = encode(state);
+        int slot = find(key);
+        int id = table.get(slot) - 1;
+        if (id >= 0) {
+            return -id - 1;
+        }
+        id = size++;
+        writeKey(id, key);
+        table.put(slot, id + 1);
+        if (4L * size > 3L * table.capacity()) {
+            allocateTable(table.capacity() * 2);
+        }
+        return id;
+    }
+
+    @Override
+    public int indexOf(S state) {
+        byte[] key = encode(state);
+        if (key.length != keySize) {
+            return -1;
+        }
+        return table.get(find(key)) - 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public S get(int i) {
+        if ((i < 0) || (i >= size)) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return decoder.apply(readKey(i));
+    }
+
+    @Override
+    public void close() throws IOException {
+        segments.clear();
+        table = null;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private byte[] encode(S state) {
+        byte[] key = encoder.apply(state);
+        if (keySize < 0) {
+            keySize = key.length;
+            keysPerSegment = (keySize > 0 ? Math.max(1, SEGMENT_SIZE / keySize) : 0);
+        }
+        if ((key.length == 0) || (key.length != keySize)) {
+            throw new IllegalArgumentException(String.format("States must be encoded with %d bytes, got %d.", Math.max(1, keySize), key.length));
+        }
+        return key;
+    }
+
+    private int find(byte[] key) {
+        int slot = (int) hash(key) & mask;
+        while (true) {
+            int id = table.get(slot) - 1;
+            if ((id < 0) || sameKey(id, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean sameKey(int id, byte[] key) {
+        ByteBuffer segment = segments.get(id / keysPerSegment);
+        int offset = (id % keysPerSegment) * keySize;
+        for (int j = 0; j < key.length; j++) {
+            if (segment.get(offset + j) != key[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeKey(int id, byte[] key) {
+        int segment = id / keysPerSegment;
+        if (segment == segments.size()) {
+            segments.add(allocate(keysPerSegment * keySize));
+        }
+        segments.get(segment).put((id % keysPerSegment) * keySize, key);
+    }
+
+    private byte[] readKey(int id) {
+        byte[] key = new byte[keySize];
+        segments.get(id / keysPerSegment).get((id % keysPerSegment) * keySize, key);
+        return key;
+    }
+
+    private void allocateTable(int capacity) {
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException(String.format("The store cannot hold more than %d states.", MAXIMUM_CAPACITY / 4 * 3));
+        }
+        table = allocate(capacity * Integer.BYTES).asIntBuffer();
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            byte[] key = readKey(id);
+            int slot = (int) hash(key) & mask;
+            while (table.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.put(slot, id + 1);
+        }
+    }
+
+    private ByteBuffer allocate(int bytes) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(bytes);
+        }
+        try {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, bytes);
+            fileSize += bytes;
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
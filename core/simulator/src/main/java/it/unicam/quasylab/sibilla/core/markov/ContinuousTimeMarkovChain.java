@@ -63,6 +63,22 @@ public class ContinuousTimeMarkovChain<S> extends MarkovChain<S> {
 		return uniformisedRow;
 	}
 
+	/**
+	 * Returns the uniformised matrix of this chain in compressed sparse row format. The uniformisation rate is
+	 * the maximal exit rate of the chain.
+	 *
+	 * @param index map associating each state with a row/column of the matrix.
+	 * @return the uniformised matrix of this chain in compressed sparse row format.
+	 */
+	public SparseMatrix getUniformisedMatrix(Map<S,Integer> index) {
+		SparseMatrix rates = getRateMatrix(index);
+		double[] diagonal = new double[rates.size()];
+		for (int i = 0; i < diagonal.length; i++) {
+			diagonal[i] = (maxExitRate > 0 ? 1 - rates.sumOfRow(i) / maxExitRate : 1.0);
+		}
+		return rates.scaleAndAddDiagonal((maxExitRate > 0 ? 1 / maxExitRate : 0.0), diagonal);
+	}
+
 	public Stream<Pair<S, Double>> rateMatrixRow(S s) {
 		return getRow(s).entrySet().stream().map(Pair::new);
 	}
@@ -0,0 +1,168 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.Model;
+import it.unicam.quasylab.sibilla.core.models.State;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.function.Function;
+
+/**
+ * An approximate state store where each state is only represented by a 64 bits signature of its byte
+ * encoding. Signatures and ids are stored in an open addressing hash table allocated outside of the heap, hence
+ * each state occupies 16 bytes at most. Two different states with the same signature are identified: the
+ * probability that this happened is returned by {@link #collisionProbability()}. States cannot be retrieved from
+ * their ids.
+ *
+ * @param <S> type of states.
+ */
+public final class HashCompactionStateStore<S> implements StateStore<S> {
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 27;
+
+    private final Function<S, byte[]> encoder;
+    private LongBuffer signatures;
+    private IntBuffer ids;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates a store computing signatures of the given encoding of states.
+     *
+     * @param encoder function used to encode states.
+     */
+    public HashCompactionStateStore(Function<S, byte[]> encoder) {
+        this.encoder = encoder;
+        allocateTable(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns a store computing signatures of the encoding of states given by {@link Model#byteOf(State)}.
+     *
+     * @param model a model.
+     * @param <S> type of states.
+     * @return a store computing signatures of the states of the given model.
+     */
+    public static <S extends State> HashCompactionStateStore<S> of(Model<S> model) {
+        return new HashCompactionStateStore<>(ByteStateStore.encoderOf(model));
+    }
+
+    @Override
+    public int add(S state) {
+        long signature = signatureOf(state);
+        int slot = find(signature);
+        if (signatures.get(slot) == signature) {
+            return -ids.get(slot) - 1;
+        }
+        int id = size++;
+        signatures.put(slot, signature);
+        ids.put(slot, id);
+        if (4L * size > 3L * signatures.capacity()) {
+            allocateTable(signatures.capacity() * 2);
+        }
+        return id;
+    }
+
+    @Override
+    public int indexOf(S state) {
+        long signature = signatureOf(state);
+        int slot = find(signature);
+        return (signatures.get(slot) == signature ? ids.get(slot) : -1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean retainsStates() {
+        return false;
+    }
+
+    @Override
+    public S get(int i) {
+        throw new UnsupportedOperationException("A hash compacted store only keeps state signatures: states cannot be retrieved from their ids.");
+    }
+
+    /**
+     * Returns the probability that at least two of the states added to this store have the same signature,
+     * computed as <code>1-exp(-n(n-1)/2^65)</code> where <code>n</code> is the number of states in the store.
+     *
+     * @return the probability that two different states have been identified by this store.
+     */
+    @Override
+    public double collisionProbability() {
+        return -Math.expm1(-((double) size) * (size - 1) / 0x1.0p65);
+    }
+
+    @Override
+    public void close() {
+        signatures = null;
+        ids = null;
+    }
+
+    private long signatureOf(S state) {
+        long signature = ByteStateStore.hash(encoder.apply(state));
+        return (signature == 0 ? 1 : signature);
+    }
+
+    private int find(long signature) {
+        int slot = (int) (signature >>> 32) & mask;
+        while (true) {
+            long current = signatures.get(slot);
+            if ((current == 0) || (current == signature)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException(String.format("The store cannot hold more than %d states.", MAXIMUM_CAPACITY / 4 * 3));
+        }
+        LongBuffer oldSignatures = signatures;
+        IntBuffer oldIds = ids;
+        signatures = ByteBuffer.allocateDirect(capacity * Long.BYTES).asLongBuffer();
+        ids = ByteBuffer.allocateDirect(capacity * Integer.BYTES).asIntBuffer();
+        mask = capacity - 1;
+        if (oldSignatures != null) {
+            for (int slot = 0; slot < oldSignatures.capacity(); slot++) {
+                long signature = oldSignatures.get(slot);
+                if (signature != 0) {
+                    int newSlot = find(signature);
+                    signatures.put(newSlot, signature);
+                    ids.put(newSlot, oldIds.get(slot));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A state store keeping states in a hash map on the heap.
+ *
+ * @param <S> type of states.
+ */
+public final class HeapStateStore<S> implements StateStore<S> {
+
+    private final List<S> states;
+    private final Map<S, Integer> index;
+
+    /**
+     * Creates an empty store.
+     */
+    public HeapStateStore() {
+        this(new ArrayList<>(), new HashMap<>());
+    }
+
+    /**
+     * Creates a store containing the given states.
+     *
+     * @param states list of states, the i-th element is the state with id i.
+     * @param index map associating each state with its id.
+     */
+    public HeapStateStore(List<S> states, Map<S, Integer> index) {
+        if (states.size() != index.size()) {
+            throw new IllegalArgumentException(String.format("The store has %d states but its index has %d entries.", states.size(), index.size()));
+        }
+        this.states = states;
+        this.index = index;
+    }
+
+    @Override
+    public int add(S state) {
+        Integer id = index.putIfAbsent(state, states.size());
+        if (id != null) {
+            return -id - 1;
+        }
+        states.add(state);
+        return states.size() - 1;
+    }
+
+    @Override
+    public int indexOf(S state) {
+        return index.getOrDefault(state, -1);
+    }
+
+    @Override
+    public int size() {
+        return states.size();
+    }
+
+    @Override
+    public S get(int i) {
+        return states.get(i);
+    }
+
+}
@@ -115,6 +115,26 @@ public  abstract class MarkovChain<S> {
 		return markovChain;
 	}
 
+	/**
+	 * Generates the chain reachable from the given state. When <code>parallel</code> is true, states are explored
+	 * level by level on the common pool by a {@link StateSpaceExplorer} and the resulting rows are then added to the
+	 * chain provided by the builder. In this case the step function must be thread safe.
+	 *
+	 * @param builder supplier of an empty chain.
+	 * @param init initial state.
+	 * @param stepFunction function associating each state with the weights of its successors.
+	 * @param parallel true if successors are computed in parallel.
+	 * @param <S> type of states.
+	 * @param <M> type of the resulting chain.
+	 * @return the chain reachable from the given state.
+	 */
+	public static <S, M extends MarkovChain<S>> M generateMarkovChain(  Supplier<M> builder, S init , Function<S,Map<S,Double>> stepFunction, boolean parallel ) {
+		if (!parallel) {
+			return generateMarkovChain(builder, init, stepFunction);
+		}
+		return new StateSpaceExplorer<>(stepFunction).explore(init).toMarkovChain(builder);
+	}
+
 	
 	public Set<S> reachSet(Predicate<S> condition, Set<S> nodes) {
 		HashSet<S> toReturn = new HashSet<>();
@@ -207,6 +227,16 @@ public  abstract class MarkovChain<S> {
 		return rv;
 	}
 	
+	/**
+	 * Returns the rate matrix of this chain in compressed sparse row format.
+	 *
+	 * @param index map associating each state with a row/column of the matrix.
+	 * @return the rate matrix of this chain in compressed sparse row format.
+	 */
+	public SparseMatrix getRateMatrix(Map<S,Integer> index) {
+		return SparseMatrix.of(index, matrixR::get);
+	}
+
 	public Set<S> next(S s) {
 		return matrixR.get(s).keySet();
 	}
@@ -0,0 +1,227 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A continuous time Markov chain whose states are identified by integers and whose rates are stored in a
+ * {@link SparseMatrix}. States and their ids are kept in a {@link StateStore}. Instances of this class are
+ * obtained via {@link StateSpaceExplorer} or from a {@link MarkovChain}.
+ *
+ * @param <S> type of states.
+ */
+public final class SparseMarkovChain<S> {
+
+    private final StateStore<S> states;
+    private final SparseMatrix rates;
+    private final double[] exitRates;
+    private final double maxExitRate;
+
+    /**
+     * Creates a new chain.
+     *
+     * @param states list of states, the i-th element is the state with id i.
+     * @param index map associating each state with its id.
+     * @param rates the rate matrix.
+     */
+    public SparseMarkovChain(List<S> states, Map<S, Integer> index, SparseMatrix rates) {
+        this(new HeapStateStore<>(states, index), rates);
+    }
+
+    /**
+     * Creates a new chain whose states are kept in the given store.
+     *
+     * @param states store containing the states of the chain.
+     * @param rates the rate matrix.
+     */
+    public SparseMarkovChain(StateStore<S> states, SparseMatrix rates) {
+        if (states.size() != rates.size()) {
+            throw new IllegalArgumentException(String.format("The store contains %d states while the rate matrix has %d rows.", states.size(), rates.size()));
+        }
+        this.states = states;
+        this.rates = rates;
+        this.exitRates = new double[states.size()];
+        double max = 0.0;
+        for (int i = 0; i < exitRates.length; i++) {
+            exitRates[i] = rates.sumOfRow(i);
+            max = Math.max(max, exitRates[i]);
+        }
+        this.maxExitRate = max;
+    }
+
+    /**
+     * Returns the sparse representation of the given chain.
+     *
+     * @param chain a Markov chain.
+     * @param <S> type of states.
+     * @return the sparse representation of the given chain.
+     */
+    public static <S> SparseMarkovChain<S> of(MarkovChain<S> chain) {
+        List<S> states = new ArrayList<>(chain.getStates());
+        Map<S, Integer> index = new HashMap<>();
+        for (int i = 0; i < states.size(); i++) {
+            index.put(states.get(i), i);
+        }
+        return new SparseMarkovChain<>(states, index, chain.getRateMatrix(index));
+    }
+
+    /**
+     * Returns the number of states in this chain.
+     *
+     * @return the number of states in this chain.
+     */
+    public int numberOfStates() {
+        return states.size();
+    }
+
+    /**
+     * Returns the state with the given id.
+     *
+     * @param i state id.
+     * @return the state with the given id.
+     * @throws UnsupportedOperationException if the store of this chain does not retain states.
+     */
+    public S getState(int i) {
+        checkStatesAreRetained();
+        return states.get(i);
+    }
+
+    /**
+     * Returns true if the states of this chain can be retrieved from their ids. When this is not the case, only
+     * methods working on state ids can be used.
+     *
+     * @return true if the states of this chain can be retrieved from their ids.
+     */
+    public boolean retainsStates() {
+        return states.retainsStates();
+    }
+
+    /**
+     * Throws an {@link UnsupportedOperationException} if the states of this chain cannot be retrieved from their
+     * ids.
+     */
+    void checkStatesAreRetained() {
+        if (!states.retainsStates()) {
+            throw new UnsupportedOperationException("The states of this chain are not retained: use methods working on state ids.");
+        }
+    }
+
+    /**
+     * Returns the id of the given state or -1 if the state is not in this chain.
+     *
+     * @param s a state.
+     * @return the id of the given state or -1 if the state is not in this chain.
+     */
+    public int indexOf(S s) {
+        return states.indexOf(s);
+    }
+
+    /**
+     * Returns the store containing the states of this chain.
+     *
+     * @return the store containing the states of this chain.
+     */
+    public StateStore<S> getStateStore() {
+        return states;
+    }
+
+    /**
+     * Returns the rate matrix of this chain.
+     *
+     * @return the rate matrix of this chain.
+     */
+    public SparseMatrix getRateMatrix() {
+        return rates;
+    }
+
+    /**
+     * Returns the exit rate of the state with the given id.
+     *
+     * @param i state id.
+     * @return the exit rate of the state with the given id.
+     */
+    public double getExitRate(int i) {
+        return exitRates[i];
+    }
+
+    /**
+     * Returns the maximal exit rate of this chain.
+     *
+     * @return the maximal exit rate of this chain.
+     */
+    public double getMaxExitRate() {
+        return maxExitRate;
+    }
+
+    /**
+     * Returns the uniformised matrix of this chain, where the uniformisation rate is the maximal exit rate.
+     *
+     * @return the uniformised matrix of this chain.
+     */
+    public SparseMatrix getUniformisedMatrix() {
+        double[] diagonal = new double[exitRates.length];
+        for (int i = 0; i < diagonal.length; i++) {
+            diagonal[i] = (maxExitRate > 0 ? 1 - exitRates[i] / maxExitRate : 1.0);
+        }
+        return rates.scaleAndAddDiagonal((maxExitRate > 0 ? 1 / maxExitRate : 0.0), diagonal);
+    }
+
+    /**
+     * Returns this chain as a {@link ContinuousTimeMarkovChain}.
+     *
+     * @return this chain as a {@link ContinuousTimeMarkovChain}.
+     * @throws UnsupportedOperationException if the store of this chain does not retain states.
+     */
+    public ContinuousTimeMarkovChain<S> toContinuousTimeMarkovChain() {
+        return toMarkovChain(ContinuousTimeMarkovChain::new);
+    }
+
+    /**
+     * Adds the rows of this chain to the chain provided by the given builder.
+     *
+     * @param builder supplier of an empty chain.
+     * @param <M> type of the resulting chain.
+     * @return the chain provided by the builder, containing the rows of this chain.
+     * @throws UnsupportedOperationException if the store of this chain does not retain states.
+     */
+    public <M extends MarkovChain<S>> M toMarkovChain(Supplier<M> builder) {
+        checkStatesAreRetained();
+        M chain = builder.get();
+        for (int i = 0; i < states.size(); i++) {
+            Map<S, Double> row = new HashMap<>();
+            for (int k = rates.rowStart(i); k < rates.rowEnd(i); k++) {
+                row.put(states.get(rates.columnAt(k)), rates.valueAt(k));
+            }
+            chain.add(states.get(i), row);
+        }
+        return chain;
+    }
+
+}
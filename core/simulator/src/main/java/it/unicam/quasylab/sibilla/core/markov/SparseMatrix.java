@@ -0,0 +1,287 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * A square matrix stored in compressed sparse row format. Non-zero entries of row <code>i</code> are stored in
+ * positions <code>rowPointers[i] ... rowPointers[i+1]-1</code> of arrays <code>columns</code> and
+ * <code>values</code>. Memory used by instances of this class is proportional to the number of non-zero entries.
+ */
+public final class SparseMatrix {
+
+    private static final int PARALLEL_THRESHOLD = 10000;
+
+    private final int size;
+    private final int[] rowPointers;
+    private final int[] columns;
+    private final double[] values;
+
+    SparseMatrix(int size, int[] rowPointers, int[] columns, double[] values) {
+        this.size = size;
+        this.rowPointers = rowPointers;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Returns the sparse matrix whose rows are obtained by applying the given function to the elements of the
+     * given index. Entries whose key is not in the index are ignored.
+     *
+     * @param index map associating each element with a row/column of the matrix.
+     * @param rowFunction function returning the non-zero entries of the row associated with an element.
+     * @param <S> type of indexed elements.
+     * @return the sparse matrix whose rows are obtained by applying the given function to the elements of the
+     * given index.
+     */
+    public static <S> SparseMatrix of(Map<S, Integer> index, Function<S, Map<S, Double>> rowFunction) {
+        int size = index.size();
+        Map<S, Double>[] rows = rowsOf(index, rowFunction);
+        int[] rowPointers = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            rowPointers[i + 1] = rowPointers[i] + rows[i].size();
+        }
+        int[] columns = new int[rowPointers[size]];
+        double[] values = new double[rowPointers[size]];
+        for (int i = 0; i < size; i++) {
+            int position = rowPointers[i];
+            for (Map.Entry<S, Double> e : rows[i].entrySet()) {
+                Integer j = index.get(e.getKey());
+                if (j != null) {
+                    columns[position] = j;
+                    values[position] = e.getValue();
+                    position++;
+                }
+            }
+            rowPointers[i + 1] = position;
+        }
+        return new SparseMatrix(size, rowPointers, columns, values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> Map<S, Double>[] rowsOf(Map<S, Integer> index, Function<S, Map<S, Double>> rowFunction) {
+        Map<S, Double>[] rows = new Map[index.size()];
+        index.forEach((s, i) -> rows[i] = rowFunction.apply(s));
+        return rows;
+    }
+
+    /**
+     * Returns the number of rows (and columns) of this matrix.
+     *
+     * @return the number of rows (and columns) of this matrix.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of entries stored in this matrix.
+     *
+     * @return the number of entries stored in this matrix.
+     */
+    public int numberOfEntries() {
+        return rowPointers[size];
+    }
+
+    /**
+     * Returns the position of the first entry of the given row. Entries of row <code>i</code> are stored in
+     * positions from <code>rowStart(i)</code> (included) to <code>rowEnd(i)</code> (excluded).
+     *
+     * @param i row index.
+     * @return the position of the first entry of the given row.
+     */
+    public int rowStart(int i) {
+        return rowPointers[i];
+    }
+
+    /**
+     * Returns the position following the last entry of the given row.
+     *
+     * @param i row index.
+     * @return the position following the last entry of the given row.
+     */
+    public int rowEnd(int i) {
+        return rowPointers[i + 1];
+    }
+
+    /**
+     * Returns the column of the entry stored at the given position.
+     *
+     * @param k entry position.
+     * @return the column of the entry stored at the given position.
+     */
+    public int columnAt(int k) {
+        return columns[k];
+    }
+
+    /**
+     * Returns the value of the entry stored at the given position.
+     *
+     * @param k entry position.
+     * @return the value of the entry stored at the given position.
+     */
+    public double valueAt(int k) {
+        return values[k];
+    }
+
+    /**
+     * Returns the value at the given position.
+     *
+     * @param i row index.
+     * @param j column index.
+     * @return the value at the given position.
+     */
+    public double get(int i, int j) {
+        double value = 0.0;
+        for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+            if (columns[k] == j) {
+                value += values[k];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the sum of the entries in the given row.
+     *
+     * @param i row index.
+     * @return the sum of the entries in the given row.
+     */
+    public double sumOfRow(int i) {
+        double sum = 0.0;
+        for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+            sum += values[k];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the transpose of this matrix.
+     *
+     * @return the transpose of this matrix.
+     */
+    public SparseMatrix transpose() {
+        int entries = numberOfEntries();
+        int[] tRowPointers = new int[size + 1];
+        for (int k = 0; k < entries; k++) {
+            tRowPointers[columns[k] + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            tRowPointers[i + 1] += tRowPointers[i];
+        }
+        int[] next = Arrays.copyOf(tRowPointers, size);
+        int[] tColumns = new int[entries];
+        double[] tValues = new double[entries];
+        for (int i = 0; i < size; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                int position = next[columns[k]]++;
+                tColumns[position] = i;
+                tValues[position] = values[k];
+            }
+        }
+        return new SparseMatrix(size, tRowPointers, tColumns, tValues);
+    }
+
+    /**
+     * Returns the matrix obtained from this one by multiplying all its entries by <code>factor</code> and by
+     * adding <code>diagonal[i]</code> to each entry <code>(i,i)</code>.
+     *
+     * @param factor the factor used to multiply the entries of this matrix.
+     * @param diagonal the values to add on the diagonal.
+     * @return the matrix obtained from this one by scaling its entries and by adding the given diagonal.
+     */
+    public SparseMatrix scaleAndAddDiagonal(double factor, double[] diagonal) {
+        int[] newRowPointers = new int[size + 1];
+        int[] newColumns = new int[numberOfEntries() + size];
+        double[] newValues = new double[numberOfEntries() + size];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            boolean onDiagonal = false;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                newColumns[position] = columns[k];
+                newValues[position] = values[k] * factor;
+                if (columns[k] == i) {
+                    newValues[position] += diagonal[i];
+                    onDiagonal = true;
+                }
+                position++;
+            }
+            if (!onDiagonal && (diagonal[i] != 0.0)) {
+                newColumns[position] = i;
+                newValues[position] = diagonal[i];
+                position++;
+            }
+            newRowPointers[i + 1] = position;
+        }
+        return new SparseMatrix(size, newRowPointers, Arrays.copyOf(newColumns, position), Arrays.copyOf(newValues, position));
+    }
+
+    /**
+     * Stores in <code>result</code> the product of this matrix with the column vector <code>v</code>. Rows are
+     * processed in parallel when the matrix is large.
+     *
+     * @param v a vector.
+     * @param result the array where the result is stored.
+     */
+    public void multiply(double[] v, double[] result) {
+        if (size >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, size).parallel().forEach(i -> result[i] = multiplyRow(i, v));
+        } else {
+            for (int i = 0; i < size; i++) {
+                result[i] = multiplyRow(i, v);
+            }
+        }
+    }
+
+    private double multiplyRow(int i, double[] v) {
+        double sum = 0.0;
+        for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+            sum += values[k] * v[columns[k]];
+        }
+        return sum;
+    }
+
+    /**
+     * Stores in <code>result</code> the product of the row vector <code>v</code> with this matrix.
+     *
+     * @param v a vector.
+     * @param result the array where the result is stored.
+     */
+    public void preMultiply(double[] v, double[] result) {
+        Arrays.fill(result, 0.0);
+        for (int i = 0; i < size; i++) {
+            if (v[i] != 0.0) {
+                for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                    result[columns[k]] += v[i] * values[k];
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.Arrays;
+
+/**
+ * Computes transient probabilities of a continuous time Markov chain via uniformisation. The uniformised
+ * matrix is stored in a {@link SparseMatrix} and Fox-Glynn weights are used to truncate the Poisson
+ * distribution. Probabilities at several time points are obtained from a single sequence of iterates, whose
+ * length is the largest Fox-Glynn right point; only the iterates needed to compute the next one are kept in
+ * memory.
+ */
+public final class SparseUniformisation {
+
+    private final SparseMatrix iteration;
+    private final double rate;
+    private final double epsilon;
+
+    /**
+     * Creates a new instance for the given uniformised matrix. Vectors passed to the <code>compute</code> methods
+     * are probability distributions that are propagated forward in time.
+     *
+     * @param uniformised the (stochastic) uniformised matrix.
+     * @param rate the uniformisation rate.
+     * @param epsilon the maximal error of the Fox-Glynn approximation.
+     */
+    public SparseUniformisation(SparseMatrix uniformised, double rate, double epsilon) {
+        this(rate, epsilon, uniformised.transpose());
+    }
+
+    private SparseUniformisation(double rate, double epsilon, SparseMatrix iteration) {
+        this.iteration = iteration;
+        this.rate = rate;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Returns an instance where vectors passed to the <code>compute</code> methods are functions on states that
+     * are propagated backward in time. This is used to compute, for each state, the probability of reaching a
+     * set of goal states within a given time.
+     *
+     * @param uniformised the (stochastic) uniformised matrix.
+     * @param rate the uniformisation rate.
+     * @param epsilon the maximal error of the Fox-Glynn approximation.
+     * @return an instance computing backward iterates of the uniformised matrix.
+     */
+    public static SparseUniformisation backward(SparseMatrix uniformised, double rate, double epsilon) {
+        return new SparseUniformisation(rate, epsilon, uniformised);
+    }
+
+    /**
+     * Returns the probability distribution at time <code>t</code> starting from the given distribution.
+     *
+     * @param initial initial probability distribution.
+     * @param t time.
+     * @return the probability distribution at time <code>t</code>.
+     */
+    public double[] compute(double[] initial, double t) {
+        return compute(initial, new double[] { t })[0];
+    }
+
+    /**
+     * Returns the probability distributions at the given time points starting from the given distribution. The
+     * i-th element of the result is the distribution at time <code>times[i]</code>.
+     *
+     * @param initial initial probability distribution.
+     * @param times time points.
+     * @return the probability distributions at the given time points.
+     */
+    public double[][] compute(double[] initial, double[] times) {
+        double[][] result = new double[times.length][];
+        FoxGlynn[] weights = new FoxGlynn[times.length];
+        int rightPoint = 0;
+        for (int j = 0; j < times.length; j++) {
+            if ((times[j] <= 0) || (rate == 0.0)) {
+                result[j] = Arrays.copyOf(initial, initial.length);
+            } else {
+                weights[j] = FoxGlynn.compute(rate * times[j], epsilon);
+                result[j] = new double[initial.length];
+                rightPoint = Math.max(rightPoint, weights[j].rightPoint());
+            }
+        }
+        double[] current = Arrays.copyOf(initial, initial.length);
+        double[] next = new double[initial.length];
+        for (int k = 0; k <= rightPoint; k++) {
+            for (int j = 0; j < times.length; j++) {
+                FoxGlynn fg = weights[j];
+                if ((fg != null) && (k >= fg.leftPoint()) && (k <= fg.rightPoint())) {
+                    addTo(result[j], current, fg.weight(k) / fg.totalWeight());
+                }
+            }
+            if (k < rightPoint) {
+                iteration.multiply(current, next);
+                double[] swap = current;
+                current = next;
+                next = swap;
+            }
+        }
+        return result;
+    }
+
+    private static void addTo(double[] result, double[] v, double weight) {
+        for (int i = 0; i < result.length; i++) {
+            result[i] += weight * v[i];
+        }
+    }
+
+}
@@ -0,0 +1,341 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.models.ImmutableState;
+import it.unicam.quasylab.sibilla.core.models.StepFunction;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedElement;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Generates the state space of a continuous time Markov chain by a level synchronous breadth first visit.
+ * States of each level are split in tasks that are expanded in parallel: newly discovered states are assigned an
+ * integer id via a concurrent index, or via a {@link StateStore}, while each task collects its transitions in a
+ * primitive buffer. Buffers are merged at the end of each level and finally converted to a {@link SparseMatrix}.
+ * When states are indexed on the heap they must provide consistent <code>equals</code> and <code>hashCode</code>
+ * methods. {@link MarkovChain#generateMarkovChain} uses this class when parallel generation is requested.
+ *
+ * @param <S> type of states.
+ */
+public final class StateSpaceExplorer<S> {
+
+    private static final int MINIMUM_TASK_SIZE = 16;
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final Function<S, Map<S, Double>> successors;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an explorer that uses the common fork join pool.
+     *
+     * @param successors function associating each state with the rates of its successors.
+     */
+    public StateSpaceExplorer(Function<S, Map<S, Double>> successors) {
+        this(successors, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an explorer that uses the given pool.
+     *
+     * @param successors function associating each state with the rates of its successors.
+     * @param pool pool used to expand states.
+     */
+    public StateSpaceExplorer(Function<S, Map<S, Double>> successors, ForkJoinPool pool) {
+        this.successors = successors;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns an explorer for the given process. This can be used both with population models and with
+     * models of the markov language.
+     *
+     * @param process a continuous time Markov process.
+     * @param <S> type of states.
+     * @return an explorer for the given process.
+     */
+    public static <S extends ImmutableState> StateSpaceExplorer<S> of(ContinuousTimeMarkovProcess<S> process) {
+        return new StateSpaceExplorer<>(successorsOf(process));
+    }
+
+    /**
+     * Returns the function associating each state of the given process with the rates of its successors.
+     * Transitions of the process are expected to be deterministic.
+     *
+     * @param process a continuous time Markov process.
+     * @param <S> type of states.
+     * @return the function associating each state with the rates of its successors.
+     */
+    public static <S extends ImmutableState> Function<S, Map<S, Double>> successorsOf(ContinuousTimeMarkovProcess<S> process) {
+        return s -> {
+            SplittableRandomGenerator rg = new SplittableRandomGenerator(0);
+            Map<S, Double> row = new HashMap<>();
+            for (WeightedElement<? extends StepFunction<S>> wel : process.getTransitions(rg, 0.0, s).getAll()) {
+                row.merge(wel.getElement().step(rg, 0.0, 0.0), wel.getWeight(), Double::sum);
+            }
+            return row;
+        };
+    }
+
+    /**
+     * Generates the chain reachable from the given state.
+     *
+     * @param init initial state.
+     * @return the chain reachable from the given state.
+     */
+    public SparseMarkovChain<S> explore(S init) {
+        return explore(List.of(init));
+    }
+
+    /**
+     * Generates the chain reachable from the given states. Initial states are assigned the first ids.
+     *
+     * @param initialStates initial states.
+     * @return the chain reachable from the given states.
+     */
+    public SparseMarkovChain<S> explore(Collection<S> initialStates) {
+        ConcurrentHashMap<S, Integer> index = new ConcurrentHashMap<>();
+        AtomicInteger counter = new AtomicInteger();
+        SparseMatrix rates = explore(initialStates, true, s -> {
+            Integer known = index.get(s);
+            if (known != null) {
+                return -known - 1;
+            }
+            boolean[] created = new boolean[1];
+            int id = index.computeIfAbsent(s, k -> {
+                created[0] = true;
+                return counter.getAndIncrement();
+            });
+            return (created[0] ? id : -id - 1);
+        });
+        Object[] states = new Object[counter.get()];
+        index.forEach((s, i) -> states[i] = s);
+        @SuppressWarnings("unchecked")
+        List<S> list = (List<S>) Arrays.asList(states);
+        return new SparseMarkovChain<>(list, new HashMap<>(index), rates);
+    }
+
+    /**
+     * Generates the chain reachable from the given state, recording states in the given store. Successors are
+     * computed in parallel while states are added to the store by a single thread at the end of each level.
+     *
+     * @param init initial state.
+     * @param store an empty store.
+     * @return the chain reachable from the given state.
+     */
+    public SparseMarkovChain<S> explore(S init, StateStore<S> store) {
+        return explore(List.of(init), store);
+    }
+
+    /**
+     * Generates the chain reachable from the given states, recording states in the given store. Successors are
+     * computed in parallel while states are added to the store by a single thread at the end of each level, so that
+     * the store needs not be thread safe and ids do not depend on scheduling.
+     *
+     * @param initialStates initial states.
+     * @param store an empty store.
+     * @return the chain reachable from the given states.
+     */
+    public SparseMarkovChain<S> explore(Collection<S> initialStates, StateStore<S> store) {
+        SparseMatrix rates = explore(initialStates, false, store::add);
+        return new SparseMarkovChain<>(store, rates);
+    }
+
+    private SparseMatrix explore(Collection<S> initialStates, boolean concurrent, ToIntFunction<S> add) {
+        EdgeBuffer edges = new EdgeBuffer(1024);
+        List<Node<S>> frontier = new ArrayList<>();
+        int size = 0;
+        for (S s : initialStates) {
+            int id = add.applyAsInt(s);
+            if (id >= 0) {
+                frontier.add(new Node<>(s, id));
+                size++;
+            }
+        }
+        while (!frontier.isEmpty()) {
+            List<Expansion> tasks = split(frontier, (concurrent ? add : null));
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+            frontier = new ArrayList<>();
+            for (Expansion task : tasks) {
+                if (!concurrent) {
+                    task.resolve(add);
+                }
+                edges.addAll(task.edges);
+                frontier.addAll(task.next);
+            }
+            size += frontier.size();
+        }
+        return build(size, edges);
+    }
+
+    private List<Expansion> split(List<Node<S>> frontier, ToIntFunction<S> add) {
+        int taskSize = Math.max(MINIMUM_TASK_SIZE, frontier.size() / (TASKS_PER_THREAD * pool.getParallelism()));
+        List<Expansion> tasks = new ArrayList<>();
+        for (int from = 0; from < frontier.size(); from += taskSize) {
+            tasks.add(new Expansion(frontier.subList(from, Math.min(frontier.size(), from + taskSize)), add));
+        }
+        return tasks;
+    }
+
+    private SparseMatrix build(int size, EdgeBuffer edges) {
+        int[] rowPointers = new int[size + 1];
+        for (int k = 0; k < edges.size; k++) {
+            rowPointers[edges.sources[k] + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            rowPointers[i + 1] += rowPointers[i];
+        }
+        int[] next = Arrays.copyOf(rowPointers, size);
+        int[] columns = new int[rowPointers[size]];
+        double[] values = new double[rowPointers[size]];
+        for (int k = 0; k < edges.size; k++) {
+            int position = next[edges.sources[k]]++;
+            columns[position] = edges.targets[k];
+            values[position] = edges.rates[k];
+        }
+        return new SparseMatrix(size, rowPointers, columns, values);
+    }
+
+    /**
+     * Expands a slice of the states in a level. Each task owns the buffers where transitions and newly
+     * discovered states are collected, that are read at the end of the level. When no concurrent add function is
+     * given, successors are kept aside and their ids are resolved at the end of the level.
+     */
+    private final class Expansion extends RecursiveAction {
+
+        private final List<Node<S>> nodes;
+        private final ToIntFunction<S> add;
+        private final EdgeBuffer edges = new EdgeBuffer(64);
+        private final List<Node<S>> next = new ArrayList<>();
+        private final List<S> pending = new ArrayList<>();
+
+        private Expansion(List<Node<S>> nodes, ToIntFunction<S> add) {
+            this.nodes = nodes;
+            this.add = add;
+        }
+
+        @Override
+        protected void compute() {
+            for (Node<S> node : nodes) {
+                for (Map.Entry<S, Double> e : successors.apply(node.state).entrySet()) {
+                    double rate = e.getValue();
+                    if ((rate > 0) && (add == null)) {
+                        pending.add(e.getKey());
+                        edges.add(node.id, -1, rate);
+                    } else if (rate > 0) {
+                        edges.add(node.id, targetOf(e.getKey(), add.applyAsInt(e.getKey())), rate);
+                    }
+                }
+            }
+        }
+
+        private void resolve(ToIntFunction<S> add) {
+            for (int k = 0; k < pending.size(); k++) {
+                S state = pending.get(k);
+                edges.targets[k] = targetOf(state, add.applyAsInt(state));
+            }
+        }
+
+        private int targetOf(S state, int id) {
+            if (id >= 0) {
+                next.add(new Node<>(state, id));
+                return id;
+            }
+            return -id - 1;
+        }
+    }
+
+    /**
+     * A state in the frontier together with its id.
+     */
+    private static final class Node<S> {
+
+        private final S state;
+        private final int id;
+
+        private Node(S state, int id) {
+            this.state = state;
+            this.id = id;
+        }
+
+    }
+
+    /**
+     * Growable buffer of transitions owned by a single task.
+     */
+    private static final class EdgeBuffer {
+
+        private int[] sources;
+        private int[] targets;
+        private double[] rates;
+        private int size = 0;
+
+        private EdgeBuffer(int capacity) {
+            this.sources = new int[capacity];
+            this.targets = new int[capacity];
+            this.rates = new double[capacity];
+        }
+
+        private void add(int source, int target, double rate) {
+            ensureCapacity(size + 1);
+            sources[size] = source;
+            targets[size] = target;
+            rates[size] = rate;
+            size++;
+        }
+
+        private void addAll(EdgeBuffer other) {
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.sources, 0, sources, size, other.size);
+            System.arraycopy(other.targets, 0, targets, size, other.size);
+            System.arraycopy(other.rates, 0, rates, size, other.size);
+            size += other.size;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > sources.length) {
+                int newLength = Math.max(capacity, sources.length * 2);
+                sources = Arrays.copyOf(sources, newLength);
+                targets = Arrays.copyOf(targets, newLength);
+                rates = Arrays.copyOf(rates, newLength);
+            }
+        }
+
+    }
+
+}
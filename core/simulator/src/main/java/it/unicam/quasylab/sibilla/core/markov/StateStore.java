@@ -0,0 +1,98 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A store assigning consecutive integer ids to the states discovered while generating a Markov chain. Different
+ * implementations trade memory for exactness: {@link HeapStateStore} keeps states as objects,
+ * {@link ByteStateStore} keeps their byte encoding outside of the heap, and {@link HashCompactionStateStore} only
+ * keeps a signature of each state. Implementations are not required to be thread safe: stores are only accessed
+ * by a single thread.
+ *
+ * @param <S> type of states.
+ */
+public interface StateStore<S> extends Closeable {
+
+    /**
+     * Adds the given state to this store. If the state is new, the returned value is its id, that is the number
+     * of states previously added to this store. Otherwise, the returned value is <code>-id-1</code> where
+     * <code>id</code> is the id already associated with the state.
+     *
+     * @param state a state.
+     * @return the id of the given state if it is new, <code>-id-1</code> otherwise.
+     */
+    int add(S state);
+
+    /**
+     * Returns the id of the given state or -1 if the state is not in this store.
+     *
+     * @param state a state.
+     * @return the id of the given state or -1 if the state is not in this store.
+     */
+    int indexOf(S state);
+
+    /**
+     * Returns the number of states in this store.
+     *
+     * @return the number of states in this store.
+     */
+    int size();
+
+    /**
+     * Returns the state with the given id.
+     *
+     * @param i state id.
+     * @return the state with the given id.
+     * @throws UnsupportedOperationException if this store does not retain states.
+     */
+    S get(int i);
+
+    /**
+     * Returns true if the states added to this store can be retrieved from their ids via {@link #get(int)}.
+     *
+     * @return true if the states added to this store can be retrieved from their ids.
+     */
+    default boolean retainsStates() {
+        return true;
+    }
+
+    /**
+     * Returns the probability that two different states have been identified by this store. This is 0 for
+     * exact stores.
+     *
+     * @return the probability that two different states have been identified by this store.
+     */
+    default double collisionProbability() {
+        return 0.0;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+}
@@ -24,50 +24,297 @@
 package it.unicam.quasylab.sibilla.core.markov;
 
 import java.util.*;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
 /**
+ * Computes the steady state distribution of a continuous time Markov chain. The bottom strongly connected
+ * components (BSCCs) of the chain are first identified. The stationary distribution of each BSCC is then
+ * computed, and the results are combined by weighting each BSCC with the probability of reaching it
+ * from the initial distribution.
+ *
  * @author loreti
  * @param <S>
  *
  */
 public class SteadyStateSolver<S> {
 
-	private final ContinuousTimeMarkovChain<S> chain;
-	private LinkedList<Set<S>> bscc;
-	private final S init;
-	private final Map<S,Integer> bsccIndex = new HashMap<S,Integer>();
-	private final Map<S,Integer> lowIndex = new HashMap<S,Integer>();
-	private final List<S> bsccQueue = new LinkedList<>();
-	private final Set<S> inQueue = new HashSet<S>();
-	private int indexCounter = 0;
-	
+	/**
+	 * Iterative methods used to compute the stationary distribution of a BSCC.
+	 */
+	public enum Method {
+		GAUSS_SEIDEL,
+		POWER_ITERATION
+	}
+
+	public static final double DEFAULT_EPSILON = 1.0E-10;
+	public static final int DEFAULT_MAX_ITERATIONS = 100000;
+
+	private final SparseMarkovChain<S> chain;
+	private final double[] initial;
+	private final Method method;
+	private final double epsilon;
+	private final int maxIterations;
+	private StronglyConnectedComponents components;
+	private SparseMatrix incoming;
+	private double[] steadyState;
+
 	public SteadyStateSolver(ContinuousTimeMarkovChain<S> chain, S init) {
+		this(SparseMarkovChain.of(chain), init);
+	}
+
+	public SteadyStateSolver(SparseMarkovChain<S> chain, S init) {
+		this(chain, pointDistribution(chain, init), Method.GAUSS_SEIDEL, DEFAULT_EPSILON, DEFAULT_MAX_ITERATIONS);
+	}
+
+	/**
+	 * Creates a new solver.
+	 *
+	 * @param chain the chain to analyse.
+	 * @param initial initial distribution, the i-th element is the probability of the state with id i.
+	 * @param method method used to compute the stationary distribution of each BSCC.
+	 * @param epsilon tolerance used to stop iterations.
+	 * @param maxIterations maximal number of iterations.
+	 */
+	public SteadyStateSolver(SparseMarkovChain<S> chain, double[] initial, Method method, double epsilon, int maxIterations) {
+		if (initial.length != chain.numberOfStates()) {
+			throw new IllegalArgumentException(String.format("The initial distribution has %d elements while the chain has %d states.", initial.length, chain.numberOfStates()));
+		}
 		this.chain = chain;
-		this.init = init;
+		this.initial = initial;
+		this.method = method;
+		this.epsilon = epsilon;
+		this.maxIterations = maxIterations;
+	}
+
+	private static <S> double[] pointDistribution(SparseMarkovChain<S> chain, S init) {
+		int i = chain.indexOf(init);
+		if (i < 0) {
+			throw new IllegalArgumentException("The initial state does not belong to the chain.");
+		}
+		double[] v = new double[chain.numberOfStates()];
+		v[i] = 1.0;
+		return v;
+	}
+
+	/**
+	 * Returns the strongly connected components of the chain.
+	 *
+	 * @return the strongly connected components of the chain.
+	 */
+	public StronglyConnectedComponents computeBSCC() {
+		if (components == null) {
+			components = new StronglyConnectedComponents(chain.getRateMatrix());
+		}
+		return components;
+	}
+
+	/**
+	 * Returns the steady state distribution of the chain. The i-th element of the resulting array is the
+	 * long run probability of the state with id i.
+	 *
+	 * @return the steady state distribution of the chain.
+	 */
+	public double[] compute() {
+		if (steadyState == null) {
+			StronglyConnectedComponents scc = computeBSCC();
+			incoming = chain.getRateMatrix().transpose();
+			double[] reach = reachProbabilities(scc);
+			double[] result = new double[chain.numberOfStates()];
+			IntStream.range(0, scc.numberOfComponents())
+					.filter(c -> scc.isBottom(c) && (reach[c] > 0))
+					.parallel()
+					.forEach(c -> stationary(c, reach[c], result));
+			steadyState = result;
+		}
+		return steadyState;
+	}
+
+	/**
+	 * Returns the steady state distribution of the chain as a map. Only states with a positive long run
+	 * probability occur in the map.
+	 *
+	 * @return the steady state distribution of the chain as a map.
+	 * @throws UnsupportedOperationException if the chain does not retain states, in this case use {@link #compute()}.
+	 */
+	public Map<S, Double> getSteadyStateDistribution() {
+		chain.checkStatesAreRetained();
+		double[] v = compute();
+		Map<S, Double> result = new HashMap<>();
+		for (int i = 0; i < v.length; i++) {
+			if (v[i] > 0) {
+				result.put(chain.getState(i), v[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the long run average of the given function.
+	 *
+	 * @param f a function on states.
+	 * @return the long run average of the given function.
+	 * @throws UnsupportedOperationException if the chain does not retain states, in this case use {@link #compute()}.
+	 */
+	public double longRunAverage(ToDoubleFunction<S> f) {
+		chain.checkStatesAreRetained();
+		double[] v = compute();
+		double sum = 0.0;
+		for (int i = 0; i < v.length; i++) {
+			if (v[i] > 0) {
+				sum += v[i] * f.applyAsDouble(chain.getState(i));
+			}
+		}
+		return sum;
 	}
-	
-	public void computeBSCC( ) {
-		for (S s : chain.getStates()) {
-			strongconnected(s);
+
+	/**
+	 * Returns, for each component, the probability of reaching it from the initial distribution. Only the values
+	 * associated with bottom components are meaningful. Components are considered in topological order; the
+	 * expected number of visits to the states of each transient component is computed from the probability
+	 * flowing into it, and then propagated to the following components.
+	 */
+	private double[] reachProbabilities(StronglyConnectedComponents scc) {
+		SparseMatrix rates = chain.getRateMatrix();
+		double[] inflow = Arrays.copyOf(initial, initial.length);
+		double[] reach = new double[scc.numberOfComponents()];
+		for (int c = scc.numberOfComponents() - 1; c >= 0; c--) {
+			int[] states = scc.getStates(c);
+			if (scc.isBottom(c)) {
+				for (int i : states) {
+					reach[c] += inflow[i];
+				}
+				continue;
+			}
+			double[] visits = expectedVisits(c, states, inflow);
+			for (int l = 0; l < states.length; l++) {
+				int i = states[l];
+				double exit = chain.getExitRate(i);
+				for (int k = rates.rowStart(i); k < rates.rowEnd(i); k++) {
+					int j = rates.columnAt(k);
+					if (scc.componentOf(j) != c) {
+						inflow[j] += visits[l] * rates.valueAt(k) / exit;
+					}
+				}
+			}
 		}
+		return reach;
 	}
 
-	private void strongconnected(S s) {
-		bsccIndex.put(s, indexCounter);
-		lowIndex.put(s, indexCounter++);
-		bsccQueue.add(s);
-		inQueue.add(s);
-		for (S w : chain.next(s)) {
-			Integer wIndex = bsccIndex.get(s);
-			if (wIndex != null) {
-				strongconnected(w);
-				lowIndex.merge(s, lowIndex.get(w), Math::min);
-			} else {
-				if (inQueue.contains(w)) {
-					lowIndex.merge(s, bsccIndex.get(w), Math::min);
+	private double[] expectedVisits(int c, int[] states, double[] inflow) {
+		double[] visits = new double[states.length];
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			double delta = 0.0;
+			for (int l = 0; l < states.length; l++) {
+				int i = states[l];
+				double selfLoop = 0.0;
+				double value = inflow[i];
+				for (int k = incoming.rowStart(i); k < incoming.rowEnd(i); k++) {
+					int j = incoming.columnAt(k);
+					if (j == i) {
+						selfLoop = incoming.valueAt(k) / chain.getExitRate(i);
+					} else if (components.componentOf(j) == c) {
+						value += visits[components.positionOf(j)] * incoming.valueAt(k) / chain.getExitRate(j);
+					}
 				}
+				value = value / (1 - selfLoop);
+				delta = Math.max(delta, Math.abs(value - visits[l]));
+				visits[l] = value;
+			}
+			if ((states.length == 1) || (delta < epsilon)) {
+				return visits;
 			}
 		}
+		throw new IllegalStateException(String.format("Expected visits of component %d did not converge within %d iterations.", c, maxIterations));
+	}
+
+	private void stationary(int c, double weight, double[] result) {
+		int[] states = components.getStates(c);
+		double[] pi;
+		if (states.length == 1) {
+			pi = new double[] { 1.0 };
+		} else if (method == Method.GAUSS_SEIDEL) {
+			pi = gaussSeidel(c, states);
+		} else {
+			pi = powerIteration(states);
+		}
+		for (int l = 0; l < states.length; l++) {
+			result[states[l]] = weight * pi[l];
+		}
+	}
+
+	/**
+	 * Solves pi Q = 0 in the given BSCC. Each sweep sets pi_i to the probability flowing into i divided by the
+	 * exit rate of i, and the vector is then normalised.
+	 */
+	private double[] gaussSeidel(int c, int[] states) {
+		double[] pi = new double[states.length];
+		Arrays.fill(pi, 1.0 / states.length);
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			double[] previous = Arrays.copyOf(pi, pi.length);
+			for (int l = 0; l < states.length; l++) {
+				int i = states[l];
+				double selfLoop = 0.0;
+				double value = 0.0;
+				for (int k = incoming.rowStart(i); k < incoming.rowEnd(i); k++) {
+					int j = incoming.columnAt(k);
+					if (j == i) {
+						selfLoop = incoming.valueAt(k);
+					} else if (components.componentOf(j) == c) {
+						value += pi[components.positionOf(j)] * incoming.valueAt(k);
+					}
+				}
+				pi[l] = value / (chain.getExitRate(i) - selfLoop);
+			}
+			if (normaliseAndCompare(pi, previous) < epsilon) {
+				return pi;
+			}
+		}
+		throw new IllegalStateException(String.format("Gauss-Seidel iteration did not converge within %d iterations.", maxIterations));
+	}
+
+	/**
+	 * Iterates the uniformised matrix of the given BSCC. The uniformisation rate is slightly larger than the
+	 * maximal exit rate so that the resulting discrete time chain is aperiodic.
+	 */
+	private double[] powerIteration(int[] states) {
+		SparseMatrix rates = chain.getRateMatrix();
+		double rate = 0.0;
+		for (int i : states) {
+			rate = Math.max(rate, chain.getExitRate(i));
+		}
+		rate = rate * 1.1;
+		double[] pi = new double[states.length];
+		Arrays.fill(pi, 1.0 / states.length);
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			double[] next = new double[states.length];
+			for (int l = 0; l < states.length; l++) {
+				int i = states[l];
+				next[l] += pi[l] * (1 - chain.getExitRate(i) / rate);
+				for (int k = rates.rowStart(i); k < rates.rowEnd(i); k++) {
+					next[components.positionOf(rates.columnAt(k))] += pi[l] * rates.valueAt(k) / rate;
+				}
+			}
+			double delta = normaliseAndCompare(next, pi);
+			pi = next;
+			if (delta < epsilon) {
+				return pi;
+			}
+		}
+		throw new IllegalStateException(String.format("Power iteration did not converge within %d iterations.", maxIterations));
+	}
+
+	private static double normaliseAndCompare(double[] v, double[] previous) {
+		double sum = 0.0;
+		for (double x : v) {
+			sum += x;
+		}
+		double delta = 0.0;
+		for (int l = 0; l < v.length; l++) {
+			v[l] = v[l] / sum;
+			delta = Math.max(delta, Math.abs(v[l] - previous[l]));
+		}
+		return delta;
 	}
 
 }
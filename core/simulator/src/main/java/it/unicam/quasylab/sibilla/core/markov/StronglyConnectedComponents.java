@@ -0,0 +1,194 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of the graph underlying a {@link SparseMatrix}. Components are computed with an
+ * iterative version of Tarjan's algorithm, hence the size of the graph is not limited by the size of the call
+ * stack. Components are numbered in reverse topological order: if there is an edge from a state in component
+ * <code>c1</code> to a state in a different component <code>c2</code>, then <code>c2 &lt; c1</code>.
+ */
+public final class StronglyConnectedComponents {
+
+    private final int[] component;
+    private final int[] componentStart;
+    private final int[] members;
+    private final int[] position;
+    private final boolean[] bottom;
+
+    /**
+     * Computes the strongly connected components of the graph whose edges are the entries of the given matrix.
+     *
+     * @param matrix a sparse matrix.
+     */
+    public StronglyConnectedComponents(SparseMatrix matrix) {
+        int n = matrix.size();
+        this.component = new int[n];
+        int numberOfComponents = tarjan(matrix, component);
+        this.componentStart = new int[numberOfComponents + 1];
+        this.members = new int[n];
+        this.position = new int[n];
+        for (int i = 0; i < n; i++) {
+            componentStart[component[i] + 1]++;
+        }
+        for (int c = 0; c < numberOfComponents; c++) {
+            componentStart[c + 1] += componentStart[c];
+        }
+        int[] next = Arrays.copyOf(componentStart, numberOfComponents);
+        for (int i = 0; i < n; i++) {
+            int k = next[component[i]]++;
+            members[k] = i;
+            position[i] = k - componentStart[component[i]];
+        }
+        this.bottom = new boolean[numberOfComponents];
+        Arrays.fill(bottom, true);
+        for (int i = 0; i < n; i++) {
+            for (int k = matrix.rowStart(i); k < matrix.rowEnd(i); k++) {
+                if (component[matrix.columnAt(k)] != component[i]) {
+                    bottom[component[i]] = false;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static int tarjan(SparseMatrix matrix, int[] component) {
+        int n = matrix.size();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] nextEdge = new int[n];
+        Arrays.fill(index, -1);
+        int sp = 0;
+        int counter = 0;
+        int components = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int csp = 0;
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            callStack[csp] = root;
+            nextEdge[csp++] = matrix.rowStart(root);
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (nextEdge[csp - 1] < matrix.rowEnd(v)) {
+                    int w = matrix.columnAt(nextEdge[csp - 1]++);
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callStack[csp] = w;
+                        nextEdge[csp++] = matrix.rowStart(w);
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                } else {
+                    csp--;
+                    if (low[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            onStack[w] = false;
+                            component[w] = components;
+                        } while (w != v);
+                        components++;
+                    }
+                    if (csp > 0) {
+                        int u = callStack[csp - 1];
+                        low[u] = Math.min(low[u], low[v]);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Returns the number of components.
+     *
+     * @return the number of components.
+     */
+    public int numberOfComponents() {
+        return bottom.length;
+    }
+
+    /**
+     * Returns the component of the given state.
+     *
+     * @param i state id.
+     * @return the component of the given state.
+     */
+    public int componentOf(int i) {
+        return component[i];
+    }
+
+    /**
+     * Returns the position of the given state in the array returned by <code>getStates(componentOf(i))</code>.
+     *
+     * @param i state id.
+     * @return the position of the given state in its component.
+     */
+    public int positionOf(int i) {
+        return position[i];
+    }
+
+    /**
+     * Returns <code>true</code> if no edge leaves the given component.
+     *
+     * @param c component id.
+     * @return <code>true</code> if no edge leaves the given component.
+     */
+    public boolean isBottom(int c) {
+        return bottom[c];
+    }
+
+    /**
+     * Returns the number of states in the given component.
+     *
+     * @param c component id.
+     * @return the number of states in the given component.
+     */
+    public int sizeOf(int c) {
+        return componentStart[c + 1] - componentStart[c];
+    }
+
+    /**
+     * Returns the states in the given component.
+     *
+     * @param c component id.
+     * @return the states in the given component.
+     */
+    public int[] getStates(int c) {
+        return Arrays.copyOfRange(members, componentStart[c], componentStart[c + 1]);
+    }
+
+}
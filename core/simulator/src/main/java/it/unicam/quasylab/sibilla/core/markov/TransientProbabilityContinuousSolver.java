@@ -23,19 +23,16 @@
 
 package it.unicam.quasylab.sibilla.core.markov;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
-
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
+ * Computes the transient probabilities of a continuous time Markov chain. Uniformisation is performed on the
+ * sparse representation of the rate matrix, hence memory used is proportional to the number of transitions of
+ * the chain.
+ *
  * @author loreti
  * @param <S>
  *
@@ -43,11 +40,12 @@ import java.util.stream.IntStream;
 public class TransientProbabilityContinuousSolver<S> {
 
 	private final ContinuousTimeMarkovChain<S> chain;
-	private RealMatrix matrix;
 	private final S init;
-	private LinkedList<RealVector> vectorResults;
 	private final double epsilon;
+	private List<S> states;
 	private Map<S, Integer> index;
+	private SparseUniformisation uniformisation;
+	private double[] initialVector;
 	
 	public TransientProbabilityContinuousSolver( 
 			ContinuousTimeMarkovChain<S> chain,
@@ -58,63 +56,55 @@ public class TransientProbabilityContinuousSolver<S> {
 		this.epsilon = epsilon;
 	}
 
-	private RealVector buildRealVector() {
-		RealVector rv = new ArrayRealVector(index.size());
-		rv.setEntry(index.get(init), 1.0);
-		return rv;
+	private double[] buildInitialVector() {
+		double[] v = new double[index.size()];
+		v[index.get(init)] = 1.0;
+		return v;
 	}
 
-	private RealMatrix buidProbabilityMatrix(  ) {
-		return MarkovChain.generateMatrix(i -> MatrixUtils.createRealMatrix(i, i), 
-				s -> chain.uniformisedMatrixRow(s).entrySet().stream(),
-				index);
-	}
-	
 	public Map<S,Double> compute(double t) {
-		if (vectorResults == null) {
-			computeStateIndex();
-			matrix = buidProbabilityMatrix( );
-			vectorResults = new LinkedList<>();
-			vectorResults.add(buildRealVector( ));
-		}
-		FoxGlynn fg = (t>0?FoxGlynn.compute(chain.getMaxRate()*t, epsilon):null);
-		if (fg != null) {
-			generateSteps(fg.rightPoint());			
-		}
-		return generateMap( fg );
+		init();
+		return generateMap(uniformisation.compute(initialVector, t));
 	}
 
-
-	private Map<S, Double> generateMap( FoxGlynn fg ) {
-		HashMap<S,Double> toReturn = new HashMap<>();
-		RealVector v;
-		if (fg!=null) {
-			v = sum(fg);
-		} else {
-			v = this.vectorResults.getFirst();
+	/**
+	 * Returns the transient probabilities at the given time points. Uniformisation iterates are computed once,
+	 * up to the Fox-Glynn right point of the largest time, and are shared by all the time points.
+	 *
+	 * @param times time points.
+	 * @return the list whose i-th element contains the transient probabilities at time <code>times[i]</code>.
+	 */
+	public List<Map<S,Double>> compute(double[] times) {
+		init();
+		List<Map<S,Double>> toReturn = new ArrayList<>(times.length);
+		for (double[] v: uniformisation.compute(initialVector, times)) {
+			toReturn.add(generateMap(v));
 		}
-		index.forEach((s,i) -> toReturn.put(s, v.getEntry(i)));
 		return toReturn;
 	}
 
-
-	private RealVector sum(FoxGlynn fg ) {
-		return IntStream.range(fg.leftPoint(), fg.rightPoint()).boxed()
-				.map(i -> vectorResults.get(i).mapMultiply(fg.weight(i)/fg.totalWeight()))
-				.reduce(new ArrayRealVector(index.size()), (v1,v2) -> v1.add(v2));
+	private void init() {
+		if (uniformisation == null) {
+			computeStateIndex();
+			uniformisation = new SparseUniformisation(chain.getUniformisedMatrix(index), chain.getMaxRate(), epsilon);
+			initialVector = buildInitialVector();
+		}
 	}
 
-
-	private void generateSteps(int k) {
-		while (vectorResults.size()<k) {
-			vectorResults.add(matrix.preMultiply(vectorResults.getLast()));
+	private Map<S, Double> generateMap(double[] v) {
+		HashMap<S,Double> toReturn = new HashMap<>();
+		for (int i = 0; i < v.length; i++) {
+			toReturn.put(states.get(i), v[i]);
 		}
+		return toReturn;
 	}
 
-
 	private void computeStateIndex() {
-		AtomicInteger counter = new AtomicInteger(0);
-		index = chain.getStates().stream().collect(Collectors.toConcurrentMap(s -> s,s -> counter.getAndIncrement()));
+		states = new ArrayList<>(chain.getStates());
+		index = new HashMap<>();
+		for (int i = 0; i < states.size(); i++) {
+			index.put(states.get(i), i);
+		}
 	}
 
 
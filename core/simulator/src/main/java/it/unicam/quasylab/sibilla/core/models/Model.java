@@ -24,6 +24,7 @@
 package it.unicam.quasylab.sibilla.core.models;
 
 import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.*;
 import it.unicam.quasylab.sibilla.core.util.SimulationData;
 import org.apache.commons.math3.random.RandomGenerator;
@@ -50,6 +51,16 @@ public interface Model<S extends State> extends Serializable {
      */
     SimulatorCursor<S> createSimulationCursor(RandomGenerator r, Function<RandomGenerator,S> initialStateBuilder);
 
+    /**
+     * Returns a new empty trajectory that can be used to store the states of this model. By default, a
+     * {@link Trajectory} keeping a reference to each sampled state is returned.
+     *
+     * @return a new empty trajectory that can be used to store the states of this model.
+     */
+    default Trajectory<S> createTrajectory() {
+        return new Trajectory<>();
+    }
+
     /**
      * Returns the number of bytes needed to store model states.
      *
@@ -159,7 +170,7 @@ public interface Model<S extends State> extends Serializable {
 
     default SamplingFunction<S> getSamplingStatistic(boolean summary, int samplings, double dt, Measure<? super S> m) {
         if (summary) {
-            return new SummaryStatisticSampling<>(samplings, dt, m);
+            return new MomentStatisticSampling<>(samplings, dt, m);
         } else {
             return new DescriptiveStatisticSampling<>(samplings, dt, m);
         }
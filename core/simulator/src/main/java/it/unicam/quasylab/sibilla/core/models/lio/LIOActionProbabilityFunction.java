@@ -23,9 +23,56 @@
 
 package it.unicam.quasylab.sibilla.core.models.lio;
 
+import java.util.Optional;
+import java.util.Set;
+
 @FunctionalInterface
 public interface LIOActionProbabilityFunction {
 
     double getProbability(LIOCollective c);
 
+    /**
+     * Returns the agents whose fractions are used to compute the probability, if known. When an empty
+     * optional is returned the probability may depend on the fraction of any agent.
+     *
+     * @return the agents whose fractions are used to compute the probability, if known.
+     */
+    default Optional<Set<LIOAgent>> getDependencies() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the probability function that evaluates the given function and that only depends on the
+     * fractions of the given agents.
+     *
+     * @param function the function used to compute the probability.
+     * @param dependencies the agents whose fractions are used by <code>function</code>.
+     * @return the probability function that evaluates the given function and that only depends on the
+     * fractions of the given agents.
+     */
+    static LIOActionProbabilityFunction of(LIOActionProbabilityFunction function, Set<LIOAgent> dependencies) {
+        Set<LIOAgent> agents = Set.copyOf(dependencies);
+        return new LIOActionProbabilityFunction() {
+            @Override
+            public double getProbability(LIOCollective c) {
+                return function.getProbability(c);
+            }
+
+            @Override
+            public Optional<Set<LIOAgent>> getDependencies() {
+                return Optional.of(agents);
+            }
+        };
+    }
+
+    /**
+     * Returns the probability function that always returns the given value.
+     *
+     * @param value probability value.
+     * @return the probability function that always returns the given value.
+     */
+    static LIOActionProbabilityFunction constant(double value) {
+        return of(c -> value, Set.of());
+    }
+
 }
@@ -39,6 +39,10 @@ import java.util.stream.IntStream;
  */
 public final class LIOAgentDefinitions {
 
+    /**
+     * Default number of agent probability matrices stored in the cache.
+     */
+    public static final int DEFAULT_MATRIX_CACHE_SIZE = 1024;
 
     private final ArrayList<LIOAgent> agents;
 
@@ -52,6 +56,10 @@ public final class LIOAgentDefinitions {
 
     private final Map<String, Integer> agentArity;
 
+    private LIOMultinomialConvolution multinomialConvolution = new LIOMultinomialConvolution();
+
+    private volatile LIOProbabilityMatrixCache matrixCache;
+
 
     /**
      * Create an empty definition.
@@ -97,16 +105,79 @@ public final class LIOAgentDefinitions {
     }
 
     /**
-     * Compute the agents probability matrix associated with the given state.
+     * Compute the agents probability matrix associated with the given state. Matrices are cached and indexed by
+     * the fractions of the agents action probabilities depend on, so that states with the same fractions share
+     * the same matrix. The cache is cleared when agents, actions or agent steps are changed via this class, while
+     * actions added directly to an {@link LIOAgent} are expected to be defined before matrices are requested.
      *
      * @param state a state.
      * @return the agents probability matrix associated with the given state.
      */
     public <S extends LIOCollective> ProbabilityMatrix<LIOAgent> getAgentProbabilityMatrix(S state) {
+        return getMatrixCache().get(this, state, this::computeAgentProbabilityMatrix);
+    }
+
+    private <S extends LIOCollective> ProbabilityMatrix<LIOAgent> computeAgentProbabilityMatrix(S state) {
         LIOActionsProbability actionsProbability = getActionProbability(state);
         return new ProbabilityMatrix<>(a -> a.probabilityVector(actionsProbability));
     }
 
+    private LIOProbabilityMatrixCache getMatrixCache() {
+        LIOProbabilityMatrixCache cache = matrixCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = matrixCache;
+                if (cache == null) {
+                    cache = new LIOProbabilityMatrixCache(getProbabilityDependencies(), DEFAULT_MATRIX_CACHE_SIZE);
+                    matrixCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    private synchronized void clearMatrixCache() {
+        matrixCache = null;
+    }
+
+    /**
+     * Returns the sorted indexes of the agents whose fractions are used to compute action probabilities.
+     * When the dependencies of a probability function are not known, the indexes of all the agents are
+     * returned.
+     *
+     * @return the sorted indexes of the agents whose fractions are used to compute action probabilities.
+     */
+    public int[] getProbabilityDependencies() {
+        Set<LIOAgent> dependencies = new HashSet<>();
+        for (LIOActionProbabilityFunction f: probabilityFunctions) {
+            Optional<Set<LIOAgent>> agents = f.getDependencies();
+            if (agents.isEmpty()) {
+                return IntStream.range(0, numberOfAgents()).toArray();
+            }
+            dependencies.addAll(agents.get());
+        }
+        return dependencies.stream().mapToInt(LIOAgent::getIndex).sorted().toArray();
+    }
+
+    /**
+     * Returns the object used to compute the successor distributions of counting states.
+     *
+     * @return the object used to compute the successor distributions of counting states.
+     */
+    public LIOMultinomialConvolution getMultinomialConvolution() {
+        return multinomialConvolution;
+    }
+
+    /**
+     * Sets the threshold below which outcomes are discarded when the successor distributions of counting
+     * states are computed. When the threshold is 0.0 successor distributions are exact.
+     *
+     * @param threshold truncation threshold.
+     */
+    public void setTruncationThreshold(double threshold) {
+        this.multinomialConvolution = new LIOMultinomialConvolution(threshold);
+    }
+
     /**
      * Return the agent with the given index.
      *
@@ -152,6 +223,7 @@ public final class LIOAgentDefinitions {
             LIOAgent newAgent = new LIOAgent(agentName, this.agents.size());
             agents.add(newAgent);
             agentRegistry.put(agentName, newAgent);
+            clearMatrixCache();
             return newAgent;
         }
     }
@@ -226,7 +298,7 @@ public final class LIOAgentDefinitions {
      * the old instance is returned.
      */
     public LIOAgentAction addAction(String name) {
-        return addAction(name, s -> 0.0);
+        return addAction(name, LIOActionProbabilityFunction.constant(0.0));
     }
 
     /**
@@ -246,6 +318,7 @@ public final class LIOAgentDefinitions {
             this.actionRegistry.put(name, newAction);
             this.actions.add(newAction);
             this.probabilityFunctions.add(function);
+            clearMatrixCache();
             return newAction;
         }
     }
@@ -274,6 +347,7 @@ public final class LIOAgentDefinitions {
      */
     public void setActionProbability(LIOAgentAction action, LIOActionProbabilityFunction function) {
         probabilityFunctions.set(action.getIndex(), function);
+        clearMatrixCache();
     }
 
     public LIOPopulationFraction getPopulationFractionOf(LIOState state) {
@@ -300,6 +374,7 @@ public final class LIOAgentDefinitions {
         this.agentRegistry.entrySet().stream().filter(e -> e.getKey().getName().equals(name)).filter(e -> guard.test(e.getKey().getIndexes())).forEach(e -> {
             e.getValue().addAction(action, step.apply(e.getKey().getIndexes()));
         });
+        clearMatrixCache();
     }
 
     public Set<LIOAgent> getAgents(Predicate<LIOAgentName> predicate) {
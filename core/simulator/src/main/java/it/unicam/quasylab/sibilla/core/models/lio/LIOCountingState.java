@@ -23,6 +23,8 @@
 
 package it.unicam.quasylab.sibilla.core.models.lio;
 
+import it.unicam.quasylab.sibilla.core.simulator.StateVectorCodec;
+import it.unicam.quasylab.sibilla.core.simulator.util.RandomSampling;
 import it.unicam.quasylab.sibilla.core.tools.ProbabilityMatrix;
 import it.unicam.quasylab.sibilla.core.tools.ProbabilityVector;
 import org.apache.commons.math3.random.RandomGenerator;
@@ -98,29 +100,51 @@ public class LIOCountingState implements LIOState {
         return IntStream.range(0, occupancy.length).filter(i -> predicate.test(definition.getAgent(i))).sum();
     }
 
+    /**
+     * Samples the next state by drawing, for each local state, a single multinomial sample that distributes
+     * the agents in that state according to the corresponding row of the given matrix. The cost of a step
+     * depends on the number of local states and not on the number of agents. As in
+     * {@link ProbabilityMatrix#sample(RandomGenerator, Object)}, agents whose row does not cover the whole
+     * probability mass, including agents with an empty row, remain in their local state with the residual
+     * probability.
+     *
+     * @param randomGenerator random generator used to sample the next state.
+     * @param probabilityMatrix agents probability matrix.
+     * @return the next state.
+     */
     @Override
     public LIOCountingState step(RandomGenerator randomGenerator, ProbabilityMatrix<LIOAgent> probabilityMatrix) {
         int[] occupancy = new int[this.occupancy.length];
-        IntStream.range(0, occupancy.length).forEach(s ->
-            IntStream.range(0, this.occupancy[s]).forEach(i -> {
-                LIOAgent nextAgent = probabilityMatrix.sample(randomGenerator, definition.getAgent(s));
-                occupancy[nextAgent.getIndex()]++;
-            })
-        );
-        return new LIOCountingState(definition, occupancy);
+        double[] probabilities = new double[this.occupancy.length];
+        for (int s = 0; s < this.occupancy.length; s++) {
+            if (this.occupancy[s] == 0) {
+                continue;
+            }
+            Arrays.fill(probabilities, 0.0);
+            probabilityMatrix.getRowOf(definition.getAgent(s)).iterate((a, p) -> probabilities[a.getIndex()] += p);
+            double residual = 1.0 - Arrays.stream(probabilities).sum();
+            if (residual > 0.0) {
+                probabilities[s] += residual;
+            }
+            int[] counts = RandomSampling.sampleMultinomial(this.occupancy[s], probabilities, randomGenerator);
+            for (int j = 0; j < counts.length; j++) {
+                occupancy[j] += counts[j];
+            }
+        }
+        return new LIOCountingState(definition, occupancy, size);
     }
 
+    /**
+     * Returns the distribution of the successors of this state. This is computed by convolving, for each
+     * occupied local state, the multinomial distribution of the next local states of its agents. Outcomes may
+     * be truncated according to {@link LIOAgentDefinitions#setTruncationThreshold(double)}.
+     *
+     * @param matrix agents probability matrix.
+     * @return the distribution of the successors of this state.
+     */
     @Override
     public ProbabilityVector<LIOCountingState> next(ProbabilityMatrix<LIOAgent> matrix) {
-        ProbabilityVector<LIOCountingState> current = new ProbabilityVector<>();
-        current.add(new LIOCountingState(definition), 1.0);
-        for(int i = 0; i<occupancy.length; i++) {
-            LIOAgent a = definition.getAgent(i);
-            for(int k=0; k<occupancy[i]; k++) {
-                current = current.apply(LIOCountingState::add, matrix.getRowOf(a));
-            }
-        }
-        return current;
+        return definition.getMultinomialConvolution().next(definition, occupancy, matrix);
     }
 
     @Override
@@ -149,6 +173,42 @@ public class LIOCountingState implements LIOState {
         return result;
     }
 
+    /**
+     * Returns the codec used to store counting states of the given agents in flat arrays of integers. Only
+     * instances of {@link LIOCountingState} can be encoded. Since agent definitions are not serializable, the
+     * returned codec cannot be serialized.
+     *
+     * @param definition agent definitions.
+     * @return the codec used to store counting states of the given agents in flat arrays of integers.
+     */
+    public static StateVectorCodec<LIOState> getStateVectorCodec(LIOAgentDefinitions definition) {
+        return new StateVectorCodec<>() {
+
+            private static final long serialVersionUID = -6390466410573212587L;
+
+            @Override
+            public int width(LIOState state) {
+                return ((LIOCountingState) state).occupancy.length;
+            }
+
+            @Override
+            public void encode(LIOState state, int[] target, int offset) {
+                int[] occupancy = ((LIOCountingState) state).occupancy;
+                System.arraycopy(occupancy, 0, target, offset, occupancy.length);
+            }
+
+            @Override
+            public LIOState decode(int[] source, int offset, int width) {
+                return new LIOCountingState(definition, Arrays.copyOfRange(source, offset, offset + width));
+            }
+
+            @Override
+            public boolean canEncode(LIOState state) {
+                return (state instanceof LIOCountingState);
+            }
+        };
+    }
+
     /**
      * Returns a copy of this state where the given agent has been removed.
      * @param a the agent to remove.
@@ -25,9 +25,11 @@ package it.unicam.quasylab.sibilla.core.models.lio;
 
 import it.unicam.quasylab.sibilla.core.models.AbstractModel;
 import it.unicam.quasylab.sibilla.core.models.DiscreteTimeModel;
+import it.unicam.quasylab.sibilla.core.simulator.ColumnarTrajectory;
 import it.unicam.quasylab.sibilla.core.simulator.DefaultSimulationCursor;
 import it.unicam.quasylab.sibilla.core.simulator.DiscreteTimeSimulationStepFunction;
 import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
 import org.apache.commons.math3.random.RandomGenerator;
 
@@ -82,6 +84,17 @@ public class LIOModel extends AbstractModel<LIOState> implements DiscreteTimeMod
         return null;
     }
 
+    /**
+     * Returns a trajectory storing counting states in a flat array of occupancies. Trajectories of other
+     * kinds of states keep a reference to each sampled state.
+     *
+     * @return a new empty trajectory that can be used to store the states of this model.
+     */
+    @Override
+    public Trajectory<LIOState> createTrajectory() {
+        return new ColumnarTrajectory<>(LIOCountingState.getStateVectorCodec(definitions));
+    }
+
     @Override
     public LIOState sampleNextState(RandomGenerator r, double time, LIOState state) {
         return state.step(r, definitions.getAgentProbabilityMatrix(state));
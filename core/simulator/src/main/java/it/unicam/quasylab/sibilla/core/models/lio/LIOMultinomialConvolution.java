@@ -0,0 +1,290 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.lio;
+
+import it.unicam.quasylab.sibilla.core.tools.ProbabilityMatrix;
+import it.unicam.quasylab.sibilla.core.tools.ProbabilityVector;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * This class computes the distribution of the successors of a {@link LIOCountingState}. The agents in the
+ * same local state move independently according to the same row of the agent probability matrix, hence
+ * their next local states follow a multinomial distribution. The successor distribution is obtained as the
+ * convolution of these multinomial distributions, one for each occupied local state.
+ *
+ * Multinomial distributions are memoised, in a bounded cache, on the number of agents and on the row of
+ * the agent probability matrix. When a positive truncation threshold is used, outcomes whose probability is
+ * below the threshold are discarded while the distributions are generated. The discarded mass is not
+ * redistributed: the total variation distance between the returned sub-probability vector and the exact
+ * distribution is <code>1-getSum()</code> of the returned vector.
+ */
+public class LIOMultinomialConvolution {
+
+    /**
+     * Default number of multinomial distributions stored in the cache.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private final double threshold;
+
+    private final Map<MultinomialKey, Outcomes> cache;
+
+    /**
+     * Creates a new instance that computes exact successor distributions.
+     */
+    public LIOMultinomialConvolution() {
+        this(0.0);
+    }
+
+    /**
+     * Creates a new instance that discards outcomes whose probability is below the given threshold.
+     *
+     * @param threshold truncation threshold.
+     */
+    public LIOMultinomialConvolution(double threshold) {
+        this(threshold, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new instance that discards outcomes whose probability is below the given threshold and that
+     * stores at most <code>cacheSize</code> multinomial distributions.
+     *
+     * @param threshold truncation threshold.
+     * @param cacheSize maximum number of multinomial distributions stored in the cache.
+     */
+    public LIOMultinomialConvolution(double threshold, int cacheSize) {
+        if ((threshold < 0.0) || (threshold >= 1.0) || (cacheSize < 0)) {
+            throw new IllegalArgumentException(String.format("Illegal convolution parameters: threshold %g must be in [0,1) and cache size %d must be non negative.", threshold, cacheSize));
+        }
+        this.threshold = threshold;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MultinomialKey, Outcomes> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the truncation threshold used by this instance.
+     *
+     * @return the truncation threshold used by this instance.
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the distribution of the successors of the counting state with the given occupancy when agents
+     * move according to the given matrix. As in {@link LIOCountingState#step}, agents whose row does not cover
+     * the whole probability mass remain in their local state with the residual probability.
+     *
+     * @param definition agent definitions.
+     * @param occupancy occupancy of the current state.
+     * @param matrix agents probability matrix.
+     * @return the distribution of the successors of the counting state with the given occupancy.
+     */
+    public ProbabilityVector<LIOCountingState> next(LIOAgentDefinitions definition, int[] occupancy, ProbabilityMatrix<LIOAgent> matrix) {
+        Map<Occupancy, Double> current = new HashMap<>();
+        current.put(new Occupancy(new int[occupancy.length]), 1.0);
+        for (int s = 0; s < occupancy.length; s++) {
+            if (occupancy[s] == 0) {
+                continue;
+            }
+            double[] row = new double[occupancy.length];
+            matrix.getRowOf(definition.getAgent(s)).iterate((a, p) -> row[a.getIndex()] += p);
+            double residual = 1.0 - Arrays.stream(row).sum();
+            if (residual > 0.0) {
+                row[s] += residual;
+            }
+            current = convolve(current, getOutcomes(occupancy[s], row));
+        }
+        ProbabilityVector<LIOCountingState> result = new ProbabilityVector<>();
+        current.forEach((o, p) -> result.add(new LIOCountingState(definition, o.counts), Math.min(p, 1.0 - result.getSum())));
+        return result;
+    }
+
+    private Map<Occupancy, Double> convolve(Map<Occupancy, Double> current, Outcomes outcomes) {
+        Map<Occupancy, Double> result = new HashMap<>();
+        current.forEach((o, p) -> {
+            for (int i = 0; i < outcomes.probabilities.length; i++) {
+                double q = p * outcomes.probabilities[i];
+                if ((q > 0.0) && (q >= threshold)) {
+                    result.merge(o.add(outcomes.counts[i]), q, Double::sum);
+                }
+            }
+        });
+        return result;
+    }
+
+    private Outcomes getOutcomes(int n, double[] row) {
+        MultinomialKey key = new MultinomialKey(n, row);
+        Outcomes outcomes = cache.get(key);
+        if (outcomes == null) {
+            outcomes = computeOutcomes(n, row);
+            cache.put(key, outcomes);
+        }
+        return outcomes;
+    }
+
+    private Outcomes computeOutcomes(int n, double[] row) {
+        int[] support = IntStream.range(0, row.length).filter(i -> row[i] > 0.0).toArray();
+        if (support.length == 0) {
+            throw new IllegalStateException(String.format("The probability row of a state is zero: its %d agents cannot be distributed.", n));
+        }
+        double[] residuals = new double[support.length];
+        double residual = 0.0;
+        for (int j = support.length - 1; j >= 0; j--) {
+            residual += row[support[j]];
+            residuals[j] = residual;
+        }
+        List<int[]> counts = new ArrayList<>();
+        List<Double> probabilities = new ArrayList<>();
+        enumerate(support, row, residuals, 0, n, 1.0, new int[row.length], counts, probabilities);
+        return new Outcomes(counts.toArray(new int[0][]), probabilities.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    private void enumerate(int[] support, double[] row, double[] residuals, int j, int remaining, double prefix,
+                           int[] current, List<int[]> counts, List<Double> probabilities) {
+        if ((j == support.length - 1) || (remaining == 0)) {
+            int[] outcome = Arrays.copyOf(current, current.length);
+            if (j < support.length) {
+                outcome[support[j]] = remaining;
+            }
+            counts.add(outcome);
+            probabilities.add(prefix);
+            return;
+        }
+        double[] pmf = binomial(remaining, Math.min(1.0, row[support[j]] / residuals[j]));
+        for (int k = 0; k <= remaining; k++) {
+            double p = prefix * pmf[k];
+            if ((p > 0.0) && (p >= threshold)) {
+                current[support[j]] = k;
+                enumerate(support, row, residuals, j + 1, remaining - k, p, current, counts, probabilities);
+            }
+        }
+        current[support[j]] = 0;
+    }
+
+    /**
+     * Returns the probability mass function of the binomial distribution with <code>n</code> trials and success
+     * probability <code>p</code>. Values are computed from the mode with the ratio of consecutive terms and then
+     * normalised, this avoids underflows for large <code>n</code>.
+     */
+    private static double[] binomial(int n, double p) {
+        double[] pmf = new double[n + 1];
+        if (p == 0.0) {
+            pmf[0] = 1.0;
+            return pmf;
+        }
+        if (p == 1.0) {
+            pmf[n] = 1.0;
+            return pmf;
+        }
+        double ratio = p / (1.0 - p);
+        int mode = (int) Math.min(n, Math.floor((n + 1) * p));
+        pmf[mode] = 1.0;
+        double sum = 1.0;
+        for (int k = mode; k < n; k++) {
+            pmf[k + 1] = pmf[k] * ratio * (n - k) / (k + 1);
+            sum += pmf[k + 1];
+        }
+        for (int k = mode; k > 0; k--) {
+            pmf[k - 1] = pmf[k] * k / ((n - k + 1) * ratio);
+            sum += pmf[k - 1];
+        }
+        for (int k = 0; k <= n; k++) {
+            pmf[k] /= sum;
+        }
+        return pmf;
+    }
+
+    private static final class Outcomes {
+
+        private final int[][] counts;
+        private final double[] probabilities;
+
+        private Outcomes(int[][] counts, double[] probabilities) {
+            this.counts = counts;
+            this.probabilities = probabilities;
+        }
+    }
+
+    private static final class MultinomialKey {
+
+        private final int n;
+        private final double[] row;
+
+        private MultinomialKey(int n, double[] row) {
+            this.n = n;
+            this.row = row;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            MultinomialKey that = (MultinomialKey) o;
+            return n == that.n && Arrays.equals(row, that.row);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * n + Arrays.hashCode(row);
+        }
+    }
+
+    private static final class Occupancy {
+
+        private final int[] counts;
+
+        private Occupancy(int[] counts) {
+            this.counts = counts;
+        }
+
+        private Occupancy add(int[] other) {
+            int[] result = Arrays.copyOf(counts, counts.length);
+            for (int i = 0; i < other.length; i++) {
+                result[i] += other[i];
+            }
+            return new Occupancy(result);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(counts, ((Occupancy) o).counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(counts);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.lio;
+
+import it.unicam.quasylab.sibilla.core.tools.ProbabilityMatrix;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A bounded and thread safe cache of agent probability matrices. Matrices are indexed by the fractions of
+ * the agents the action probabilities depend on: two collectives having the same fractions of these agents
+ * share the same matrix. When probabilities do not depend on any fraction, a single matrix is computed.
+ */
+final class LIOProbabilityMatrixCache {
+
+    private final int[] dependencies;
+
+    private final Map<FractionsKey, ProbabilityMatrix<LIOAgent>> cache;
+
+    /**
+     * Creates a cache that indexes matrices by the fractions of the agents with the given indexes.
+     *
+     * @param dependencies indexes of the agents whose fractions are used to compute action probabilities.
+     * @param size maximum number of matrices stored in the cache.
+     */
+    LIOProbabilityMatrixCache(int[] dependencies, int size) {
+        this.dependencies = dependencies;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FractionsKey, ProbabilityMatrix<LIOAgent>> eldest) {
+                return size() > size;
+            }
+        });
+    }
+
+    /**
+     * Returns the matrix associated with the given collective. If no matrix is available for the fractions of
+     * the collective, the matrix is computed with the given function and stored in the cache.
+     *
+     * @param definition agent definitions.
+     * @param collective a collective.
+     * @param function function used to compute the matrix.
+     * @return the matrix associated with the given collective.
+     */
+    <S extends LIOCollective> ProbabilityMatrix<LIOAgent> get(LIOAgentDefinitions definition, S collective, Function<S, ProbabilityMatrix<LIOAgent>> function) {
+        double[] fractions = new double[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            fractions[i] = collective.fractionOf(definition.getAgent(dependencies[i]));
+        }
+        FractionsKey key = new FractionsKey(fractions);
+        ProbabilityMatrix<LIOAgent> matrix = cache.get(key);
+        if (matrix == null) {
+            matrix = function.apply(collective);
+            cache.put(key, matrix);
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the number of matrices stored in the cache.
+     *
+     * @return the number of matrices stored in the cache.
+     */
+    int size() {
+        return cache.size();
+    }
+
+    private static final class FractionsKey {
+
+        private final double[] fractions;
+
+        private FractionsKey(double[] fractions) {
+            this.fractions = fractions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(fractions, ((FractionsKey) o).fractions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(fractions);
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.util.IndexedWeightTree;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A simulation cursor for population models implementing the optimised direct method. Rates of rules are
+ * stored in an {@link IndexedWeightTree}, so that the next rule is selected in logarithmic time, and after
+ * each step only the rates of the rules affected by the executed one, according to a
+ * {@link PopulationDependencyGraph}, are re-evaluated.
+ * <p>
+ * The population vector is owned by the cursor and updated in place by using the drift of the executed
+ * {@link ReactionRule}, precompiled in primitive arrays. An immutable {@link PopulationState} is only built
+ * when {@link #currentState()} is invoked, while {@link #currentView()} returns a view of the population
+ * vector that is valid until the next step.
+ */
+public class DependencyGraphSimulationCursor implements SimulatorCursor<PopulationState> {
+
+    private final PopulationRule[] rules;
+    private final ReactionRule[] reactionRules;
+    private final int[][] driftSpecies;
+    private final int[][] driftValues;
+    private final PopulationDependencyGraph graph;
+    private final Function<RandomGenerator, PopulationState> initialStateBuilder;
+    private final PopulationTransition[] transitions;
+    private final IndexedWeightTree rates;
+
+    private RandomGenerator rg;
+    private PopulationState current = null;
+    private PopulationState snapshot = null;
+    private double now = 0.0;
+    private boolean terminated = false;
+    private boolean started = false;
+
+    /**
+     * Creates a new cursor for the given rules.
+     *
+     * @param rg random generator used in the simulation.
+     * @param rules rules of the population model.
+     * @param graph dependency graph of the given rules.
+     * @param initialStateBuilder function used to build the initial state.
+     */
+    public DependencyGraphSimulationCursor(RandomGenerator rg, List<PopulationRule> rules, PopulationDependencyGraph graph, Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        if (rules.size() != graph.size()) {
+            throw new IllegalArgumentException(String.format("The dependency graph has %d rules while the model has %d rules.", graph.size(), rules.size()));
+        }
+        this.rg = rg;
+        this.rules = rules.toArray(new PopulationRule[0]);
+        this.graph = graph;
+        this.initialStateBuilder = initialStateBuilder;
+        this.transitions = new PopulationTransition[this.rules.length];
+        this.rates = new IndexedWeightTree(Math.max(1, this.rules.length));
+        this.reactionRules = new ReactionRule[this.rules.length];
+        this.driftSpecies = new int[this.rules.length][];
+        this.driftValues = new int[this.rules.length][];
+        for (int i = 0; i < this.rules.length; i++) {
+            if (this.rules[i] instanceof ReactionRule) {
+                this.reactionRules[i] = (ReactionRule) this.rules[i];
+                this.driftSpecies[i] = reactionRules[i].getDriftSpecies();
+                this.driftValues[i] = reactionRules[i].getDriftValues();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        this.snapshot = initialStateBuilder.apply(rg);
+        int[] vector = snapshot.getPopulationVector();
+        this.current = PopulationState.viewOf(Arrays.copyOf(vector, vector.length));
+        this.now = 0.0;
+        this.started = true;
+        this.terminated = false;
+        for (int i = 0; i < rules.length; i++) {
+            evaluate(i);
+        }
+    }
+
+    @Override
+    public boolean step() {
+        if (!started) {
+            throw new IllegalStateException(SibillaMessages.SIMULATION_CURSOR_NOT_STARTED);
+        }
+        double totalRate = rates.getTotalWeight();
+        int selected = (totalRate > 0 ? rates.select(rg.nextDouble() * totalRate) : -1);
+        if (selected < 0) {
+            terminated = true;
+            return false;
+        }
+        double dt = ContinuousTimeMarkovProcess.sampleExponentialDistribution(totalRate, rg);
+        apply(selected);
+        this.snapshot = null;
+        this.now += dt;
+        for (int i : graph.getAffectedRules(selected)) {
+            evaluate(i);
+        }
+        return true;
+    }
+
+    private void apply(int i) {
+        if (reactionRules[i] != null) {
+            for (int k = 0; k < driftSpecies[i].length; k++) {
+                current.update(driftSpecies[i][k], driftValues[i][k]);
+            }
+        } else {
+            for (Map.Entry<Integer, Integer> e : transitions[i].apply(rg).getUpdate()) {
+                current.update(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    private void evaluate(int i) {
+        if (reactionRules[i] != null) {
+            rates.set(i, reactionRules[i].getRate(now, current));
+        } else {
+            PopulationTransition transition = rules[i].apply(rg, now, current);
+            transitions[i] = transition;
+            rates.set(i, (transition == null ? 0.0 : transition.getRate()));
+        }
+    }
+
+    @Override
+    public PopulationState currentState() {
+        if ((snapshot == null) && (current != null)) {
+            snapshot = current.snapshot();
+        }
+        return snapshot;
+    }
+
+    @Override
+    public PopulationState currentView() {
+        return current;
+    }
+
+    @Override
+    public double time() {
+        return now;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void restart(RandomGenerator rg) {
+        this.rg = rg;
+        this.current = null;
+        this.snapshot = null;
+        this.terminated = false;
+        this.started = false;
+        this.rates.clear();
+    }
+
+    @Override
+    public void restart() {
+        restart(this.rg);
+    }
+}
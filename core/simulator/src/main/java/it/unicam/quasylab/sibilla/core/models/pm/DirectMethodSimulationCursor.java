@@ -0,0 +1,205 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A simulation cursor for population models implementing the direct method of Gillespie. At each step the
+ * rates of all the rules are evaluated, in the order they are defined, and stored in a primitive array. The
+ * random generator is used exactly as in {@link ContinuousTimeMarkovProcess#next},
+ * so that, for the same seed, this cursor generates the same trajectories of the default one.
+ * <p>
+ * As in {@link DependencyGraphSimulationCursor}, the population vector is owned by the cursor and updated in
+ * place by using the drift of the executed {@link ReactionRule}. An immutable {@link PopulationState} is
+ * only built when {@link #currentState()} is invoked.
+ */
+public class DirectMethodSimulationCursor implements SimulatorCursor<PopulationState> {
+
+    private final PopulationRule[] rules;
+    private final ReactionRule[] reactionRules;
+    private final int[][] driftSpecies;
+    private final int[][] driftValues;
+    private final Function<RandomGenerator, PopulationState> initialStateBuilder;
+    private final PopulationTransition[] transitions;
+    private final boolean[] enabled;
+    private final double[] rates;
+
+    private RandomGenerator rg;
+    private PopulationState current = null;
+    private PopulationState snapshot = null;
+    private double now = 0.0;
+    private boolean terminated = false;
+    private boolean started = false;
+
+    /**
+     * Creates a new cursor for the given rules.
+     *
+     * @param rg random generator used in the simulation.
+     * @param rules rules of the population model.
+     * @param initialStateBuilder function used to build the initial state.
+     */
+    public DirectMethodSimulationCursor(RandomGenerator rg, List<PopulationRule> rules, Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        this.rg = rg;
+        this.rules = rules.toArray(new PopulationRule[0]);
+        this.initialStateBuilder = initialStateBuilder;
+        this.transitions = new PopulationTransition[this.rules.length];
+        this.enabled = new boolean[this.rules.length];
+        this.rates = new double[this.rules.length];
+        this.reactionRules = new ReactionRule[this.rules.length];
+        this.driftSpecies = new int[this.rules.length][];
+        this.driftValues = new int[this.rules.length][];
+        for (int i = 0; i < this.rules.length; i++) {
+            if (this.rules[i] instanceof ReactionRule) {
+                this.reactionRules[i] = (ReactionRule) this.rules[i];
+                this.driftSpecies[i] = reactionRules[i].getDriftSpecies();
+                this.driftValues[i] = reactionRules[i].getDriftValues();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        this.snapshot = initialStateBuilder.apply(rg);
+        int[] vector = snapshot.getPopulationVector();
+        this.current = PopulationState.viewOf(Arrays.copyOf(vector, vector.length));
+        this.now = 0.0;
+        this.started = true;
+        this.terminated = false;
+    }
+
+    @Override
+    public boolean step() {
+        if (!started) {
+            throw new IllegalStateException(SibillaMessages.SIMULATION_CURSOR_NOT_STARTED);
+        }
+        double totalRate = evaluateRates();
+        if (totalRate == 0.0) {
+            terminated = true;
+            return false;
+        }
+        double dt = ContinuousTimeMarkovProcess.sampleExponentialDistribution(totalRate, rg);
+        apply(select(rg.nextDouble() * totalRate));
+        this.snapshot = null;
+        this.now += dt;
+        return true;
+    }
+
+    private double evaluateRates() {
+        double total = 0.0;
+        for (int i = 0; i < rules.length; i++) {
+            if (reactionRules[i] != null) {
+                rates[i] = reactionRules[i].getRate(now, current);
+                enabled[i] = (rates[i] > 0);
+            } else {
+                PopulationTransition transition = rules[i].apply(rg, now, current);
+                transitions[i] = transition;
+                enabled[i] = (transition != null);
+                rates[i] = (enabled[i] ? transition.getRate() : 0.0);
+            }
+            if (enabled[i]) {
+                total += rates[i];
+            }
+        }
+        return total;
+    }
+
+    private int select(double value) {
+        double total = 0.0;
+        int selected = -1;
+        for (int i = 0; i < rules.length; i++) {
+            if (enabled[i]) {
+                selected = i;
+                total += rates[i];
+                if (value <= total) {
+                    break;
+                }
+            }
+        }
+        return selected;
+    }
+
+    private void apply(int i) {
+        if (reactionRules[i] != null) {
+            for (int k = 0; k < driftSpecies[i].length; k++) {
+                current.update(driftSpecies[i][k], driftValues[i][k]);
+            }
+        } else {
+            for (Map.Entry<Integer, Integer> e : transitions[i].apply(rg).getUpdate()) {
+                current.update(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    @Override
+    public PopulationState currentState() {
+        if ((snapshot == null) && (current != null)) {
+            snapshot = current.snapshot();
+        }
+        return snapshot;
+    }
+
+    @Override
+    public PopulationState currentView() {
+        return current;
+    }
+
+    @Override
+    public double time() {
+        return now;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void restart(RandomGenerator rg) {
+        this.rg = rg;
+        this.current = null;
+        this.snapshot = null;
+        this.terminated = false;
+        this.started = false;
+    }
+
+    @Override
+    public void restart() {
+        restart(this.rg);
+    }
+}
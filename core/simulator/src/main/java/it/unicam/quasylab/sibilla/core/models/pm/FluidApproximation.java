@@ -0,0 +1,235 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.util.ode.DormandPrinceIntegrator;
+import it.unicam.quasylab.sibilla.core.util.ode.VectorField;
+
+import java.util.List;
+
+/**
+ * The fluid (mean field) approximation of a population model. The drift of the model is the sum of the updates
+ * of its rules weighted by their rates, and is integrated with an adaptive Runge-Kutta method. The linear noise
+ * approximation extends the drift with the equations of the covariance matrix <code>C</code>:
+ * <code>dC/dt = J C + C J^T + G</code>, where <code>J</code> is the Jacobian of the drift, computed by finite
+ * differences, and <code>G</code> is the sum of the outer products of rule updates weighted by their rates.
+ * <p>
+ * The approximation relies on the rates and on the updates of {@link ReactionRule}; models containing other
+ * kinds of rules are not supported. Rates are evaluated on {@link FluidPopulationState}, where occupancies are
+ * real numbers.
+ */
+public class FluidApproximation {
+
+    private final ReactionRule[] rules;
+    private final int species;
+    private final int[][] driftSpecies;
+    private final int[][] driftValues;
+
+    /**
+     * Creates the fluid approximation of the given rules.
+     *
+     * @param rules rules of the population model.
+     * @param species number of species in the model.
+     */
+    public FluidApproximation(List<PopulationRule> rules, int species) {
+        if (rules.stream().anyMatch(r -> !(r instanceof ReactionRule))) {
+            throw new IllegalArgumentException("Fluid approximation is only available for reaction rules");
+        }
+        this.rules = rules.toArray(new ReactionRule[0]);
+        this.species = species;
+        this.driftSpecies = new int[this.rules.length][];
+        this.driftValues = new int[this.rules.length][];
+        for (int j = 0; j < this.rules.length; j++) {
+            this.driftSpecies[j] = this.rules[j].getDriftSpecies();
+            this.driftValues[j] = this.rules[j].getDriftValues();
+        }
+    }
+
+    /**
+     * Returns the number of species in the model.
+     *
+     * @return the number of species in the model.
+     */
+    public int getNumberOfSpecies() {
+        return species;
+    }
+
+    /**
+     * Returns the sum of the rates of the rules in the given occupancies at the given time.
+     *
+     * @param t current time.
+     * @param x species occupancies.
+     * @return the sum of the rates of the rules.
+     */
+    public double totalRate(double t, double[] x) {
+        FluidPopulationState state = FluidPopulationState.viewOf(x);
+        double total = 0.0;
+        for (ReactionRule rule : rules) {
+            total += rule.getFluidRate(t, state);
+        }
+        return total;
+    }
+
+    /**
+     * Stores in <code>dx</code> the drift of the model in the given occupancies at the given time.
+     *
+     * @param t current time.
+     * @param x species occupancies.
+     * @param dx array where the drift is stored.
+     */
+    public void drift(double t, double[] x, double[] dx) {
+        FluidPopulationState state = FluidPopulationState.viewOf(x);
+        for (int i = 0; i < species; i++) {
+            dx[i] = 0.0;
+        }
+        for (int j = 0; j < rules.length; j++) {
+            double rate = rules[j].getFluidRate(t, state);
+            if (rate > 0) {
+                for (int k = 0; k < driftSpecies[j].length; k++) {
+                    dx[driftSpecies[j][k]] += rate * driftValues[j][k];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the drift of the model as a vector field.
+     *
+     * @return the drift of the model as a vector field.
+     */
+    public VectorField getMeanField() {
+        return this::drift;
+    }
+
+    /**
+     * Returns the vector field of the linear noise approximation. The first <code>n</code> elements of the
+     * vector are the mean occupancies of the <code>n</code> species, while the remaining <code>n*n</code>
+     * elements are the covariance matrix stored by rows.
+     *
+     * @return the vector field of the linear noise approximation.
+     */
+    public VectorField getLinearNoiseField() {
+        return this::linearNoise;
+    }
+
+    private void linearNoise(double t, double[] y, double[] dy) {
+        double[] x = new double[species];
+        System.arraycopy(y, 0, x, 0, species);
+        drift(t, x, dy);
+        double[][] jacobian = jacobian(t, x);
+        double[][] diffusion = diffusion(t, x);
+        for (int a = 0; a < species; a++) {
+            for (int b = 0; b < species; b++) {
+                double value = diffusion[a][b];
+                for (int k = 0; k < species; k++) {
+                    value += jacobian[a][k] * y[species + k * species + b] + y[species + a * species + k] * jacobian[b][k];
+                }
+                dy[species + a * species + b] = value;
+            }
+        }
+    }
+
+    /**
+     * Returns the Jacobian of the drift in the given occupancies at the given time, computed by finite
+     * differences.
+     *
+     * @param t current time.
+     * @param x species occupancies.
+     * @return the Jacobian of the drift.
+     */
+    public double[][] jacobian(double t, double[] x) {
+        double[][] jacobian = new double[species][species];
+        double[] shifted = x.clone();
+        double[] forward = new double[species];
+        double[] backward = new double[species];
+        for (int i = 0; i < species; i++) {
+            double delta = 1.0E-6 * Math.max(1.0, Math.abs(x[i]));
+            double lower = Math.max(0.0, x[i] - delta);
+            shifted[i] = x[i] + delta;
+            drift(t, shifted, forward);
+            shifted[i] = lower;
+            drift(t, shifted, backward);
+            shifted[i] = x[i];
+            for (int a = 0; a < species; a++) {
+                jacobian[a][i] = (forward[a] - backward[a]) / (x[i] + delta - lower);
+            }
+        }
+        return jacobian;
+    }
+
+    /**
+     * Returns the diffusion matrix of the model in the given occupancies at the given time.
+     *
+     * @param t current time.
+     * @param x species occupancies.
+     * @return the diffusion matrix of the model.
+     */
+    public double[][] diffusion(double t, double[] x) {
+        FluidPopulationState state = FluidPopulationState.viewOf(x);
+        double[][] diffusion = new double[species][species];
+        for (int j = 0; j < rules.length; j++) {
+            double rate = rules[j].getFluidRate(t, state);
+            if (rate > 0) {
+                for (int k = 0; k < driftSpecies[j].length; k++) {
+                    for (int l = 0; l < driftSpecies[j].length; l++) {
+                        diffusion[driftSpecies[j][k]][driftSpecies[j][l]] += rate * driftValues[j][k] * driftValues[j][l];
+                    }
+                }
+            }
+        }
+        return diffusion;
+    }
+
+    /**
+     * Computes the linear noise approximation of the model starting from the given state.
+     *
+     * @param initialState initial state.
+     * @param times increasing time points where mean and covariance are recorded.
+     * @param maxStep maximal integration step.
+     * @return means and covariances at the given time points.
+     */
+    public LinearNoiseSolution linearNoiseApproximation(PopulationState initialState, double[] times, double maxStep) {
+        double[] y = new double[species + species * species];
+        for (int i = 0; i < species; i++) {
+            y[i] = initialState.getOccupancy(i);
+        }
+        DormandPrinceIntegrator integrator = new DormandPrinceIntegrator(getLinearNoiseField(), y.length, maxStep);
+        double[][] means = new double[times.length][];
+        double[][][] covariances = new double[times.length][species][];
+        double now = 0.0;
+        for (int k = 0; k < times.length; k++) {
+            integrator.integrate(now, y, times[k]);
+            now = Math.max(now, times[k]);
+            means[k] = new double[species];
+            System.arraycopy(y, 0, means[k], 0, species);
+            for (int a = 0; a < species; a++) {
+                covariances[k][a] = new double[species];
+                System.arraycopy(y, species + a * species, covariances[k][a], 0, species);
+            }
+        }
+        return new LinearNoiseSolution(times.clone(), means, covariances);
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import java.util.Arrays;
+
+/**
+ * A population state where occupancies are real numbers. States of this class are generated by the fluid
+ * (mean field) approximation of a population model, so that rate expressions and measures defined on
+ * {@link PopulationState} can be evaluated on them. Occupancies accessed via
+ * {@link #getPopulationVector()} are rounded to the nearest integer.
+ */
+public final class FluidPopulationState extends PopulationState {
+
+    private static final long serialVersionUID = 3761466213618406533L;
+
+    private final double[] occupancies;
+
+    /**
+     * Creates a new state with the given occupancies.
+     *
+     * @param occupancies species occupancies.
+     */
+    public FluidPopulationState(double[] occupancies) {
+        super(new int[occupancies.length]);
+        this.occupancies = occupancies;
+    }
+
+    /**
+     * Returns a state sharing the given array of occupancies. This method is used to evaluate rates while
+     * the fluid approximation is integrated: the returned state must not escape the integrator.
+     *
+     * @param occupancies species occupancies.
+     * @return a state sharing the given array of occupancies.
+     */
+    static FluidPopulationState viewOf(double[] occupancies) {
+        return new FluidPopulationState(occupancies);
+    }
+
+    @Override
+    public double population() {
+        double sum = 0.0;
+        for (double v : occupancies) {
+            sum += v;
+        }
+        return sum;
+    }
+
+    @Override
+    public double getOccupancy(int i) {
+        return ((i >= 0) && (i < occupancies.length) ? occupancies[i] : 0.0);
+    }
+
+    /**
+     * Returns the occupancies of this state.
+     *
+     * @return the occupancies of this state.
+     */
+    public double[] getOccupancies() {
+        return Arrays.copyOf(occupancies, occupancies.length);
+    }
+
+    @Override
+    public int[] getPopulationVector() {
+        int[] vector = new int[occupancies.length];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (int) Math.round(occupancies[i]);
+        }
+        return vector;
+    }
+
+    @Override
+    public PopulationState apply(Update update) {
+        double[] next = Arrays.copyOf(occupancies, occupancies.length);
+        update.getUpdate().forEach(e -> next[e.getKey()] += e.getValue());
+        return new FluidPopulationState(next);
+    }
+
+    @Override
+    public int size() {
+        return occupancies.length;
+    }
+
+    @Override
+    public PopulationState copy() {
+        return new FluidPopulationState(Arrays.copyOf(occupancies, occupancies.length));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(occupancies);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(occupancies, ((FluidPopulationState) o).occupancies);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(occupancies);
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
+import it.unicam.quasylab.sibilla.core.util.ode.DormandPrinceIntegrator;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A simulation cursor following the fluid approximation of a population model. Each step is an accepted step
+ * of an adaptive Runge-Kutta integrator whose size is bounded by a given value, so that sampling functions
+ * observe the solution at a sufficient resolution. Generated states are instances of
+ * {@link FluidPopulationState}. The trajectory is deterministic: the random generator is only used to build
+ * the initial state.
+ */
+public class FluidSimulationCursor implements SimulatorCursor<PopulationState> {
+
+    public static final double DEFAULT_MAX_STEP = 0.1;
+
+    private final FluidApproximation approximation;
+    private final Function<RandomGenerator, PopulationState> initialStateBuilder;
+    private final DormandPrinceIntegrator integrator;
+    private final double[] occupancies;
+
+    private RandomGenerator rg;
+    private PopulationState current = null;
+    private double now = 0.0;
+    private boolean terminated = false;
+    private boolean started = false;
+
+    /**
+     * Creates a new cursor for the given approximation.
+     *
+     * @param rg random generator used to build the initial state.
+     * @param approximation fluid approximation of the model.
+     * @param initialStateBuilder function used to build the initial state.
+     * @param maxStep maximal time between two consecutive states.
+     */
+    public FluidSimulationCursor(RandomGenerator rg, FluidApproximation approximation, Function<RandomGenerator, PopulationState> initialStateBuilder, double maxStep) {
+        this.rg = rg;
+        this.approximation = approximation;
+        this.initialStateBuilder = initialStateBuilder;
+        this.occupancies = new double[approximation.getNumberOfSpecies()];
+        this.integrator = new DormandPrinceIntegrator(approximation.getMeanField(), occupancies.length, maxStep);
+    }
+
+    @Override
+    public void start() {
+        PopulationState initialState = initialStateBuilder.apply(rg);
+        for (int i = 0; i < occupancies.length; i++) {
+            occupancies[i] = initialState.getOccupancy(i);
+        }
+        this.current = new FluidPopulationState(occupancies.clone());
+        this.now = 0.0;
+        this.started = true;
+        this.terminated = false;
+        this.integrator.reset();
+    }
+
+    @Override
+    public boolean step() {
+        if (!started) {
+            throw new IllegalStateException(SibillaMessages.SIMULATION_CURSOR_NOT_STARTED);
+        }
+        if (approximation.totalRate(now, occupancies) <= 0) {
+            terminated = true;
+            return false;
+        }
+        this.now = integrator.step(now, occupancies, Double.POSITIVE_INFINITY);
+        this.current = new FluidPopulationState(Arrays.copyOf(occupancies, occupancies.length));
+        return true;
+    }
+
+    @Override
+    public PopulationState currentState() {
+        return current;
+    }
+
+    @Override
+    public double time() {
+        return now;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void restart(RandomGenerator rg) {
+        this.rg = rg;
+        this.current = null;
+        this.terminated = false;
+        this.started = false;
+    }
+
+    @Override
+    public void restart() {
+        restart(this.rg);
+    }
+}
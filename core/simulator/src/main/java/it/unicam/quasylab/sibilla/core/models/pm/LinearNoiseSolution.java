@@ -0,0 +1,106 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+/**
+ * Means and covariances of species occupancies computed by the linear noise approximation of a population model
+ * at a sequence of time points.
+ */
+public final class LinearNoiseSolution {
+
+    private final double[] times;
+    private final double[][] means;
+    private final double[][][] covariances;
+
+    LinearNoiseSolution(double[] times, double[][] means, double[][][] covariances) {
+        this.times = times;
+        this.means = means;
+        this.covariances = covariances;
+    }
+
+    /**
+     * Returns the number of time points.
+     *
+     * @return the number of time points.
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * Returns the k-th time point.
+     *
+     * @param k time point index.
+     * @return the k-th time point.
+     */
+    public double getTime(int k) {
+        return times[k];
+    }
+
+    /**
+     * Returns the mean occupancy of the given species at the k-th time point.
+     *
+     * @param k time point index.
+     * @param i species index.
+     * @return the mean occupancy of the given species at the k-th time point.
+     */
+    public double getMean(int k, int i) {
+        return means[k][i];
+    }
+
+    /**
+     * Returns the covariance of the occupancies of the given species at the k-th time point.
+     *
+     * @param k time point index.
+     * @param i first species index.
+     * @param j second species index.
+     * @return the covariance of the occupancies of the given species at the k-th time point.
+     */
+    public double getCovariance(int k, int i, int j) {
+        return covariances[k][i][j];
+    }
+
+    /**
+     * Returns the standard deviation of the occupancy of the given species at the k-th time point.
+     *
+     * @param k time point index.
+     * @param i species index.
+     * @return the standard deviation of the occupancy of the given species at the k-th time point.
+     */
+    public double getStandardDeviation(int k, int i) {
+        return Math.sqrt(Math.max(0.0, covariances[k][i][i]));
+    }
+
+    /**
+     * Returns the mean state at the k-th time point.
+     *
+     * @param k time point index.
+     * @return the mean state at the k-th time point.
+     */
+    public FluidPopulationState getMeanState(int k) {
+        return new FluidPopulationState(means[k].clone());
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The dependency graph of the rules of a population model. For each rule this graph provides the
+ * rules whose rate can change after that rule is executed. A rule <code>j</code> depends on a rule
+ * <code>i</code> when the update of <code>i</code> changes a species occurring in the reactants, in
+ * the guard or in the rate of <code>j</code>, or when <code>i</code> changes the total population size
+ * and <code>j</code> depends on it. Rules that are not instances of {@link ReactionRule}, or that do not
+ * declare their dependencies, are conservatively considered dependent on (and affecting) all the rules.
+ */
+public class PopulationDependencyGraph implements Serializable {
+
+    private static final long serialVersionUID = -2268416958209613742L;
+
+    private final int[][] affected;
+
+    /**
+     * Creates the dependency graph of the given rules.
+     *
+     * @param rules list of rules.
+     */
+    public PopulationDependencyGraph(List<PopulationRule> rules) {
+        this.affected = computeAffectedRules(rules);
+    }
+
+    /**
+     * Returns the number of rules in the graph.
+     *
+     * @return the number of rules in the graph.
+     */
+    public int size() {
+        return affected.length;
+    }
+
+    /**
+     * Returns the indexes of the rules whose rates must be re-evaluated after the execution of
+     * the given rule.
+     *
+     * @param rule the index of a rule.
+     * @return the indexes of the rules whose rates must be re-evaluated after the execution of
+     * the given rule.
+     */
+    public int[] getAffectedRules(int rule) {
+        return affected[rule];
+    }
+
+    private static int[][] computeAffectedRules(List<PopulationRule> rules) {
+        int size = rules.size();
+        BitSet unknown = new BitSet(size);
+        BitSet populationDependent = new BitSet(size);
+        List<BitSet> speciesDependents = new ArrayList<>();
+        for (int j = 0; j < size; j++) {
+            int[] dependencies = getDependencies(rules.get(j));
+            if (dependencies == null) {
+                unknown.set(j);
+                continue;
+            }
+            for (int species : dependencies) {
+                while (speciesDependents.size() <= species) {
+                    speciesDependents.add(new BitSet(size));
+                }
+                speciesDependents.get(species).set(j);
+            }
+            if (((ReactionRule) rules.get(j)).isPopulationDependent()) {
+                populationDependent.set(j);
+            }
+        }
+        int[][] result = new int[size][];
+        for (int i = 0; i < size; i++) {
+            PopulationRule rule = rules.get(i);
+            BitSet affectedByI = new BitSet(size);
+            if (rule instanceof ReactionRule) {
+                int drift = 0;
+                for (Map.Entry<Integer, Integer> e : ((ReactionRule) rule).getUpdate().getUpdate()) {
+                    drift += e.getValue();
+                    if (e.getKey() < speciesDependents.size()) {
+                        affectedByI.or(speciesDependents.get(e.getKey()));
+                    }
+                }
+                if (drift != 0) {
+                    affectedByI.or(populationDependent);
+                }
+                affectedByI.or(unknown);
+            } else {
+                affectedByI.set(0, size);
+            }
+            result[i] = affectedByI.stream().toArray();
+        }
+        return result;
+    }
+
+    private static int[] getDependencies(PopulationRule rule) {
+        if (rule instanceof ReactionRule) {
+            return ((ReactionRule) rule).getDependencies();
+        }
+        return null;
+    }
+
+}
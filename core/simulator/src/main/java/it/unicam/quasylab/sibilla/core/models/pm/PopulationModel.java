@@ -27,17 +27,19 @@ import it.unicam.quasylab.sibilla.core.models.AbstractModel;
 import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
 import it.unicam.quasylab.sibilla.core.models.StepFunction;
 import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.ColumnarTrajectory;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
 import it.unicam.quasylab.sibilla.core.simulator.util.WeightedElement;
 import it.unicam.quasylab.sibilla.core.simulator.util.WeightedLinkedList;
 import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructure;
 import org.apache.commons.math3.random.RandomGenerator;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
@@ -57,6 +59,10 @@ public class PopulationModel extends AbstractModel<PopulationState> implements C
 
     private final List<PopulationRule> rules;
 
+    private transient PopulationDependencyGraph dependencyGraph;
+
+    private transient FluidApproximation fluidApproximation;
+
     public PopulationModel(PopulationRegistry registry,
                            List<PopulationRule> rules,
                            Map<String, Measure<? super PopulationState>> measuresTable,
@@ -79,6 +85,103 @@ public class PopulationModel extends AbstractModel<PopulationState> implements C
         return activities;
     }
 
+    /**
+     * Returns a simulation cursor implementing the direct method on a population vector updated in place.
+     * The cursor generates the same trajectories of the default cursor of Markov models.
+     *
+     * @param r random generator used in the simulation.
+     * @param initialStateBuilder function used to build the initial state.
+     * @return a simulation cursor implementing the direct method.
+     */
+    @Override
+    public SimulatorCursor<PopulationState> createSimulationCursor(RandomGenerator r, Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        return new DirectMethodSimulationCursor(r, rules, initialStateBuilder);
+    }
+
+    /**
+     * Returns a simulation cursor that, after each step, only re-evaluates the rates of the rules
+     * affected by the executed one. This method can be used as a cursor supplier in
+     * {@link it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment}.
+     *
+     * @param r random generator used in the simulation.
+     * @param initialStateBuilder function used to build the initial state.
+     * @return a simulation cursor based on the dependency graph of model rules.
+     */
+    public SimulatorCursor<PopulationState> createDependencyGraphSimulationCursor(RandomGenerator r, Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        return new DependencyGraphSimulationCursor(r, rules, getDependencyGraph(), initialStateBuilder);
+    }
+
+    /**
+     * Returns a simulation cursor that approximates trajectories of this model via adaptive tau-leaping.
+     * This method can be used as a cursor supplier in
+     * {@link it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment}.
+     *
+     * @param r random generator used in the simulation.
+     * @param initialStateBuilder function used to build the initial state.
+     * @return a simulation cursor based on tau-leaping.
+     */
+    public SimulatorCursor<PopulationState> createTauLeapingSimulationCursor(RandomGenerator r, Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        return new TauLeapingSimulationCursor(r, rules, initialStateBuilder);
+    }
+
+    /**
+     * Returns a simulation cursor following the fluid approximation of this model. This method can be used as
+     * a cursor supplier in {@link it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment}.
+     *
+     * @param r random generator used to build the initial state.
+     * @param initialStateBuilder function used to build the initial state.
+     * @return a simulation cursor following the fluid approximation of this model.
+     */
+    public SimulatorCursor<PopulationState> createFluidSimulationCursor(RandomGenerator r, Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        return createFluidSimulationCursor(r, initialStateBuilder, FluidSimulationCursor.DEFAULT_MAX_STEP);
+    }
+
+    /**
+     * Returns a simulation cursor following the fluid approximation of this model where the time between two
+     * consecutive states is at most <code>maxStep</code>.
+     *
+     * @param r random generator used to build the initial state.
+     * @param initialStateBuilder function used to build the initial state.
+     * @param maxStep maximal time between two consecutive states.
+     * @return a simulation cursor following the fluid approximation of this model.
+     */
+    public SimulatorCursor<PopulationState> createFluidSimulationCursor(RandomGenerator r, Function<RandomGenerator, PopulationState> initialStateBuilder, double maxStep) {
+        return new FluidSimulationCursor(r, getFluidApproximation(), initialStateBuilder, maxStep);
+    }
+
+    @Override
+    public Trajectory<PopulationState> createTrajectory() {
+        return new ColumnarTrajectory<>(PopulationState.VECTOR_CODEC);
+    }
+
+    /**
+     * Returns the dependency graph of the rules of this model.
+     *
+     * @return the dependency graph of the rules of this model.
+     */
+    public synchronized PopulationDependencyGraph getDependencyGraph() {
+        if (dependencyGraph == null) {
+            dependencyGraph = new PopulationDependencyGraph(rules);
+        }
+        return dependencyGraph;
+    }
+
+    /**
+     * Returns the fluid approximation of this model.
+     *
+     * @return the fluid approximation of this model.
+     */
+    public synchronized FluidApproximation getFluidApproximation() {
+        if (fluidApproximation == null) {
+            fluidApproximation = new FluidApproximation(rules, registry.size());
+        }
+        return fluidApproximation;
+    }
+
+    public List<PopulationRule> getRules() {
+        return rules;
+    }
+
     public static Map<String, Integer> createPopulation(String... species) {
         HashMap<String, Integer> map = new HashMap<>();
         IntStream.range(0, species.length).forEach(i -> map.put(species[i], i));
@@ -96,22 +199,20 @@ public class PopulationModel extends AbstractModel<PopulationState> implements C
 
     @Override
     public byte[] byteOf(PopulationState state) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(stateByteArraySize());
         for (int vectorSingleValue : state.getPopulationVector()) {
-                baos.write(ByteBuffer.allocate(4).putInt(vectorSingleValue).array());
+            buffer.putInt(vectorSingleValue);
         }
-        byte[] toReturn = baos.toByteArray();
-        baos.close();
-        return toReturn;
+        return buffer.array();
     }
 
     @Override
     public PopulationState fromByte(byte[] bytes) throws IOException {
-        ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
         int length = registry.size();
         int[] vector = new int[length];
         for (int i = 0; i < length; i++) {
-            vector[i] = ByteBuffer.wrap(bais.readNBytes(4)).getInt();
+            vector[i] = buffer.getInt();
         }
         return new PopulationState(vector);
     }
@@ -24,6 +24,7 @@ package it.unicam.quasylab.sibilla.core.models.pm;
 
 import it.unicam.quasylab.sibilla.core.models.ImmutableState;
 import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.simulator.StateVectorCodec;
 
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -46,6 +47,30 @@ import java.util.stream.IntStream;
 public class PopulationState implements ImmutableState {
 
     private static final long serialVersionUID = -4973919753621170006L;
+
+    /**
+     * The codec used to store population states in flat arrays of integers.
+     */
+    public static final StateVectorCodec<PopulationState> VECTOR_CODEC = new StateVectorCodec<>() {
+
+        private static final long serialVersionUID = 1850293447591766120L;
+
+        @Override
+        public int width(PopulationState state) {
+            return state.size();
+        }
+
+        @Override
+        public void encode(PopulationState state, int[] target, int offset) {
+            int[] vector = state.getPopulationVector();
+            System.arraycopy(vector, 0, target, offset, vector.length);
+        }
+
+        @Override
+        public PopulationState decode(int[] source, int offset, int width) {
+            return new PopulationState(Arrays.copyOfRange(source, offset, offset + width));
+        }
+    };
     /**
      * Internal representation of the state as continuing vector.
      */
@@ -104,11 +129,19 @@ public class PopulationState implements ImmutableState {
     }
 
     public double getOccupancy(int... idx) {
-        return IntStream.of(idx).boxed().map(i -> (double) populationVector[i]).reduce(0.0, Double::sum);
+        double sum = 0.0;
+        for (int i : idx) {
+            sum += getOccupancy(i);
+        }
+        return sum;
     }
 
     public double getOccupancy(List<Integer> indexes) {
-        return indexes.stream().map(i -> (double) populationVector[i]).reduce(0.0, Double::sum);
+        double sum = 0.0;
+        for (int i : indexes) {
+            sum += getOccupancy(i);
+        }
+        return sum;
     }
 
 
@@ -127,9 +160,9 @@ public class PopulationState implements ImmutableState {
 
     public double getFraction(Predicate<Integer> p) {
         double sum = 0.0;
-        for(int i=0; i<populationVector.length; i++) {
+        for(int i=0; i<size(); i++) {
             if (p.test(i)) {
-                sum += populationVector[i];
+                sum += getOccupancy(i);
             }
         }
         return sum/population();
@@ -160,8 +193,8 @@ public class PopulationState implements ImmutableState {
 
     public double min(Predicate<Integer> p, Function<Integer, Double> f) {
         double min = Double.MAX_VALUE;
-        for (int i = 0; i < populationVector.length; i++) {
-            if ((p.test(i)) && (this.populationVector[i] > 0)) {
+        for (int i = 0; i < size(); i++) {
+            if ((p.test(i)) && (getOccupancy(i) > 0)) {
                 min = Math.min(min, f.apply(i));
             }
         }
@@ -174,8 +207,8 @@ public class PopulationState implements ImmutableState {
 
     public double max(Predicate<Integer> p, Function<Integer, Double> f) {
         double max = Double.MIN_VALUE;
-        for (int i = 0; i < populationVector.length; i++) {
-            if ((p.test(i)) && (this.populationVector[i] > 0)) {
+        for (int i = 0; i < size(); i++) {
+            if ((p.test(i)) && (getOccupancy(i) > 0)) {
                 max = Math.max(max, f.apply(i));
             }
         }
@@ -184,11 +217,11 @@ public class PopulationState implements ImmutableState {
 
     public double average(Predicate<Integer> p, Function<Integer, Double> f) {
         double total = 0.0;
-        int counter = 0;
-        for (int i = 0; i < populationVector.length; i++) {
-            if (p.test(i) && (populationVector[i] > 0)) {
-                counter += populationVector[i];
-                total += populationVector[i] * f.apply(i);
+        double counter = 0;
+        for (int i = 0; i < size(); i++) {
+            if (p.test(i) && (getOccupancy(i) > 0)) {
+                counter += getOccupancy(i);
+                total += getOccupancy(i) * f.apply(i);
             }
         }
         return total / counter;
@@ -199,17 +232,21 @@ public class PopulationState implements ImmutableState {
     }
 
     public int count(Set<Integer> species) {
+        int[] vector = getPopulationVector();
         int result = 0;
         for (Integer i : species) {
-            result += this.populationVector[i];
+            result += vector[i];
         }
         return result;
     }
 
     public int count(Predicate<Integer> p) {
+        int[] vector = getPopulationVector();
         int result = 0;
-        for (int i = 0; i < this.populationVector.length; i++) {
-            result += this.populationVector[i];
+        for (int i = 0; i < vector.length; i++) {
+            if (p.test(i)) {
+                result += vector[i];
+            }
         }
         return result;
     }
@@ -236,6 +273,55 @@ public class PopulationState implements ImmutableState {
         return this.populationVector;
     }
 
+    /**
+     * Returns a state sharing the given population vector. This method is used by simulation cursors that
+     * update populations in place: the returned state is not immutable and must not escape the cursor.
+     *
+     * @param populationVector the population vector to share.
+     * @return a state sharing the given population vector.
+     */
+    static PopulationState viewOf(int[] populationVector) {
+        return new PopulationState(populationVector);
+    }
+
+    /**
+     * Adds the given value to the population of the given species. This method must be only used on states
+     * obtained via {@link PopulationState#viewOf(int[])}.
+     *
+     * @param idx species index.
+     * @param delta the value to add.
+     */
+    void update(int idx, int delta) {
+        int newValue = populationVector[idx] + delta;
+        if (newValue < 0) {
+            throw new IllegalArgumentException("Population Vector: " + this + " idx: " + idx + " delta: " + delta);
+        }
+        populationVector[idx] = newValue;
+        population += delta;
+    }
+
+    /**
+     * Returns an immutable copy of this state that does not share the population vector.
+     *
+     * @return an immutable copy of this state that does not share the population vector.
+     */
+    PopulationState snapshot() {
+        return new PopulationState(population, Arrays.copyOf(populationVector, populationVector.length));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PopulationState that = (PopulationState) o;
+        return Arrays.equals(populationVector, that.populationVector);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(populationVector);
+    }
+
 //    @Override
 //    public void writeExternal(ObjectOutput out) throws IOException {
 //        out.writeInt(populationVector.length);
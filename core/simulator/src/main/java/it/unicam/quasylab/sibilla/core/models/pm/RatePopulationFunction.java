@@ -23,6 +23,7 @@
 
 package it.unicam.quasylab.sibilla.core.models.pm;
 
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
 import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 
 import java.io.Serializable;
@@ -36,4 +37,64 @@ public interface RatePopulationFunction extends Serializable {
 
     SibillaValue apply(double now, PopulationState state);
 
+    /**
+     * Returns the value of this function as a primitive double. Functions built via
+     * {@link #ofDouble(DoubleRate)} compute this value without allocating a {@link SibillaValue}.
+     *
+     * @param now current time.
+     * @param state current state.
+     * @return the value of this function as a primitive double.
+     */
+    default double applyAsDouble(double now, PopulationState state) {
+        return apply(now, state).doubleOf();
+    }
+
+    /**
+     * Returns true if this function always returns a {@link SibillaDouble}.
+     *
+     * @return true if this function always returns a {@link SibillaDouble}.
+     */
+    default boolean isDoubleValued() {
+        return false;
+    }
+
+    /**
+     * Returns the rate function that evaluates the given primitive function. The returned function is
+     * double valued and its method {@link #applyAsDouble(double, PopulationState)} does not allocate.
+     *
+     * @param f a primitive function.
+     * @return the rate function that evaluates the given primitive function.
+     */
+    static RatePopulationFunction ofDouble(DoubleRate f) {
+        return new RatePopulationFunction() {
+
+            private static final long serialVersionUID = -5381046925740931870L;
+
+            @Override
+            public SibillaValue apply(double now, PopulationState state) {
+                return new SibillaDouble(f.applyAsDouble(now, state));
+            }
+
+            @Override
+            public double applyAsDouble(double now, PopulationState state) {
+                return f.applyAsDouble(now, state);
+            }
+
+            @Override
+            public boolean isDoubleValued() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * A rate function returning primitive doubles.
+     */
+    @FunctionalInterface
+    interface DoubleRate extends Serializable {
+
+        double applyAsDouble(double now, PopulationState state);
+
+    }
+
 }
@@ -28,9 +28,11 @@ package it.unicam.quasylab.sibilla.core.models.pm;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * @author loreti
@@ -43,12 +45,24 @@ public class ReactionRule implements PopulationRule, Serializable {
 	private final Predicate<PopulationState> guard;
 
 	private final Map<Integer, Integer> reactants;
+
+	private final int[] reactantSpecies;
+
+	private final int[] reactantCounts;
 	
 	private final RatePopulationFunction rateFunction;
 	
 	private final String name;
 
 	private final Update update;
+
+	private final int[] driftSpecies;
+
+	private final int[] driftValues;
+
+	private final int[] dependencies;
+
+	private final boolean populationDependent;
 	
 	/**
 	 * @param reactants
@@ -60,14 +74,45 @@ public class ReactionRule implements PopulationRule, Serializable {
 	}
 
 	public ReactionRule(String name, Predicate<PopulationState> guard, Population[] reactants, Population[] products, RatePopulationFunction rateFunction) {
+		this(name, guard, reactants, products, rateFunction, null, true);
+	}
+
+	/**
+	 * Creates a new rule whose guard and rate only depend on the given species. When <code>populationDependent</code>
+	 * is true, guard and rate also depend on the total population size (for instance when fractions are used).
+	 * A null array of species indicates that dependencies are unknown.
+	 *
+	 * @param name rule name
+	 * @param guard rule guard
+	 * @param reactants rule reactants
+	 * @param products rule products
+	 * @param rateFunction rule rate
+	 * @param rateDependencies indexes of species used in guard and rate
+	 * @param populationDependent true if guard and rate depend on the total population size
+	 */
+	public ReactionRule(String name, Predicate<PopulationState> guard, Population[] reactants, Population[] products, RatePopulationFunction rateFunction, int[] rateDependencies, boolean populationDependent) {
 		super();
 		this.guard = guard;
 		this.reactants = new HashMap<>();
 		this.rateFunction = rateFunction;
 		this.name = name;
 		this.update = new Update(name);
+		this.populationDependent = populationDependent;
 		initReactants(reactants);
 		initDrift(reactants, products);
+		this.driftSpecies = this.update.getUpdate().stream().mapToInt(Map.Entry::getKey).toArray();
+		this.driftValues = this.update.getUpdate().stream().mapToInt(Map.Entry::getValue).toArray();
+		this.reactantSpecies = this.reactants.keySet().stream().mapToInt(i -> i).toArray();
+		this.reactantCounts = IntStream.of(reactantSpecies).map(this.reactants::get).toArray();
+		this.dependencies = initDependencies(rateDependencies);
+	}
+
+	private int[] initDependencies(int[] rateDependencies) {
+		if (rateDependencies == null) {
+			return null;
+		}
+		return IntStream.concat(IntStream.of(rateDependencies), this.reactants.keySet().stream().mapToInt(i -> i))
+				.distinct().sorted().toArray();
 	}
 
 	private void initReactants(Population[] reactants) {
@@ -89,25 +134,127 @@ public class ReactionRule implements PopulationRule, Serializable {
 
 	@Override
 	public PopulationTransition apply(RandomGenerator r, double now, PopulationState state) {
+		double rate = getRate(now, state);
+		if (rate > 0) {
+			return new PopulationTransition(
+					name,
+					rate,
+					(rg -> update)
+			);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the rate of this rule in the given state at the given time. The value 0 is returned
+	 * when the rule is not enabled or its rate is not a positive finite value. Differently from
+	 * {@link #apply(RandomGenerator, double, PopulationState)}, no transition is built.
+	 *
+	 * @param now current time.
+	 * @param state current state.
+	 * @return the rate of this rule in the given state at the given time.
+	 */
+	public double getRate(double now, PopulationState state) {
 		if (isEnabled(state)) {
-			double rate = rateFunction.apply(now,state).doubleOf();
+			double rate = rateFunction.applyAsDouble(now,state);
 			if (rate>0&&Double.isFinite(rate)) {
-				return new PopulationTransition(
-						name, 
-						rate, 
-						(rg -> update)
-				);
+				return rate;
 			}
 		}
-		return null;
+		return 0.0;
 	}
 	
+	/**
+	 * Returns the rate of this rule used in the fluid approximation of a model, where occupancies are real
+	 * numbers. Differently from {@link #getRate(double, PopulationState)}, the rule is enabled as soon as
+	 * each of its reactants has a positive occupancy, even if smaller than the number of required elements.
+	 *
+	 * @param now current time.
+	 * @param state current state.
+	 * @return the rate of this rule in the given state at the given time.
+	 */
+	public double getFluidRate(double now, PopulationState state) {
+		if ((guard != null)&&(!guard.test(state))) {
+			return 0.0;
+		}
+		for (int species : reactantSpecies) {
+			if (state.getOccupancy(species) <= 0) {
+				return 0.0;
+			}
+		}
+		double rate = rateFunction.applyAsDouble(now,state);
+		return (rate>0&&Double.isFinite(rate) ? rate : 0.0);
+	}
+
+	/**
+	 * Returns the update performed by this rule.
+	 *
+	 * @return the update performed by this rule.
+	 */
+	public Update getUpdate() {
+		return update;
+	}
+
+	/**
+	 * Returns the indexes of the species whose occupancy is changed by this rule. The change of the species
+	 * at position <code>k</code> is the element at the same position in {@link #getDriftValues()}. The
+	 * returned array is shared and must not be modified.
+	 *
+	 * @return the indexes of the species whose occupancy is changed by this rule.
+	 */
+	public int[] getDriftSpecies() {
+		return driftSpecies;
+	}
+
+	/**
+	 * Returns the changes of the species in {@link #getDriftSpecies()}. The returned array is shared and must
+	 * not be modified.
+	 *
+	 * @return the changes of the species whose occupancy is changed by this rule.
+	 */
+	public int[] getDriftValues() {
+		return driftValues;
+	}
+
+	/**
+	 * Returns the reactants of this rule as a map associating each species index with the number of
+	 * required elements.
+	 *
+	 * @return the reactants of this rule.
+	 */
+	public Map<Integer, Integer> getReactants() {
+		return Collections.unmodifiableMap(reactants);
+	}
+
+	/**
+	 * Returns the indexes of the species that can affect the rate of this rule, reactants included.
+	 * A null value is returned when these dependencies are unknown.
+	 *
+	 * @return the indexes of the species that can affect the rate of this rule.
+	 */
+	public int[] getDependencies() {
+		return (dependencies == null ? null : dependencies.clone());
+	}
+
+	/**
+	 * Returns true if the rate of this rule may depend on the total population size.
+	 *
+	 * @return true if the rate of this rule may depend on the total population size.
+	 */
+	public boolean isPopulationDependent() {
+		return populationDependent;
+	}
+
+	public String getName() {
+		return name;
+	}
+
 	private boolean isEnabled(PopulationState state) {
 		if ((guard != null)&&(!guard.test(state))) {
 			return false;
 		}
-		for (Map.Entry<Integer, Integer> e: this.reactants.entrySet()) {
-			if (state.getOccupancy(e.getKey())<e.getValue()) {
+		for (int i = 0; i < reactantSpecies.length; i++) {
+			if (state.getOccupancy(reactantSpecies[i])<reactantCounts[i]) {
 				return false;
 			}
 		}
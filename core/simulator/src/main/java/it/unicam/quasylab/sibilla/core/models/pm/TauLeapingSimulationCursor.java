@@ -0,0 +1,403 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.util.RandomSampling;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A simulation cursor for population models based on the adaptive explicit tau-leaping method by Cao,
+ * Gillespie and Petzold. At each step the leap <code>tau</code> is selected so that the relative change
+ * of each reactant population is bounded by <code>epsilon</code>, and each rule is fired a number of times
+ * sampled from a Poisson distribution. Rules that can exhaust one of their reactants in a few firings
+ * (critical rules) are executed at most once per leap. When the selected leap is not significantly larger
+ * than the expected time of a single event, a given number of exact SSA steps is performed instead.
+ * <p>
+ * The method relies on the reactants and on the update of {@link ReactionRule}: when a model contains other
+ * kinds of rules, this cursor always performs exact steps. Guards are evaluated at the beginning of each leap.
+ * <p>
+ * As in {@link DependencyGraphSimulationCursor}, the population vector is owned by the cursor and updated in
+ * place. An immutable {@link PopulationState} is only built when {@link #currentState()} is invoked.
+ */
+public class TauLeapingSimulationCursor implements SimulatorCursor<PopulationState> {
+
+    public static final double DEFAULT_EPSILON = 0.03;
+    public static final int DEFAULT_CRITICAL_THRESHOLD = 10;
+    public static final double DEFAULT_SSA_THRESHOLD = 10.0;
+    public static final int DEFAULT_SSA_STEPS = 100;
+
+    private final PopulationRule[] rules;
+    private final ReactionRule[] reactionRules;
+    private final Function<RandomGenerator, PopulationState> initialStateBuilder;
+    private final boolean exactOnly;
+    private final int[][] driftSpecies;
+    private final int[][] driftValues;
+    private final int[] highestOrder;
+    private final int[] highestOrderMultiplicity;
+
+    private final double epsilon;
+    private final int criticalThreshold;
+    private final double ssaThreshold;
+    private final int ssaSteps;
+
+    private final double[] rates;
+    private final PopulationTransition[] transitions;
+    private final boolean[] critical;
+    private double[] mean;
+    private double[] variance;
+    private long[] next;
+
+    private RandomGenerator rg;
+    private PopulationState current = null;
+    private PopulationState snapshot = null;
+    private double now = 0.0;
+    private boolean terminated = false;
+    private boolean started = false;
+    private int exactStepsLeft = 0;
+
+    /**
+     * Creates a new cursor for the given rules with default parameters.
+     *
+     * @param rg random generator used in the simulation.
+     * @param rules rules of the population model.
+     * @param initialStateBuilder function used to build the initial state.
+     */
+    public TauLeapingSimulationCursor(RandomGenerator rg, List<PopulationRule> rules, Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        this(rg, rules, initialStateBuilder, DEFAULT_EPSILON, DEFAULT_CRITICAL_THRESHOLD, DEFAULT_SSA_THRESHOLD, DEFAULT_SSA_STEPS);
+    }
+
+    /**
+     * Creates a new cursor for the given rules.
+     *
+     * @param rg random generator used in the simulation.
+     * @param rules rules of the population model.
+     * @param initialStateBuilder function used to build the initial state.
+     * @param epsilon bound on the relative change of reactant populations in a leap.
+     * @param criticalThreshold a rule is critical when fewer than this number of firings exhaust one of its reactants.
+     * @param ssaThreshold exact steps are used when the leap is smaller than this number of expected events.
+     * @param ssaSteps number of exact steps performed each time the method falls back to SSA.
+     */
+    public TauLeapingSimulationCursor(RandomGenerator rg, List<PopulationRule> rules, Function<RandomGenerator, PopulationState> initialStateBuilder,
+                                      double epsilon, int criticalThreshold, double ssaThreshold, int ssaSteps) {
+        if ((epsilon <= 0) || (criticalThreshold < 0) || (ssaThreshold < 0) || (ssaSteps <= 0)) {
+            throw new IllegalArgumentException(String.format("Illegal tau-leaping parameters (epsilon: %g, critical threshold: %d, SSA threshold: %g, SSA steps: %d).", epsilon, criticalThreshold, ssaThreshold, ssaSteps));
+        }
+        this.rg = rg;
+        this.rules = rules.toArray(new PopulationRule[0]);
+        this.initialStateBuilder = initialStateBuilder;
+        this.epsilon = epsilon;
+        this.criticalThreshold = criticalThreshold;
+        this.ssaThreshold = ssaThreshold;
+        this.ssaSteps = ssaSteps;
+        this.rates = new double[this.rules.length];
+        this.transitions = new PopulationTransition[this.rules.length];
+        this.critical = new boolean[this.rules.length];
+        this.exactOnly = Arrays.stream(this.rules).anyMatch(r -> !(r instanceof ReactionRule));
+        this.reactionRules = new ReactionRule[this.rules.length];
+        this.driftSpecies = new int[this.rules.length][];
+        this.driftValues = new int[this.rules.length][];
+        int species = 0;
+        for (int j = 0; j < this.rules.length; j++) {
+            if (this.rules[j] instanceof ReactionRule) {
+                ReactionRule rule = (ReactionRule) this.rules[j];
+                this.reactionRules[j] = rule;
+                this.driftSpecies[j] = rule.getDriftSpecies();
+                this.driftValues[j] = rule.getDriftValues();
+                for (int i : rule.getReactants().keySet()) {
+                    species = Math.max(species, i + 1);
+                }
+            }
+        }
+        this.highestOrder = new int[species];
+        this.highestOrderMultiplicity = new int[species];
+        initHighestOrders();
+    }
+
+    private void initHighestOrders() {
+        for (PopulationRule r : rules) {
+            if (r instanceof ReactionRule) {
+                Map<Integer, Integer> reactants = ((ReactionRule) r).getReactants();
+                int order = reactants.values().stream().mapToInt(i -> i).sum();
+                for (Map.Entry<Integer, Integer> e : reactants.entrySet()) {
+                    int i = e.getKey();
+                    if ((order > highestOrder[i]) || ((order == highestOrder[i]) && (e.getValue() > highestOrderMultiplicity[i]))) {
+                        highestOrder[i] = order;
+                        highestOrderMultiplicity[i] = e.getValue();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        this.snapshot = initialStateBuilder.apply(rg);
+        int[] vector = snapshot.getPopulationVector();
+        this.current = PopulationState.viewOf(Arrays.copyOf(vector, vector.length));
+        this.now = 0.0;
+        this.started = true;
+        this.terminated = false;
+        this.exactStepsLeft = 0;
+        int size = vector.length;
+        if ((mean == null) || (mean.length != size)) {
+            this.mean = new double[size];
+            this.variance = new double[size];
+            this.next = new long[size];
+        }
+    }
+
+    @Override
+    public boolean step() {
+        if (!started) {
+            throw new IllegalStateException(SibillaMessages.SIMULATION_CURSOR_NOT_STARTED);
+        }
+        double totalRate = evaluateRates();
+        if (totalRate <= 0) {
+            terminated = true;
+            return false;
+        }
+        if (exactOnly || (exactStepsLeft > 0)) {
+            exactStepsLeft--;
+            exactStep(totalRate);
+            return true;
+        }
+        double criticalRate = selectCriticalRules();
+        double tau = computeLeap();
+        if (!(tau * totalRate >= ssaThreshold) || !Double.isFinite(tau)) {
+            exactStepsLeft = ssaSteps - 1;
+            exactStep(totalRate);
+            return true;
+        }
+        while (true) {
+            double criticalTime = (criticalRate > 0 ? ContinuousTimeMarkovProcess.sampleExponentialDistribution(criticalRate, rg) : Double.POSITIVE_INFINITY);
+            int criticalRule = -1;
+            double leap = tau;
+            if (criticalTime <= tau) {
+                leap = criticalTime;
+                criticalRule = select(criticalRate, true);
+            }
+            if (leap(leap, criticalRule)) {
+                this.snapshot = null;
+                this.now += leap;
+                return true;
+            }
+            tau = tau / 2;
+        }
+    }
+
+    private double evaluateRates() {
+        double total = 0.0;
+        for (int j = 0; j < rules.length; j++) {
+            if (reactionRules[j] != null) {
+                rates[j] = reactionRules[j].getRate(now, current);
+            } else {
+                PopulationTransition transition = rules[j].apply(rg, now, current);
+                transitions[j] = transition;
+                rates[j] = (transition == null ? 0.0 : transition.getRate());
+            }
+            total += rates[j];
+        }
+        return total;
+    }
+
+    private void exactStep(double totalRate) {
+        double dt = ContinuousTimeMarkovProcess.sampleExponentialDistribution(totalRate, rg);
+        int selected = select(totalRate, false);
+        if (reactionRules[selected] != null) {
+            for (int k = 0; k < driftSpecies[selected].length; k++) {
+                current.update(driftSpecies[selected][k], driftValues[selected][k]);
+            }
+        } else {
+            for (Map.Entry<Integer, Integer> e : transitions[selected].apply(rg).getUpdate()) {
+                current.update(e.getKey(), e.getValue());
+            }
+        }
+        this.snapshot = null;
+        this.now += dt;
+    }
+
+    private int select(double totalRate, boolean onlyCritical) {
+        double value = rg.nextDouble() * totalRate;
+        int selected = -1;
+        for (int j = 0; j < rules.length; j++) {
+            if ((rates[j] > 0) && (!onlyCritical || critical[j])) {
+                selected = j;
+                value -= rates[j];
+                if (value < 0) {
+                    break;
+                }
+            }
+        }
+        return selected;
+    }
+
+    private double selectCriticalRules() {
+        double criticalRate = 0.0;
+        for (int j = 0; j < rules.length; j++) {
+            critical[j] = (rates[j] > 0) && (firingsToExhaustion(j) < criticalThreshold);
+            if (critical[j]) {
+                criticalRate += rates[j];
+            }
+        }
+        return criticalRate;
+    }
+
+    private double firingsToExhaustion(int j) {
+        double firings = Double.POSITIVE_INFINITY;
+        int[] vector = current.getPopulationVector();
+        for (int k = 0; k < driftSpecies[j].length; k++) {
+            if (driftValues[j][k] < 0) {
+                firings = Math.min(firings, Math.floor(vector[driftSpecies[j][k]] / (double) -driftValues[j][k]));
+            }
+        }
+        return firings;
+    }
+
+    private double computeLeap() {
+        Arrays.fill(mean, 0.0);
+        Arrays.fill(variance, 0.0);
+        for (int j = 0; j < rules.length; j++) {
+            if ((rates[j] > 0) && !critical[j]) {
+                for (int k = 0; k < driftSpecies[j].length; k++) {
+                    int i = driftSpecies[j][k];
+                    mean[i] += driftValues[j][k] * rates[j];
+                    variance[i] += driftValues[j][k] * driftValues[j][k] * rates[j];
+                }
+            }
+        }
+        int[] vector = current.getPopulationVector();
+        double tau = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < Math.min(highestOrder.length, vector.length); i++) {
+            if ((highestOrder[i] > 0) && (variance[i] > 0)) {
+                double bound = Math.max(epsilon * vector[i] / highestOrderFactor(i, vector[i]), 1.0);
+                if (mean[i] != 0) {
+                    tau = Math.min(tau, bound / Math.abs(mean[i]));
+                }
+                tau = Math.min(tau, bound * bound / variance[i]);
+            }
+        }
+        return tau;
+    }
+
+    private double highestOrderFactor(int i, int population) {
+        double x = Math.max(population, 3);
+        switch (highestOrder[i]) {
+            case 1:
+                return 1.0;
+            case 2:
+                return (highestOrderMultiplicity[i] == 1 ? 2.0 : 2.0 + 1.0 / (x - 1));
+            case 3:
+                if (highestOrderMultiplicity[i] == 1) {
+                    return 3.0;
+                }
+                if (highestOrderMultiplicity[i] == 2) {
+                    return 1.5 * (2.0 + 1.0 / (x - 1));
+                }
+                return 3.0 + 1.0 / (x - 1) + 2.0 / (x - 2);
+            default:
+                return highestOrder[i];
+        }
+    }
+
+    private boolean leap(double tau, int criticalRule) {
+        int[] vector = current.getPopulationVector();
+        for (int i = 0; i < vector.length; i++) {
+            next[i] = vector[i];
+        }
+        for (int j = 0; j < rules.length; j++) {
+            long firings = (j == criticalRule ? 1 : 0);
+            if ((rates[j] > 0) && !critical[j]) {
+                firings = RandomSampling.samplePoisson(rates[j] * tau, rg);
+            }
+            if (firings > 0) {
+                for (int k = 0; k < driftSpecies[j].length; k++) {
+                    next[driftSpecies[j][k]] += firings * driftValues[j][k];
+                }
+            }
+        }
+        for (int i = 0; i < vector.length; i++) {
+            if ((next[i] < 0) || (next[i] > Integer.MAX_VALUE)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < vector.length; i++) {
+            if (next[i] != vector[i]) {
+                current.update(i, (int) (next[i] - vector[i]));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public PopulationState currentState() {
+        if ((snapshot == null) && (current != null)) {
+            snapshot = current.snapshot();
+        }
+        return snapshot;
+    }
+
+    @Override
+    public PopulationState currentView() {
+        return current;
+    }
+
+    @Override
+    public double time() {
+        return now;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void restart(RandomGenerator rg) {
+        this.rg = rg;
+        this.current = null;
+        this.snapshot = null;
+        this.terminated = false;
+        this.started = false;
+        this.exactStepsLeft = 0;
+    }
+
+    @Override
+    public void restart() {
+        restart(this.rg);
+    }
+}
@@ -23,6 +23,8 @@
 
 package it.unicam.quasylab.sibilla.core.models.slam;
 
+import it.unicam.quasylab.sibilla.core.models.slam.agents.AgentMessage;
+import it.unicam.quasylab.sibilla.core.models.slam.agents.SlamAgent;
 import org.apache.commons.math3.random.RandomGenerator;
 
 /**
@@ -104,6 +106,36 @@ public abstract class Activity implements Comparable<Activity> {
         }
     }
 
+    /**
+     * Represents the delivery of a message to all the agents at the same time. Receivers are selected when
+     * the activity is executed, and the message is delivered to them in index order.
+     */
+    public static class BroadcastDeliveryActivity extends Activity {
+
+        private final SlamAgent sender;
+
+        private final AgentMessage message;
+
+        private BroadcastDeliveryActivity(int activityCounter, double time, SlamAgent sender, AgentMessage message) {
+            super(activityCounter, time);
+            this.sender = sender;
+            this.message = message;
+        }
+
+        public SlamAgent getSender() {
+            return sender;
+        }
+
+        public AgentMessage getMessage() {
+            return message;
+        }
+
+        @Override
+        public SlamState execute(RandomGenerator rg, SlamState state) {
+            return state.broadcastMessage(rg, sender, message);
+        }
+    }
+
     public static class ActivityFactory {
 
         private int activityCounter = 0;
@@ -116,6 +148,10 @@ public abstract class Activity implements Comparable<Activity> {
             return new MessageDeliveryActivity(activityCounter++, time, deliveredMessage);
         }
 
+        public Activity.BroadcastDeliveryActivity broadcastDeliveryActivity(double time, SlamAgent sender, AgentMessage message) {
+            return new BroadcastDeliveryActivity(activityCounter++, time, sender, message);
+        }
+
     }
 
 }
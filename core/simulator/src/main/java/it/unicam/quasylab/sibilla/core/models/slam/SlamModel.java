@@ -41,6 +41,7 @@ public class SlamModel extends AbstractModel<SlamState> {
 
     private final SlamAgentDefinitions agentDefinitions;
     private final MessageRepository messageRepository;
+    private boolean mutableScheduler = false;
 
     /**
      * Creates a new model with the given definitions, messages, measures and predicates.
@@ -58,7 +59,26 @@ public class SlamModel extends AbstractModel<SlamState> {
 
     @Override
     public SimulatorCursor<SlamState> createSimulationCursor(RandomGenerator r, Function<RandomGenerator, SlamState> initialStateBuilder) {
-        return new SlamSimulationCursor(r, initialStateBuilder);
+        return new SlamSimulationCursor(r, initialStateBuilder, mutableScheduler);
+    }
+
+    /**
+     * Returns true if simulation cursors created by this model store scheduled activities in a mutable scheduler.
+     *
+     * @return true if simulation cursors created by this model store scheduled activities in a mutable scheduler.
+     */
+    public boolean isMutableScheduler() {
+        return mutableScheduler;
+    }
+
+    /**
+     * Sets whether simulation cursors created by this model store scheduled activities in a mutable scheduler.
+     * This is safe only when each trajectory is simulated by moving forward from its current state.
+     *
+     * @param mutableScheduler true if a mutable scheduler has to be used.
+     */
+    public void setMutableScheduler(boolean mutableScheduler) {
+        this.mutableScheduler = mutableScheduler;
     }
 
     @Override
@@ -24,6 +24,7 @@
 package it.unicam.quasylab.sibilla.core.models.slam;
 
 import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.util.datastructures.HeapScheduler;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.Optional;
@@ -34,15 +35,36 @@ public class SlamSimulationCursor implements SimulatorCursor<SlamState> {
     private RandomGenerator rg;
     private SlamState currentState = null;
     private final Function<RandomGenerator, SlamState> initialStateSupplier;
+    private final boolean mutableScheduler;
 
     public SlamSimulationCursor(RandomGenerator rg, Function<RandomGenerator, SlamState> initialStateSupplier) {
+        this(rg, initialStateSupplier, false);
+    }
+
+    /**
+     * Creates a new cursor. When <code>mutableScheduler</code> is true, activities of the simulated trajectory
+     * are stored in a {@link HeapScheduler}: states reached during the simulation share the same scheduler,
+     * hence only the current state of the cursor can be safely used to continue the simulation.
+     *
+     * @param rg random generator used in the simulation.
+     * @param initialStateSupplier function used to build the initial state.
+     * @param mutableScheduler true if a mutable scheduler is used to store scheduled activities.
+     */
+    public SlamSimulationCursor(RandomGenerator rg, Function<RandomGenerator, SlamState> initialStateSupplier, boolean mutableScheduler) {
         this.rg = rg;
         this.initialStateSupplier = initialStateSupplier;
+        this.mutableScheduler = mutableScheduler;
     }
 
     @Override
     public void start() {
-        this.currentState = initialStateSupplier.apply(rg);
+        SlamState state = initialStateSupplier.apply(rg);
+        if (mutableScheduler) {
+            // The heap is not copied by the following steps: every state of this run shares it, so a state
+            // returned by currentState() is only valid until the next invocation of step().
+            state = SlamState.set(state, HeapScheduler.copyOf(state.getScheduledActivities()));
+        }
+        this.currentState = state;
     }
 
     @Override
@@ -56,6 +78,13 @@ public class SlamSimulationCursor implements SimulatorCursor<SlamState> {
         }
     }
 
+    /**
+     * Returns the current state of this cursor. When a mutable scheduler is used, the returned state shares its
+     * scheduler with the states reached by the following steps: it can be observed but it must not be used to
+     * continue the simulation after the next step.
+     *
+     * @return the current state of this cursor.
+     */
     @Override
     public SlamState currentState() {
         return currentState;
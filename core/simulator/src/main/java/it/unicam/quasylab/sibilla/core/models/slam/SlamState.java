@@ -25,6 +25,7 @@ package it.unicam.quasylab.sibilla.core.models.slam;
 
 import it.unicam.quasylab.sibilla.core.models.State;
 import it.unicam.quasylab.sibilla.core.models.slam.agents.AgentFactory;
+import it.unicam.quasylab.sibilla.core.models.slam.agents.AgentMessage;
 import it.unicam.quasylab.sibilla.core.models.slam.agents.OutgoingMessage;
 import it.unicam.quasylab.sibilla.core.models.slam.agents.SlamAgent;
 import it.unicam.quasylab.sibilla.core.models.slam.data.AgentStore;
@@ -71,6 +72,15 @@ public final class SlamState implements State, StateExpressionEvaluator {
         this.agentActivities = agentActivities;
     }
 
+    /**
+     * Returns the activities scheduled in this state.
+     *
+     * @return the activities scheduled in this state.
+     */
+    public Scheduler<Activity> getScheduledActivities() {
+        return scheduledActivities;
+    }
+
     public static SlamState set(SlamState slamState, SibillaMap<Integer, SlamAgent> agents) {
         return new SlamState(slamState.activityFactory, slamState.now, agents, slamState.scheduledActivities, slamState.agentActivities);
     }
@@ -293,17 +303,30 @@ public final class SlamState implements State, StateExpressionEvaluator {
         return receiver.map(slamAgent -> state.send(rg, slamAgent, pair.getKey())).orElse(state);
     }
 
+    /**
+     * Returns the state obtained by delivering the given message to all the agents, in index order.
+     *
+     * @param rg random generator used to receive the message.
+     * @param sender agent that has sent the message.
+     * @param message delivered message.
+     * @return the state obtained by delivering the given message to all the agents.
+     */
+    public SlamState broadcastMessage(RandomGenerator rg, SlamAgent sender, AgentMessage message) {
+        SlamState state = this;
+        for (int i = 0; i < agents.size(); i++) {
+            state = state.deliverMessage(rg, new DeliveredMessage(sender, message, i));
+        }
+        return state;
+    }
+
     private SlamState send(RandomGenerator rg, SlamAgent sender, List<OutgoingMessage> messages) {
         if (messages.isEmpty()) {
             return this;
         }
         Scheduler<Activity> queue = this.scheduledActivities;
         for (OutgoingMessage message: messages) {
-            for(int i=0; i<agents.size(); i++) {
-                DeliveredMessage dm = new DeliveredMessage(sender, message.getMessage(), i);
-                double time = message.getDeliveryTime().applyAsDouble(rg, sender.getAgentMemory());
-                queue = queue.schedule(activityFactory.messageDeliveryActivity(time, dm), time);
-            }
+            double time = message.getDeliveryTime().applyAsDouble(rg, sender.getAgentMemory());
+            queue = queue.schedule(activityFactory.broadcastDeliveryActivity(time, sender, message.getMessage()), time);
         }
         return SlamState.set(this, queue);
     }
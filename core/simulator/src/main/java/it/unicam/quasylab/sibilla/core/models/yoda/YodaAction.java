@@ -28,6 +28,8 @@ import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
 
@@ -78,12 +80,14 @@ public interface YodaAction extends Serializable {
 
 
     static YodaAction actionOf(String name, Map<YodaVariable, BiFunction<RandomGenerator, YodaVariableMapping, SibillaValue>> updates) {
+        YodaVariable[] variables = updates.keySet().toArray(new YodaVariable[0]);
+        List<BiFunction<RandomGenerator, YodaVariableMapping, SibillaValue>> functions = Arrays.stream(variables).map(updates::get).toList();
         return actionOf(name, (rg, vm) -> {
-            YodaVariableMapping result = vm;
-            for (Map.Entry<YodaVariable, BiFunction<RandomGenerator, YodaVariableMapping, SibillaValue>> e: updates.entrySet()) {
-                result = result.setValue(e.getKey(), e.getValue().apply(rg, vm));
+            SibillaValue[] values = new SibillaValue[variables.length];
+            for (int i = 0; i < variables.length; i++) {
+                values[i] = functions.get(i).apply(rg, vm);
             }
-            return result;
+            return vm.setValues(variables, values);
         });
     }
 
@@ -23,8 +23,10 @@
 
 package it.unicam.quasylab.sibilla.core.models.yoda;
 
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 import org.apache.commons.math3.random.RandomGenerator;
 
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -36,12 +38,14 @@ public interface YodaAgentEnvironmentalAttributeUpdateFunction {
     YodaVariableMapping compute(RandomGenerator rg, YodaVariableMapping currentState, YodaVariableMapping currentEnvironmentalAttributes);
 
     static YodaAgentEnvironmentalAttributeUpdateFunction of(Map<YodaVariable, YodaAgentEnvironmentalAttributeEvaluationFunction> updates) {
+        YodaVariable[] variables = updates.keySet().toArray(new YodaVariable[0]);
+        YodaAgentEnvironmentalAttributeEvaluationFunction[] functions = Arrays.stream(variables).map(updates::get).toArray(YodaAgentEnvironmentalAttributeEvaluationFunction[]::new);
         return (rg, currentState, currentEnvironmentalAttribute) -> {
-            YodaVariableMapping result = currentEnvironmentalAttribute;
-            for (Map.Entry<YodaVariable, YodaAgentEnvironmentalAttributeEvaluationFunction> e: updates.entrySet()) {
-                result = result.setValue(e.getKey(), e.getValue().apply(rg, currentState, currentEnvironmentalAttribute));
+            SibillaValue[] values = new SibillaValue[variables.length];
+            for (int i = 0; i < variables.length; i++) {
+                values[i] = functions[i].apply(rg, currentState, currentEnvironmentalAttribute);
             }
-            return result;
+            return currentEnvironmentalAttribute.setValues(variables, values);
         };
     }
 }
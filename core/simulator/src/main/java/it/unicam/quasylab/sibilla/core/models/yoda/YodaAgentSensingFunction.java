@@ -23,8 +23,10 @@
 
 package it.unicam.quasylab.sibilla.core.models.yoda;
 
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 import org.apache.commons.math3.random.RandomGenerator;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -52,7 +54,16 @@ public interface YodaAgentSensingFunction {
      * @return the sensing function obtained from the computation of single attributes.
      */
     static YodaAgentSensingFunction of(Map<YodaVariable, YodaAttributeSensingFunction> sensingFunctionMap) {
-        return (rg, system, agent) -> new YodaVariableMapping(sensingFunctionMap.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().apply(rg, system, agent))));
+        YodaVariable[] variables = sensingFunctionMap.keySet().toArray(new YodaVariable[0]);
+        YodaAttributeSensingFunction[] functions = Arrays.stream(variables).map(sensingFunctionMap::get).toArray(YodaAttributeSensingFunction[]::new);
+        YodaVariableMapping layout = new YodaVariableMapping(Arrays.stream(variables).collect(Collectors.toMap(v -> v, v -> SibillaValue.ERROR_VALUE)));
+        return (rg, system, agent) -> {
+            SibillaValue[] values = new SibillaValue[variables.length];
+            for (int i = 0; i < variables.length; i++) {
+                values[i] = functions[i].apply(rg, system, agent);
+            }
+            return layout.setValues(variables, values);
+        };
     }
 
 }
@@ -0,0 +1,188 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.yoda;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Instances of this class contain the statistics of a value computed over the elements of a system that satisfy
+ * a given predicate. These statistics are computed once and then used to answer the queries of all the agents:
+ * since a group expression evaluated by an agent does not consider the agent itself, each query indicates the
+ * identifier of the element to exclude.
+ */
+public final class YodaGroupAggregate {
+
+    /**
+     * Number of elements over which the values are computed in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1024;
+
+    private final int count;
+    private final double sum;
+    private final double min;
+    private final int minId;
+    private final double secondMin;
+    private final double max;
+    private final int maxId;
+    private final double secondMax;
+    private final Map<Integer, double[]> contributions;
+
+    private YodaGroupAggregate(int count, double sum, double min, int minId, double secondMin, double max, int maxId, double secondMax, Map<Integer, double[]> contributions) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.minId = minId;
+        this.secondMin = secondMin;
+        this.max = max;
+        this.maxId = maxId;
+        this.secondMax = secondMax;
+        this.contributions = contributions;
+    }
+
+    /**
+     * Returns the statistics of the given function computed over the elements satisfying the given predicate.
+     * When the number of elements is larger than {@link #PARALLEL_THRESHOLD}, predicate and function are evaluated
+     * in parallel. Values are always aggregated in the order of the elements, so that the result does not depend
+     * on the parallel evaluation.
+     *
+     * @param elements the elements of a system.
+     * @param pred the predicate used to select elements.
+     * @param f the function to aggregate.
+     * @return the statistics of the given function computed over the elements satisfying the given predicate.
+     */
+    public static YodaGroupAggregate of(List<? extends YodaSceneElement> elements, Predicate<YodaSceneElement> pred, ToDoubleFunction<YodaSceneElement> f) {
+        int size = elements.size();
+        boolean[] selected = new boolean[size];
+        double[] values = new double[size];
+        IntStream indexes = IntStream.range(0, size);
+        if (size > PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> {
+            YodaSceneElement e = elements.get(i);
+            selected[i] = pred.test(e);
+            if (selected[i]) {
+                values[i] = f.applyAsDouble(e);
+            }
+        });
+        int count = 0;
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        int minId = -1;
+        double max = Double.NEGATIVE_INFINITY;
+        int maxId = -1;
+        Map<Integer, double[]> contributions = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (selected[i]) {
+                int id = elements.get(i).getId();
+                count++;
+                sum += values[i];
+                if ((minId < 0) || (values[i] < min)) {
+                    min = values[i];
+                    minId = id;
+                }
+                if ((maxId < 0) || (values[i] > max)) {
+                    max = values[i];
+                    maxId = id;
+                }
+                double[] contribution = contributions.computeIfAbsent(id, k -> new double[2]);
+                contribution[0]++;
+                contribution[1] += values[i];
+            }
+        }
+        double secondMin = Double.POSITIVE_INFINITY;
+        double secondMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            if (selected[i]) {
+                int id = elements.get(i).getId();
+                if (id != minId) {
+                    secondMin = Math.min(secondMin, values[i]);
+                }
+                if (id != maxId) {
+                    secondMax = Math.max(secondMax, values[i]);
+                }
+            }
+        }
+        return new YodaGroupAggregate(count, sum, min, minId, secondMin, max, maxId, secondMax, contributions);
+    }
+
+    /**
+     * Returns the number of selected elements whose identifier is different from <code>excludedId</code>.
+     *
+     * @param excludedId identifier of the element to exclude.
+     * @return the number of selected elements whose identifier is different from <code>excludedId</code>.
+     */
+    public int count(int excludedId) {
+        double[] contribution = contributions.get(excludedId);
+        return (contribution == null ? count : count - (int) contribution[0]);
+    }
+
+    /**
+     * Returns the mean of the values of the selected elements whose identifier is different from
+     * <code>excludedId</code>, or 0.0 if no element is selected.
+     *
+     * @param excludedId identifier of the element to exclude.
+     * @return the mean of the values of the selected elements whose identifier is different from
+     * <code>excludedId</code>.
+     */
+    public double mean(int excludedId) {
+        double[] contribution = contributions.get(excludedId);
+        if (contribution == null) {
+            return (count == 0 ? 0.0 : sum / count);
+        }
+        int size = count - (int) contribution[0];
+        return (size == 0 ? 0.0 : (sum - contribution[1]) / size);
+    }
+
+    /**
+     * Returns the minimum of the values of the selected elements whose identifier is different from
+     * <code>excludedId</code>, or positive infinity if no element is selected.
+     *
+     * @param excludedId identifier of the element to exclude.
+     * @return the minimum of the values of the selected elements whose identifier is different from
+     * <code>excludedId</code>.
+     */
+    public double min(int excludedId) {
+        return (excludedId == minId ? secondMin : min);
+    }
+
+    /**
+     * Returns the maximum of the values of the selected elements whose identifier is different from
+     * <code>excludedId</code>, or negative infinity if no element is selected.
+     *
+     * @param excludedId identifier of the element to exclude.
+     * @return the maximum of the values of the selected elements whose identifier is different from
+     * <code>excludedId</code>.
+     */
+    public double max(int excludedId) {
+        return (excludedId == maxId ? secondMax : max);
+    }
+
+}
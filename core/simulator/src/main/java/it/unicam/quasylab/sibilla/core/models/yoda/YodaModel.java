@@ -30,6 +30,7 @@ import org.apache.commons.math3.random.RandomGenerator;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
@@ -40,15 +41,36 @@ public class YodaModel implements DiscreteTimeModel<YodaSystemState> {
 
     private final Map<String, Predicate<YodaSystemState>> predicateMap;
 
+    private YodaStepExecutor executor = YodaStepExecutor.DEFAULT;
+
     public YodaModel(Map<String, Measure<YodaSystemState>> measureMap, Map<String, Predicate<YodaSystemState>> predicateMap) {
         this.measureMap = measureMap;
         this.predicateMap = predicateMap;
     }
 
+    /**
+     * Returns the executor used to update agents at each step.
+     *
+     * @return the executor used to update agents at each step.
+     */
+    public YodaStepExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used to update agents at each step. Since each agent uses its own random stream,
+     * simulation results do not depend on the selected executor.
+     *
+     * @param executor the executor used to update agents at each step.
+     */
+    public void setExecutor(YodaStepExecutor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
 
     @Override
     public YodaSystemState sampleNextState(RandomGenerator r, double time, YodaSystemState state) {
-        return state.next(r);
+        return state.next(r, executor);
     }
 
 
@@ -98,7 +120,7 @@ public class YodaModel implements DiscreteTimeModel<YodaSystemState> {
     }
 
     public DiscreteTimeSimulationStepFunction<YodaSystemState> getDiscreteTimeStepFunction() {
-        return (rg,state) -> state.next(rg);
+        return (rg,state) -> state.next(rg, executor);
     }
 
     @Override
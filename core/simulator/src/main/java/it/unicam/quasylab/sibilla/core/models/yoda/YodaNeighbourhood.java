@@ -0,0 +1,80 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.yoda;
+
+/**
+ * Identifies the elements whose position is within a given distance from the position of an agent. The
+ * position of an element is given by the values of a sequence of variables, while distances are Euclidean.
+ */
+public final class YodaNeighbourhood {
+
+    private final YodaVariable[] position;
+
+    private final double radius;
+
+    /**
+     * Creates the neighbourhood of the given radius where positions are given by the given variables.
+     *
+     * @param position variables containing the coordinates of an element.
+     * @param radius neighbourhood radius.
+     */
+    public YodaNeighbourhood(YodaVariable[] position, double radius) {
+        this.position = position;
+        this.radius = radius;
+    }
+
+    /**
+     * Returns the variables containing the coordinates of an element.
+     *
+     * @return the variables containing the coordinates of an element.
+     */
+    public YodaVariable[] getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the radius of this neighbourhood.
+     *
+     * @return the radius of this neighbourhood.
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * Returns the coordinates of the given element.
+     *
+     * @param element a scene element.
+     * @return the coordinates of the given element.
+     */
+    public double[] getCoordinates(YodaSceneElement element) {
+        double[] coordinates = new double[position.length];
+        for (int i = 0; i < position.length; i++) {
+            coordinates[i] = element.getEnvironmentalAttributeValue(position[i]).doubleOf();
+        }
+        return coordinates;
+    }
+
+}
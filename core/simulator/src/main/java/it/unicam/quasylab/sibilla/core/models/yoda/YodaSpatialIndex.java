@@ -0,0 +1,202 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.yoda;
+
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A k-d tree containing the elements of a system indexed by their position. The position of an element is
+ * given by the values of a sequence of variables; elements where one of these variables is not defined are
+ * not indexed. The tree is immutable and can be shared among threads.
+ */
+public final class YodaSpatialIndex {
+
+    private final YodaVariable[] position;
+
+    private final YodaSceneElement[] elements;
+
+    private final double[] coordinates;
+
+    private final int dimensions;
+
+    private YodaSpatialIndex(YodaVariable[] position, YodaSceneElement[] elements, double[] coordinates) {
+        this.position = position;
+        this.elements = elements;
+        this.coordinates = coordinates;
+        this.dimensions = position.length;
+    }
+
+    /**
+     * Returns the index of the given elements where positions are given by the given variables.
+     *
+     * @param position variables containing the coordinates of an element.
+     * @param elements elements to index.
+     * @return the index of the given elements where positions are given by the given variables.
+     */
+    public static YodaSpatialIndex of(YodaVariable[] position, List<? extends YodaSceneElement> elements) {
+        if (position.length == 0) {
+            throw new IllegalArgumentException("A spatial index requires at least one position variable.");
+        }
+        List<YodaSceneElement> indexed = new ArrayList<>(elements.size());
+        List<double[]> points = new ArrayList<>(elements.size());
+        for (YodaSceneElement e : elements) {
+            double[] point = new double[position.length];
+            boolean defined = true;
+            for (int i = 0; (i < position.length) && defined; i++) {
+                SibillaValue v = e.getEnvironmentalAttributeValue(position[i]);
+                defined = (v != SibillaValue.ERROR_VALUE);
+                point[i] = v.doubleOf();
+            }
+            if (defined) {
+                indexed.add(e);
+                points.add(point);
+            }
+        }
+        int size = indexed.size();
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        build(points, order, 0, size, 0, position.length);
+        YodaSceneElement[] treeElements = new YodaSceneElement[size];
+        double[] treeCoordinates = new double[size * position.length];
+        for (int i = 0; i < size; i++) {
+            treeElements[i] = indexed.get(order[i]);
+            System.arraycopy(points.get(order[i]), 0, treeCoordinates, i * position.length, position.length);
+        }
+        return new YodaSpatialIndex(position, treeElements, treeCoordinates);
+    }
+
+    private static void build(List<double[]> points, int[] order, int from, int to, int depth, int dimensions) {
+        if (to - from <= 1) {
+            return;
+        }
+        int axis = depth % dimensions;
+        int median = (from + to) >>> 1;
+        select(points, order, from, to - 1, median, axis);
+        build(points, order, from, median, depth + 1, dimensions);
+        build(points, order, median + 1, to, depth + 1, dimensions);
+    }
+
+    private static void select(List<double[]> points, int[] order, int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = points.get(order[(left + right) >>> 1])[axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points.get(order[i])[axis] < pivot) i++;
+                while (points.get(order[j])[axis] > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the variables containing the coordinates of the indexed elements.
+     *
+     * @return the variables containing the coordinates of the indexed elements.
+     */
+    public YodaVariable[] getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the number of indexed elements.
+     *
+     * @return the number of indexed elements.
+     */
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Performs the given action on each element whose distance from the given point is at most
+     * <code>radius</code>.
+     *
+     * @param center coordinates of the center of the query.
+     * @param radius maximal distance from the center.
+     * @param consumer the action performed on the selected elements.
+     */
+    public void forEachWithin(double[] center, double radius, Consumer<YodaSceneElement> consumer) {
+        if (radius >= 0) {
+            forEachWithin(center, radius, radius * radius, 0, elements.length, 0, consumer);
+        }
+    }
+
+    private void forEachWithin(double[] center, double radius, double squaredRadius, int from, int to, int depth, Consumer<YodaSceneElement> consumer) {
+        if (from >= to) {
+            return;
+        }
+        int median = (from + to) >>> 1;
+        int offset = median * dimensions;
+        double distance = 0.0;
+        for (int i = 0; i < dimensions; i++) {
+            double d = coordinates[offset + i] - center[i];
+            distance += d * d;
+        }
+        if (distance <= squaredRadius) {
+            consumer.accept(elements[median]);
+        }
+        int axis = depth % dimensions;
+        double diff = center[axis] - coordinates[offset + axis];
+        if (diff <= radius) {
+            forEachWithin(center, radius, squaredRadius, from, median, depth + 1, consumer);
+        }
+        if (diff >= -radius) {
+            forEachWithin(center, radius, squaredRadius, median + 1, to, depth + 1, consumer);
+        }
+    }
+
+    /**
+     * Returns the list of elements whose distance from the given point is at most <code>radius</code>.
+     *
+     * @param center coordinates of the center of the query.
+     * @param radius maximal distance from the center.
+     * @return the list of elements whose distance from the given point is at most <code>radius</code>.
+     */
+    public List<YodaSceneElement> getElementsWithin(double[] center, double radius) {
+        List<YodaSceneElement> result = new ArrayList<>();
+        forEachWithin(center, radius, result::add);
+        return result;
+    }
+
+}
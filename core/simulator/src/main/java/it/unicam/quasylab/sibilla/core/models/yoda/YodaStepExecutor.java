@@ -0,0 +1,141 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.yoda;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Instances of this class describe how the agents of a {@link YodaSystemState} are updated in a step. When a pool
+ * is available, the range of agent indexes is recursively split in chunks that are executed in parallel on the
+ * pool, while the agents in each chunk are updated sequentially. Since in a step each agent uses its own random
+ * stream, the result of a step does not depend on the executor.
+ */
+public final class YodaStepExecutor {
+
+    /**
+     * Number of chunks assigned to each worker when chunk size is computed automatically.
+     */
+    public static final int CHUNKS_PER_WORKER = 4;
+
+    /**
+     * The executor that updates agents sequentially in the calling thread.
+     */
+    public static final YodaStepExecutor SEQUENTIAL = new YodaStepExecutor(null, 0);
+
+    /**
+     * The executor that updates agents on the common pool with a chunk size computed automatically.
+     */
+    public static final YodaStepExecutor DEFAULT = new YodaStepExecutor(ForkJoinPool.commonPool(), 0);
+
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+
+    private YodaStepExecutor(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the executor that updates agents on the common pool with the given chunk size.
+     *
+     * @param chunkSize number of agents in each chunk, a non-positive value means that the chunk size is computed automatically.
+     * @return the executor that updates agents on the common pool with the given chunk size.
+     */
+    public static YodaStepExecutor of(int chunkSize) {
+        return of(ForkJoinPool.commonPool(), chunkSize);
+    }
+
+    /**
+     * Returns the executor that updates agents on the given pool. The pool is owned by the caller, that is
+     * responsible for shutting it down when it is no longer used.
+     *
+     * @param pool pool used to update agents.
+     * @param chunkSize number of agents in each chunk, a non-positive value means that the chunk size is computed automatically.
+     * @return the executor that updates agents on the given pool.
+     */
+    public static YodaStepExecutor of(ForkJoinPool pool, int chunkSize) {
+        return new YodaStepExecutor(Objects.requireNonNull(pool), chunkSize);
+    }
+
+    /**
+     * Performs the given action on each index from 0 (included) to <code>size</code> (excluded). Different indexes
+     * may be handled concurrently, the method returns when all the actions have been completed.
+     *
+     * @param size number of indexes.
+     * @param action action to perform on each index.
+     */
+    public void forEach(int size, IntConsumer action) {
+        int chunk = getChunkSize(size);
+        if ((pool == null) || (size <= chunk)) {
+            for (int i = 0; i < size; i++) {
+                action.accept(i);
+            }
+        } else {
+            pool.invoke(new ChunkAction(action, 0, size, chunk));
+        }
+    }
+
+    private int getChunkSize(int size) {
+        if (chunkSize > 0) {
+            return chunkSize;
+        }
+        if (pool == null) {
+            return size;
+        }
+        return Math.max(1, size / (pool.getParallelism() * CHUNKS_PER_WORKER));
+    }
+
+    private static class ChunkAction extends RecursiveAction {
+
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private ChunkAction(IntConsumer action, int from, int to, int chunkSize) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkAction(action, from, middle, chunkSize), new ChunkAction(action, middle, to, chunkSize));
+            }
+        }
+    }
+
+}
@@ -26,15 +26,18 @@ package it.unicam.quasylab.sibilla.core.models.yoda;
 import it.unicam.quasylab.sibilla.core.models.ImmutableState;
 import it.unicam.quasylab.sibilla.core.models.IndexedState;
 import it.unicam.quasylab.sibilla.core.models.agents.VariableMapping;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
 import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 import org.apache.commons.math3.random.RandomGenerator;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.ToDoubleFunction;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -51,6 +54,8 @@ public class YodaSystemState implements ImmutableState, IndexedState<YodaAgent>
 
     private final List<YodaAgent> agents;
     private final List<YodaSceneElement> sceneElements;
+    private final Map<List<Integer>, YodaSpatialIndex> spatialIndexes = new ConcurrentHashMap<>();
+    private final Map<Object, YodaGroupAggregate> aggregates = new ConcurrentHashMap<>();
 
     public YodaSystemState(List<YodaAgent> agents, List<YodaSceneElement> sceneElements) {
         this.agents = agents;
@@ -68,9 +73,32 @@ public class YodaSystemState implements ImmutableState, IndexedState<YodaAgent>
     }
 
 
+    /**
+     * Returns the next state of this system where agents are updated on the common pool.
+     *
+     * @param rg random generator used to compute the seed of the step.
+     * @return the next state of this system.
+     */
     public YodaSystemState next(RandomGenerator rg) {
-        List<YodaAgent> newAgents = this.agents.stream().parallel().map(a -> a.next(rg, this)).collect(Collectors.toList());
-        return new YodaSystemState(newAgents, this.sceneElements);
+        return next(rg, YodaStepExecutor.DEFAULT);
+    }
+
+    /**
+     * Returns the next state of this system where agents are updated by the given executor. A single value is
+     * drawn from <code>rg</code> to seed the step, then the agent with index <code>i</code> uses the stream
+     * <code>i</code> of a {@link SplittableRandomGenerator} with that seed. Hence, the result only depends on
+     * the state of <code>rg</code>, that is on the replica seed and on the number of performed steps, and not
+     * on the executor.
+     *
+     * @param rg random generator used to compute the seed of the step.
+     * @param executor executor used to update agents.
+     * @return the next state of this system.
+     */
+    public YodaSystemState next(RandomGenerator rg, YodaStepExecutor executor) {
+        SplittableRandomGenerator streams = new SplittableRandomGenerator(rg.nextLong());
+        YodaAgent[] newAgents = new YodaAgent[agents.size()];
+        executor.forEach(newAgents.length, i -> newAgents[i] = agents.get(i).next(streams.getStream(i), this));
+        return new YodaSystemState(Arrays.asList(newAgents), this.sceneElements);
     }
 
 
@@ -85,6 +113,93 @@ public class YodaSystemState implements ImmutableState, IndexedState<YodaAgent>
     }
 
 
+    /**
+     * Returns the spatial index of the agents and of the elements in this state, where positions are given by
+     * the given variables. The index is computed the first time it is requested and it is then shared by all
+     * the queries performed on this state. Since states are immutable, each state obtained via
+     * {@link #next(RandomGenerator)} has its own index.
+     *
+     * @param position variables containing the coordinates of an element.
+     * @return the spatial index of the agents and of the elements in this state.
+     */
+    public YodaSpatialIndex getSpatialIndex(YodaVariable[] position) {
+        List<Integer> key = Arrays.stream(position).map(YodaVariable::getIdx).toList();
+        return spatialIndexes.computeIfAbsent(key, k -> YodaSpatialIndex.of(position, getStreamOfElements().toList()));
+    }
+
+    /**
+     * Returns the statistics of the given function computed over the elements of this state having their name in
+     * <code>elementNames</code> and satisfying the given predicate. When <code>elementNames</code> is
+     * <code>null</code> elements are not filtered by name. Statistics are computed the first time they are
+     * requested with the given key and are then shared by all the agents evaluated in this state. Different keys
+     * must be used for different names, predicates or functions.
+     *
+     * @param key the key identifying the aggregate.
+     * @param elementNames a set of names.
+     * @param pred the predicate used to select elements.
+     * @param f the function to aggregate.
+     * @return the statistics of the given function computed over the selected elements of this state.
+     */
+    public YodaGroupAggregate getAggregate(Object key, Set<YodaElementName> elementNames, Predicate<YodaVariableMapping> pred, ToDoubleFunction<YodaVariableMapping> f) {
+        return aggregates.computeIfAbsent(key, k -> YodaGroupAggregate.of(
+                getStreamOfElements().toList(),
+                e -> ((elementNames == null) || elementNames.contains(e.getName())) && e.test(pred),
+                e -> e.eval(f)
+        ));
+    }
+
+    private Stream<YodaSceneElement> getStreamOfNeighbours(YodaAgent agent, Set<YodaElementName> elementNames, YodaNeighbourhood neighbourhood) {
+        List<YodaSceneElement> neighbours = getSpatialIndex(neighbourhood.getPosition())
+                .getElementsWithin(neighbourhood.getCoordinates(agent), neighbourhood.getRadius());
+        Stream<YodaSceneElement> stream = neighbours.stream().filter(e -> e.getId() != agent.getId());
+        if (elementNames != null) {
+            stream = stream.filter(e -> elementNames.contains(e.getName()));
+        }
+        return stream;
+    }
+
+    /**
+     * Returns true if there exists an element in the neighbourhood of the given agent, different from the agent,
+     * having its name in <code>elementNames</code> and satisfying the given predicate. When <code>elementNames</code>
+     * is <code>null</code> elements are not filtered by name.
+     *
+     * @param agent an agent.
+     * @param elementNames a set of names.
+     * @param neighbourhood the neighbourhood of the agent.
+     * @param p the predicate to evaluate.
+     * @return true if there exists an element in the neighbourhood of the given agent satisfying the given predicate.
+     */
+    public boolean exists(YodaAgent agent, Set<YodaElementName> elementNames, YodaNeighbourhood neighbourhood, Predicate<YodaVariableMapping> p) {
+        return getStreamOfNeighbours(agent, elementNames, neighbourhood).anyMatch(e -> e.test(p));
+    }
+
+    /**
+     * Returns true if all the elements in the neighbourhood of the given agent, different from the agent, having
+     * their name in <code>elementNames</code> satisfy the given predicate. When <code>elementNames</code> is
+     * <code>null</code> elements are not filtered by name.
+     *
+     * @param agent an agent.
+     * @param elementNames a set of names.
+     * @param neighbourhood the neighbourhood of the agent.
+     * @param p the predicate to evaluate.
+     * @return true if all the elements in the neighbourhood of the given agent satisfy the given predicate.
+     */
+    public boolean forall(YodaAgent agent, Set<YodaElementName> elementNames, YodaNeighbourhood neighbourhood, Predicate<YodaVariableMapping> p) {
+        return getStreamOfNeighbours(agent, elementNames, neighbourhood).allMatch(e -> e.test(p));
+    }
+
+    public SibillaValue min(YodaAgent agent, Set<YodaElementName> elementNames, YodaNeighbourhood neighbourhood, Predicate<YodaVariableMapping> pred, ToDoubleFunction<YodaVariableMapping> f) {
+        return SibillaValue.of(getStreamOfNeighbours(agent, elementNames, neighbourhood).filter(a -> a.test(pred)).mapToDouble(a -> a.eval(f)).min().orElse(Double.POSITIVE_INFINITY));
+    }
+
+    public SibillaValue max(YodaAgent agent, Set<YodaElementName> elementNames, YodaNeighbourhood neighbourhood, Predicate<YodaVariableMapping> pred, ToDoubleFunction<YodaVariableMapping> f) {
+        return SibillaValue.of(getStreamOfNeighbours(agent, elementNames, neighbourhood).filter(a -> a.test(pred)).mapToDouble(a -> a.eval(f)).max().orElse(Double.NEGATIVE_INFINITY));
+    }
+
+    public SibillaValue mean(YodaAgent agent, Set<YodaElementName> elementNames, YodaNeighbourhood neighbourhood, Predicate<YodaVariableMapping> pred, ToDoubleFunction<YodaVariableMapping> f) {
+        return SibillaValue.of(getStreamOfNeighbours(agent, elementNames, neighbourhood).filter(a -> a.test(pred)).mapToDouble(a -> a.eval(f)).average().orElse(0.0));
+    }
+
     private Stream<YodaSceneElement> getStreamOfElements() {
         return Stream.concat(this.agents.stream(), this.sceneElements.stream());
     }
@@ -26,29 +26,56 @@ package it.unicam.quasylab.sibilla.core.models.yoda;
 import it.unicam.quasylab.sibilla.core.util.datastructures.SibillaMap;
 import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 
 /**
- * Instances of this class are used to associate values with variables.
+ * Instances of this class are used to associate values with variables. Each variable defined in a mapping is
+ * assigned to a fixed slot of an array of values. The assignment of slots, the <i>layout</i> of the mapping, only
+ * depends on the set of defined variables and it is shared by all the mappings obtained from one another via
+ * updates. Hence, all the agents of a given type use the same layout and reading a variable only requires two array
+ * accesses. When an update defines new variables, the extended layout is cached in the original one, so that agents
+ * of the same type that define the same variables keep sharing their layouts.
  */
 public class YodaVariableMapping {
 
-    private final SibillaMap<YodaVariable, SibillaValue> map;
+    private final Layout layout;
+
+    private final SibillaValue[] values;
 
     /**
      * Creates an empty mapping.
      */
     public YodaVariableMapping() {
-        this(new SibillaMap<>());
+        this(Layout.EMPTY, new SibillaValue[0]);
     }
 
     public YodaVariableMapping(Map<YodaVariable, SibillaValue> map) {
-        this(SibillaMap.of(map));
+        this(new TreeMap<>(map));
     }
 
     public YodaVariableMapping(SibillaMap<YodaVariable, SibillaValue> map) {
-        this.map = map;
+        this(toTreeMap(map));
+    }
+
+    private YodaVariableMapping(TreeMap<YodaVariable, SibillaValue> map) {
+        this(Layout.EMPTY.extend(List.copyOf(map.keySet())), map.values().toArray(new SibillaValue[0]));
+    }
+
+    private static TreeMap<YodaVariable, SibillaValue> toTreeMap(SibillaMap<YodaVariable, SibillaValue> map) {
+        TreeMap<YodaVariable, SibillaValue> result = new TreeMap<>();
+        map.forEach(result::put);
+        return result;
+    }
+
+    private YodaVariableMapping(Layout layout, SibillaValue[] values) {
+        this.layout = layout;
+        this.values = values;
     }
 
     /**
@@ -58,7 +85,7 @@ public class YodaVariableMapping {
      * @return the value associated to an input variable
      */
     public SibillaValue getValue(YodaVariable variable) {
-        return this.map.get(variable).orElse(SibillaValue.ERROR_VALUE);
+        return getOrDefault(variable, SibillaValue.ERROR_VALUE);
     }
 
 
@@ -69,7 +96,42 @@ public class YodaVariableMapping {
      * @param value the value that is associated to the variable
      */
     public YodaVariableMapping setValue(YodaVariable variable, SibillaValue value) {
-        return new YodaVariableMapping(this.map.add(variable, value));
+        int slot = layout.slotOf(variable);
+        if (slot < 0) {
+            return extend(Map.of(variable, value));
+        }
+        SibillaValue[] newValues = Arrays.copyOf(values, values.length);
+        newValues[slot] = value;
+        return new YodaVariableMapping(layout, newValues);
+    }
+
+    /**
+     * Returns the variable mapping obtained from this one by setting each of the given variables to the value
+     * having the same index in <code>newValues</code>. Differently from a sequence of invocations of
+     * {@link #setValue(YodaVariable, SibillaValue)}, the values of this mapping are copied only once.
+     *
+     * @param variables the variables to set.
+     * @param newValues the values to assign to the variables.
+     * @return the variable mapping obtained from this one by setting each of the given variables to the value
+     * having the same index in <code>newValues</code>.
+     */
+    public YodaVariableMapping setValues(YodaVariable[] variables, SibillaValue[] newValues) {
+        if (variables.length != newValues.length) {
+            throw new IllegalArgumentException(String.format("%d values have been provided for %d variables.", newValues.length, variables.length));
+        }
+        SibillaValue[] result = Arrays.copyOf(values, values.length);
+        for (int i = 0; i < variables.length; i++) {
+            int slot = layout.slotOf(variables[i]);
+            if (slot < 0) {
+                Map<YodaVariable, SibillaValue> map = new TreeMap<>();
+                for (int j = 0; j < variables.length; j++) {
+                    map.put(variables[j], newValues[j]);
+                }
+                return extend(map);
+            }
+            result[slot] = newValues[i];
+        }
+        return new YodaVariableMapping(layout, result);
     }
 
     /**
@@ -81,9 +143,23 @@ public class YodaVariableMapping {
      * in the given map.
      */
     public YodaVariableMapping setAll(Map<YodaVariable, SibillaValue> map) {
-        SibillaMap<YodaVariable, SibillaValue> newMap = this.map.addAll(map);
-        if (this.map == newMap) return this;
-        return new YodaVariableMapping(this.map.addAll(map));
+        if (map.isEmpty()) return this;
+        if (map.keySet().stream().allMatch(this::isDefined)) {
+            SibillaValue[] newValues = Arrays.copyOf(values, values.length);
+            map.forEach((var, val) -> newValues[layout.slotOf(var)] = val);
+            return new YodaVariableMapping(layout, newValues);
+        }
+        return extend(map);
+    }
+
+    private YodaVariableMapping extend(Map<YodaVariable, SibillaValue> map) {
+        Layout extended = layout.extend(map.keySet().stream().filter(v -> !isDefined(v)).sorted().toList());
+        SibillaValue[] newValues = new SibillaValue[extended.variables.length];
+        for (int i = 0; i < values.length; i++) {
+            newValues[extended.slotOf(layout.variables[i])] = values[i];
+        }
+        map.forEach((var, val) -> newValues[extended.slotOf(var)] = val);
+        return new YodaVariableMapping(extended, newValues);
     }
 
 
@@ -94,7 +170,7 @@ public class YodaVariableMapping {
      * @return true if the given variable is defined in this mapping.
      */
     public boolean isDefined(YodaVariable var) {
-        return this.map.containsKey(var);
+        return layout.slotOf(var) >= 0;
     }
 
     /**
@@ -104,7 +180,11 @@ public class YodaVariableMapping {
      * @return the mapping obtained from this one by setting all the assignment contained in the given mapping.
      */
     public YodaVariableMapping setAll(YodaVariableMapping initialAssignment) {
-        return new YodaVariableMapping(this.map.apply(initialAssignment::getOrDefault));
+        SibillaValue[] newValues = new SibillaValue[values.length];
+        for (int i = 0; i < values.length; i++) {
+            newValues[i] = initialAssignment.getOrDefault(layout.variables[i], values[i]);
+        }
+        return new YodaVariableMapping(layout, newValues);
     }
 
     /**
@@ -117,15 +197,70 @@ public class YodaVariableMapping {
      * given default value is returned.
      */
     public SibillaValue getOrDefault(YodaVariable var, SibillaValue value) {
-        return this.map.get(var).orElse(value);
+        int slot = layout.slotOf(var);
+        return (slot < 0 ? value : values[slot]);
     }
 
     @Override
     public String toString() {
-        return map.toString();
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(layout.variables[i]).append("=").append(values[i]);
+        }
+        return result.append("]").toString();
     }
 
     public void forEach(BiConsumer<YodaVariable, SibillaValue> consumer) {
-        map.forEach(consumer);
+        for (int i = 0; i < values.length; i++) {
+            consumer.accept(layout.variables[i], values[i]);
+        }
+    }
+
+    /**
+     * The assignment of slots to variables. Variables are stored in the order of their indexes while
+     * <code>slots[v.getIdx()]</code> is the slot of variable <code>v</code>, or -1 if <code>v</code> is not
+     * defined. Extensions of a layout are cached by the list of added variables. The layouts of mappings built
+     * from scratch are the extensions of the empty layout, hence mappings defining the same variables share their
+     * layout even when they are not obtained from one another.
+     */
+    private static final class Layout {
+
+        private static final Layout EMPTY = new Layout(new YodaVariable[0]);
+
+        private final YodaVariable[] variables;
+
+        private final int[] slots;
+
+        private final Map<List<YodaVariable>, Layout> extensions = new ConcurrentHashMap<>();
+
+        private Layout(YodaVariable[] variables) {
+            this.variables = variables;
+            int size = Arrays.stream(variables).mapToInt(YodaVariable::getIdx).max().orElse(-1) + 1;
+            this.slots = new int[size];
+            Arrays.fill(this.slots, -1);
+            for (int i = 0; i < variables.length; i++) {
+                this.slots[variables[i].getIdx()] = i;
+            }
+        }
+
+        private int slotOf(YodaVariable var) {
+            int idx = var.getIdx();
+            return ((idx >= 0) && (idx < slots.length) ? slots[idx] : -1);
+        }
+
+        private Layout extend(List<YodaVariable> added) {
+            if (added.isEmpty()) {
+                return this;
+            }
+            return extensions.computeIfAbsent(added, k -> {
+                TreeSet<YodaVariable> merged = new TreeSet<>(Arrays.asList(variables));
+                merged.addAll(k);
+                return new Layout(merged.toArray(new YodaVariable[0]));
+            });
+        }
+
     }
 }
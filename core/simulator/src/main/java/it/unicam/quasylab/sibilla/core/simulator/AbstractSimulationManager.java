@@ -38,8 +38,17 @@ public abstract class AbstractSimulationManager<S extends State> implements Simu
     private int counter = 0;
     private boolean running = true;
 
+    /**
+     * Creates a new manager that uses the given random generator. When the given generator is a
+     * {@link SplittableRandomGenerator}, each task receives its own independent stream determined by the task
+     * index, so that results only depend on the seed and not on how tasks are scheduled. Otherwise, the
+     * same generator is shared among all the tasks.
+     *
+     * @param random random generator used in the simulation.
+     * @param monitor monitor used to control simulation.
+     */
     public AbstractSimulationManager(RandomGenerator random, SimulationMonitor monitor) {
-        this.random = random;
+        this.random = (random instanceof SplittableRandomGenerator ? ((SplittableRandomGenerator) random).split() : random);
         this.monitor = monitor;
         if (this.monitor != null) {
             this.monitor.registerPropertyChangeListener(this::manageSimulationMonitorEvent);
@@ -67,7 +76,20 @@ public abstract class AbstractSimulationManager<S extends State> implements Simu
             throw new IllegalStateException();
         }
         counter++;
-        handleTask(new SimulationTask<>(counter,random,unit));
+        handleTask(new SimulationTask<>(counter,getRandomGenerator(counter),unit));
+    }
+
+    /**
+     * Returns the random generator used by the task with the given index.
+     *
+     * @param index task index.
+     * @return the random generator used by the task with the given index.
+     */
+    protected RandomGenerator getRandomGenerator(int index) {
+        if (random instanceof SplittableRandomGenerator) {
+            return ((SplittableRandomGenerator) random).getStream(index);
+        }
+        return random;
     }
 
     protected abstract void handleTask(SimulationTask<S> simulationTask);
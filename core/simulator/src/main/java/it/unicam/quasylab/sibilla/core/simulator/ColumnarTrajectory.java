@@ -0,0 +1,274 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import it.unicam.quasylab.sibilla.core.simulator.sampling.Sample;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A trajectory that stores sampled times in a growable array of doubles and sampled states, encoded
+ * via a {@link StateVectorCodec}, in a single flat array of integers. States are decoded only when
+ * they are accessed, hence this trajectory does not keep references to the added states. When the first
+ * added state cannot be encoded (see {@link StateVectorCodec#canEncode(Object)}), the trajectory keeps a
+ * reference to each added state, as a {@link Trajectory} does.
+ *
+ * @param <S> type of states in the trajectory.
+ */
+public class ColumnarTrajectory<S> extends Trajectory<S> {
+
+    private static final long serialVersionUID = 2470617337305683564L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private StateVectorCodec<S> codec;
+    private double[] times;
+    private int[] values;
+    private int width = -1;
+    private int size = 0;
+    private List<Sample<S>> samples = null;
+
+    /**
+     * Creates an empty trajectory. This constructor is only used for deserialization.
+     */
+    public ColumnarTrajectory() {
+        this(null);
+    }
+
+    /**
+     * Creates an empty trajectory whose states are encoded with the given codec.
+     *
+     * @param codec the codec used to store states.
+     */
+    public ColumnarTrajectory(StateVectorCodec<S> codec) {
+        super(Collections.emptyList());
+        this.codec = codec;
+        this.times = new double[INITIAL_CAPACITY];
+        this.values = new int[0];
+    }
+
+    @Override
+    public void add(double time, S value) {
+        if (!Double.isFinite(getStart())) {
+            setStart(time);
+        }
+        checkTime(time);
+        if ((size == 0) && (samples == null) && !codec.canEncode(value)) {
+            samples = new ArrayList<>();
+        }
+        if (samples != null) {
+            samples.add(new Sample<>(time, value));
+            size++;
+            return;
+        }
+        if (width < 0) {
+            width = codec.width(value);
+            values = new int[INITIAL_CAPACITY * width];
+        } else if (!codec.canEncode(value) || (codec.width(value) != width)) {
+            throw new IllegalArgumentException(String.format("State %s cannot be stored in a trajectory of states encoded with %d elements.", value, width));
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, 2 * size);
+            values = Arrays.copyOf(values, 2 * size * width);
+        }
+        times[size] = time;
+        codec.encode(value, values, size * width);
+        size++;
+    }
+
+    @Override
+    public void addSample(Sample<S> sample) {
+        add(sample.getTime(), sample.getValue());
+    }
+
+    @Override
+    public double getTime(int i) {
+        checkIndex(i);
+        return (samples != null ? samples.get(i).getTime() : times[i]);
+    }
+
+    @Override
+    public S getState(int i) {
+        checkIndex(i);
+        return (samples != null ? samples.get(i).getValue() : codec.decode(values, i * width, width));
+    }
+
+    /**
+     * Returns the element <code>j</code> of the encoded state of the sample with the given index.
+     *
+     * @param i sample index.
+     * @param j element index.
+     * @return the element <code>j</code> of the encoded state of the sample with the given index.
+     */
+    public int getValue(int i, int j) {
+        checkIndex(i);
+        if ((j < 0) || (j >= width)) {
+            throw new IndexOutOfBoundsException(j);
+        }
+        return values[i * width + j];
+    }
+
+    /**
+     * Returns the number of elements used to encode each state.
+     *
+     * @return the number of elements used to encode each state.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    private void checkIndex(int i) {
+        if ((i < 0) || (i >= size)) {
+            throw new IndexOutOfBoundsException(i);
+        }
+    }
+
+    @Override
+    public Sample<S> getSample(int i) {
+        if (samples != null) {
+            checkIndex(i);
+            return samples.get(i);
+        }
+        return new Sample<>(getTime(i), getState(i));
+    }
+
+    /**
+     * Returns an unmodifiable view of the samples in this trajectory. Samples are decoded when they
+     * are accessed.
+     *
+     * @return an unmodifiable view of the samples in this trajectory.
+     */
+    @Override
+    public List<Sample<S>> getData() {
+        return new AbstractList<>() {
+            @Override
+            public Sample<S> get(int index) {
+                return getSample(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void removeSampleOverTheEnd() {
+        if (Double.isNaN(getEnd())) {
+            return;
+        }
+        while ((size > 0) && (getTime(size - 1) > getEnd())) {
+            size--;
+            if (samples != null) {
+                samples.remove(size);
+            }
+        }
+    }
+
+    @Override
+    public boolean retainsStates() {
+        return (samples != null);
+    }
+
+    @Override
+    public Iterator<Sample<S>> iterator() {
+        return getData().iterator();
+    }
+
+    @Override
+    public Stream<Sample<S>> stream() {
+        return IntStream.range(0, size).mapToObj(this::getSample);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject(codec);
+        out.writeInt(size);
+        out.writeInt(width);
+        out.writeDouble(getStart());
+        out.writeDouble(getEnd());
+        out.writeBoolean(isSuccessful());
+        out.writeLong(getGenerationTime());
+        out.writeBoolean(samples != null);
+        if (samples != null) {
+            for (Sample<S> sample : samples) {
+                out.writeObject(sample);
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(times[i]);
+        }
+        for (int i = 0; i < size * Math.max(width, 0); i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        this.codec = (StateVectorCodec<S>) in.readObject();
+        this.size = in.readInt();
+        this.width = in.readInt();
+        setStart(in.readDouble());
+        setEnd(in.readDouble());
+        setSuccessful(in.readBoolean());
+        setGenerationTime(in.readLong());
+        if (in.readBoolean()) {
+            this.samples = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                this.samples.add((Sample<S>) in.readObject());
+            }
+            this.times = new double[0];
+            this.values = new int[0];
+            return;
+        }
+        this.samples = null;
+        this.times = new double[Math.max(size, INITIAL_CAPACITY)];
+        for (int i = 0; i < size; i++) {
+            this.times[i] = in.readDouble();
+        }
+        this.values = new int[Math.max(size, INITIAL_CAPACITY) * Math.max(width, 0)];
+        for (int i = 0; i < size * Math.max(width, 0); i++) {
+            this.values[i] = in.readInt();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.MergeableSamplingFunction;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SamplingHandler;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * A simulation manager that executes the scheduled tasks on a {@link ForkJoinPool}. Tasks are collected when
+ * they are scheduled and executed when {@link #join()} is invoked: the set of tasks is recursively split in
+ * chunks, and the tasks in each chunk are executed sequentially. When the sampling handlers of a task are
+ * provided by a {@link MergeableSamplingFunction}, each chunk collects its data in its own partial function.
+ * Partial functions are merged together when chunks are joined, and only the final result is added to the
+ * original sampling function.
+ *
+ * @param <S> type of simulated states.
+ */
+public class ForkJoinSimulationManager<S extends State> extends AbstractSimulationManager<S> {
+
+    /**
+     * Number of chunks assigned to each worker when chunk size is computed automatically.
+     */
+    public static final int CHUNKS_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final boolean ownedPool;
+    private final int chunkSize;
+    private List<SimulationTask<S>> tasks = new ArrayList<>();
+
+    /**
+     * Creates a new manager that uses the common pool and computes the chunk size automatically.
+     *
+     * @param random random generator used in the simulation.
+     * @param monitor monitor used to control simulation.
+     */
+    public ForkJoinSimulationManager(RandomGenerator random, SimulationMonitor monitor) {
+        this(ForkJoinPool.commonPool(), false, 0, random, monitor);
+    }
+
+    /**
+     * Creates a new manager that executes tasks on the given pool.
+     *
+     * @param pool pool used to execute tasks.
+     * @param ownedPool true if the pool has to be shut down together with this manager.
+     * @param chunkSize number of tasks in each chunk, a non-positive value means that the chunk size is computed automatically.
+     * @param random random generator used in the simulation.
+     * @param monitor monitor used to control simulation.
+     */
+    public ForkJoinSimulationManager(ForkJoinPool pool, boolean ownedPool, int chunkSize, RandomGenerator random, SimulationMonitor monitor) {
+        super(random, monitor);
+        this.pool = pool;
+        this.ownedPool = ownedPool;
+        this.chunkSize = chunkSize;
+    }
+
+    public static SimulationManagerFactory getForkJoinSimulationManagerFactory() {
+        return ForkJoinSimulationManager::new;
+    }
+
+    public static SimulationManagerFactory getForkJoinSimulationManagerFactory(int parallelism, int chunkSize) {
+        return new SimulationManagerFactory() {
+            @Override
+            public <S extends State> SimulationManager<S> getSimulationManager(RandomGenerator random, SimulationMonitor monitor) {
+                return new ForkJoinSimulationManager<>(new ForkJoinPool(parallelism), true, chunkSize, random, monitor);
+            }
+        };
+    }
+
+    @Override
+    protected synchronized void handleTask(SimulationTask<S> simulationTask) {
+        this.tasks.add(simulationTask);
+    }
+
+    @Override
+    public synchronized int pendingTasks() {
+        return tasks.size();
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        List<SimulationTask<S>> toExecute = getScheduledTasks();
+        if (toExecute.isEmpty()) {
+            return;
+        }
+        try {
+            Map<MergeableSamplingFunction<S>, MergeableSamplingFunction<S>> partials =
+                    pool.submit(new ChunkTask(toExecute, 0, toExecute.size(), getChunkSize(toExecute.size()))).get();
+            partials.forEach(MergeableSamplingFunction::merge);
+        } catch (ExecutionException e) {
+            Throwable cause = (e.getCause() != null ? e.getCause() : e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("A simulation replica failed: "+cause.getLocalizedMessage(), cause);
+        }
+    }
+
+    private synchronized List<SimulationTask<S>> getScheduledTasks() {
+        List<SimulationTask<S>> toExecute = this.tasks;
+        this.tasks = new ArrayList<>();
+        return toExecute;
+    }
+
+    private int getChunkSize(int size) {
+        if (chunkSize > 0) {
+            return chunkSize;
+        }
+        return Math.max(1, size / (pool.getParallelism() * CHUNKS_PER_WORKER));
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        if (isRunning() && !isCancelled()) {
+            join();
+        }
+        super.shutdown();
+        if (ownedPool) {
+            pool.shutdown();
+        }
+    }
+
+    private boolean isCancelled() {
+        SimulationMonitor monitor = getMonitor();
+        return (monitor != null) && monitor.isCancelled();
+    }
+
+    /**
+     * Executes the tasks in a given range and returns the partial functions where sampled data have been collected.
+     * Partial functions are indexed by the sampling function they have been created from.
+     */
+    private class ChunkTask extends RecursiveTask<Map<MergeableSamplingFunction<S>, MergeableSamplingFunction<S>>> {
+
+        private final List<SimulationTask<S>> tasks;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private ChunkTask(List<SimulationTask<S>> tasks, int from, int to, int chunkSize) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Map<MergeableSamplingFunction<S>, MergeableSamplingFunction<S>> compute() {
+            if (to - from <= chunkSize) {
+                return executeChunk();
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(tasks, from, middle, chunkSize);
+            left.fork();
+            Map<MergeableSamplingFunction<S>, MergeableSamplingFunction<S>> result = new ChunkTask(tasks, middle, to, chunkSize).compute();
+            left.join().forEach((f, partial) -> {
+                MergeableSamplingFunction<S> current = result.get(f);
+                if (current == null) {
+                    result.put(f, partial);
+                } else {
+                    current.merge(partial);
+                }
+            });
+            return result;
+        }
+
+        private Map<MergeableSamplingFunction<S>, MergeableSamplingFunction<S>> executeChunk() {
+            Map<MergeableSamplingFunction<S>, MergeableSamplingFunction<S>> partials = new IdentityHashMap<>();
+            if (!isRunning() || isCancelled()) {
+                return partials;
+            }
+            for (int i = from; i < to; i++) {
+                SimulationTask<S> task = tasks.get(i);
+                Supplier<SamplingHandler<S>> handlerSupplier = task.getUnit().getSamplingHandlerSupplier();
+                if (handlerSupplier instanceof MergeableSamplingFunction) {
+                    MergeableSamplingFunction<S> partial = partials.computeIfAbsent((MergeableSamplingFunction<S>) handlerSupplier, MergeableSamplingFunction::newPartial);
+                    task = task.withUnit(task.getUnit().withSamplingHandlerSupplier(partial));
+                }
+                notifyMonitorStartIteration(task.getIndex());
+                task.get();
+                notifyMonitorEndIteration(task.getIndex());
+            }
+            return partials;
+        }
+    }
+
+}
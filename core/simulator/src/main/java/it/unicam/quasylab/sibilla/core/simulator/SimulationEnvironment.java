@@ -378,13 +378,18 @@ public class SimulationEnvironment implements Serializable {
 				public void end(double time) {
 					record(!failed&&reached);
 				}
+
+				@Override
+				public boolean retainsStates() {
+					return false;
+				}
 			};
 		}
 	}
 
 	public <S extends State> Trajectory<S> sampleTrajectory(RandomGenerator random, Model<S> model, S state,
 			double deadline) {
-		return sampleTrajectory(random, model::createSimulationCursor, state, deadline);
+		return sampleTrajectory(random, model::createSimulationCursor, state, deadline, model::createTrajectory);
 	}
 
 	public <S extends State> Trajectory<S> sampleTrajectory(
@@ -392,7 +397,27 @@ public class SimulationEnvironment implements Serializable {
 			BiFunction<RandomGenerator, Function<RandomGenerator, S>, SimulatorCursor<S>> cursorSupplier,
 			S state,
 			double deadline) {
-		TrajectoryCollector<S> collector = new TrajectoryCollector<>();
+		return sampleTrajectory(random, cursorSupplier, state, deadline, Trajectory::new);
+	}
+
+	/**
+	 * Samples a trajectory with the given cursor supplier. The sampled states are stored in the trajectory
+	 * created by the given supplier.
+	 *
+	 * @param random            random generator used in the simulation.
+	 * @param cursorSupplier    function used to build the simulator cursor.
+	 * @param state             initial state.
+	 * @param deadline          simulation deadline.
+	 * @param trajectoryBuilder supplier used to create the empty trajectory.
+	 * @return the sampled trajectory.
+	 */
+	public <S extends State> Trajectory<S> sampleTrajectory(
+			RandomGenerator random,
+			BiFunction<RandomGenerator, Function<RandomGenerator, S>, SimulatorCursor<S>> cursorSupplier,
+			S state,
+			double deadline,
+			Supplier<Trajectory<S>> trajectoryBuilder) {
+		TrajectoryCollector<S> collector = new TrajectoryCollector<>(trajectoryBuilder);
 		SimulationUnit<S> unit = new SimulationUnit<>(cursorSupplier, state, collector, SamplePredicate.timeDeadlinePredicate(deadline),
 				s -> true);
 		SimulationTask<S> simulationRun = new SimulationTask<>(0, random, unit);
@@ -439,7 +464,7 @@ public class SimulationEnvironment implements Serializable {
 			ContinuousTimeMarkovProcess<S> model,
 			S state,
 			double deadline, StatePredicate<? super S> reachPredicate) {
-		TrajectoryCollector<S> collector = new TrajectoryCollector<>();
+		TrajectoryCollector<S> collector = new TrajectoryCollector<>(model::createTrajectory);
 		SimulationUnit<S> unit = new SimulationUnit<S>(model::createSimulationCursor, state, collector,
 				SamplePredicate.samplePredicate(deadline, reachPredicate), reachPredicate);
 		SimulationTask<S> simulationRun = new SimulationTask<>(random, unit);
@@ -72,11 +72,12 @@ public class SimulationTask<S extends State> implements Supplier<Long>, Serializ
 		long start = System.currentTimeMillis();
 		SamplingHandler<S> handler = this.unit.getSamplingHandler();
 		SimulatorCursor<S> cursor = this.unit.getSimulationCursor(this.random);
+		boolean snapshots = handler.retainsStates();
 		cursor.start();
 		handler.start();
-		handler.sample(cursor.time(), cursor.currentState());
-		while (!unit.getStoppingPredicate().test(cursor.time(),cursor.currentState())&&(!isCancelled())) {
-			step(handler, cursor);
+		handler.sample(cursor.time(), getState(cursor, snapshots));
+		while (!unit.getStoppingPredicate().test(cursor.time(),cursor.currentView())&&(!isCancelled())) {
+			step(handler, cursor, snapshots);
 		}
 		handler.end(cursor.time());
 		completed(true);
@@ -98,14 +99,18 @@ public class SimulationTask<S extends State> implements Supplier<Long>, Serializ
 		elapsedTime = System.nanoTime() - startTime;
 	}
 
-	private void step(SamplingHandler<S> handler, SimulatorCursor<S> cursor) {
+	private void step(SamplingHandler<S> handler, SimulatorCursor<S> cursor, boolean snapshots) {
 		if (cursor.step()) {
-			handler.sample(cursor.time(), cursor.currentState());
+			handler.sample(cursor.time(), getState(cursor, snapshots));
 		} else {
 			cancel();
 		}
 	}
 
+	private S getState(SimulatorCursor<S> cursor, boolean snapshot) {
+		return (snapshot ? cursor.currentState() : cursor.currentView());
+	}
+
 	public synchronized void cancel() {
 		if (!this.isCompleted()) {
 			this.status = SimulationStatus.CANCELLED; 			
@@ -131,4 +136,14 @@ public class SimulationTask<S extends State> implements Supplier<Long>, Serializ
 	public SimulationUnit<S> getUnit() {
 		return unit;
 	}
+
+	/**
+	 * Returns a new task, with the same index and random generator of this one, that executes the given unit.
+	 *
+	 * @param unit the simulation unit to execute.
+	 * @return a new task, with the same index and random generator of this one, that executes the given unit.
+	 */
+	public SimulationTask<S> withUnit(SimulationUnit<S> unit) {
+		return new SimulationTask<>(index, random, unit);
+	}
 }
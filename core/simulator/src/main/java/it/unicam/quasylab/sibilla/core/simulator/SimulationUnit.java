@@ -83,6 +83,25 @@ public class SimulationUnit<S extends State> implements Serializable {
 		return handlerSupplier.get();
 	}
 
+	/**
+	 * Returns the supplier used to create the sampling handler of each simulation run.
+	 *
+	 * @return the supplier used to create the sampling handler of each simulation run.
+	 */
+	public Supplier<SamplingHandler<S>> getSamplingHandlerSupplier() {
+		return handlerSupplier;
+	}
+
+	/**
+	 * Returns a simulation unit that differs from this one only for the supplier used to create sampling handlers.
+	 *
+	 * @param handlerSupplier the supplier used to create the sampling handler of each simulation run.
+	 * @return a simulation unit that differs from this one only for the supplier used to create sampling handlers.
+	 */
+	public SimulationUnit<S> withSamplingHandlerSupplier(Supplier<SamplingHandler<S>> handlerSupplier) {
+		return new SimulationUnit<>(simulationCursorSupplier, stateSupplier, handlerSupplier, stoppingPredicate, reachPredicate);
+	}
+
 	/**
 	 * @return the stoppingPredicate
 	 */
@@ -54,6 +54,17 @@ public interface SimulatorCursor<S extends State> {
      */
     S currentState();
 
+    /**
+     * Returns a view of the current state that is only guaranteed to be valid until the next step. Cursors
+     * that update their state in place can override this method to avoid building a new state at each step.
+     * By default, this method returns {@link SimulatorCursor#currentState()}.
+     *
+     * @return a view of the current state.
+     */
+    default S currentView() {
+        return currentState();
+    }
+
     /**
      * Returns current time. A {@link Double#NaN} is returned
      * if the simulation is not started (see {@link SimulatorCursor#start()}).
@@ -0,0 +1,140 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import org.apache.commons.math3.random.AbstractRandomGenerator;
+
+import java.io.Serializable;
+
+/**
+ * A random generator based on the SplitMix64 algorithm that can be split in independent streams. Each stream
+ * is identified by an index and is completely determined by the seed of this generator and by the index itself.
+ * Instances of this class are not thread safe: each thread is expected to use its own stream.
+ */
+public class SplittableRandomGenerator extends AbstractRandomGenerator implements Serializable {
+
+    private static final long serialVersionUID = 3203458946817463011L;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private long state;
+
+    /**
+     * Creates a new generator whose seed is obtained from the current time.
+     */
+    public SplittableRandomGenerator() {
+        this(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+    }
+
+    /**
+     * Creates a new generator with the given seed.
+     *
+     * @param seed generator seed.
+     */
+    public SplittableRandomGenerator(long seed) {
+        super();
+        setSeed(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        clear();
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    /**
+     * Returns the seed used to initialise this generator.
+     *
+     * @return the seed used to initialise this generator.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the stream with the given index. The returned generator only depends on the seed of this
+     * generator and on the given index, hence it does not depend on how many values have been already
+     * generated by this generator.
+     *
+     * @param index stream index.
+     * @return the stream with the given index.
+     */
+    public SplittableRandomGenerator getStream(long index) {
+        return new SplittableRandomGenerator(mix64(seed + GOLDEN_GAMMA * (index + 1)) ^ GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns a new generator whose seed is the next value generated by this generator. This method is used
+     * to obtain a family of streams that is different at each invocation.
+     *
+     * @return a new generator whose seed is the next value generated by this generator.
+     */
+    public SplittableRandomGenerator split() {
+        return new SplittableRandomGenerator(nextLong());
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public int nextInt(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Bound must be positive");
+        }
+        int r = nextInt();
+        int m = n - 1;
+        if ((n & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % n) < 0; u = nextInt() >>> 1);
+        return r;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import java.io.Serializable;
+
+/**
+ * Instances of this interface are used to store states that can be represented as vectors of integers
+ * in flat arrays. This is used, for instance, in {@link ColumnarTrajectory}.
+ *
+ * @param <S> type of encoded states.
+ */
+public interface StateVectorCodec<S> extends Serializable {
+
+    /**
+     * Returns the number of integers used to encode the given state.
+     *
+     * @param state a state.
+     * @return the number of integers used to encode the given state.
+     */
+    int width(S state);
+
+    /**
+     * Writes the given state in the array <code>target</code> starting from position <code>offset</code>.
+     *
+     * @param state the state to encode.
+     * @param target the array where the state is written.
+     * @param offset the position of the first element written in <code>target</code>.
+     */
+    void encode(S state, int[] target, int offset);
+
+    /**
+     * Returns the state encoded in the <code>width</code> elements of <code>source</code> starting from
+     * position <code>offset</code>.
+     *
+     * @param source the array containing the encoded state.
+     * @param offset the position of the first element of the encoded state.
+     * @param width the number of elements used to encode the state.
+     * @return the state encoded in the given array.
+     */
+    S decode(int[] source, int offset, int width);
+
+    /**
+     * Returns true if the given state can be encoded by this codec. When the first state added to a
+     * {@link ColumnarTrajectory} cannot be encoded, the trajectory keeps a reference to each added state.
+     *
+     * @param state a state.
+     * @return true if the given state can be encoded by this codec.
+     */
+    default boolean canEncode(S state) {
+        return true;
+    }
+
+}
@@ -25,12 +25,13 @@ package it.unicam.quasylab.sibilla.core.simulator;
 
 import it.unicam.quasylab.sibilla.core.models.State;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.SamplingHandler;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.security.Provider;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
@@ -83,6 +84,63 @@ public class ThreadSimulationManager<S extends State> extends AbstractSimulation
         return getThreadSimulationManagerFactory(Executors::newWorkStealingPool);
     }
 
+    /**
+     * Returns a factory of simulation managers that execute each replica on its own virtual thread. Replicas
+     * that block, for instance while waiting for external monitors, do not pin platform threads. When the
+     * running JVM does not support virtual threads, a cached thread pool is used.
+     *
+     * @return a factory of simulation managers that execute each replica on its own virtual thread.
+     */
+    public static SimulationManagerFactory getVirtualThreadSimulationManagerFactory() {
+        return getThreadSimulationManagerFactory(ThreadSimulationManager::newVirtualThreadPerTaskExecutor);
+    }
+
+    /**
+     * Returns a factory of simulation managers that execute each replica on its own virtual thread, while
+     * at most <code>maxConcurrency</code> replicas are executed at the same time. When the running JVM does
+     * not support virtual threads, a pool of <code>maxConcurrency</code> threads is used.
+     *
+     * @param maxConcurrency maximum number of replicas executed at the same time.
+     * @return a factory of simulation managers that execute each replica on its own virtual thread.
+     */
+    public static SimulationManagerFactory getBoundedVirtualThreadSimulationManagerFactory(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException(SibillaMessages.aPositiveValueIsExpected(maxConcurrency));
+        }
+        return getThreadSimulationManagerFactory(() -> newBoundedExecutor(virtualThreadPerTaskExecutor(), maxConcurrency));
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        return virtualThreadPerTaskExecutor().orElseGet(() -> {
+            LOGGER.warning("Virtual threads are not supported by the running JVM: a cached thread pool is used.");
+            return Executors.newCachedThreadPool();
+        });
+    }
+
+    /**
+     * Returns an executor running at most <code>maxConcurrency</code> commands at the same time. When
+     * <code>virtualThreads</code> is empty, this is a fixed thread pool. Otherwise, commands wait for a permit on
+     * their own virtual thread, that does not hold a platform thread while it is blocked.
+     *
+     * @param virtualThreads an executor that starts a virtual thread for each command, if any.
+     * @param maxConcurrency maximum number of commands executed at the same time.
+     * @return an executor running at most <code>maxConcurrency</code> commands at the same time.
+     */
+    static ExecutorService newBoundedExecutor(Optional<ExecutorService> virtualThreads, int maxConcurrency) {
+        return virtualThreads.<ExecutorService>map(e -> new BoundedExecutorService(e, maxConcurrency)).orElseGet(() -> {
+            LOGGER.warning("Virtual threads are not supported by the running JVM: a fixed thread pool is used.");
+            return Executors.newFixedThreadPool(maxConcurrency);
+        });
+    }
+
+    private static Optional<ExecutorService> virtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+
 
     @Override
     protected synchronized void handleTask(SimulationTask<S> simulationTask) {
@@ -120,4 +178,58 @@ public class ThreadSimulationManager<S extends State> extends AbstractSimulation
         super.shutdown();
         executor.shutdown();
     }
+
+    /**
+     * An executor that limits the number of commands that are executed at the same time. Each command
+     * is submitted immediately to the underlying executor and waits for a permit before running. The
+     * underlying executor must start a virtual thread for each command: permits are not acquired by the
+     * submitting thread, that may hold the lock of the simulation manager.
+     */
+    private static class BoundedExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService executor;
+        private final Semaphore permits;
+
+        private BoundedExecutorService(ExecutorService executor, int maxConcurrency) {
+            this.executor = executor;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            executor.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return executor.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return executor.awaitTermination(timeout, unit);
+        }
+    }
 }
\ No newline at end of file
@@ -36,7 +36,6 @@ import java.util.*;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.function.ToDoubleFunction;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -52,17 +51,36 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
     private long generationTime = -1;
 
     public Trajectory() {
-        this.data = new LinkedList<>();
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Creates an empty trajectory storing its samples in the given list. Subclasses that provide their own
+     * storage pass an empty immutable list.
+     *
+     * @param data the list used to store samples.
+     */
+    protected Trajectory(List<Sample<S>> data) {
+        this.data = data;
     }
 
     public void add(double time, S value) {
         if (!Double.isFinite(start)) {
             this.start = time;
         }
+        checkTime(time);
+        this.data.add(new Sample<S>(time, value));
+    }
+
+    /**
+     * Checks that a sample at the given time can be added to this trajectory with respect to its end.
+     *
+     * @param time the time of the sample to add.
+     */
+    protected void checkTime(double time) {
         if (!Double.isFinite(this.end) && (this.end >= time)) {
-            throw new IllegalArgumentException();//TODO: Add message!
+            throw new IllegalArgumentException(String.format("A sample at time %g cannot be added to a trajectory ending at %g.", time, this.end));
         }
-        this.data.add(new Sample<S>(time, value));
     }
 
     public void sample(SamplingHandler<? super S> f) {
@@ -70,8 +88,8 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
             throw new IllegalArgumentException();
         }
         f.start();
-        for (Sample<S> s : this.data) {
-            f.sample(s.getTime(), s.getValue());
+        for (int i = 0; i < size(); i++) {
+            f.sample(getTime(i), getState(i));
         }
         //this.data.stream().sequential().forEach(s -> f.sample(s.getTime(), s.getValue()));
         f.end(end);
@@ -98,8 +116,7 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
     }
 
     public IntFunction<S> getSteps() {
-        ArrayList<S> values = data.stream().map(Sample::getValue).collect(Collectors.toCollection(ArrayList::new));
-        return values::get;
+        return this::getState;
     }
 
     /**
@@ -159,7 +176,7 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
         this.successful = in.readBoolean();
         this.generationTime = in.readLong();
 
-        List<Sample<S>> samples = new LinkedList<Sample<S>>();
+        List<Sample<S>> samples = new ArrayList<Sample<S>>(numberOfSamples);
         for (int i = 0; i < numberOfSamples; i++) {
             samples.add((Sample) in.readObject());
         }
@@ -167,9 +184,9 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
     }
 
     public double firstPassageTime(Predicate<S> condition) {
-        for (Sample<S> sample : data) {
-            if (condition.test(sample.getValue())) {
-                return sample.getTime();
+        for (int i = 0; i < size(); i++) {
+            if (condition.test(getState(i))) {
+                return getTime(i);
             }
         }
         return Double.NaN;
@@ -180,13 +197,13 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
         BooleanSignal result = new BooleanSignal();
         boolean flag = false;
         double lastPositive = 0.0;
-        for (Sample<S> interval: data) {
-            boolean newFlag = predicate.test(interval.getValue());
+        for (int i = 0; i < size(); i++) {
+            boolean newFlag = predicate.test(getState(i));
             if (!flag&&newFlag) {
-                lastPositive = interval.getTime();
+                lastPositive = getTime(i);
             }
             if (flag&&!newFlag) {
-                result.add(lastPositive, interval.getTime());
+                result.add(lastPositive, getTime(i));
             }
             flag = newFlag;
         }
@@ -198,7 +215,9 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
 
     public Signal apply(ToDoubleFunction<S> function) {
         Signal result = new Signal();
-        data.forEach(s -> result.add(s.getTime(), function.applyAsDouble(s.getValue())));
+        for (int i = 0; i < size(); i++) {
+            result.add(getTime(i), function.applyAsDouble(getState(i)));
+        }
         if(!Double.isNaN(this.end)) result.setEnd(this.end);
         return result;
     }
@@ -207,17 +226,18 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
     public String toString() {
         StringBuilder result= new StringBuilder();
         result.append("start : ").append(this.start).append(" ends : ").append(this.end).append("\n");
-        result.append("Trajectory samples : ").append(data.size()).append("\n");
-        if(this.data.size() <= 20){
-            for (int i = 0; i < data.size()-1; i++) {
-                result.append(data.get(i).toString()).append(" --> ");
+        int size = size();
+        result.append("Trajectory samples : ").append(size).append("\n");
+        if(size <= 20){
+            for (int i = 0; i < size-1; i++) {
+                result.append(getSample(i).toString()).append(" --> ");
             }
-            result.append(data.get(data.size() - 1));
+            result.append(getSample(size - 1));
         }else{
             for (int i = 0; i < 3; i++) {
-                result.append(data.get(i).toString()).append(" --> ");
+                result.append(getSample(i).toString()).append(" --> ");
             }
-            result.append("... -->").append(data.get(data.size() - 2)).append(data.get(data.size() - 1));
+            result.append("... -->").append(getSample(size - 2)).append(getSample(size - 1));
         }
 
         return result.toString();
@@ -232,6 +252,46 @@ public class Trajectory<S> implements Externalizable, Iterable<Sample<S>> {
            }
     }
 
+    /**
+     * Returns the sample at the given position in this trajectory.
+     *
+     * @param i sample index.
+     * @return the sample at the given position in this trajectory.
+     */
+    public Sample<S> getSample(int i) {
+        return data.get(i);
+    }
+
+    /**
+     * Returns the time of the sample at the given position in this trajectory.
+     *
+     * @param i sample index.
+     * @return the time of the sample at the given position in this trajectory.
+     */
+    public double getTime(int i) {
+        return data.get(i).getTime();
+    }
+
+    /**
+     * Returns the state of the sample at the given position in this trajectory.
+     *
+     * @param i sample index.
+     * @return the state of the sample at the given position in this trajectory.
+     */
+    public S getState(int i) {
+        return data.get(i).getValue();
+    }
+
+    /**
+     * Returns true if this trajectory keeps a reference to the states added to it. When false is returned,
+     * states are copied in an internal representation when they are added.
+     *
+     * @return true if this trajectory keeps a reference to the states added to it.
+     */
+    public boolean retainsStates() {
+        return true;
+    }
+
     @Override
     public Iterator<Sample<S>> iterator() {
         return data.iterator();
@@ -25,6 +25,7 @@ package it.unicam.quasylab.sibilla.core.simulator.sampling;
 
 import it.unicam.quasylab.sibilla.core.models.MeasureFunction;
 import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
 import org.apache.commons.math3.distribution.TDistribution;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
@@ -131,6 +132,26 @@ public class DescriptiveStatisticSampling<S extends State> extends StatisticSamp
 		}
 	}
 
+	@Override
+	public MergeableSamplingFunction<S> newPartial() {
+		return new DescriptiveStatisticSampling<>(data.length, dt, measure);
+	}
+
+	@Override
+	public synchronized void merge(MergeableSamplingFunction<S> partial) {
+		if (!(partial instanceof DescriptiveStatisticSampling)||(((DescriptiveStatisticSampling<S>) partial).getSize() != data.length)) {
+			throw new IllegalArgumentException(SibillaMessages.illegalPartialSamplingFunction(this));
+		}
+		DescriptiveStatisticSampling<S> other = (DescriptiveStatisticSampling<S>) partial;
+		synchronized (other) {
+			for(int i=0; i<data.length; i++) {
+				for (double v: other.data[i].getValues()) {
+					data[i].addValue(v);
+				}
+			}
+		}
+	}
+
 	@Override
 	protected synchronized double[] getDataRow(int i) {
 		return new double[] {getTimeOfIndex(i),
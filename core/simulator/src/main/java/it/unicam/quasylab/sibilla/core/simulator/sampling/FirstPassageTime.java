@@ -77,6 +77,11 @@ public class FirstPassageTime<S extends State> implements Supplier<SamplingHandl
 
             @Override
             public void end(double time) {}
+
+            @Override
+            public boolean retainsStates() {
+                return false;
+            }
         };
     }
 }
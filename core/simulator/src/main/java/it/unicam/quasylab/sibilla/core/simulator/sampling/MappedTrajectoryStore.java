@@ -0,0 +1,461 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import it.unicam.quasylab.sibilla.core.models.Model;
+import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An append-only store of trajectories backed by a file. States are encoded with the methods
+ * {@link Model#byteOf(State)} and {@link Model#fromByte(byte[])} of a model, hence each sample occupies
+ * <code>8 + model.stateByteArraySize()</code> bytes. Trajectories can be streamed in the store while they are
+ * simulated, since this class can be used as a supplier of sampling handlers.
+ * <p>
+ * Samples of a trajectory are collected in a chunk of bounded size that is written to the file as soon as it
+ * is full, hence the heap used to store a trajectory does not depend on its length. Only the offsets of the
+ * chunks of the stored trajectories are kept in memory. Stored trajectories are read via large memory-mapped
+ * segments of the file, that are mapped once and shared by all the trajectories they contain, and states
+ * are decoded only when they are accessed.
+ *
+ * @param <S> type of states in the stored trajectories.
+ */
+public class MappedTrajectoryStore<S extends State> implements Supplier<SamplingHandler<S>>, Iterable<Trajectory<S>>, Closeable {
+
+    /**
+     * Default number of bytes in a chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+
+    /**
+     * Default number of bytes in a mapped segment.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 26;
+
+    private static final String READ_ONLY_TRAJECTORY = "Trajectories read from a store cannot be modified.";
+
+    private final Model<S> model;
+    private final int stateSize;
+    private final int sampleSize;
+    private final int chunkCapacity;
+    private final int segmentSize;
+    private final FileChannel channel;
+    private final TreeMap<Long, ByteBuffer> segments = new TreeMap<>();
+    private Record[] records = new Record[16];
+    private int size = 0;
+    private long fileSize = 0;
+
+    /**
+     * Creates a new empty store in the given file. If the file already exists, its content is discarded.
+     *
+     * @param model the model used to encode and decode states.
+     * @param file the file where trajectories are stored.
+     * @throws IOException if the file cannot be opened.
+     */
+    public MappedTrajectoryStore(Model<S> model, Path file) throws IOException {
+        this(model, file, DEFAULT_CHUNK_SIZE, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new empty store in the given file. If the file already exists, its content is discarded.
+     *
+     * @param model the model used to encode and decode states.
+     * @param file the file where trajectories are stored.
+     * @param chunkSize number of bytes of the chunks used to write trajectories.
+     * @param segmentSize number of bytes of the segments mapped to read trajectories.
+     * @throws IOException if the file cannot be opened.
+     */
+    public MappedTrajectoryStore(Model<S> model, Path file, int chunkSize, int segmentSize) throws IOException {
+        this.stateSize = model.stateByteArraySize();
+        if (stateSize <= 0) {
+            throw new IllegalArgumentException(String.format("States of model %s cannot be encoded in a byte array (%d bytes are used).",
+                    model.getClass().getSimpleName(), stateSize));
+        }
+        if ((chunkSize <= 0) || (segmentSize <= 0)) {
+            throw new IllegalArgumentException(String.format("Chunks and segments must have a positive size (%d and %d are used).", chunkSize, segmentSize));
+        }
+        this.model = model;
+        this.sampleSize = Double.BYTES + stateSize;
+        this.chunkCapacity = Math.max(1, chunkSize / sampleSize);
+        this.segmentSize = segmentSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Appends the given trajectory to this store.
+     *
+     * @param trajectory the trajectory to store.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void append(Trajectory<S> trajectory) throws IOException {
+        RecordWriter writer = new RecordWriter();
+        for (int i = 0; i < trajectory.size(); i++) {
+            writer.write(trajectory.getTime(i), trajectory.getState(i));
+        }
+        add(writer.close(trajectory.getStart(), trajectory.getEnd()));
+    }
+
+    private synchronized long write(ByteBuffer buffer) throws IOException {
+        long offset = fileSize;
+        while (buffer.hasRemaining()) {
+            fileSize += channel.write(buffer, fileSize);
+        }
+        return offset;
+    }
+
+    private synchronized void add(Record record) {
+        if (size == records.length) {
+            records = Arrays.copyOf(records, 2 * size);
+        }
+        records[size++] = record;
+    }
+
+    /**
+     * Returns the number of trajectories in this store.
+     *
+     * @return the number of trajectories in this store.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the trajectory with the given index. The returned trajectory is a read-only view of the
+     * stored data.
+     *
+     * @param i trajectory index.
+     * @return the trajectory with the given index.
+     */
+    public Trajectory<S> get(int i) {
+        Record record;
+        synchronized (this) {
+            if ((i < 0) || (i >= size)) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            record = records[i];
+        }
+        ByteBuffer[] chunks = new ByteBuffer[record.chunks.length];
+        try {
+            for (int k = 0; k < chunks.length; k++) {
+                int samples = Math.min(chunkCapacity, record.samples - k * chunkCapacity);
+                chunks[k] = getRegion(record.chunks[k], samples * sampleSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new MappedTrajectory(record, chunks);
+    }
+
+    /**
+     * Returns a read-only view of the given region of the file. A new segment is mapped only when the region
+     * is not contained in one of the segments already mapped.
+     */
+    private synchronized ByteBuffer getRegion(long offset, int length) throws IOException {
+        Map.Entry<Long, ByteBuffer> entry = segments.floorEntry(offset);
+        if ((entry == null) || (entry.getKey() + entry.getValue().capacity() < offset + length)) {
+            long segmentLength = Math.min(Math.max(segmentSize, length), fileSize - offset);
+            entry = Map.entry(offset, channel.map(FileChannel.MapMode.READ_ONLY, offset, segmentLength));
+            segments.put(entry.getKey(), entry.getValue());
+        }
+        return entry.getValue().slice((int) (offset - entry.getKey()), length);
+    }
+
+    @Override
+    public Iterator<Trajectory<S>> iterator() {
+        int last = size();
+        return new Iterator<>() {
+
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < last;
+            }
+
+            @Override
+            public Trajectory<S> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException(String.format("All the %d trajectories of the store have been returned.", last));
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Returns a sequential stream of the trajectories in this store.
+     *
+     * @return a sequential stream of the trajectories in this store.
+     */
+    public Stream<Trajectory<S>> stream() {
+        return IntStream.range(0, size()).mapToObj(this::get);
+    }
+
+    @Override
+    public SamplingHandler<S> get() {
+        return new SamplingHandler<>() {
+
+            private RecordWriter writer;
+            private double start = Double.NaN;
+
+            @Override
+            public void start() {
+                if (writer != null) {
+                    throw new IllegalStateException("A sampling handler of a trajectory store can be only used to record a single trajectory.");
+                }
+                this.writer = new RecordWriter();
+            }
+
+            @Override
+            public void sample(double time, S state) {
+                if (!Double.isFinite(start)) {
+                    start = time;
+                }
+                try {
+                    writer.write(time, state);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void end(double time) {
+                try {
+                    add(writer.close(start, time));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean retainsStates() {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            segments.clear();
+        }
+        channel.close();
+    }
+
+    /**
+     * The data of a stored trajectory kept in memory.
+     */
+    private static final class Record {
+
+        private final long[] chunks;
+        private final int samples;
+        private final double start;
+        private final double end;
+
+        private Record(long[] chunks, int samples, double start, double end) {
+            this.chunks = chunks;
+            this.samples = samples;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Collects the samples of a single trajectory in a chunk that is written to the file each time it is full.
+     */
+    private class RecordWriter {
+
+        private final ByteBuffer chunk = ByteBuffer.allocate(chunkCapacity * sampleSize);
+        private long[] chunks = new long[4];
+        private int chunkCounter = 0;
+        private int samples = 0;
+
+        private void write(double time, S state) throws IOException {
+            byte[] encoded = model.byteOf(state);
+            if (encoded.length != stateSize) {
+                throw new IllegalStateException(String.format("State %s is encoded with %d bytes while %d bytes are expected.",
+                        state, encoded.length, stateSize));
+            }
+            chunk.putDouble(time);
+            chunk.put(encoded);
+            samples++;
+            if (!chunk.hasRemaining()) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            if (chunk.position() == 0) {
+                return;
+            }
+            chunk.flip();
+            if (chunkCounter == chunks.length) {
+                chunks = Arrays.copyOf(chunks, 2 * chunkCounter);
+            }
+            chunks[chunkCounter++] = MappedTrajectoryStore.this.write(chunk);
+            chunk.clear();
+        }
+
+        private Record close(double start, double end) throws IOException {
+            flush();
+            return new Record(Arrays.copyOf(chunks, chunkCounter), samples, start, end);
+        }
+    }
+
+    /**
+     * A read-only trajectory whose samples are decoded from mapped chunks when they are accessed.
+     */
+    private class MappedTrajectory extends Trajectory<S> {
+
+        private static final long serialVersionUID = -1349872037781432651L;
+
+        private final transient ByteBuffer[] chunks;
+        private final int samples;
+
+        private MappedTrajectory(Record record, ByteBuffer[] chunks) {
+            super(List.of());
+            this.chunks = chunks;
+            this.samples = record.samples;
+            setStart(record.start);
+            setEnd(record.end);
+        }
+
+        private ByteBuffer chunk(int i) {
+            if ((i < 0) || (i >= samples)) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return chunks[i / chunkCapacity];
+        }
+
+        private int position(int i) {
+            return (i % chunkCapacity) * sampleSize;
+        }
+
+        @Override
+        public double getTime(int i) {
+            return chunk(i).getDouble(position(i));
+        }
+
+        @Override
+        public S getState(int i) {
+            byte[] encoded = new byte[stateSize];
+            chunk(i).get(position(i) + Double.BYTES, encoded);
+            try {
+                return model.fromByte(encoded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Sample<S> getSample(int i) {
+            return new Sample<>(getTime(i), getState(i));
+        }
+
+        @Override
+        public int size() {
+            return samples;
+        }
+
+        @Override
+        public List<Sample<S>> getData() {
+            return new AbstractList<>() {
+                @Override
+                public Sample<S> get(int index) {
+                    return getSample(index);
+                }
+
+                @Override
+                public int size() {
+                    return samples;
+                }
+            };
+        }
+
+        @Override
+        public void add(double time, S value) {
+            throw new UnsupportedOperationException(READ_ONLY_TRAJECTORY);
+        }
+
+        @Override
+        public void addSample(Sample<S> sample) {
+            throw new UnsupportedOperationException(READ_ONLY_TRAJECTORY);
+        }
+
+        @Override
+        public void removeSampleOverTheEnd() {
+            throw new UnsupportedOperationException(READ_ONLY_TRAJECTORY);
+        }
+
+        @Override
+        public boolean retainsStates() {
+            return false;
+        }
+
+        @Override
+        public Iterator<Sample<S>> iterator() {
+            return getData().iterator();
+        }
+
+        @Override
+        public Stream<Sample<S>> stream() {
+            return IntStream.range(0, samples).mapToObj(this::getSample);
+        }
+
+        /**
+         * Mapped trajectories are serialized as standard trajectories.
+         */
+        private Object writeReplace() {
+            Trajectory<S> copy = new Trajectory<>();
+            for (int i = 0; i < samples; i++) {
+                copy.add(getTime(i), getState(i));
+            }
+            copy.setStart(getStart());
+            copy.setEnd(getEnd());
+            copy.setSuccessful(isSuccessful());
+            copy.setGenerationTime(getGenerationTime());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import java.util.function.Supplier;
+
+/**
+ * A sampling function whose data can be collected in independent partial copies that are merged
+ * together when the simulation is completed. This allows simulation managers to give each worker its
+ * own accumulator, so that replicas executed in parallel do not contend on a single shared function.
+ *
+ * @param <S> the type of object generated in the handled simulation run.
+ */
+public interface MergeableSamplingFunction<S> extends SamplingFunction<S>, Supplier<SamplingHandler<S>> {
+
+    /**
+     * Returns a new sampling function, with the same parameters of this one, that does not contain any data.
+     *
+     * @return a new empty sampling function with the same parameters of this one.
+     */
+    MergeableSamplingFunction<S> newPartial();
+
+    /**
+     * Adds to this function all the data collected by the given partial function. An {@link IllegalArgumentException}
+     * is thrown if the given function has not been obtained via {@link MergeableSamplingFunction#newPartial()}.
+     *
+     * @param partial the function whose data are added to this one.
+     */
+    void merge(MergeableSamplingFunction<S> partial);
+
+    @Override
+    default SamplingHandler<S> get() {
+        return getSamplingHandler();
+    }
+
+}
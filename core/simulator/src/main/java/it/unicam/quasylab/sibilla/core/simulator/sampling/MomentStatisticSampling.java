@@ -0,0 +1,304 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import it.unicam.quasylab.sibilla.core.models.MeasureFunction;
+import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
+import org.apache.commons.math3.distribution.TDistribution;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A statistic sampling that collects count, mean, second central moment, minimum and maximum of the sampled
+ * values. Moments are stored in primitive arrays and are updated with Welford's algorithm. Each thread records
+ * the values of its replicas in its own accumulator, so that recording does not require any lock. Accumulators,
+ * and the partial functions obtained via {@link #newPartial()}, are folded into this function only once, when
+ * the collected data are read or when they are merged, by using the pairwise formula of Chan et al. Rows of
+ * collected data contain time, mean, standard deviation and confidence interval, as the ones of
+ * {@link SummaryStatisticSampling}.
+ *
+ * @param <S> type of sampled states.
+ */
+public class MomentStatisticSampling<S extends State> extends StatisticSampling<S> {
+
+	private static final long serialVersionUID = 2137564903981257722L;
+
+	private final int samples;
+
+	private Moments moments;
+
+	private final Map<Long, Moments> accumulators = new ConcurrentHashMap<>();
+
+	public static <S extends State> StatisticSampling<S> measure(String name, int samplings, double deadline, MeasureFunction<S> m) {
+		return new MomentStatisticSampling<>(samplings, deadline / samplings,
+				new Measure<>() {
+
+					@Override
+					public double measure(S t) {
+						return m.apply(t);
+					}
+
+					@Override
+					public String getName() {
+						return name;
+					}
+
+				});
+	}
+
+	public MomentStatisticSampling(int samples, double dt, Measure<? super S> measure) {
+		super(measure, dt);
+		this.samples = samples;
+		init();
+	}
+
+	@Override
+	protected void init() {
+		this.moments = new Moments(samples);
+		this.accumulators.clear();
+	}
+
+	/**
+	 * Records the given values in the accumulator of the current thread. Each accumulator is only updated by the
+	 * thread it belongs to, while it is read after the end of the simulation, when accumulators are folded.
+	 *
+	 * @param values the values collected in a replica.
+	 */
+	@Override
+	protected void recordValues(double[] values) {
+		if (values.length != samples) {
+			throw new IllegalArgumentException(String.format("%d values are expected (%d are used).", samples, values.length));
+		}
+		long thread = Thread.currentThread().getId();
+		Moments accumulator = accumulators.get(thread);
+		if (accumulator == null) {
+			accumulator = accumulators.computeIfAbsent(thread, t -> new Moments(samples));
+		}
+		accumulator.record(values);
+	}
+
+	/**
+	 * Folds the accumulators of the threads into the moments of this function.
+	 */
+	private synchronized Moments fold() {
+		for (Moments accumulator : accumulators.values()) {
+			for (int i = 0; i < samples; i++) {
+				moments.merge(i, accumulator);
+			}
+		}
+		accumulators.clear();
+		return moments;
+	}
+
+	@Override
+	public int getSize() {
+		return samples;
+	}
+
+	@Override
+	public synchronized double[][] getData() {
+		fold();
+		double[][] data = new double[samples][];
+		for (int i = 0; i < samples; i++) {
+			data[i] = getDataRow(i);
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the row of collected data at the given time index. The row contains time, mean, standard deviation
+	 * and confidence interval of the sampled values.
+	 *
+	 * @param i time index.
+	 * @return the row of collected data at the given time index.
+	 */
+	@Override
+	protected synchronized double[] getDataRow(int i) {
+		fold();
+		return new double[] { getTimeOfIndex(i), moments.getMean(i), moments.getStandardDeviation(i), getConfidenceInterval(i, 0.05) };
+	}
+
+	/**
+	 * Returns the minimum of the values sampled at the given time index.
+	 *
+	 * @param i time index.
+	 * @return the minimum of the values sampled at the given time index.
+	 */
+	public synchronized double getMin(int i) {
+		return fold().getMin(i);
+	}
+
+	/**
+	 * Returns the maximum of the values sampled at the given time index.
+	 *
+	 * @param i time index.
+	 * @return the maximum of the values sampled at the given time index.
+	 */
+	public synchronized double getMax(int i) {
+		return fold().getMax(i);
+	}
+
+	private double getConfidenceInterval(int i, double significance) {
+		long n = moments.count[i];
+		if (n == 0) {
+			return Double.NaN;
+		}
+		TDistribution tDist = new TDistribution(n);
+		double a = tDist.inverseCumulativeProbability(1.0 -significance/2);
+		return a*moments.getStandardDeviation(i) / Math.sqrt(n);
+	}
+
+	@Override
+	public synchronized void printTimeSeries(Function<String, String> nameFunction, char separator, double significance) throws FileNotFoundException {
+		fold();
+		String fileName = nameFunction.apply(this.getName());
+		PrintStream out = new PrintStream(fileName);
+		double time = 0.0;
+		for (int i = 0; i < samples; i++) {
+			out.println(""+time + separator
+					+ moments.getMean(i)
+					+ separator + getConfidenceInterval(i, significance));
+			time += dt;
+		}
+		out.close();
+	}
+
+	@Override
+	public MergeableSamplingFunction<S> newPartial() {
+		return new MomentStatisticSampling<>(samples, dt, measure);
+	}
+
+	@Override
+	public void merge(MergeableSamplingFunction<S> partial) {
+		if (!(partial instanceof MomentStatisticSampling)||(((MomentStatisticSampling<S>) partial).getSize() != samples)) {
+			throw new IllegalArgumentException(SibillaMessages.illegalPartialSamplingFunction(this));
+		}
+		Moments other = ((MomentStatisticSampling<S>) partial).getMoments();
+		synchronized (this) {
+			for (int i = 0; i < samples; i++) {
+				moments.merge(i, other);
+			}
+		}
+	}
+
+	private Moments getMoments() {
+		return fold();
+	}
+
+	/**
+	 * Partial moments of the values collected at each time index. Mean and second central moment are
+	 * updated with Welford's algorithm, and partial moments are combined with the formula of Chan et al.
+	 */
+	private static class Moments implements Serializable {
+
+		private static final long serialVersionUID = -3047706226520850614L;
+
+		private final long[] count;
+		private final double[] mean;
+		private final double[] m2;
+		private final double[] min;
+		private final double[] max;
+
+		private Moments(int size) {
+			this.count = new long[size];
+			this.mean = new double[size];
+			this.m2 = new double[size];
+			this.min = new double[size];
+			this.max = new double[size];
+			Arrays.fill(min, Double.NaN);
+			Arrays.fill(max, Double.NaN);
+		}
+
+		private void record(double[] values) {
+			for (int i = 0; i < values.length; i++) {
+				double v = values[i];
+				long n = ++count[i];
+				double delta = v - mean[i];
+				mean[i] += delta / n;
+				m2[i] += delta * (v - mean[i]);
+				if (n == 1 || v < min[i]) {
+					min[i] = v;
+				}
+				if (n == 1 || v > max[i]) {
+					max[i] = v;
+				}
+			}
+		}
+
+		private void merge(int i, Moments other) {
+			long n2 = other.count[i];
+			if (n2 == 0) {
+				return;
+			}
+			long n1 = count[i];
+			if (n1 == 0) {
+				count[i] = n2;
+				mean[i] = other.mean[i];
+				m2[i] = other.m2[i];
+				min[i] = other.min[i];
+				max[i] = other.max[i];
+				return;
+			}
+			long n = n1 + n2;
+			double delta = other.mean[i] - mean[i];
+			mean[i] += delta * n2 / n;
+			m2[i] += other.m2[i] + delta * delta * ((double) n1) * n2 / n;
+			count[i] = n;
+			min[i] = Math.min(min[i], other.min[i]);
+			max[i] = Math.max(max[i], other.max[i]);
+		}
+
+		private double getMean(int i) {
+			return (count[i] == 0 ? Double.NaN : mean[i]);
+		}
+
+		private double getMin(int i) {
+			return min[i];
+		}
+
+		private double getMax(int i) {
+			return max[i];
+		}
+
+		private double getStandardDeviation(int i) {
+			if (count[i] == 0) {
+				return Double.NaN;
+			}
+			if (count[i] == 1) {
+				return 0.0;
+			}
+			return Math.sqrt(m2[i] / (count[i] - 1));
+		}
+
+	}
+
+}
@@ -24,6 +24,7 @@
 package it.unicam.quasylab.sibilla.core.simulator.sampling;
 
 import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
 
 import java.io.FileNotFoundException;
 import java.util.*;
@@ -34,7 +35,7 @@ import java.util.stream.Collectors;
  * @author loreti
  *
  */
-public class SamplingCollection<S extends State> implements SamplingFunction<S> {
+public class SamplingCollection<S extends State> implements MergeableSamplingFunction<S> {
 
 	private final LinkedList<SamplingFunction<S>> functions;
 
@@ -81,4 +82,36 @@ public class SamplingCollection<S extends State> implements SamplingFunction<S>
 	public void add(SamplingFunction<S> f) {
 		functions.add(f);
 	}
+
+	/**
+	 * Returns a new collection where each mergeable function is replaced by an empty partial copy.
+	 * Functions that are not mergeable are shared with this collection.
+	 *
+	 * @return a new collection where each mergeable function is replaced by an empty partial copy.
+	 */
+	@Override
+	public MergeableSamplingFunction<S> newPartial() {
+		return new SamplingCollection<>(this.functions.stream().map(this::newPartial).collect(Collectors.toList()));
+	}
+
+	private SamplingFunction<S> newPartial(SamplingFunction<S> f) {
+		if (f instanceof MergeableSamplingFunction) {
+			return ((MergeableSamplingFunction<S>) f).newPartial();
+		}
+		return f;
+	}
+
+	@Override
+	public void merge(MergeableSamplingFunction<S> partial) {
+		if (!(partial instanceof SamplingCollection)||(((SamplingCollection<S>) partial).size() != size())) {
+			throw new IllegalArgumentException(SibillaMessages.illegalPartialSamplingFunction(this));
+		}
+		Iterator<SamplingFunction<S>> others = ((SamplingCollection<S>) partial).functions.iterator();
+		for (SamplingFunction<S> f: functions) {
+			SamplingFunction<S> other = others.next();
+			if ((f != other)&&(f instanceof MergeableSamplingFunction)) {
+				((MergeableSamplingFunction<S>) f).merge((MergeableSamplingFunction<S>) other);
+			}
+		}
+	}
 }
@@ -53,5 +53,16 @@ public interface SamplingHandler<S> {
      */
     void end(double time);
 
+    /**
+     * Returns true if this handler may keep a reference to the states passed to
+     * {@link SamplingHandler#sample(double, S)} after the method returns. When false is returned, the
+     * handler can receive views of the states that are only valid during the invocation of the method.
+     *
+     * @return true if this handler may keep a reference to the sampled states.
+     */
+    default boolean retainsStates() {
+        return true;
+    }
+
 
 }
@@ -29,7 +29,7 @@ import java.io.FileNotFoundException;
 import java.util.Map;
 import java.util.function.Function;
 
-public abstract class StatisticSampling<S extends State> implements SamplingFunction<S> {
+public abstract class StatisticSampling<S extends State> implements MergeableSamplingFunction<S> {
     protected final Measure<? super S> measure;
     protected final double dt;
 
@@ -133,6 +133,11 @@ public abstract class StatisticSampling<S extends State> implements SamplingFunc
                     throw new IllegalStateException();//TODO: Add message here!
                 }
             }
+
+            @Override
+            public boolean retainsStates() {
+                return false;
+            }
     }
 
 }
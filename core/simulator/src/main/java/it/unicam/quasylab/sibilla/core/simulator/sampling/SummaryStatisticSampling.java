@@ -25,12 +25,14 @@ package it.unicam.quasylab.sibilla.core.simulator.sampling;
 
 import it.unicam.quasylab.sibilla.core.models.MeasureFunction;
 import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
 import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummaryValues;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
-import java.util.LinkedList;
 import java.util.function.Function;
 
 
@@ -42,6 +44,8 @@ public class SummaryStatisticSampling<S extends State> extends StatisticSampling
 
 	private final SummaryStatistics[] data;
 
+	private final StatisticalSummary[] merged;
+
 	public static <S extends State> StatisticSampling<S> measure(String name, int samplings, double deadline, MeasureFunction<S> m) {
 		return new SummaryStatisticSampling<>(samplings, deadline / samplings,
 				new Measure<>() {
@@ -65,6 +69,7 @@ public class SummaryStatisticSampling<S extends State> extends StatisticSampling
 	public SummaryStatisticSampling(int samples, double dt, Measure<? super S> measure) {
 		super(measure, dt);
 		this.data = new SummaryStatistics[samples];
+		this.merged = new StatisticalSummary[samples];
 		init();
 	}
 
@@ -95,7 +100,7 @@ public class SummaryStatisticSampling<S extends State> extends StatisticSampling
 		for (int i = 0; i < this.data.length; i++) {
 			double ci = getConfidenceInterval(i,significance);
 			out.println(""+time + separator 
-					+ this.data[i].getMean() 
+					+ getStatistics(i).getMean()
 					+ separator + ci);
 			time += dt;
 		}
@@ -104,9 +109,61 @@ public class SummaryStatisticSampling<S extends State> extends StatisticSampling
 	
 	
 	private double getConfidenceInterval(int i, double significance) {
-		TDistribution tDist = new TDistribution(this.data[i].getN());
+		return getConfidenceInterval(getStatistics(i), significance);
+	}
+
+	private double getConfidenceInterval(StatisticalSummary statistics, double significance) {
+		TDistribution tDist = new TDistribution(statistics.getN());
 		double a = tDist.inverseCumulativeProbability(1.0 -significance/2);
-		return a*this.data[i].getStandardDeviation() / Math.sqrt(this.data[i].getN());
+		return a*statistics.getStandardDeviation() / Math.sqrt(statistics.getN());
+	}
+
+	/**
+	 * Returns the statistics collected at the given time index, combined with the ones collected by the
+	 * merged partial functions.
+	 *
+	 * @param i time index.
+	 * @return the statistics collected at the given time index.
+	 */
+	private synchronized StatisticalSummary getStatistics(int i) {
+		return combine(data[i], merged[i]);
+	}
+
+	/**
+	 * Combines two summaries by using the pairwise update of Chan et al. for mean and variance. A
+	 * <code>null</code> or empty summary is ignored.
+	 */
+	private static StatisticalSummary combine(StatisticalSummary s1, StatisticalSummary s2) {
+		if ((s2 == null)||(s2.getN() == 0)) {
+			return s1;
+		}
+		if ((s1 == null)||(s1.getN() == 0)) {
+			return s2;
+		}
+		long n1 = s1.getN();
+		long n2 = s2.getN();
+		long n = n1 + n2;
+		double delta = s2.getMean() - s1.getMean();
+		double mean = s1.getMean() + delta * n2 / n;
+		double m2 = s1.getVariance() * (n1 - 1) + s2.getVariance() * (n2 - 1) + delta * delta * ((double) n1) * n2 / n;
+		return new StatisticalSummaryValues(mean, m2 / (n - 1), n,
+				Math.max(s1.getMax(), s2.getMax()), Math.min(s1.getMin(), s2.getMin()), s1.getSum() + s2.getSum());
+	}
+
+	@Override
+	public MergeableSamplingFunction<S> newPartial() {
+		return new SummaryStatisticSampling<>(data.length, dt, measure);
+	}
+
+	@Override
+	public synchronized void merge(MergeableSamplingFunction<S> partial) {
+		if (!(partial instanceof SummaryStatisticSampling)||(((SummaryStatisticSampling<S>) partial).getSize() != data.length)) {
+			throw new IllegalArgumentException(SibillaMessages.illegalPartialSamplingFunction(this));
+		}
+		SummaryStatisticSampling<S> other = (SummaryStatisticSampling<S>) partial;
+		for (int i = 0; i < data.length; i++) {
+			merged[i] = combine(merged[i], other.getStatistics(i));
+		}
 	}
 
 	@Override
@@ -116,7 +173,8 @@ public class SummaryStatisticSampling<S extends State> extends StatisticSampling
 
 	@Override
 	protected double[] getDataRow(int i) {
-		return new double[] { getTimeOfIndex(i), data[i].getMean(), data[i].getStandardDeviation(), getConfidenceInterval(i, 0.05)};
+		StatisticalSummary statistics = getStatistics(i);
+		return new double[] { getTimeOfIndex(i), statistics.getMean(), statistics.getStandardDeviation(), getConfidenceInterval(statistics, 0.05)};
 	}
 
 }
\ No newline at end of file
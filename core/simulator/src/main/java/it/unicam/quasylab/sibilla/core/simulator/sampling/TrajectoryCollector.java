@@ -33,8 +33,20 @@ public class TrajectoryCollector<S> implements Supplier<SamplingHandler<S>> {
 
     private final LinkedList<Trajectory<S>> trajectories;
 
+    private final Supplier<Trajectory<S>> trajectoryBuilder;
+
     public TrajectoryCollector() {
+        this(Trajectory::new);
+    }
+
+    /**
+     * Creates a new collector that stores each sampled trajectory in an object created by the given supplier.
+     *
+     * @param trajectoryBuilder the supplier used to create empty trajectories.
+     */
+    public TrajectoryCollector(Supplier<Trajectory<S>> trajectoryBuilder) {
         this.trajectories = new LinkedList<>();
+        this.trajectoryBuilder = trajectoryBuilder;
     }
 
     private synchronized void recordTrajectory(Trajectory<S> trajectory) {
@@ -53,14 +65,16 @@ public class TrajectoryCollector<S> implements Supplier<SamplingHandler<S>> {
     public SamplingHandler<S> get() {
         return new SamplingHandler<S>() {
 
-            private Trajectory<S> trajectory = null;
+            private final Trajectory<S> trajectory = trajectoryBuilder.get();
+
+            private boolean started = false;
 
             @Override
             public void start() {
-                if (trajectory != null) {
+                if (started) {
                     throw new IllegalStateException();//TODO: Add MEssage!
                 }
-                this.trajectory = new Trajectory<>();
+                this.started = true;
             }
 
             @Override
@@ -72,6 +86,11 @@ public class TrajectoryCollector<S> implements Supplier<SamplingHandler<S>> {
             public void end(double time) {
                 recordTrajectory(this.trajectory);
             }
+
+            @Override
+            public boolean retainsStates() {
+                return trajectory.retainsStates();
+            }
         };
     }
 }
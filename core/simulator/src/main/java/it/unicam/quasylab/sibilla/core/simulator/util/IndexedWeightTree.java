@@ -0,0 +1,140 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator.util;
+
+import it.unicam.quasylab.sibilla.core.util.SibillaMessages;
+
+import java.util.Arrays;
+
+/**
+ * A complete binary tree storing a fixed number of non-negative weights, each identified by an index. The tree
+ * keeps in each internal node the sum of the weights in its sub-tree. This allows updating a single weight and
+ * selecting an index with probability proportional to its weight in logarithmic time. Since each internal node
+ * is recomputed from its children, rounding errors do not accumulate along a simulation run.
+ */
+public class IndexedWeightTree {
+
+    private final int size;
+    private final int leaves;
+    private final double[] tree;
+
+    /**
+     * Creates a new tree with the given number of weights, all initialised to 0.
+     *
+     * @param size number of weights in the tree.
+     */
+    public IndexedWeightTree(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException(SibillaMessages.aPositiveValueIsExpected(size));
+        }
+        this.size = size;
+        int leaves = 1;
+        while (leaves < size) {
+            leaves = leaves << 1;
+        }
+        this.leaves = leaves;
+        this.tree = new double[2 * leaves];
+    }
+
+    /**
+     * Returns the number of weights stored in this tree.
+     *
+     * @return the number of weights stored in this tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the weight associated with the given index.
+     *
+     * @param i an index.
+     * @return the weight associated with the given index.
+     */
+    public double get(int i) {
+        return tree[leaves + i];
+    }
+
+    /**
+     * Sets the weight associated with the given index. Negative or not finite values are considered as 0.
+     *
+     * @param i an index.
+     * @param w the new weight.
+     */
+    public void set(int i, double w) {
+        if ((i < 0) || (i >= size)) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        int node = leaves + i;
+        tree[node] = ((w > 0) && Double.isFinite(w) ? w : 0.0);
+        node = node >> 1;
+        while (node > 0) {
+            tree[node] = tree[2 * node] + tree[2 * node + 1];
+            node = node >> 1;
+        }
+    }
+
+    /**
+     * Returns the sum of all the weights in the tree.
+     *
+     * @return the sum of all the weights in the tree.
+     */
+    public double getTotalWeight() {
+        return tree[1];
+    }
+
+    /**
+     * Returns the index selected by the given value. This is the smallest index <code>i</code> with a positive
+     * weight such that the sum of the weights up to <code>i</code> is greater than <code>w</code>. The value
+     * -1 is returned when all the weights are 0.
+     *
+     * @param w a value in the interval <code>[0, getTotalWeight())</code>.
+     * @return the index selected by the given value.
+     */
+    public int select(double w) {
+        if (tree[1] <= 0) {
+            return -1;
+        }
+        int node = 1;
+        while (node < leaves) {
+            int left = 2 * node;
+            if (((w < tree[left]) && (tree[left] > 0)) || (tree[left + 1] <= 0)) {
+                node = left;
+            } else {
+                w = w - tree[left];
+                node = left + 1;
+            }
+        }
+        return node - leaves;
+    }
+
+    /**
+     * Sets all the weights to 0.
+     */
+    public void clear() {
+        Arrays.fill(tree, 0.0);
+    }
+
+}
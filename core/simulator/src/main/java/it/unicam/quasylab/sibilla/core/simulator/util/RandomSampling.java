@@ -0,0 +1,225 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator.util;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.special.Gamma;
+
+/**
+ * Utility methods used to sample discrete random variables with a given {@link RandomGenerator}.
+ */
+public final class RandomSampling {
+
+    private static final double POISSON_REJECTION_THRESHOLD = 10.0;
+
+    private static final double BINOMIAL_REJECTION_THRESHOLD = 10.0;
+
+    private RandomSampling() {
+    }
+
+    /**
+     * Samples a value from a Poisson distribution with the given mean. For small means values are obtained by
+     * multiplying uniform variates, while for large means the transformed rejection method with squeeze (PTRS)
+     * by Hörmann is used. In both cases the number of random values used does not depend on the mean.
+     *
+     * @param mean the mean of the distribution.
+     * @param r random generator.
+     * @return a value sampled from a Poisson distribution with the given mean.
+     */
+    public static long samplePoisson(double mean, RandomGenerator r) {
+        if ((mean < 0) || Double.isNaN(mean)) {
+            throw new IllegalArgumentException(String.format("The mean of a Poisson distribution must be a non negative value (%g is used).", mean));
+        }
+        if (mean == 0.0) {
+            return 0;
+        }
+        if (mean < POISSON_REJECTION_THRESHOLD) {
+            return samplePoissonByMultiplication(mean, r);
+        }
+        return samplePoissonByRejection(mean, r);
+    }
+
+    private static long samplePoissonByMultiplication(double mean, RandomGenerator r) {
+        double limit = Math.exp(-mean);
+        double product = r.nextDouble();
+        long k = 0;
+        while (product > limit) {
+            k++;
+            product *= r.nextDouble();
+        }
+        return k;
+    }
+
+    private static long samplePoissonByRejection(double mean, RandomGenerator r) {
+        double logMean = Math.log(mean);
+        double b = 0.931 + 2.53 * Math.sqrt(mean);
+        double a = -0.059 + 0.02483 * b;
+        double logInvAlpha = Math.log(1.1239 + 1.1328 / (b - 3.4));
+        double vr = 0.9277 - 3.6224 / (b - 2);
+        while (true) {
+            double u = r.nextDouble() - 0.5;
+            double v = r.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            long k = (long) Math.floor((2 * a / us + b) * u + mean + 0.43);
+            if ((us >= 0.07) && (v <= vr)) {
+                return k;
+            }
+            if ((k < 0) || ((us < 0.013) && (v > us))) {
+                continue;
+            }
+            if (Math.log(v) + logInvAlpha - Math.log(a / (us * us) + b) <= -mean + k * logMean - Gamma.logGamma(k + 1)) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * Samples a value from a binomial distribution with <code>n</code> trials and success probability
+     * <code>p</code>. When <code>n*min(p,1-p)</code> is small the value is obtained by inversion, otherwise the
+     * transformed rejection method with squeeze (BTRS) by Hörmann is used. In both cases the expected number of
+     * random values used does not depend on <code>n</code>.
+     *
+     * @param n number of trials.
+     * @param p success probability.
+     * @param r random generator.
+     * @return a value sampled from a binomial distribution with <code>n</code> trials and success probability
+     * <code>p</code>.
+     */
+    public static int sampleBinomial(int n, double p, RandomGenerator r) {
+        if ((n < 0) || (p < 0.0) || (p > 1.0) || Double.isNaN(p)) {
+            throw new IllegalArgumentException(String.format("Illegal binomial distribution (trials: %d, success probability: %g).", n, p));
+        }
+        if ((n == 0) || (p == 0.0)) {
+            return 0;
+        }
+        if (p == 1.0) {
+            return n;
+        }
+        if (p > 0.5) {
+            return n - sampleBinomial(n, 1.0 - p, r);
+        }
+        if (n * p < BINOMIAL_REJECTION_THRESHOLD) {
+            return sampleBinomialByInversion(n, p, r);
+        }
+        return sampleBinomialByRejection(n, p, r);
+    }
+
+    private static int sampleBinomialByInversion(int n, double p, RandomGenerator r) {
+        double q = 1.0 - p;
+        double s = p / q;
+        double a = (n + 1) * s;
+        double first = Math.pow(q, n);
+        while (true) {
+            double u = r.nextDouble();
+            double prob = first;
+            int k = 0;
+            while (u > prob) {
+                u -= prob;
+                k++;
+                if (k > n) {
+                    break;
+                }
+                prob *= a / k - s;
+            }
+            if (k <= n) {
+                return k;
+            }
+        }
+    }
+
+    private static int sampleBinomialByRejection(int n, double p, RandomGenerator r) {
+        double q = 1.0 - p;
+        double spq = Math.sqrt(n * p * q);
+        double b = 1.15 + 2.53 * spq;
+        double a = -0.0873 + 0.0248 * b + 0.01 * p;
+        double c = n * p + 0.5;
+        double vr = 0.92 - 4.2 / b;
+        double alpha = (2.83 + 5.1 / b) * spq;
+        double lpq = Math.log(p / q);
+        int m = (int) Math.floor((n + 1) * p);
+        double h = Gamma.logGamma(m + 1) + Gamma.logGamma(n - m + 1);
+        while (true) {
+            double u = r.nextDouble() - 0.5;
+            double v = r.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            int k = (int) Math.floor((2 * a / us + b) * u + c);
+            if ((k < 0) || (k > n)) {
+                continue;
+            }
+            if ((us >= 0.07) && (v <= vr)) {
+                return k;
+            }
+            if (Math.log(v * alpha / (a / (us * us) + b)) <= h - Gamma.logGamma(k + 1) - Gamma.logGamma(n - k + 1) + (k - m) * lpq) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * Samples how <code>n</code> trials are distributed among categories selected with the given probabilities.
+     * The sample is obtained as a sequence of conditional binomial samples, one for each category, hence
+     * its cost depends on the number of categories and not on <code>n</code>. Probabilities are normalised with
+     * respect to their sum. When <code>n</code> is positive at least one of the probabilities must be positive,
+     * otherwise the trials could not be assigned to any category.
+     *
+     * @param n number of trials.
+     * @param probabilities probability of each category.
+     * @param r random generator.
+     * @return the number of trials assigned to each category.
+     */
+    public static int[] sampleMultinomial(int n, double[] probabilities, RandomGenerator r) {
+        int[] result = new int[probabilities.length];
+        double residual = 0.0;
+        int last = -1;
+        for (int i = 0; i < probabilities.length; i++) {
+            if (probabilities[i] < 0.0) {
+                throw new IllegalArgumentException(String.format("Probabilities must be non negative values (%g is used for category %d).", probabilities[i], i));
+            }
+            if (probabilities[i] > 0.0) {
+                residual += probabilities[i];
+                last = i;
+            }
+        }
+        if ((n > 0) && (last < 0)) {
+            throw new IllegalArgumentException(String.format("No category can be selected to distribute %d trials: all the probabilities are 0.", n));
+        }
+        int remaining = n;
+        for (int i = 0; (i < probabilities.length) && (remaining > 0); i++) {
+            if (probabilities[i] == 0.0) {
+                continue;
+            }
+            if ((i == last) || (probabilities[i] >= residual)) {
+                result[i] = remaining;
+                remaining = 0;
+            } else {
+                result[i] = sampleBinomial(remaining, probabilities[i] / residual, r);
+                remaining -= result[i];
+                residual -= probabilities[i];
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * A probability matrix whose rows are generated on demand and stored, once for all, in primitive
+ * arrays. States are interned to integer ids the first time they are met so that probability
+ * distributions can be represented via {@link IndexedProbabilityVector}. When a vector is multiplied
+ * by this matrix, the rows that are not yet available are computed in parallel, while the resulting
+ * distribution is accumulated sequentially in a dense array so that the result does not depend on
+ * thread scheduling.
+ *
+ * The supplier of rows may be invoked concurrently and must be thread safe. Apart from that, instances
+ * of this class are not meant to be shared among threads.
+ *
+ * @param <S> type of elements indexing rows and columns of the matrix.
+ */
+public class IndexedProbabilityMatrix<S> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Function<S, ProbabilityVector<S>> rowsSupplier;
+    private final Map<S, Integer> index = new ConcurrentHashMap<>();
+    private final List<S> states = new ArrayList<>();
+    private int[][] rowColumns = new int[INITIAL_CAPACITY][];
+    private double[][] rowValues = new double[INITIAL_CAPACITY][];
+    private double[] accumulator = new double[INITIAL_CAPACITY];
+
+    /**
+     * Creates a probability matrix whose elements are generated by the given supplier.
+     *
+     * @param rowsSupplier supplier used to generate rows of the matrix.
+     */
+    public IndexedProbabilityMatrix(Function<S, ProbabilityVector<S>> rowsSupplier) {
+        this.rowsSupplier = rowsSupplier;
+    }
+
+    /**
+     * Returns the id associated with the given state. A new id is assigned to the state if it has not
+     * been met before.
+     *
+     * @param s a state.
+     * @return the id associated with the given state.
+     */
+    public int indexOf(S s) {
+        Integer id = index.get(s);
+        if (id != null) {
+            return id;
+        }
+        synchronized (states) {
+            id = index.get(s);
+            if (id == null) {
+                id = states.size();
+                states.add(s);
+                index.put(s, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the state with the given id.
+     *
+     * @param id a state id.
+     * @return the state with the given id.
+     */
+    public S getState(int id) {
+        synchronized (states) {
+            return states.get(id);
+        }
+    }
+
+    /**
+     * Returns the number of states interned in this matrix.
+     *
+     * @return the number of states interned in this matrix.
+     */
+    public int numberOfStates() {
+        synchronized (states) {
+            return states.size();
+        }
+    }
+
+    /**
+     * Returns the vector associating probability 1.0 with the given state.
+     *
+     * @param s a state.
+     * @return the vector associating probability 1.0 with the given state.
+     */
+    public IndexedProbabilityVector dirac(S s) {
+        return IndexedProbabilityVector.dirac(indexOf(s));
+    }
+
+    /**
+     * Returns the indexed representation of the given probability vector.
+     *
+     * @param vector a probability vector.
+     * @return the indexed representation of the given probability vector.
+     */
+    public IndexedProbabilityVector of(ProbabilityVector<S> vector) {
+        int[] ids = new int[vector.size()];
+        double[] probabilities = new double[vector.size()];
+        int[] counter = new int[1];
+        vector.iterate((s, p) -> {
+            ids[counter[0]] = indexOf(s);
+            probabilities[counter[0]++] = p;
+        });
+        return new IndexedProbabilityVector(ids, probabilities);
+    }
+
+    /**
+     * Returns the probability vector associating each state with the probability that the given indexed
+     * vector associates with its id.
+     *
+     * @param vector an indexed probability vector.
+     * @return the probability vector associating each state with the probability that the given indexed
+     * vector associates with its id.
+     */
+    public ProbabilityVector<S> toProbabilityVector(IndexedProbabilityVector vector) {
+        ProbabilityVector<S> result = new ProbabilityVector<>();
+        for (int k = 0; k < vector.size(); k++) {
+            result.add(getState(vector.idAt(k)), Math.min(1.0 - result.getSum(), vector.probabilityAt(k)));
+        }
+        return result;
+    }
+
+    /**
+     * Computes the probability distribution obtained after one step from the given vector.
+     *
+     * @param vector current probability distribution.
+     * @return the probability distribution obtained after one step from the given vector.
+     */
+    public IndexedProbabilityVector multiply(IndexedProbabilityVector vector) {
+        computeRows(vector);
+        ensureAccumulatorCapacity(numberOfStates());
+        int[] touched = new int[Math.max(16, vector.size())];
+        int counter = 0;
+        for (int k = 0; k < vector.size(); k++) {
+            int from = vector.idAt(k);
+            double p = vector.probabilityAt(k);
+            int[] columns = rowColumns[from];
+            double[] values = rowValues[from];
+            for (int j = 0; j < columns.length; j++) {
+                int to = columns[j];
+                if (accumulator[to] == 0.0) {
+                    if (counter == touched.length) {
+                        touched = Arrays.copyOf(touched, 2 * counter);
+                    }
+                    touched[counter++] = to;
+                }
+                accumulator[to] += p * values[j];
+            }
+        }
+        int[] ids = Arrays.copyOf(touched, counter);
+        double[] probabilities = new double[counter];
+        for (int k = 0; k < counter; k++) {
+            probabilities[k] = accumulator[ids[k]];
+            accumulator[ids[k]] = 0.0;
+        }
+        return new IndexedProbabilityVector(ids, probabilities);
+    }
+
+    /**
+     * Computes the probability distribution obtained after <code>k</code> steps from the given vector.
+     *
+     * @param vector current probability distribution.
+     * @param k number of steps.
+     * @return the probability distribution obtained after <code>k</code> steps from the given vector.
+     */
+    public IndexedProbabilityVector multiply(IndexedProbabilityVector vector, int k) {
+        IndexedProbabilityVector result = vector;
+        for (int i = 0; i < k; i++) {
+            result = multiply(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the probability of the states in the given vector that satisfy the given predicate.
+     *
+     * @param vector a probability vector.
+     * @param pred a predicate on states.
+     * @return the probability of the states in the given vector that satisfy the given predicate.
+     */
+    public double get(IndexedProbabilityVector vector, Predicate<S> pred) {
+        return vector.get(id -> pred.test(getState(id)));
+    }
+
+    /**
+     * Returns the vector containing only the states in the given vector that satisfy the given predicate.
+     *
+     * @param vector a probability vector.
+     * @param pred a predicate on states.
+     * @return the vector containing only the states in the given vector that satisfy the given predicate.
+     */
+    public IndexedProbabilityVector filter(IndexedProbabilityVector vector, Predicate<S> pred) {
+        return vector.filter(id -> pred.test(getState(id)));
+    }
+
+    /**
+     * Returns the expected value of the given function with respect to the given vector.
+     *
+     * @param vector a probability vector.
+     * @param function a function on states.
+     * @return the expected value of the given function with respect to the given vector.
+     */
+    public double compute(IndexedProbabilityVector vector, ToDoubleFunction<S> function) {
+        return vector.compute(id -> function.applyAsDouble(getState(id)));
+    }
+
+    private void computeRows(IndexedProbabilityVector vector) {
+        int[] missing = IntStream.range(0, vector.size())
+                .map(vector::idAt)
+                .filter(id -> (id >= rowColumns.length) || (rowColumns[id] == null))
+                .toArray();
+        if (missing.length == 0) {
+            return;
+        }
+        ensureRowsCapacity(numberOfStates());
+        IntStream.of(missing).parallel().forEach(this::computeRow);
+    }
+
+    private void computeRow(int id) {
+        ProbabilityVector<S> row = rowsSupplier.apply(getState(id));
+        int[] columns = new int[row.size()];
+        double[] values = new double[row.size()];
+        int[] counter = new int[1];
+        row.iterate((s, p) -> {
+            if (p > 0.0) {
+                columns[counter[0]] = indexOf(s);
+                values[counter[0]++] = p;
+            }
+        });
+        rowColumns[id] = Arrays.copyOf(columns, counter[0]);
+        rowValues[id] = Arrays.copyOf(values, counter[0]);
+    }
+
+    private void ensureRowsCapacity(int size) {
+        if (size > rowColumns.length) {
+            int capacity = Math.max(size, 2 * rowColumns.length);
+            rowColumns = Arrays.copyOf(rowColumns, capacity);
+            rowValues = Arrays.copyOf(rowValues, capacity);
+        }
+    }
+
+    private void ensureAccumulatorCapacity(int size) {
+        if (size > accumulator.length) {
+            accumulator = Arrays.copyOf(accumulator, Math.max(size, 2 * accumulator.length));
+        }
+    }
+
+}
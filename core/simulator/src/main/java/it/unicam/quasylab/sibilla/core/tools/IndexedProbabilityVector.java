@@ -0,0 +1,195 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.tools;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * A sparse (sub) probability vector whose elements are identified by integer ids. Ids are assigned
+ * by an {@link IndexedProbabilityMatrix} that interns the states of a model, while probabilities are
+ * stored in a primitive array. Instances of this class are immutable.
+ */
+public final class IndexedProbabilityVector {
+
+    private static final IndexedProbabilityVector EMPTY = new IndexedProbabilityVector(new int[0], new double[0]);
+
+    private final int[] ids;
+    private final double[] probabilities;
+
+    /**
+     * Creates the vector associating probability <code>probabilities[i]</code> with the element
+     * having id <code>ids[i]</code>. Ids are assumed to be distinct.
+     *
+     * @param ids element ids.
+     * @param probabilities element probabilities.
+     */
+    IndexedProbabilityVector(int[] ids, double[] probabilities) {
+        this.ids = ids;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * Returns the empty vector.
+     *
+     * @return the empty vector.
+     */
+    public static IndexedProbabilityVector empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the vector associating probability 1.0 with the element with the given id.
+     *
+     * @param id an element id.
+     * @return the vector associating probability 1.0 with the element with the given id.
+     */
+    public static IndexedProbabilityVector dirac(int id) {
+        return new IndexedProbabilityVector(new int[] { id }, new double[] { 1.0 });
+    }
+
+    /**
+     * Returns the number of elements having a non-zero probability in this vector.
+     *
+     * @return the number of elements having a non-zero probability in this vector.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the id of the <code>k</code>-th entry of this vector.
+     *
+     * @param k entry position.
+     * @return the id of the <code>k</code>-th entry of this vector.
+     */
+    public int idAt(int k) {
+        return ids[k];
+    }
+
+    /**
+     * Returns the probability of the <code>k</code>-th entry of this vector.
+     *
+     * @param k entry position.
+     * @return the probability of the <code>k</code>-th entry of this vector.
+     */
+    public double probabilityAt(int k) {
+        return probabilities[k];
+    }
+
+    /**
+     * Returns the probability associated with the element with the given id.
+     *
+     * @param id an element id.
+     * @return the probability associated with the element with the given id.
+     */
+    public double getProbability(int id) {
+        for (int k = 0; k < ids.length; k++) {
+            if (ids[k] == id) {
+                return probabilities[k];
+            }
+        }
+        return 0.0;
+    }
+
+    /**
+     * Returns the total probability mass of this vector.
+     *
+     * @return the total probability mass of this vector.
+     */
+    public double sum() {
+        double sum = 0.0;
+        for (double p : probabilities) {
+            sum += p;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the probability of the elements whose id satisfies the given predicate.
+     *
+     * @param pred a predicate on ids.
+     * @return the probability of the elements whose id satisfies the given predicate.
+     */
+    public double get(IntPredicate pred) {
+        double sum = 0.0;
+        for (int k = 0; k < ids.length; k++) {
+            if (pred.test(ids[k])) {
+                sum += probabilities[k];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the expected value of the given function with respect to this vector.
+     *
+     * @param function a function on ids.
+     * @return the expected value of the given function with respect to this vector.
+     */
+    public double compute(IntToDoubleFunction function) {
+        double sum = 0.0;
+        for (int k = 0; k < ids.length; k++) {
+            sum += function.applyAsDouble(ids[k]) * probabilities[k];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the vector containing only the elements whose id satisfies the given predicate.
+     *
+     * @param pred a predicate on ids.
+     * @return the vector containing only the elements whose id satisfies the given predicate.
+     */
+    public IndexedProbabilityVector filter(IntPredicate pred) {
+        int[] newIds = new int[ids.length];
+        double[] newProbabilities = new double[ids.length];
+        int counter = 0;
+        for (int k = 0; k < ids.length; k++) {
+            if (pred.test(ids[k])) {
+                newIds[counter] = ids[k];
+                newProbabilities[counter] = probabilities[k];
+                counter++;
+            }
+        }
+        if (counter == ids.length) {
+            return this;
+        }
+        return new IndexedProbabilityVector(Arrays.copyOf(newIds, counter), Arrays.copyOf(newProbabilities, counter));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int k = 0; k < ids.length; k++) {
+            if (k > 0) {
+                builder.append(", ");
+            }
+            builder.append(ids[k]).append('=').append(probabilities[k]);
+        }
+        return builder.append("}").toString();
+    }
+}
@@ -25,13 +25,14 @@ package it.unicam.quasylab.sibilla.core.tools;
 
 import org.apache.commons.math3.random.RandomGenerator;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 /**
- * This class represents a probability matrix.
+ * This class represents a probability matrix. Rows are generated on demand and stored in a concurrent map,
+ * hence a matrix can be shared among threads provided that the supplier of rows is thread safe.
  *
  * @param <S> type of elements indexing rows and columns of the matrix.
  */
@@ -48,7 +49,7 @@ public class ProbabilityMatrix<S> {
      */
     public ProbabilityMatrix(Function<S, ProbabilityVector<S>> rowsSupplier) {
         this.rowsSupplier = rowsSupplier;
-        this.rows = new HashMap<>();
+        this.rows = new ConcurrentHashMap<>();
     }
 
     /**
@@ -70,13 +71,15 @@ public class ProbabilityMatrix<S> {
      * @return the probability vector associated with the given state.
      */
     public ProbabilityVector<S> getRowOf(S s) {
-        if (this.rows.containsKey(s)) {
-            return this.rows.get(s);
-        } else {
-            ProbabilityVector<S> row = rowsSupplier.apply(s);
-            this.rows.put(s, row);
-            return row;
+        ProbabilityVector<S> row = this.rows.get(s);
+        if (row == null) {
+            row = rowsSupplier.apply(s);
+            ProbabilityVector<S> previous = this.rows.putIfAbsent(s, row);
+            if (previous != null) {
+                row = previous;
+            }
         }
+        return row;
     }
 
 
@@ -173,6 +173,15 @@ public class ProbabilityVector<S> {
         return this.elements.size();
     }
 
+    /**
+     * Returns the total probability mass of this vector.
+     *
+     * @return the total probability mass of this vector.
+     */
+    public synchronized double getSum() {
+        return sum;
+    }
+
     public synchronized S sample(RandomGenerator randomGenerator, S s) {
         double d = randomGenerator.nextDouble();
         if (d<sum) {
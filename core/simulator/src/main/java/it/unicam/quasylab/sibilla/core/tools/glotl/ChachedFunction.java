@@ -23,8 +23,8 @@
 
 package it.unicam.quasylab.sibilla.core.tools.glotl;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 public class ChachedFunction<T,R> implements Function<T, R> {
@@ -35,14 +35,21 @@ public class ChachedFunction<T,R> implements Function<T, R> {
 
     public ChachedFunction(Function<T, R> function) {
         this.function = function;
-        this.cache = new HashMap<>();
+        this.cache = new ConcurrentHashMap<>();
     }
 
 
     @Override
     public R apply(T t) {
-        //System.out.println(cache.size());
-        return cache.computeIfAbsent(t, function);
+        R result = cache.get(t);
+        if (result == null) {
+            result = function.apply(t);
+            R previous = cache.putIfAbsent(t, result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+        return result;
     }
 
     public int size() {
@@ -23,6 +23,8 @@
 
 package it.unicam.quasylab.sibilla.core.tools.glotl;
 
+import it.unicam.quasylab.sibilla.core.tools.IndexedProbabilityMatrix;
+import it.unicam.quasylab.sibilla.core.tools.IndexedProbabilityVector;
 import it.unicam.quasylab.sibilla.core.tools.ProbabilityVector;
 import it.unicam.quasylab.sibilla.core.models.IndexedState;
 import it.unicam.quasylab.sibilla.core.tools.glotl.global.GlobalFormula;
@@ -33,25 +35,45 @@ public class GLoTLDiscreteTimeModelChecker {
 
     public <T,S extends IndexedState<T>> double computeProbability(Function<S, ProbabilityVector<S>> stepFunction, S state,
                                                                    GlobalFormula<T, S> formula, double eps) {
+        return computeProbabilityBounds(stepFunction, state, formula, eps)[0];
+    }
+
+    /**
+     * Returns the lower and the upper bound of the probability that the given formula is satisfied from the given state.
+     * The lower bound is the probability of the paths accepting the formula, while the upper bound is 1 minus
+     * the probability of the paths rejecting it. The difference between the two bounds accounts for the pending probability,
+     * that is at most <code>eps</code>, and for the probability mass discarded by a step function returning
+     * sub-probability vectors, as when successor distributions are truncated.
+     *
+     * @param stepFunction function computing the successor distribution of a state.
+     * @param state initial state.
+     * @param formula formula to check.
+     * @param eps bound on the pending probability.
+     * @return an array containing the lower and the upper bound of the probability that the given formula is
+     * satisfied from the given state.
+     */
+    public <T,S extends IndexedState<T>> double[] computeProbabilityBounds(Function<S, ProbabilityVector<S>> stepFunction, S state,
+                                                                           GlobalFormula<T, S> formula, double eps) {
         if (formula.isAccepting()) {
-            return 1.0;
+            return new double[] { 1.0, 1.0 };
         }
         if (formula.isRejecting()) {
-            return 0.0;
+            return new double[] { 0.0, 0.0 };
         }
         double residual = 1.0;
         double satProb = 0.0;
         double unsatProb = 0.0;
         ChachedFunction<S, ProbabilityVector<S>> cachedFunction = new ChachedFunction<>(stepFunction);
-        ProbabilityVector<ModelCheckingState<T,S>> current = ProbabilityVector.dirac(new ComposedElement<>(state, formula));
+        IndexedProbabilityMatrix<ModelCheckingState<T,S>> matrix = new IndexedProbabilityMatrix<>(ms -> ms.next(cachedFunction));
+        IndexedProbabilityVector current = matrix.dirac(new ComposedElement<>(state, formula));
         do {
-            current = current.apply(ms -> ms.next(cachedFunction));
-            satProb += current.get(ModelCheckingState::isAccepting);
-            unsatProb += current.get(ModelCheckingState::isRejecting);
-            current = current.filter(ModelCheckingState::isPending);
-            residual = 1 - (satProb+unsatProb);
-        } while (residual > eps);
-        return satProb;
+            current = matrix.multiply(current);
+            satProb += matrix.get(current, ModelCheckingState::isAccepting);
+            unsatProb += matrix.get(current, ModelCheckingState::isRejecting);
+            current = matrix.filter(current, ModelCheckingState::isPending);
+            residual = current.sum();
+        } while ((residual > eps)&&(current.size() > 0));
+        return new double[] { satProb, Math.max(satProb, 1 - unsatProb) };
     }
 
 
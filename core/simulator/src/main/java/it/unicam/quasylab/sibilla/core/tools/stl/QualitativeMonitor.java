@@ -91,6 +91,27 @@ public interface QualitativeMonitor<S> {
         return Arrays.stream(counter).mapToDouble(j -> j / ((double) runs)).toArray();
     }
 
+    /**
+     * Calculate the probability of a given qualitative monitor being satisfied over time using
+     * pre-generated trajectories.
+     *
+     * @param monitor The qualitative monitor to be evaluated.
+     * @param trajectories pre-generated trajectories for evaluation.
+     * @param timeStep An array of time steps at which the probabilities are calculated.
+     * @return An array of probabilities for the monitor satisfaction at different time steps.
+     */
+    static <S> double[] computeProbability(QualitativeMonitor<S> monitor, Iterable<Trajectory<S>> trajectories, double[] timeStep) {
+        int[] counter = new int[timeStep.length];
+        int runs = 0;
+        for (Trajectory<S> trajectory : trajectories) {
+            boolean[] evaluations = monitor.monitor(trajectory).getValuesAt(timeStep);
+            IntStream.range(0, counter.length).filter(j -> evaluations[j]).forEach(j -> counter[j]++);
+            runs++;
+        }
+        double total = runs;
+        return Arrays.stream(counter).mapToDouble(j -> j / total).toArray();
+    }
+
 
     /**
      * Calculate the probability of a given qualitative monitor being satisfied over time using
@@ -28,7 +28,6 @@ import it.unicam.quasylab.sibilla.core.util.Interval;
 import it.unicam.quasylab.sibilla.core.util.Signal;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
 import java.util.stream.IntStream;
@@ -75,17 +74,20 @@ public interface QuantitativeMonitor<S> {
      * pre-generated trajectories.
      *
      * @param monitor The qualitative monitor to be evaluated.
-     * @param trajectories A list of pre-generated trajectories for evaluation.
+     * @param trajectories pre-generated trajectories for evaluation.
      * @param timeStep An array of time steps at which the probabilities are calculated.
      * @return An array of probabilities for the monitor satisfaction at different time steps.
      */
-    static <S> double[] computeProbability(QuantitativeMonitor<S> monitor, List<Trajectory<S>> trajectories, double[] timeStep) {
+    static <S> double[] computeProbability(QuantitativeMonitor<S> monitor, Iterable<Trajectory<S>> trajectories, double[] timeStep) {
         int[] counter = new int[timeStep.length];
+        int runs = 0;
         for (Trajectory<S> trajectory : trajectories) {
             double[] evaluations = monitor.monitor(trajectory).valuesAt(timeStep);
             IntStream.range(0, counter.length).filter(j -> evaluations[j] > 0).forEach(j -> counter[j]++);
+            runs++;
         }
-        return Arrays.stream(counter).mapToDouble(j -> j / ((double) trajectories.size())).toArray();
+        double total = runs;
+        return Arrays.stream(counter).mapToDouble(j -> j / total).toArray();
     }
 
     /**
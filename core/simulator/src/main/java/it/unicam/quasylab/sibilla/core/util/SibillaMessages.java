@@ -31,6 +31,8 @@ public class SibillaMessages {
     public static final String ILLEGAL_TIME_IN_TIMESTEP = "A time step must be a value greater than 0 (%g is used).";
     public static final String A_POSITIVE_VALUE_IS_EXPECTED = "A value greater than 0 is expected (%g is used).";
     private static final String ILLEGAL_NUMBER_OF_PARAMETERS = "Illegal number of parameters: expected %d are %d!";
+    public static final String SIMULATION_CURSOR_NOT_STARTED = "The simulation cursor has not been started.";
+    private static final String ILLEGAL_PARTIAL_SAMPLING_FUNCTION = "Only a partial function obtained from newPartial() can be merged into %s.";
 
 
     /**
@@ -56,4 +58,14 @@ public class SibillaMessages {
     public static String wrongNumberOfParameters(int expected, int actual) {
         return String.format(ILLEGAL_NUMBER_OF_PARAMETERS,expected,actual);
     }
+
+    /**
+     * Only partial functions obtained from <code>newPartial()</code> can be merged.
+     *
+     * @param function the function where the partial is merged.
+     * @return error message.
+     */
+    public static String illegalPartialSamplingFunction(Object function) {
+        return String.format(ILLEGAL_PARTIAL_SAMPLING_FUNCTION, function.getClass().getSimpleName());
+    }
 }
@@ -117,8 +117,14 @@ public final class SimulationData {
 
     public static <S> SimulationData getDataSet(String name, Trajectory<S> trajectory, Map<String, ToDoubleFunction<S>> functions) {
         String[] labels = functions.keySet().toArray(new String[0]);
-        double[] timeSteps = trajectory.stream().mapToDouble(Sample::getTime).toArray();
-        double[][] data = trajectory.stream().map(Sample::getValue).map(s -> apply(labels, functions, s)).toArray(double[][]::new);
+        int size = trajectory.size();
+        double[] timeSteps = new double[size];
+        double[][] data = new double[size][];
+        for (int i = 0; i < size; i++) {
+            Sample<S> sample = trajectory.getSample(i);
+            timeSteps[i] = sample.getTime();
+            data[i] = apply(labels, functions, sample.getValue());
+        }
         return new SimulationData(name, labels, timeSteps, data);
     }
 
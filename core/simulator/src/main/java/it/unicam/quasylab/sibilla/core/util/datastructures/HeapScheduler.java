@@ -0,0 +1,296 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.util.datastructures;
+
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A scheduler based on a mutable binary heap. Differently from {@link MapScheduler}, the methods of this class
+ * modify the scheduler and return it: after an update, the scheduler it has been invoked on must not be used
+ * any more. For this reason instances of this class can be used only when older versions of the scheduler are
+ * not needed, as in the simulation of a single trajectory.
+ * <p>
+ * Each entry of the heap is labelled with a sequence number. Unscheduling an element at a given time cancels
+ * the entries of that element at that time that have been added before the invocation, so that the element
+ * can be scheduled again at the same time. Cancelled entries are discarded when they reach the top of the heap,
+ * while cancellations of elements that are not in the heap are ignored.
+ *
+ * @param <T> type of scheduled elements.
+ */
+public class HeapScheduler<T extends Comparable<T>> implements Scheduler<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private double[] times;
+
+    private Object[] elements;
+
+    private long[] sequences;
+
+    private int size;
+
+    private long nextSequence;
+
+    private double lastTime = Double.NaN;
+
+    private boolean lastTimeIsValid = true;
+
+    private final Map<T, Integer> entries = new IdentityHashMap<>();
+
+    private final Map<T, Cancellation> cancellations = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty scheduler.
+     */
+    public HeapScheduler() {
+        this.times = new double[DEFAULT_CAPACITY];
+        this.elements = new Object[DEFAULT_CAPACITY];
+        this.sequences = new long[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Returns a new scheduler containing the elements scheduled in the given one. The given scheduler is
+     * not modified when it is persistent, like a {@link MapScheduler}.
+     *
+     * @param scheduler a scheduler.
+     * @return a new scheduler containing the elements scheduled in the given one.
+     * @param <T> type of scheduled elements.
+     */
+    public static <T extends Comparable<T>> HeapScheduler<T> copyOf(Scheduler<T> scheduler) {
+        HeapScheduler<T> result = new HeapScheduler<>();
+        Optional<Pair<ScheduledElements<T>, Scheduler<T>>> next = scheduler.scheduleNext();
+        while (next.isPresent()) {
+            ScheduledElements<T> scheduledElements = next.get().getKey();
+            for (T element : scheduledElements.getScheduledElements()) {
+                result.schedule(element, scheduledElements.getTime());
+            }
+            next = next.get().getValue().scheduleNext();
+        }
+        return result;
+    }
+
+    @Override
+    public HeapScheduler<T> schedule(T element, double time) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            elements = Arrays.copyOf(elements, size * 2);
+            sequences = Arrays.copyOf(sequences, size * 2);
+        }
+        if (lastTimeIsValid && !(time <= lastTime)) {
+            lastTime = time;
+        }
+        entries.merge(element, 1, Integer::sum);
+        long sequence = nextSequence++;
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (times[parent] <= time) {
+                break;
+            }
+            times[i] = times[parent];
+            elements[i] = elements[parent];
+            sequences[i] = sequences[parent];
+            i = parent;
+        }
+        times[i] = time;
+        elements[i] = element;
+        sequences[i] = sequence;
+        return this;
+    }
+
+    @Override
+    public double getNextTime() {
+        removeCancelled();
+        return (size == 0 ? Double.NaN : times[0]);
+    }
+
+    /**
+     * Returns the time of the last scheduled element. The maximal time is tracked when elements are scheduled,
+     * and it is recomputed only after the cancellation of an element scheduled at that time.
+     *
+     * @return the time of the last scheduled element.
+     */
+    @Override
+    public double getLastTime() {
+        if (!lastTimeIsValid) {
+            lastTime = Double.NaN;
+            for (int i = 0; i < size; i++) {
+                if (!isCancelled(i) && !(times[i] <= lastTime)) {
+                    lastTime = times[i];
+                }
+            }
+            lastTimeIsValid = true;
+        }
+        return lastTime;
+    }
+
+    @Override
+    public Optional<Pair<ScheduledElements<T>, Scheduler<T>>> scheduleNext() {
+        removeCancelled();
+        if (size == 0) {
+            return Optional.empty();
+        }
+        double time = times[0];
+        SibillaSet<T> scheduledElements = SibillaSet.of(removeFirst());
+        removeCancelled();
+        while ((size > 0) && (times[0] == time)) {
+            scheduledElements = scheduledElements.add(removeFirst());
+            removeCancelled();
+        }
+        return Optional.of(new Pair<>(new ScheduledElements<>(time, scheduledElements), this));
+    }
+
+    @Override
+    public HeapScheduler<T> unscheduled(double time, T activity) {
+        if (!entries.containsKey(activity)) {
+            return this;
+        }
+        cancellations.put(activity, new Cancellation(time, nextSequence, cancellations.get(activity)));
+        if (time >= lastTime) {
+            lastTimeIsValid = false;
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        removeCancelled();
+        return size == 0;
+    }
+
+    private void removeCancelled() {
+        while ((size > 0) && cancel(0)) {
+            removeFirst();
+        }
+    }
+
+    /**
+     * Returns true if the entry at the given position has been cancelled.
+     */
+    private boolean isCancelled(int i) {
+        for (Cancellation c = cancellations.get(getElement(i)); c != null; c = c.next) {
+            if (c.matches(times[i], sequences[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the entry at the given position has been cancelled. In this case the cancellation is
+     * consumed, since the entry is going to be removed.
+     */
+    private boolean cancel(int i) {
+        T element = getElement(i);
+        Cancellation previous = null;
+        for (Cancellation c = cancellations.get(element); c != null; c = c.next) {
+            if (c.matches(times[i], sequences[i])) {
+                if (previous != null) {
+                    previous.next = c.next;
+                } else if (c.next != null) {
+                    cancellations.put(element, c.next);
+                } else {
+                    cancellations.remove(element);
+                }
+                return true;
+            }
+            previous = c;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T getElement(int i) {
+        return (T) elements[i];
+    }
+
+    private T removeFirst() {
+        T first = getElement(0);
+        if (entries.merge(first, -1, Integer::sum) == 0) {
+            entries.remove(first);
+            cancellations.remove(first);
+        }
+        size--;
+        double time = times[size];
+        Object element = elements[size];
+        long sequence = sequences[size];
+        elements[size] = null;
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if ((child + 1 < size) && (times[child + 1] < times[child])) {
+                child++;
+            }
+            if (times[child] >= time) {
+                break;
+            }
+            times[i] = times[child];
+            elements[i] = elements[child];
+            sequences[i] = sequences[child];
+            i = child;
+        }
+        if (size > 0) {
+            times[i] = time;
+            elements[i] = element;
+            sequences[i] = sequence;
+        } else {
+            lastTime = Double.NaN;
+            lastTimeIsValid = true;
+        }
+        return first;
+    }
+
+    /**
+     * The cancellation of the entries of an element at a given time that have a sequence number smaller than
+     * <code>bound</code>. Cancellations of the same element are chained.
+     */
+    private static final class Cancellation {
+
+        private final double time;
+
+        private final long bound;
+
+        private Cancellation next;
+
+        private Cancellation(double time, long bound, Cancellation next) {
+            this.time = time;
+            this.bound = bound;
+            this.next = next;
+        }
+
+        private boolean matches(double time, long sequence) {
+            return (this.time == time) && (sequence < bound);
+        }
+
+    }
+}
@@ -129,7 +129,7 @@ public final class SibillaMap<K extends Comparable<K>, V> implements Iterable<Ma
 
     private static <K extends Comparable<K>, V> Node<K, V> doApplyOrAddIfNotExists(Node<K, V> node, K key, Function<V, V> function, Supplier<V> supplier) {
         if (node == null) return new Node<>(key, supplier.get());
-        return node.applyOrAddIfNotExists(key, function, supplier);
+        return node.applyOrAddIfNotExists(key, function, supplier).rebalance();
     }
 
     private static <K extends Comparable<K>, V> Optional<Pair<Map.Entry<K, V>, Node<K, V>>> doRemoveFirst(Node<K, V> node) {
@@ -512,7 +512,7 @@ public final class SibillaMap<K extends Comparable<K>, V> implements Iterable<Ma
             return new Node<>(
                     leftNode.rightNode.getKey(), leftNode.rightNode.getValue(),
                     new Node<>(leftNode.getKey(), leftNode.getValue(), leftNode.leftNode, leftNode.rightNode.leftNode),
-                    new Node<>(getKey(), getValue(), leftNode.rightNode.leftNode, rightNode)
+                    new Node<>(getKey(), getValue(), leftNode.rightNode.rightNode, rightNode)
             );
         }
 
@@ -589,7 +589,7 @@ public final class SibillaMap<K extends Comparable<K>, V> implements Iterable<Ma
             } else {
                 Node<K, V> newNode = doApplyOrAddIfNotExists(leftNode, key, function, supplier);
                 if (newNode == leftNode) return this;
-                return new Node<>(key, getValue(), newNode, rightNode);
+                return new Node<>(this.getKey(), getValue(), newNode, rightNode);
             }
         }
 
@@ -597,7 +597,7 @@ public final class SibillaMap<K extends Comparable<K>, V> implements Iterable<Ma
             if (this.leftNode == null) {
                 return Optional.of(Pair.of(this.entry, this.rightNode));
             }
-            return this.leftNode.removeFirst().map(Pair.combine(e -> e, n -> new Node<>(this.entry, n.rebalance(), rightNode)));
+            return this.leftNode.removeFirst().map(Pair.combine(e -> e, n -> new Node<>(this.entry, n, rightNode).rebalance()));
         }
 
         public Node<K,V> apply(K key, UnaryOperator<V> function) {
@@ -691,20 +691,20 @@ public final class SibillaMap<K extends Comparable<K>, V> implements Iterable<Ma
 
     static class SibillaMapIterator<K extends Comparable<K>, V, T> implements Iterator<T> {
 
-        private final Queue<Node<K, V>> queue;
+        private final Deque<Node<K, V>> queue;
 
         private final Function<Map.Entry<K,V>,T> extractor;
 
         public SibillaMapIterator(Node<K, V> startingNode, Function<Map.Entry<K, V>, T> extractor) {
             this.extractor = extractor;
-            queue = new LinkedList<>();
+            queue = new ArrayDeque<>();
             enqueToMinNode(startingNode);
         }
 
         private void enqueToMinNode(Node<K,V> startingNode) {
             Node<K, V> current = startingNode;
             while (current != null) {
-                queue.add(current);
+                queue.push(current);
                 current = current.leftNode;
             }
         }
@@ -716,7 +716,7 @@ public final class SibillaMap<K extends Comparable<K>, V> implements Iterable<Ma
 
         @Override
         public T next() {
-            Node<K, V> nextNode = queue.poll();
+            Node<K, V> nextNode = queue.pollFirst();
             if (nextNode == null) throw new NoSuchElementException();
             T result = extractor.apply(nextNode.entry);
             enqueToMinNode(nextNode.rightNode);
@@ -0,0 +1,196 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.util.ode;
+
+
+/**
+ * Integrates a {@link VectorField} with the explicit embedded Runge-Kutta method of Dormand and Prince of order
+ * 5(4). The step size is adapted so that the estimated local error stays below the given absolute and relative
+ * tolerances. Steps are performed one at a time, so that the integrator can be driven by a simulation cursor.
+ */
+public final class DormandPrinceIntegrator {
+
+    public static final double DEFAULT_ABSOLUTE_TOLERANCE = 1.0E-6;
+    public static final double DEFAULT_RELATIVE_TOLERANCE = 1.0E-6;
+
+    private static final double C2 = 1.0 / 5, C3 = 3.0 / 10, C4 = 4.0 / 5, C5 = 8.0 / 9;
+    private static final double A21 = 1.0 / 5;
+    private static final double A31 = 3.0 / 40, A32 = 9.0 / 40;
+    private static final double A41 = 44.0 / 45, A42 = -56.0 / 15, A43 = 32.0 / 9;
+    private static final double A51 = 19372.0 / 6561, A52 = -25360.0 / 2187, A53 = 64448.0 / 6561, A54 = -212.0 / 729;
+    private static final double A61 = 9017.0 / 3168, A62 = -355.0 / 33, A63 = 46732.0 / 5247, A64 = 49.0 / 176,
+            A65 = -5103.0 / 18656;
+    private static final double B1 = 35.0 / 384, B3 = 500.0 / 1113, B4 = 125.0 / 192, B5 = -2187.0 / 6784,
+            B6 = 11.0 / 84;
+    private static final double E1 = 71.0 / 57600, E3 = -71.0 / 16695, E4 = 71.0 / 1920, E5 = -17253.0 / 339200,
+            E6 = 22.0 / 525, E7 = -1.0 / 40;
+
+    private static final double SAFETY = 0.9;
+    private static final double MIN_FACTOR = 0.2;
+    private static final double MAX_FACTOR = 5.0;
+
+    private final VectorField field;
+    private final double absoluteTolerance;
+    private final double relativeTolerance;
+    private final double maxStep;
+
+    private final double[] k1, k2, k3, k4, k5, k6, k7, tmp, next;
+    private double h;
+    private boolean firstSameAsLast = false;
+
+    /**
+     * Creates a new integrator with default tolerances.
+     *
+     * @param field the vector field to integrate.
+     * @param dimension the dimension of the system.
+     * @param maxStep the maximal step size.
+     */
+    public DormandPrinceIntegrator(VectorField field, int dimension, double maxStep) {
+        this(field, dimension, DEFAULT_ABSOLUTE_TOLERANCE, DEFAULT_RELATIVE_TOLERANCE, maxStep);
+    }
+
+    /**
+     * Creates a new integrator.
+     *
+     * @param field the vector field to integrate.
+     * @param dimension the dimension of the system.
+     * @param absoluteTolerance absolute tolerance on the local error.
+     * @param relativeTolerance relative tolerance on the local error.
+     * @param maxStep the maximal step size.
+     */
+    public DormandPrinceIntegrator(VectorField field, int dimension, double absoluteTolerance, double relativeTolerance, double maxStep) {
+        if ((absoluteTolerance <= 0) || (relativeTolerance < 0) || (maxStep <= 0)) {
+            throw new IllegalArgumentException(String.format("Illegal integrator parameters: absolute tolerance %g, relative tolerance %g, maximal step %g.", absoluteTolerance, relativeTolerance, maxStep));
+        }
+        this.field = field;
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+        this.maxStep = maxStep;
+        this.k1 = new double[dimension];
+        this.k2 = new double[dimension];
+        this.k3 = new double[dimension];
+        this.k4 = new double[dimension];
+        this.k5 = new double[dimension];
+        this.k6 = new double[dimension];
+        this.k7 = new double[dimension];
+        this.tmp = new double[dimension];
+        this.next = new double[dimension];
+        reset();
+    }
+
+    /**
+     * Resets the step size selected by this integrator. This method must be invoked when the integration
+     * restarts from a different point.
+     */
+    public void reset() {
+        this.h = Math.min(maxStep, 1.0E-3);
+        this.firstSameAsLast = false;
+    }
+
+    /**
+     * Performs a single accepted step from time <code>t</code> and stores the result in <code>y</code>. The
+     * step never goes beyond time <code>limit</code>.
+     *
+     * @param t current time.
+     * @param y current value, updated with the value at the returned time.
+     * @param limit time that must not be exceeded.
+     * @return the time reached by the step.
+     */
+    public double step(double t, double[] y, double limit) {
+        if (!firstSameAsLast) {
+            field.derivative(t, y, k1);
+        }
+        while (true) {
+            double step = Math.min(Math.min(h, maxStep), limit - t);
+            if (step <= 0) {
+                return t;
+            }
+            double error = attempt(t, y, step);
+            double factor = (error == 0 ? MAX_FACTOR : Math.min(MAX_FACTOR, Math.max(MIN_FACTOR, SAFETY * Math.pow(error, -0.2))));
+            if (error <= 1.0) {
+                System.arraycopy(next, 0, y, 0, y.length);
+                System.arraycopy(k7, 0, k1, 0, k1.length);
+                firstSameAsLast = true;
+                if (step == Math.min(h, maxStep)) {
+                    h = step * factor;
+                }
+                return t + step;
+            }
+            h = step * Math.min(factor, 1.0);
+            if (t + h == t) {
+                throw new IllegalStateException(String.format("Step size underflow at time %g: the required tolerance cannot be met.", t));
+            }
+        }
+    }
+
+    /**
+     * Integrates the system from time <code>t</code> to time <code>limit</code>.
+     *
+     * @param t initial time.
+     * @param y initial value, updated with the value at time <code>limit</code>.
+     * @param limit final time.
+     */
+    public void integrate(double t, double[] y, double limit) {
+        while (t < limit) {
+            t = step(t, y, limit);
+        }
+    }
+
+    private double attempt(double t, double[] y, double step) {
+        int n = y.length;
+        for (int i = 0; i < n; i++) {
+            tmp[i] = y[i] + step * A21 * k1[i];
+        }
+        field.derivative(t + C2 * step, tmp, k2);
+        for (int i = 0; i < n; i++) {
+            tmp[i] = y[i] + step * (A31 * k1[i] + A32 * k2[i]);
+        }
+        field.derivative(t + C3 * step, tmp, k3);
+        for (int i = 0; i < n; i++) {
+            tmp[i] = y[i] + step * (A41 * k1[i] + A42 * k2[i] + A43 * k3[i]);
+        }
+        field.derivative(t + C4 * step, tmp, k4);
+        for (int i = 0; i < n; i++) {
+            tmp[i] = y[i] + step * (A51 * k1[i] + A52 * k2[i] + A53 * k3[i] + A54 * k4[i]);
+        }
+        field.derivative(t + C5 * step, tmp, k5);
+        for (int i = 0; i < n; i++) {
+            tmp[i] = y[i] + step * (A61 * k1[i] + A62 * k2[i] + A63 * k3[i] + A64 * k4[i] + A65 * k5[i]);
+        }
+        field.derivative(t + step, tmp, k6);
+        for (int i = 0; i < n; i++) {
+            next[i] = y[i] + step * (B1 * k1[i] + B3 * k3[i] + B4 * k4[i] + B5 * k5[i] + B6 * k6[i]);
+        }
+        field.derivative(t + step, next, k7);
+        double error = 0.0;
+        for (int i = 0; i < n; i++) {
+            double e = step * (E1 * k1[i] + E3 * k3[i] + E4 * k4[i] + E5 * k5[i] + E6 * k6[i] + E7 * k7[i]);
+            double scale = absoluteTolerance + relativeTolerance * Math.max(Math.abs(y[i]), Math.abs(next[i]));
+            error += (e / scale) * (e / scale);
+        }
+        return (n == 0 ? 0.0 : Math.sqrt(error / n));
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.util.ode;
+
+/**
+ * A time dependent vector field defining a system of ordinary differential equations.
+ */
+@FunctionalInterface
+public interface VectorField {
+
+    /**
+     * Stores in <code>dy</code> the derivative of the system in <code>y</code> at time <code>t</code>.
+     *
+     * @param t current time.
+     * @param y current value.
+     * @param dy array where the derivative is stored.
+     */
+    void derivative(double t, double[] y, double[] dy);
+
+}
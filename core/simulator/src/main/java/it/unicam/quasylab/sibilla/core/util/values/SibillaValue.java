@@ -308,6 +308,25 @@ public interface SibillaValue {
         return (x,y) -> SibillaValue.ERROR_VALUE;
     }
 
+    /**
+     * Returns the operator on primitive doubles associated with the given symbol. When both arguments
+     * are numbers and at least one of them is a {@link SibillaDouble}, the returned operator computes the
+     * same value of the one returned by {@link #getOperator(String)}, without allocating the result. The
+     * value null is returned when the symbol is not an arithmetic operator.
+     *
+     * @param op an arithmetic operator.
+     * @return the operator on primitive doubles associated with the given symbol.
+     */
+    static DoubleBinaryOperator getDoubleOperator(String op) {
+        if (op.equals("+")) {return (x,y) -> x+y; }
+        if (op.equals("-")) {return (x,y) -> x-y; }
+        if (op.equals("%")) {return (x,y) -> x%y; }
+        if (op.equals("*")) {return (x,y) -> x*y; }
+        if (op.equals("/")) {return (x,y) -> x/y; }
+        if (op.equals("//")) {return (x,y) -> (y != 0.0 ? x/y : 0.0); }
+        return null;
+    }
+
     /**
      * Given a unary operator op, and a function f1: T -> SibillaValue, returns the
      * function that given a parameter t returns the result of the application of op to the evaluation
@@ -0,0 +1,100 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseMatrixTest {
+
+    private ContinuousTimeMarkovChain<Integer> birthDeathChain(int n) {
+        ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+        for (int i = 0; i < n; i++) {
+            Map<Integer, Double> row = new HashMap<>();
+            if (i < n - 1) {
+                row.put(i + 1, 2.0);
+            }
+            if (i > 0) {
+                row.put(i - 1, 1.0 * i);
+            }
+            chain.add(i, row);
+        }
+        return chain;
+    }
+
+    private Map<Integer, Integer> identityIndex(int n) {
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            index.put(i, i);
+        }
+        return index;
+    }
+
+    @Test
+    void transposeShouldSwapRowsAndColumns() {
+        ContinuousTimeMarkovChain<Integer> chain = birthDeathChain(5);
+        SparseMatrix rates = chain.getRateMatrix(identityIndex(5));
+        SparseMatrix transposed = rates.transpose();
+        assertEquals(rates.numberOfEntries(), transposed.numberOfEntries());
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                assertEquals(chain.rate(i, j), rates.get(i, j));
+                assertEquals(rates.get(i, j), transposed.get(j, i));
+            }
+        }
+    }
+
+    @Test
+    void uniformisedMatrixShouldBeStochastic() {
+        ContinuousTimeMarkovChain<Integer> chain = birthDeathChain(50);
+        SparseMatrix uniformised = chain.getUniformisedMatrix(identityIndex(50));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(1.0, uniformised.sumOfRow(i), 1.0E-12);
+        }
+        double[] v = new double[50];
+        v[0] = 1.0;
+        double[] left = new double[50];
+        double[] right = new double[50];
+        uniformised.preMultiply(v, left);
+        uniformised.transpose().multiply(v, right);
+        assertArrayEquals(left, right, 1.0E-12);
+    }
+
+    @Test
+    void transientProbabilitiesOfLargeChainsShouldSumToOne() {
+        int n = 20000;
+        ContinuousTimeMarkovChain<Integer> chain = birthDeathChain(n);
+        TransientProbabilityContinuousSolver<Integer> solver = new TransientProbabilityContinuousSolver<>(chain, 1.0E-6, 0);
+        Map<Integer, Double> probabilities = solver.compute(1.0);
+        assertEquals(n, probabilities.size());
+        assertEquals(1.0, probabilities.values().stream().mapToDouble(Double::doubleValue).sum(), 1.0E-5);
+        assertEquals(Math.exp(-2.0 * (1 - Math.exp(-1.0))), probabilities.get(0), 1.0E-5);
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.pm.Population;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationRule;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.pm.ReactionRule;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateSpaceExplorerTest {
+
+    private PopulationModel sirModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("infection", new Population[] { new Population(0), new Population(1) },
+                        new Population[] { new Population(1), new Population(1) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(0) * s.getOccupancy(1) * 0.1)),
+                new ReactionRule("recovery", new Population[] { new Population(1) }, new Population[] { new Population(2) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(1) * 0.5))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(3), rules, new HashMap<>(), new HashMap<>());
+    }
+
+    @Test
+    void parallelExplorationShouldAgreeWithSequentialGeneration() {
+        PopulationModel model = sirModel();
+        PopulationState init = new PopulationState(new int[] { 29, 1, 0 });
+        Function<PopulationState, Map<PopulationState, Double>> successors = StateSpaceExplorer.successorsOf(model);
+        ContinuousTimeMarkovChain<PopulationState> expected = MarkovChain.generateMarkovChain(ContinuousTimeMarkovChain::new, init, successors);
+        SparseMarkovChain<PopulationState> chain = new StateSpaceExplorer<>(successors, new ForkJoinPool(4)).explore(init);
+        assertEquals(expected.numberOfStates(), chain.numberOfStates());
+        assertEquals(0, chain.indexOf(init));
+        SparseMatrix rates = chain.getRateMatrix();
+        for (int i = 0; i < chain.numberOfStates(); i++) {
+            PopulationState s = chain.getState(i);
+            assertEquals(i, chain.indexOf(s));
+            for (int k = rates.rowStart(i); k < rates.rowEnd(i); k++) {
+                assertEquals(expected.rate(s, chain.getState(rates.columnAt(k))), rates.valueAt(k), 1.0E-12);
+            }
+            assertEquals(expected.sumOfRow(s), chain.getExitRate(i), 1.0E-12);
+        }
+    }
+
+    @Test
+    void parallelGenerationShouldProduceTheSequentialChain() {
+        PopulationModel model = sirModel();
+        PopulationState init = new PopulationState(new int[] { 29, 1, 0 });
+        Function<PopulationState, Map<PopulationState, Double>> successors = StateSpaceExplorer.successorsOf(model);
+        ContinuousTimeMarkovChain<PopulationState> expected = MarkovChain.generateMarkovChain(ContinuousTimeMarkovChain::new, init, successors);
+        ContinuousTimeMarkovChain<PopulationState> chain = MarkovChain.generateMarkovChain(ContinuousTimeMarkovChain::new, init, successors, true);
+        assertEquals(expected.getStates(), chain.getStates());
+        for (PopulationState s : expected.getStates()) {
+            assertEquals(expected.sumOfRow(s), chain.sumOfRow(s), 1.0E-12);
+            for (PopulationState s2 : successors.apply(s).keySet()) {
+                assertEquals(expected.rate(s, s2), chain.rate(s, s2), 1.0E-12);
+            }
+        }
+    }
+
+    @Test
+    void storesShouldProduceTheSameChain() throws IOException {
+        PopulationModel model = sirModel();
+        PopulationState init = new PopulationState(new int[] { 29, 1, 0 });
+        StateSpaceExplorer<PopulationState> explorer = StateSpaceExplorer.of(model);
+        SparseMarkovChain<PopulationState> expected = explorer.explore(init);
+        Path file = Files.createTempFile("states", ".bin");
+        file.toFile().deleteOnExit();
+        try (ByteStateStore<PopulationState> store = ByteStateStore.of(model, file)) {
+            SparseMarkovChain<PopulationState> chain = explorer.explore(init, store);
+            assertEquals(expected.numberOfStates(), chain.numberOfStates());
+            for (int i = 0; i < chain.numberOfStates(); i++) {
+                PopulationState s = chain.getState(i);
+                assertEquals(i, store.indexOf(s));
+                assertEquals(expected.getExitRate(expected.indexOf(s)), chain.getExitRate(i), 1.0E-12);
+            }
+        }
+        HashCompactionStateStore<PopulationState> compacted = HashCompactionStateStore.of(model);
+        SparseMarkovChain<PopulationState> chain = explorer.explore(init, compacted);
+        assertEquals(expected.numberOfStates(), chain.numberOfStates());
+        assertEquals(expected.getRateMatrix().numberOfEntries(), chain.getRateMatrix().numberOfEntries());
+        assertTrue(compacted.collisionProbability() < 1.0E-12);
+        assertFalse(chain.retainsStates());
+        assertThrows(UnsupportedOperationException.class, () -> chain.getState(0));
+        assertThrows(UnsupportedOperationException.class, chain::toContinuousTimeMarkovChain);
+        double[] initial = new double[chain.numberOfStates()];
+        initial[0] = 1.0;
+        SteadyStateSolver<PopulationState> solver = new SteadyStateSolver<>(chain, initial, SteadyStateSolver.Method.GAUSS_SEIDEL, 1.0E-12, 100000);
+        assertEquals(chain.numberOfStates(), solver.compute().length);
+        assertThrows(UnsupportedOperationException.class, solver::getSteadyStateDistribution);
+        assertThrows(UnsupportedOperationException.class, () -> solver.longRunAverage(s -> s.getOccupancy(0)));
+    }
+
+    @Test
+    void storeIdsShouldNotDependOnScheduling() {
+        PopulationModel model = sirModel();
+        PopulationState init = new PopulationState(new int[] { 29, 1, 0 });
+        Function<PopulationState, Map<PopulationState, Double>> successors = StateSpaceExplorer.successorsOf(model);
+        HeapStateStore<PopulationState> sequential = new HeapStateStore<>();
+        SparseMarkovChain<PopulationState> expected = new StateSpaceExplorer<>(successors, new ForkJoinPool(1)).explore(init, sequential);
+        HeapStateStore<PopulationState> parallel = new HeapStateStore<>();
+        SparseMarkovChain<PopulationState> chain = new StateSpaceExplorer<>(successors, new ForkJoinPool(4)).explore(init, parallel);
+        assertEquals(expected.numberOfStates(), chain.numberOfStates());
+        for (int i = 0; i < chain.numberOfStates(); i++) {
+            assertEquals(sequential.get(i), parallel.get(i));
+            for (int j = 0; j < chain.numberOfStates(); j++) {
+                assertEquals(expected.getRateMatrix().get(i, j), chain.getRateMatrix().get(i, j));
+            }
+        }
+    }
+
+}
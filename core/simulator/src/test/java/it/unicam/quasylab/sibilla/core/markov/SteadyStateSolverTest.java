@@ -0,0 +1,98 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SteadyStateSolverTest {
+
+    private ContinuousTimeMarkovChain<Integer> queue(int n, double lambda, double mu) {
+        ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+        for (int i = 0; i < n; i++) {
+            Map<Integer, Double> row = new HashMap<>();
+            if (i < n - 1) {
+                row.put(i + 1, lambda);
+            }
+            if (i > 0) {
+                row.put(i - 1, mu);
+            }
+            chain.add(i, row);
+        }
+        return chain;
+    }
+
+    @Test
+    void queueShouldHaveGeometricSteadyState() {
+        ContinuousTimeMarkovChain<Integer> chain = queue(10, 1.0, 2.0);
+        SparseMarkovChain<Integer> sparse = SparseMarkovChain.of(chain);
+        double norm = (1 - Math.pow(0.5, 10)) / 0.5;
+        for (SteadyStateSolver.Method method : SteadyStateSolver.Method.values()) {
+            double[] initial = new double[10];
+            initial[sparse.indexOf(0)] = 1.0;
+            SteadyStateSolver<Integer> solver = new SteadyStateSolver<>(sparse, initial, method, 1.0E-12, 100000);
+            Map<Integer, Double> pi = solver.getSteadyStateDistribution();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Math.pow(0.5, i) / norm, pi.get(i), 1.0E-8);
+            }
+        }
+    }
+
+    @Test
+    void absorbingStatesShouldBeWeightedByReachability() {
+        ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+        for (int i = 1; i < 5; i++) {
+            chain.add(i, Map.of(i - 1, 1.0, i + 1, 1.0));
+        }
+        chain.add(0, Map.of());
+        chain.add(5, Map.of());
+        SteadyStateSolver<Integer> solver = new SteadyStateSolver<>(chain, 2);
+        assertEquals(3, solver.computeBSCC().numberOfComponents());
+        Map<Integer, Double> pi = solver.getSteadyStateDistribution();
+        assertEquals(2, pi.size());
+        assertEquals(0.6, pi.get(0), 1.0E-8);
+        assertEquals(0.4, pi.get(5), 1.0E-8);
+        assertEquals(2.0, solver.longRunAverage(s -> s), 1.0E-8);
+    }
+
+    @Test
+    void longChainsShouldNotOverflowTheStack() {
+        int n = 200000;
+        ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+        for (int i = 0; i < n - 1; i++) {
+            chain.add(i, Map.of(i + 1, 1.0));
+        }
+        chain.add(n - 1, Map.of(n - 2, 1.0));
+        SteadyStateSolver<Integer> solver = new SteadyStateSolver<>(chain, 0);
+        StronglyConnectedComponents scc = solver.computeBSCC();
+        assertEquals(n - 1, scc.numberOfComponents());
+        assertEquals(0.5, solver.getSteadyStateDistribution().get(n - 1), 1.0E-8);
+    }
+
+}
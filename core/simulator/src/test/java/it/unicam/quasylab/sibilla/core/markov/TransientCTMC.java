@@ -26,6 +26,7 @@ package it.unicam.quasylab.sibilla.core.markov;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -120,6 +121,18 @@ class TransientCTMC {
 		}
 	}
 
+	@Test
+	void testMultipleTimePoints() {
+		ContinuousTimeMarkovChain<Integer> ctmc = generateCTMC();
+		List<Map<Integer,Double>> reach = new BoundedReachabilityContinuousSolver<Integer>(ctmc, 1.0E-6, s -> s.intValue()==1).compute(time);
+		List<Map<Integer,Double>> prob = new TransientProbabilityContinuousSolver<Integer>(ctmc, 1.0E-6, 0).compute(time);
+		for( int i=0 ; i<resultsReachability.length; i++ ) {
+			assertEquals(resultsReachability[i],reach.get(i).getOrDefault(0, 0.0),0.000001);
+			assertEquals(resultsTransient[i][0],prob.get(i).getOrDefault(0, 0.0),0.000001);
+			assertEquals(resultsTransient[i][1],prob.get(i).get(1),0.000001);
+		}
+	}
+
 	private ContinuousTimeMarkovChain<Integer> generateCTMC() {
 		ContinuousTimeMarkovChain<Integer> ctmc = new ContinuousTimeMarkovChain<Integer>();
 		Map<Integer,Double> next0 = new HashMap<>();
@@ -25,6 +25,8 @@ package it.unicam.quasylab.sibilla.core.models.lio;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class AgentsDefinitionTest {
@@ -90,4 +92,36 @@ class AgentsDefinitionTest {
         assertEquals(0.75, prob.probabilityOf(act2));
     }
 
-}
\ No newline at end of file
+    @Test
+    void constantProbabilitiesShouldShareTheSameMatrix() {
+        LIOAgentDefinitions def = new LIOAgentDefinitions();
+        LIOAgent agentA = def.addAgent("A");
+        LIOAgent agentB = def.addAgent("B");
+        agentA.addAction(def.addAction("act", LIOActionProbabilityFunction.constant(0.5)), agentB);
+        assertEquals(0, def.getProbabilityDependencies().length);
+        LIOCountingState s1 = new LIOCountingState(def, new int[] { 3, 1 });
+        LIOCountingState s2 = new LIOCountingState(def, new int[] { 1, 7 });
+        assertSame(def.getAgentProbabilityMatrix(s1), def.getAgentProbabilityMatrix(s2));
+    }
+
+    @Test
+    void matricesShouldBeIndexedByRelevantFractions() {
+        LIOAgentDefinitions def = new LIOAgentDefinitions();
+        LIOAgent agentA = def.addAgent("A");
+        LIOAgent agentB = def.addAgent("B");
+        LIOAgent agentC = def.addAgent("C");
+        LIOAgentAction act = def.addAction("act", LIOActionProbabilityFunction.of(s -> s.fractionOf(agentA), Set.of(agentA)));
+        agentB.addAction(act, agentC);
+        assertArrayEquals(new int[] { 0 }, def.getProbabilityDependencies());
+        LIOCountingState s1 = new LIOCountingState(def, new int[] { 2, 1, 1 });
+        LIOCountingState s2 = new LIOCountingState(def, new int[] { 2, 2, 0 });
+        LIOCountingState s3 = new LIOCountingState(def, new int[] { 1, 2, 1 });
+        assertSame(def.getAgentProbabilityMatrix(s1), def.getAgentProbabilityMatrix(s2));
+        assertNotSame(def.getAgentProbabilityMatrix(s1), def.getAgentProbabilityMatrix(s3));
+        assertEquals(0.25, def.getAgentProbabilityMatrix(s3).get(agentB, agentC), 1E-12);
+        def.setActionProbability(act, s -> 1.0);
+        assertEquals(3, def.getProbabilityDependencies().length);
+        assertEquals(1.0, def.getAgentProbabilityMatrix(s3).get(agentB, agentC), 1E-12);
+    }
+
+}
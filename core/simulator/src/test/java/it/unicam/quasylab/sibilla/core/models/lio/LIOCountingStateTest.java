@@ -0,0 +1,176 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.lio;
+
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
+import it.unicam.quasylab.sibilla.core.simulator.util.RandomSampling;
+import it.unicam.quasylab.sibilla.core.tools.ProbabilityMatrix;
+import it.unicam.quasylab.sibilla.core.tools.ProbabilityVector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LIOCountingStateTest {
+
+    private LIOAgentDefinitions getDefinitions() {
+        LIOAgentDefinitions def = new LIOAgentDefinitions();
+        LIOAgent agentA = def.addAgent("A");
+        LIOAgent agentB = def.addAgent("B");
+        LIOAgentAction act1 = def.addAction("act1", s -> 0.3);
+        LIOAgentAction act2 = def.addAction("act2", s -> 0.1);
+        agentA.addAction(act1, agentB);
+        agentB.addAction(act2, agentA);
+        return def;
+    }
+
+    @Test
+    void binomialSamplesShouldHaveTheExpectedMean() {
+        SplittableRandomGenerator rg = new SplittableRandomGenerator(7);
+        int samples = 20000;
+        for (int n : new int[] { 10, 1000, 1000000 }) {
+            for (double p : new double[] { 0.01, 0.3, 0.9 }) {
+                double sum = 0.0;
+                for (int i = 0; i < samples; i++) {
+                    int k = RandomSampling.sampleBinomial(n, p, rg);
+                    assertTrue((k >= 0) && (k <= n));
+                    sum += k;
+                }
+                assertEquals(n * p, sum / samples, 5 * Math.sqrt(n * p * (1 - p) / samples) + 1E-9);
+            }
+        }
+    }
+
+    @Test
+    void aggregateStepShouldPreserveTheNumberOfAgents() {
+        LIOAgentDefinitions def = getDefinitions();
+        LIOCountingState state = new LIOCountingState(def, new int[] { 20, 10 });
+        SplittableRandomGenerator rg = new SplittableRandomGenerator(3);
+        for (int i = 0; i < 100; i++) {
+            state = state.step(rg, def.getAgentProbabilityMatrix(state));
+            assertEquals(30, state.numberOf(def.getAgent(0)) + state.numberOf(def.getAgent(1)));
+        }
+    }
+
+    @Test
+    void aggregateStepShouldFollowTheAgentProbabilityMatrix() {
+        LIOAgentDefinitions def = getDefinitions();
+        int size = 1000000;
+        LIOCountingState state = new LIOCountingState(def, new int[] { size, 0 });
+        LIOCountingState next = state.step(new SplittableRandomGenerator(5), def.getAgentProbabilityMatrix(state));
+        assertEquals(size * 0.3, next.numberOf(def.getAgent(1)), 5 * Math.sqrt(size * 0.3 * 0.7));
+        assertEquals(size, next.size());
+    }
+
+    @Test
+    void agentsWithAnEmptyRowShouldRemainInTheirState() {
+        LIOAgentDefinitions def = getDefinitions();
+        LIOAgent agentA = def.getAgent(0);
+        LIOAgent agentB = def.getAgent(1);
+        ProbabilityMatrix<LIOAgent> matrix = new ProbabilityMatrix<>(a -> (a == agentA ? new ProbabilityVector<>() : ProbabilityVector.dirac(agentA)));
+        LIOCountingState next = new LIOCountingState(def, new int[] { 20, 10 }).step(new SplittableRandomGenerator(3), matrix);
+        assertEquals(30, next.numberOf(agentA));
+        assertEquals(0, next.numberOf(agentB));
+    }
+
+    @Test
+    void multinomialSamplesWithoutPositiveProbabilitiesShouldBeRejected() {
+        SplittableRandomGenerator rg = new SplittableRandomGenerator(3);
+        assertThrows(IllegalArgumentException.class, () -> RandomSampling.sampleMultinomial(5, new double[] { 0.0, 0.0 }, rg));
+        assertArrayEquals(new int[] { 0, 0 }, RandomSampling.sampleMultinomial(0, new double[] { 0.0, 0.0 }, rg));
+    }
+
+    @Test
+    void countingStatesShouldBeStoredInColumnarTrajectories() {
+        LIOAgentDefinitions def = getDefinitions();
+        Trajectory<LIOState> trajectory = new LIOModel(def).createTrajectory();
+        LIOCountingState state = new LIOCountingState(def, new int[] { 20, 10 });
+        trajectory.add(0.0, state);
+        assertFalse(trajectory.retainsStates());
+        assertNotSame(state, trajectory.getState(0));
+        assertEquals(state, trajectory.getState(0));
+    }
+
+    private ProbabilityVector<LIOCountingState> expandAgents(LIOAgentDefinitions def, int[] occupancy, ProbabilityMatrix<LIOAgent> matrix) {
+        ProbabilityVector<LIOCountingState> current = ProbabilityVector.dirac(new LIOCountingState(def));
+        for (int i = 0; i < occupancy.length; i++) {
+            for (int k = 0; k < occupancy[i]; k++) {
+                current = current.apply(LIOCountingState::add, matrix.getRowOf(def.getAgent(i)));
+            }
+        }
+        return current;
+    }
+
+    @Test
+    void convolutionShouldAgreeWithAgentExpansion() {
+        LIOAgentDefinitions def = getDefinitions();
+        int[] occupancy = new int[] { 7, 5 };
+        LIOCountingState state = new LIOCountingState(def, occupancy);
+        ProbabilityMatrix<LIOAgent> matrix = def.getAgentProbabilityMatrix(state);
+        ProbabilityVector<LIOCountingState> expected = expandAgents(def, occupancy, matrix);
+        ProbabilityVector<LIOCountingState> actual = state.next(matrix);
+        assertEquals(expected.size(), actual.size());
+        expected.iterate((s, p) -> assertEquals(p, actual.getProbability(s), 1E-12));
+    }
+
+    @Test
+    void convolutionShouldKeepTheResidualMassLikeTheAggregateStep() {
+        LIOAgentDefinitions def = getDefinitions();
+        LIOAgent agentA = def.getAgent(0);
+        LIOAgent agentB = def.getAgent(1);
+        ProbabilityMatrix<LIOAgent> matrix = new ProbabilityMatrix<>(a -> {
+            ProbabilityVector<LIOAgent> row = new ProbabilityVector<>();
+            if (a == agentA) {
+                row.add(agentB, 0.3);
+            }
+            return row;
+        });
+        int[] occupancy = new int[] { 1000, 10 };
+        ProbabilityVector<LIOCountingState> distribution = new LIOMultinomialConvolution().next(def, occupancy, matrix);
+        assertEquals(1.0, distribution.getSum(), 1E-9);
+        double[] mean = new double[1];
+        distribution.iterate((s, p) -> mean[0] += p * s.numberOf(agentB));
+        assertEquals(310.0, mean[0], 1E-6);
+        LIOCountingState next = new LIOCountingState(def, occupancy).step(new SplittableRandomGenerator(7), matrix);
+        assertEquals(mean[0], next.numberOf(agentB), 5 * Math.sqrt(1000 * 0.3 * 0.7));
+        assertTrue(distribution.getProbability(next) > 0.0);
+    }
+
+    @Test
+    void truncationErrorShouldBeBoundedByTheDiscardedMass() {
+        LIOAgentDefinitions def = getDefinitions();
+        LIOCountingState state = new LIOCountingState(def, new int[] { 200, 100 });
+        ProbabilityMatrix<LIOAgent> matrix = def.getAgentProbabilityMatrix(state);
+        ProbabilityVector<LIOCountingState> exact = state.next(matrix);
+        ProbabilityVector<LIOCountingState> truncated = new LIOMultinomialConvolution(1E-8).next(def, new int[] { 200, 100 }, matrix);
+        assertTrue(truncated.size() < exact.size());
+        double error = 1.0 - truncated.getSum();
+        assertTrue(error < 1E-3);
+        double[] distance = new double[1];
+        exact.iterate((s, p) -> distance[0] += Math.abs(p - truncated.getProbability(s)));
+        assertEquals(error, distance[0], 1E-9);
+    }
+
+}
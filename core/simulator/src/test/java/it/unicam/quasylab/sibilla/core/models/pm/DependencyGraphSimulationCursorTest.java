@@ -0,0 +1,117 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGraphSimulationCursorTest {
+
+    private static final int S = 0;
+    private static final int I = 1;
+    private static final int R = 2;
+
+    private PopulationModel getSIRModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("infection", null,
+                        new Population[] { new Population(S), new Population(I) },
+                        new Population[] { new Population(I), new Population(I) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(S) * s.getFraction(I)),
+                        new int[] { S, I }, true),
+                new ReactionRule("recovery", null,
+                        new Population[] { new Population(I) },
+                        new Population[] { new Population(R) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(I) * 0.5),
+                        new int[] { I }, false),
+                new ReactionRule("loss", null,
+                        new Population[] { new Population(R) },
+                        new Population[] { },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(R) * 0.1),
+                        new int[] { R }, false)
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(3), rules, new HashMap<>(), new HashMap<>());
+    }
+
+    @Test
+    void onlyRulesReadingUpdatedSpeciesShouldBeAffected() {
+        PopulationDependencyGraph graph = getSIRModel().getDependencyGraph();
+        assertArrayEquals(new int[] { 0, 1 }, graph.getAffectedRules(0));
+        assertArrayEquals(new int[] { 0, 1, 2 }, graph.getAffectedRules(1));
+        assertArrayEquals(new int[] { 0, 2 }, graph.getAffectedRules(2));
+    }
+
+    @Test
+    void rulesWithUnknownDependenciesShouldAlwaysBeAffected() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("a", new Population[] { new Population(0) }, new Population[] { new Population(1) },
+                        (t, s) -> new SibillaDouble(1.0)),
+                new ReactionRule("b", null, new Population[] { new Population(2) }, new Population[] { new Population(3) },
+                        (t, s) -> new SibillaDouble(1.0), new int[] {}, false)
+        );
+        PopulationDependencyGraph graph = new PopulationDependencyGraph(rules);
+        assertArrayEquals(new int[] { 0 }, graph.getAffectedRules(0));
+        assertArrayEquals(new int[] { 0, 1 }, graph.getAffectedRules(1));
+    }
+
+    @Test
+    void snapshotsShouldNotBeChangedByLaterSteps() {
+        SimulatorCursor<PopulationState> cursor = getSIRModel().createDependencyGraphSimulationCursor(
+                new SplittableRandomGenerator(13), rg -> new PopulationState(new int[] { 90, 10, 0 }));
+        cursor.start();
+        PopulationState previous = cursor.currentState();
+        String previousString = previous.toString();
+        while (cursor.step()) {
+            assertEquals(previousString, previous.toString());
+            assertEquals(cursor.currentView().toString(), cursor.currentState().toString());
+            previous = cursor.currentState();
+            previousString = previous.toString();
+        }
+    }
+
+    @Test
+    void cursorShouldReachTheTerminalState() {
+        SimulatorCursor<PopulationState> cursor = getSIRModel().createDependencyGraphSimulationCursor(
+                new SplittableRandomGenerator(7), rg -> new PopulationState(new int[] { 90, 10, 0 }));
+        cursor.start();
+        int steps = 0;
+        while (cursor.step()) {
+            steps++;
+            assertTrue(cursor.currentState().getOccupancy(S) + cursor.currentState().getOccupancy(I) <= 100);
+        }
+        assertTrue(cursor.isTerminated());
+        assertTrue(steps >= 20);
+        assertEquals(0.0, cursor.currentState().getOccupancy(I));
+        assertEquals(0.0, cursor.currentState().getOccupancy(R));
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.DefaultSimulationCursor;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectMethodSimulationCursorTest {
+
+    private static final int S = 0;
+    private static final int I = 1;
+    private static final int R = 2;
+
+    private PopulationModel getSIRModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("infection",
+                        new Population[] { new Population(S), new Population(I) },
+                        new Population[] { new Population(I), new Population(I) },
+                        RatePopulationFunction.ofDouble((t, s) -> s.getOccupancy(S) * s.getFraction(I))),
+                new ReactionRule("recovery",
+                        new Population[] { new Population(I) },
+                        new Population[] { new Population(R) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(I) * 0.5)),
+                new ReactionRule("loss",
+                        new Population[] { new Population(R) },
+                        new Population[] { new Population(S) },
+                        RatePopulationFunction.ofDouble((t, s) -> s.getOccupancy(R) * 0.1))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(3), rules, new HashMap<>(), new HashMap<>());
+    }
+
+    @Test
+    void cursorShouldFollowTheDefaultTrajectory() {
+        PopulationModel model = getSIRModel();
+        SimulatorCursor<PopulationState> expected = new DefaultSimulationCursor<>(new SplittableRandomGenerator(11),
+                model::next, rg -> new PopulationState(new int[] { 90, 10, 0 }));
+        SimulatorCursor<PopulationState> actual = model.createSimulationCursor(new SplittableRandomGenerator(11),
+                rg -> new PopulationState(new int[] { 90, 10, 0 }));
+        assertTrue(actual instanceof DirectMethodSimulationCursor);
+        expected.start();
+        actual.start();
+        for (int i = 0; (i < 500) && expected.step(); i++) {
+            assertTrue(actual.step());
+            assertEquals(expected.time(), actual.time());
+            assertEquals(expected.currentState(), actual.currentState());
+        }
+    }
+
+    @Test
+    void snapshotsShouldNotBeChangedByLaterSteps() {
+        SimulatorCursor<PopulationState> cursor = getSIRModel().createSimulationCursor(
+                new SplittableRandomGenerator(13), rg -> new PopulationState(new int[] { 90, 10, 0 }));
+        cursor.start();
+        PopulationState previous = cursor.currentState();
+        String previousString = previous.toString();
+        for (int i = 0; (i < 200) && cursor.step(); i++) {
+            assertEquals(previousString, previous.toString());
+            assertEquals(cursor.currentView().toString(), cursor.currentState().toString());
+            previous = cursor.currentState();
+            previousString = previous.toString();
+        }
+    }
+
+    @Test
+    void primitiveRatesShouldMatchBoxedRates() {
+        RatePopulationFunction f = RatePopulationFunction.ofDouble((t, s) -> t + s.getOccupancy(I));
+        PopulationState state = new PopulationState(new int[] { 3, 4, 5 });
+        assertTrue(f.isDoubleValued());
+        assertEquals(6.0, f.applyAsDouble(2.0, state));
+        assertEquals(new SibillaDouble(6.0), f.apply(2.0, state));
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FluidApproximationTest {
+
+    private static final int SIZE = 1000;
+
+    private PopulationModel getDecayModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("decay", new Population[] { new Population(0) }, new Population[] { new Population(1) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(0) * 0.1))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(2), rules, new HashMap<>(), new HashMap<>());
+    }
+
+    @Test
+    void fluidCursorShouldFollowTheExponentialDecay() {
+        SimulatorCursor<PopulationState> cursor = getDecayModel().createFluidSimulationCursor(
+                new SplittableRandomGenerator(1), rg -> new PopulationState(new int[] { SIZE, 0 }), 0.5);
+        cursor.start();
+        while ((cursor.time() < 10.0) && cursor.step()) {
+            PopulationState state = cursor.currentState();
+            assertEquals(SIZE * Math.exp(-0.1 * cursor.time()), state.getOccupancy(0), 1.0E-3);
+            assertEquals(SIZE, state.population(), 1.0E-6);
+            assertTrue(cursor.time() <= 10.5);
+        }
+    }
+
+    @Test
+    void linearNoiseShouldMatchTheBinomialVariance() {
+        double[] times = { 1.0, 5.0, 10.0 };
+        LinearNoiseSolution solution = getDecayModel().getFluidApproximation()
+                .linearNoiseApproximation(new PopulationState(new int[] { SIZE, 0 }), times, 0.5);
+        for (int k = 0; k < times.length; k++) {
+            double p = Math.exp(-0.1 * times[k]);
+            assertEquals(SIZE * p, solution.getMean(k, 0), 1.0E-3);
+            assertEquals(SIZE * p * (1 - p), solution.getCovariance(k, 0, 0), 1.0E-2);
+            assertEquals(-SIZE * p * (1 - p), solution.getCovariance(k, 0, 1), 1.0E-2);
+        }
+    }
+
+    @Test
+    void fluidStatesShouldBeCountedAndEncodedFromTheirOccupancies() {
+        FluidPopulationState state = new FluidPopulationState(new double[] { 2.4, 3.6, 0.2 });
+        assertEquals(6, state.count(Set.of(0, 1)));
+        assertEquals(4, state.count(i -> i > 0));
+        int[] vector = new int[PopulationState.VECTOR_CODEC.width(state)];
+        PopulationState.VECTOR_CODEC.encode(state, vector, 0);
+        assertArrayEquals(new int[] { 2, 4, 0 }, vector);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.util.RandomSampling;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TauLeapingSimulationCursorTest {
+
+    private PopulationModel getDecayModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("decay", new Population[] { new Population(0) }, new Population[] { new Population(1) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(0) * 0.1))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(2), rules, new HashMap<>(), new HashMap<>());
+    }
+
+    private PopulationState runUntil(SimulatorCursor<PopulationState> cursor, double deadline) {
+        cursor.start();
+        PopulationState last = cursor.currentState();
+        while ((cursor.time() < deadline) && cursor.step()) {
+            if (cursor.time() < deadline) {
+                last = cursor.currentState();
+            }
+        }
+        return last;
+    }
+
+    @Test
+    void poissonSamplesShouldHaveTheExpectedMean() {
+        SplittableRandomGenerator rg = new SplittableRandomGenerator(11);
+        for (double mean : new double[] { 0.5, 4.0, 250.0 }) {
+            double sum = 0.0;
+            int samples = 20000;
+            for (int i = 0; i < samples; i++) {
+                sum += RandomSampling.samplePoisson(mean, rg);
+            }
+            assertEquals(mean, sum / samples, 5 * Math.sqrt(mean / samples));
+        }
+    }
+
+    @Test
+    void largePopulationsShouldBeSimulatedWithFewLeaps() {
+        int size = 100000;
+        SimulatorCursor<PopulationState> cursor = getDecayModel().createTauLeapingSimulationCursor(
+                new SplittableRandomGenerator(3), rg -> new PopulationState(new int[] { size, 0 }));
+        cursor.start();
+        int steps = 0;
+        while ((cursor.time() < 5.0) && cursor.step()) {
+            steps++;
+        }
+        assertTrue(steps < size / 10);
+        double expected = size * Math.exp(-0.5);
+        assertEquals(expected, runUntil(cursor, 5.0).getOccupancy(0), expected * 0.02);
+    }
+
+    @Test
+    void smallPopulationsShouldReachTheTerminalState() {
+        SimulatorCursor<PopulationState> cursor = getDecayModel().createTauLeapingSimulationCursor(
+                new SplittableRandomGenerator(5), rg -> new PopulationState(new int[] { 15, 0 }));
+        cursor.start();
+        while (cursor.step()) {
+            assertEquals(15.0, cursor.currentState().population());
+        }
+        assertTrue(cursor.isTerminated());
+        assertEquals(15.0, cursor.currentState().getOccupancy(1));
+    }
+
+}
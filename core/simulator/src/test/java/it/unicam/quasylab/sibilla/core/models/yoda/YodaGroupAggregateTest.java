@@ -0,0 +1,104 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.yoda;
+
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedLinkedList;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YodaGroupAggregateTest {
+
+    private final YodaVariable x = new YodaVariable(0, "x");
+    private final YodaElementName bird = new YodaElementName("Bird", 0);
+    private final YodaElementName tree = new YodaElementName("Tree", 1);
+
+    @Test
+    void sharedAggregatesShouldExcludeTheEvaluatingAgent() {
+        YodaSystemState state = getState(2000, 10);
+        Set<YodaElementName> birds = Set.of(bird);
+        Predicate<YodaVariableMapping> pred = vm -> vm.getValue(x).doubleOf() > 10.0;
+        ToDoubleFunction<YodaVariableMapping> f = vm -> vm.getValue(x).doubleOf();
+        Object key = new Object();
+        for (YodaAgent agent : state.getAgents()) {
+            YodaGroupAggregate aggregate = state.getAggregate(key, birds, pred, f);
+            assertEquals(state.min(agent, birds, pred, f).doubleOf(), aggregate.min(agent.getId()));
+            assertEquals(state.max(agent, birds, pred, f).doubleOf(), aggregate.max(agent.getId()));
+            assertEquals(state.mean(agent, birds, pred, f).doubleOf(), aggregate.mean(agent.getId()), 1.0E-9);
+            assertEquals(state.exists(agent, birds, pred), aggregate.count(agent.getId()) > 0);
+        }
+    }
+
+    @Test
+    void aggregatesShouldBeComputedOncePerState() {
+        YodaSystemState state = getState(10, 2);
+        Object key = new Object();
+        int[] counter = new int[1];
+        ToDoubleFunction<YodaVariableMapping> f = vm -> {
+            counter[0]++;
+            return vm.getValue(x).doubleOf();
+        };
+        YodaGroupAggregate aggregate = state.getAggregate(key, null, vm -> true, f);
+        assertSame(aggregate, state.getAggregate(key, null, vm -> true, f));
+        assertEquals(12, counter[0]);
+        assertEquals(12, aggregate.count(-1));
+        assertEquals(11, aggregate.count(0));
+    }
+
+    @Test
+    void emptyAggregatesShouldReturnNeutralValues() {
+        YodaGroupAggregate aggregate = YodaGroupAggregate.of(getState(1, 0).getAgents(), e -> true, e -> 5.0);
+        assertEquals(Double.POSITIVE_INFINITY, aggregate.min(0));
+        assertEquals(Double.NEGATIVE_INFINITY, aggregate.max(0));
+        assertEquals(0.0, aggregate.mean(0));
+        assertEquals(5.0, aggregate.mean(1));
+    }
+
+    private YodaSystemState getState(int numberOfAgents, int numberOfTrees) {
+        Random random = new Random(42);
+        YodaBehaviour behaviour = (state, observations) -> new WeightedLinkedList<>();
+        List<YodaAgent> agents = new ArrayList<>();
+        for (int i = 0; i < numberOfAgents; i++) {
+            agents.add(new YodaAgent(i, bird,
+                    new YodaVariableMapping(),
+                    new YodaVariableMapping(Map.of(x, SibillaValue.of(Math.floor(random.nextDouble() * 20)))),
+                    new YodaVariableMapping(),
+                    behaviour,
+                    (rg, system, agent) -> new YodaVariableMapping(),
+                    (rg, state, env) -> env));
+        }
+        List<YodaSceneElement> trees = new ArrayList<>();
+        for (int i = 0; i < numberOfTrees; i++) {
+            trees.add(new YodaSceneElement(tree, numberOfAgents + i, new YodaVariableMapping(Map.of(x, SibillaValue.of(100.0)))));
+        }
+        return new YodaSystemState(agents, trees);
+    }
+
+}
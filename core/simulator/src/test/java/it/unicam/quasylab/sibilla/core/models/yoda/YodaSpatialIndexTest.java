@@ -0,0 +1,77 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.yoda;
+
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YodaSpatialIndexTest {
+
+    private final YodaVariable x = new YodaVariable(0, "x");
+    private final YodaVariable y = new YodaVariable(1, "y");
+    private final YodaElementName name = new YodaElementName("Bird", 0);
+
+    @Test
+    void queriesShouldSelectTheSameElementsOfALinearScan() {
+        Random random = new Random(42);
+        List<YodaSceneElement> elements = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            elements.add(getElement(i, Math.floor(random.nextDouble() * 50), random.nextDouble() * 50));
+        }
+        YodaSpatialIndex index = YodaSpatialIndex.of(new YodaVariable[] { x, y }, elements);
+        assertEquals(elements.size(), index.size());
+        for (int i = 0; i < 100; i++) {
+            double[] center = new double[] { random.nextDouble() * 50, random.nextDouble() * 50 };
+            double radius = random.nextDouble() * 10;
+            Set<Integer> expected = elements.stream()
+                    .filter(e -> Math.pow(e.getEnvironmentalAttributeValue(x).doubleOf() - center[0], 2) + Math.pow(e.getEnvironmentalAttributeValue(y).doubleOf() - center[1], 2) <= radius * radius)
+                    .map(YodaSceneElement::getId).collect(Collectors.toSet());
+            Set<Integer> actual = index.getElementsWithin(center, radius).stream().map(YodaSceneElement::getId).collect(Collectors.toSet());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void elementsWithoutPositionShouldNotBeIndexed() {
+        List<YodaSceneElement> elements = List.of(
+                getElement(0, 1.0, 1.0),
+                new YodaSceneElement(name, 1, new YodaVariableMapping(Map.of(x, SibillaValue.of(1.0))))
+        );
+        YodaSpatialIndex index = YodaSpatialIndex.of(new YodaVariable[] { x, y }, elements);
+        assertEquals(1, index.size());
+        assertEquals(1, index.getElementsWithin(new double[] { 1.0, 1.0 }, 0.0).size());
+        assertTrue(index.getElementsWithin(new double[] { 3.0, 3.0 }, 1.0).isEmpty());
+    }
+
+    private YodaSceneElement getElement(int id, double vx, double vy) {
+        return new YodaSceneElement(name, id, new YodaVariableMapping(Map.of(x, SibillaValue.of(vx), y, SibillaValue.of(vy))));
+    }
+
+}
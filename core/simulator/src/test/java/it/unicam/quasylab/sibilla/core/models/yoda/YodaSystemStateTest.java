@@ -0,0 +1,98 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.yoda;
+
+import it.unicam.quasylab.sibilla.core.simulator.SplittableRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedLinkedList;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YodaSystemStateTest {
+
+    private static final long SEED = 42;
+    private static final int STEPS = 10;
+
+    private final YodaVariable x = new YodaVariable(0, "x");
+    private final YodaVariable y = new YodaVariable(1, "y");
+    private final YodaElementName name = new YodaElementName("Walker", 0);
+
+    @Test
+    void stepsShouldNotDependOnTheExecutor() {
+        List<String> sequential = run(YodaStepExecutor.SEQUENTIAL);
+        assertEquals(sequential, run(YodaStepExecutor.of(1)));
+        assertEquals(sequential, run(YodaStepExecutor.DEFAULT));
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertEquals(sequential, run(YodaStepExecutor.of(pool, 0)));
+            assertEquals(sequential, run(YodaStepExecutor.of(pool, 7)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void agentsShouldUseDifferentStreams() {
+        YodaSystemState state = getState(2).next(new SplittableRandomGenerator(SEED), YodaStepExecutor.SEQUENTIAL);
+        assertNotEquals(state.get(0).getAgentAttributes().getValue(x).doubleOf(), state.get(1).getAgentAttributes().getValue(x).doubleOf());
+    }
+
+    private List<String> run(YodaStepExecutor executor) {
+        SplittableRandomGenerator rg = new SplittableRandomGenerator(SEED);
+        YodaSystemState state = getState(100);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < STEPS; i++) {
+            state = state.next(rg, executor);
+            state.getAgents().forEach(a -> result.add(a.getAgentAttributes() + " " + a.getEnvironmentalAttributeValue(y)));
+        }
+        return result;
+    }
+
+    private YodaSystemState getState(int size) {
+        YodaAction move = YodaAction.actionOf("move", Map.of(x, (rg, vm) -> SibillaValue.of(vm.getValue(x).doubleOf() + rg.nextDouble())));
+        YodaAction stay = YodaAction.actionOf("stay", (rg, vm) -> vm);
+        YodaBehaviour behaviour = (state, observations) -> new WeightedLinkedList<YodaAction>().add(1.0, move).add(1.0, stay);
+        YodaAgentEnvironmentalAttributeUpdateFunction update = YodaAgentEnvironmentalAttributeUpdateFunction.of(
+                Map.of(y, (rg, state, env) -> SibillaValue.of(state.getValue(x).doubleOf() + rg.nextDouble())));
+        List<YodaAgent> agents = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            agents.add(new YodaAgent(i, name,
+                    new YodaVariableMapping(Map.of(x, SibillaValue.of(0.0))),
+                    new YodaVariableMapping(Map.of(y, SibillaValue.of(0.0))),
+                    new YodaVariableMapping(),
+                    behaviour,
+                    (rg, system, agent) -> new YodaVariableMapping(),
+                    update));
+        }
+        return new YodaSystemState(agents, List.of());
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.models.yoda;
+
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YodaVariableMappingTest {
+
+    private final YodaVariable x = new YodaVariable(0, "x");
+    private final YodaVariable y = new YodaVariable(3, "y");
+    private final YodaVariable z = new YodaVariable(5, "z");
+
+    @Test
+    void updatesShouldNotChangeTheOriginalMapping() {
+        YodaVariableMapping mapping = new YodaVariableMapping(Map.of(x, SibillaValue.of(1.0), y, SibillaValue.of(2.0)));
+        YodaVariableMapping updated = mapping.setValues(new YodaVariable[] { y, x }, new SibillaValue[] { SibillaValue.of(4.0), SibillaValue.of(3.0) });
+        assertEquals(1.0, mapping.getValue(x).doubleOf());
+        assertEquals(2.0, mapping.getValue(y).doubleOf());
+        assertEquals(3.0, updated.getValue(x).doubleOf());
+        assertEquals(4.0, updated.getValue(y).doubleOf());
+        assertEquals(5.0, updated.setValue(x, SibillaValue.of(5.0)).getValue(x).doubleOf());
+    }
+
+    @Test
+    void undefinedVariablesShouldBeAddedToTheMapping() {
+        YodaVariableMapping mapping = new YodaVariableMapping(Map.of(y, SibillaValue.of(2.0)));
+        assertFalse(mapping.isDefined(x));
+        assertFalse(mapping.isDefined(z));
+        assertSame(SibillaValue.ERROR_VALUE, mapping.getValue(z));
+        YodaVariableMapping updated = mapping.setValue(z, SibillaValue.of(1.0));
+        assertTrue(updated.isDefined(z));
+        assertEquals(1.0, updated.getValue(z).doubleOf());
+        assertEquals(2.0, updated.getValue(y).doubleOf());
+        assertEquals("[y=2.0, z=1.0]", updated.toString());
+    }
+
+    @Test
+    void initialAssignmentShouldOnlySetDefinedVariables() {
+        YodaVariableMapping mapping = new YodaVariableMapping(Map.of(x, SibillaValue.of(0.0), y, SibillaValue.of(0.0)));
+        YodaVariableMapping assignment = new YodaVariableMapping(Map.of(y, SibillaValue.of(1.0), z, SibillaValue.of(2.0)));
+        YodaVariableMapping result = mapping.setAll(assignment);
+        assertEquals(0.0, result.getValue(x).doubleOf());
+        assertEquals(1.0, result.getValue(y).doubleOf());
+        assertFalse(result.isDefined(z));
+    }
+
+    @Test
+    void extendedMappingsShouldShareTheirLayout() {
+        YodaVariableMapping mapping = new YodaVariableMapping(Map.of(y, SibillaValue.of(2.0)));
+        YodaVariableMapping first = mapping.setValue(z, SibillaValue.of(1.0));
+        YodaVariableMapping second = mapping.setValue(y, SibillaValue.of(3.0)).setValue(z, SibillaValue.of(4.0));
+        assertEquals("[y=3.0, z=4.0]", second.toString());
+        YodaVariableMapping updated = second.setValues(new YodaVariable[] { z }, new SibillaValue[] { SibillaValue.of(5.0) });
+        assertEquals("[y=2.0, z=1.0]", first.toString());
+        assertEquals("[y=3.0, z=5.0]", updated.toString());
+        assertEquals("[x=0.0, y=2.0, z=1.0]", first.setValue(x, SibillaValue.of(0.0)).toString());
+        assertThrows(IllegalArgumentException.class, () -> mapping.setValues(new YodaVariable[] { x }, new SibillaValue[0]));
+    }
+
+}
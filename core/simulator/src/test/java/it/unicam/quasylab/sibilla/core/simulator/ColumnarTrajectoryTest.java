@@ -0,0 +1,114 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.util.Signal;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTrajectoryTest {
+
+    private void fill(Trajectory<PopulationState> trajectory, int samples) {
+        for (int i = 0; i < samples; i++) {
+            trajectory.add(i * 0.5, new PopulationState(new int[] { i, samples - i, i % 3 }));
+        }
+        trajectory.setEnd(samples * 0.5);
+    }
+
+    @Test
+    void columnarTrajectoryShouldContainTheAddedSamples() {
+        ColumnarTrajectory<PopulationState> columnar = new ColumnarTrajectory<>(PopulationState.VECTOR_CODEC);
+        Trajectory<PopulationState> trajectory = new Trajectory<>();
+        fill(columnar, 100);
+        fill(trajectory, 100);
+        assertEquals(trajectory.size(), columnar.size());
+        assertEquals(3, columnar.getWidth());
+        for (int i = 0; i < trajectory.size(); i++) {
+            assertEquals(trajectory.getSample(i).getTime(), columnar.getTime(i));
+            assertEquals(trajectory.getSample(i).getValue().toString(), columnar.getState(i).toString());
+            assertEquals(i % 3, columnar.getValue(i, 2));
+        }
+        assertEquals(trajectory.toString(), columnar.toString());
+    }
+
+    @Test
+    void signalsShouldBeTheSameOfStandardTrajectories() {
+        ColumnarTrajectory<PopulationState> columnar = new ColumnarTrajectory<>(PopulationState.VECTOR_CODEC);
+        Trajectory<PopulationState> trajectory = new Trajectory<>();
+        fill(columnar, 40);
+        fill(trajectory, 40);
+        Signal expected = trajectory.apply(s -> s.getOccupancy(0));
+        Signal actual = columnar.apply(s -> s.getOccupancy(0));
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(trajectory.test(s -> s.getOccupancy(2) == 0).toString(), columnar.test(s -> s.getOccupancy(2) == 0).toString());
+        assertEquals(trajectory.firstPassageTime(s -> s.getOccupancy(0) > 10), columnar.firstPassageTime(s -> s.getOccupancy(0) > 10));
+    }
+
+    @Test
+    void samplesOverTheEndShouldBeRemoved() {
+        ColumnarTrajectory<PopulationState> columnar = new ColumnarTrajectory<>(PopulationState.VECTOR_CODEC);
+        fill(columnar, 20);
+        columnar.setEnd(4.2);
+        columnar.removeSampleOverTheEnd();
+        assertEquals(9, columnar.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> columnar.getState(9));
+    }
+
+    @Test
+    void statesThatCannotBeEncodedShouldBeRetained() {
+        ColumnarTrajectory<PopulationState> columnar = new ColumnarTrajectory<>(new StateVectorCodec<>() {
+            @Override
+            public int width(PopulationState state) {
+                return PopulationState.VECTOR_CODEC.width(state);
+            }
+
+            @Override
+            public void encode(PopulationState state, int[] target, int offset) {
+                PopulationState.VECTOR_CODEC.encode(state, target, offset);
+            }
+
+            @Override
+            public PopulationState decode(int[] source, int offset, int width) {
+                return PopulationState.VECTOR_CODEC.decode(source, offset, width);
+            }
+
+            @Override
+            public boolean canEncode(PopulationState state) {
+                return false;
+            }
+        });
+        fill(columnar, 20);
+        assertTrue(columnar.retainsStates());
+        assertEquals(20, columnar.size());
+        assertEquals("[3, 17, 0]", columnar.getState(3).toString());
+        columnar.setEnd(4.2);
+        columnar.removeSampleOverTheEnd();
+        assertEquals(9, columnar.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> columnar.getState(9));
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import it.unicam.quasylab.sibilla.core.models.pm.Population;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationRule;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.pm.ReactionRule;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.DescriptiveStatisticSampling;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.StatisticSampling;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SummaryStatisticSampling;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForkJoinSimulationManagerTest {
+
+    private final static long SEED = 17;
+    private final static int REPLICAS = 500;
+    private final static double DEADLINE = 10.0;
+    private final static int SAMPLINGS = 10;
+
+    @Test
+    void summaryStatisticsShouldBeEqualToSequentialOnes() throws InterruptedException {
+        double[][] sequential = simulate(SimulationEnvironment.DEFAULT_FACTORY, true);
+        double[][] forkJoin = simulate(ForkJoinSimulationManager.getForkJoinSimulationManagerFactory(4, 7), true);
+        assertEquals(sequential.length, forkJoin.length);
+        for (int i = 0; i < sequential.length; i++) {
+            assertArrayEquals(sequential[i], forkJoin[i], 1E-9);
+        }
+    }
+
+    @Test
+    void descriptiveStatisticsShouldBeEqualToSequentialOnes() throws InterruptedException {
+        double[][] sequential = simulate(SimulationEnvironment.DEFAULT_FACTORY, false);
+        double[][] forkJoin = simulate(ForkJoinSimulationManager.getForkJoinSimulationManagerFactory(), false);
+        assertEquals(sequential.length, forkJoin.length);
+        for (int i = 0; i < sequential.length; i++) {
+            assertArrayEquals(sequential[i], forkJoin[i], 1E-9);
+        }
+    }
+
+    @Test
+    void failedReplicasShouldBeReported() {
+        SimulationEnvironment simulator = new SimulationEnvironment(ForkJoinSimulationManager.getForkJoinSimulationManagerFactory(2, 1));
+        StatisticSampling<PopulationState> sampling = SummaryStatisticSampling.measure("A", SAMPLINGS, DEADLINE, s -> s.getOccupancy(0));
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> simulator.simulate(new SplittableRandomGenerator(SEED), getModel(),
+                rg -> { throw new IllegalStateException("replica failure"); }, sampling, 4, DEADLINE));
+        assertTrue(e.getMessage().contains("replica failure"));
+    }
+
+    private double[][] simulate(SimulationManagerFactory factory, boolean summary) throws InterruptedException {
+        StatisticSampling<PopulationState> sampling = (summary ?
+                SummaryStatisticSampling.measure("A", SAMPLINGS, DEADLINE, s -> s.getOccupancy(0)) :
+                DescriptiveStatisticSampling.measure("A", SAMPLINGS, DEADLINE, s -> s.getOccupancy(0)));
+        SimulationEnvironment simulator = new SimulationEnvironment(factory);
+        simulator.simulate(new SplittableRandomGenerator(SEED), getModel(), rg -> new PopulationState(new int[] { 50, 0 }),
+                sampling, REPLICAS, DEADLINE);
+        return sampling.getData();
+    }
+
+    private PopulationModel getModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("a->b", new Population[] { new Population(0) }, new Population[] { new Population(1) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(0) * 0.1))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(2), rules, new HashMap<>(), new HashMap<>());
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import it.unicam.quasylab.sibilla.core.models.pm.Population;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationRule;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.pm.ReactionRule;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SamplingHandler;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplittableRandomGeneratorTest {
+
+    private final static long SEED = 42;
+    private final static int REPLICAS = 200;
+
+    @Test
+    void streamsShouldOnlyDependOnSeedAndIndex() {
+        SplittableRandomGenerator rg1 = new SplittableRandomGenerator(SEED);
+        SplittableRandomGenerator rg2 = new SplittableRandomGenerator(SEED);
+        rg2.nextDouble();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(rg1.getStream(i).nextLong(), rg2.getStream(i).nextLong());
+        }
+        assertNotEquals(rg1.getStream(0).nextLong(), rg1.getStream(1).nextLong());
+    }
+
+    @Test
+    void nextIntShouldBeInRange() {
+        SplittableRandomGenerator rg = new SplittableRandomGenerator(SEED);
+        for (int i = 0; i < 1000; i++) {
+            int v = rg.nextInt(7);
+            assertTrue((v >= 0) && (v < 7));
+        }
+    }
+
+    @Test
+    void sequentialAndThreadManagersShouldProduceTheSameReplicas() throws InterruptedException {
+        List<String> sequential = runReplicas(SimulationEnvironment.DEFAULT_FACTORY);
+        List<String> parallel = runReplicas(ThreadSimulationManager.getFixedThreadSimulationManagerFactory(4));
+        assertEquals(REPLICAS, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    private List<String> runReplicas(SimulationManagerFactory factory) throws InterruptedException {
+        List<String> result = Collections.synchronizedList(new ArrayList<>());
+        SimulationEnvironment simulator = new SimulationEnvironment(factory);
+        simulator.simulate(new SplittableRandomGenerator(SEED), getModel(), rg -> new PopulationState(new int[] { 20, 0 }),
+                () -> finalStateCollector(result), REPLICAS, 5.0);
+        result.sort(String::compareTo);
+        return result;
+    }
+
+    private SamplingHandler<PopulationState> finalStateCollector(List<String> result) {
+        return new SamplingHandler<>() {
+
+            private PopulationState last;
+
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void sample(double time, PopulationState state) {
+                this.last = state;
+            }
+
+            @Override
+            public void end(double time) {
+                result.add(last.toString());
+            }
+        };
+    }
+
+    private PopulationModel getModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("a->b", new Population[] { new Population(0) }, new Population[] { new Population(1) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(0) * 0.1)),
+                new ReactionRule("b->a", new Population[] { new Population(1) }, new Population[] { new Population(0) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(1) * 0.05))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(2), rules, new HashMap<>(), new HashMap<>());
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import it.unicam.quasylab.sibilla.core.models.pm.Population;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationRule;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.pm.ReactionRule;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.StatisticSampling;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SummaryStatisticSampling;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadSimulationManagerTest {
+
+    private final static long SEED = 17;
+    private final static int REPLICAS = 200;
+    private final static double DEADLINE = 10.0;
+    private final static int SAMPLINGS = 10;
+
+    @Test
+    void virtualThreadStatisticsShouldBeEqualToSequentialOnes() throws InterruptedException {
+        assertSameData(simulate(SimulationEnvironment.DEFAULT_FACTORY),
+                simulate(ThreadSimulationManager.getVirtualThreadSimulationManagerFactory()));
+    }
+
+    @Test
+    void boundedVirtualThreadStatisticsShouldBeEqualToSequentialOnes() throws InterruptedException {
+        assertSameData(simulate(SimulationEnvironment.DEFAULT_FACTORY),
+                simulate(ThreadSimulationManager.getBoundedVirtualThreadSimulationManagerFactory(3)));
+    }
+
+    @Test
+    void boundedFactoryShouldRejectNonPositiveSizes() {
+        assertThrows(IllegalArgumentException.class, () -> ThreadSimulationManager.getBoundedVirtualThreadSimulationManagerFactory(0));
+        assertThrows(IllegalArgumentException.class, () -> ThreadSimulationManager.getBoundedVirtualThreadSimulationManagerFactory(-1));
+    }
+
+    @Test
+    void boundedExecutorShouldFallBackToAFixedPool() {
+        ExecutorService executor = ThreadSimulationManager.newBoundedExecutor(Optional.empty(), 3);
+        try {
+            assertTrue(executor instanceof ThreadPoolExecutor);
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            assertEquals(3, pool.getCorePoolSize());
+            assertEquals(3, pool.getMaximumPoolSize());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void fixedPoolFallbackStatisticsShouldBeEqualToSequentialOnes() throws InterruptedException {
+        assertSameData(simulate(SimulationEnvironment.DEFAULT_FACTORY),
+                simulate(ThreadSimulationManager.getThreadSimulationManagerFactory(() -> ThreadSimulationManager.newBoundedExecutor(Optional.empty(), 2))));
+    }
+
+    private void assertSameData(double[][] expected, double[][] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual[i], 1E-9);
+        }
+    }
+
+    private double[][] simulate(SimulationManagerFactory factory) throws InterruptedException {
+        StatisticSampling<PopulationState> sampling = SummaryStatisticSampling.measure("A", SAMPLINGS, DEADLINE, s -> s.getOccupancy(0));
+        SimulationEnvironment simulator = new SimulationEnvironment(factory);
+        simulator.simulate(new SplittableRandomGenerator(SEED), getModel(), rg -> new PopulationState(new int[] { 50, 0 }),
+                sampling, REPLICAS, DEADLINE);
+        return sampling.getData();
+    }
+
+    private PopulationModel getModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("a->b", new Population[] { new Population(0) }, new Population[] { new Population(1) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(0) * 0.1))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(2), rules, new HashMap<>(), new HashMap<>());
+    }
+
+}
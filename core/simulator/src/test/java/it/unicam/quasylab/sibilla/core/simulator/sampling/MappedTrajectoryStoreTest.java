@@ -0,0 +1,132 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import it.unicam.quasylab.sibilla.core.models.lio.LIOAgentDefinitions;
+import it.unicam.quasylab.sibilla.core.models.lio.LIOModel;
+import it.unicam.quasylab.sibilla.core.models.pm.Population;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationRule;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.pm.ReactionRule;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.DefaultRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
+import it.unicam.quasylab.sibilla.core.tools.stl.QualitativeMonitor;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaDouble;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTrajectoryStoreTest {
+
+    private Path getFile() throws IOException {
+        Path file = Files.createTempFile("trajectories", ".bin");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private PopulationModel getModel() {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("a->b", new Population[] { new Population(0) }, new Population[] { new Population(1) },
+                        (t, s) -> new SibillaDouble(s.getOccupancy(0) * 0.1))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(2), rules, new HashMap<>(), new HashMap<>());
+    }
+
+    @Test
+    void storedTrajectoriesShouldBeEqualToAppendedOnes() throws IOException {
+        PopulationModel model = getModel();
+        try (MappedTrajectoryStore<PopulationState> store = new MappedTrajectoryStore<>(model, getFile())) {
+            Trajectory<PopulationState> trajectory = new Trajectory<>();
+            for (int i = 0; i < 10; i++) {
+                trajectory.add(i, new PopulationState(new int[] { 10 - i, i }));
+            }
+            trajectory.setEnd(10.0);
+            store.append(trajectory);
+            store.append(trajectory);
+            assertEquals(2, store.size());
+            Trajectory<PopulationState> stored = store.get(1);
+            assertEquals(trajectory.size(), stored.size());
+            assertEquals(10.0, stored.getEnd());
+            assertEquals(trajectory.toString(), stored.toString());
+            assertThrows(UnsupportedOperationException.class, () -> stored.add(11.0, new PopulationState(new int[] { 0, 10 })));
+        }
+    }
+
+    @Test
+    void trajectoriesSpanningSeveralChunksAndSegmentsShouldBeRead() throws IOException {
+        PopulationModel model = getModel();
+        try (MappedTrajectoryStore<PopulationState> store = new MappedTrajectoryStore<>(model, getFile(), 64, 256)) {
+            Trajectory<PopulationState> trajectory = new Trajectory<>();
+            for (int i = 0; i < 100; i++) {
+                trajectory.add(i, new PopulationState(new int[] { 100 - i, i }));
+            }
+            trajectory.setEnd(100.0);
+            for (int k = 0; k < 5; k++) {
+                store.append(trajectory);
+            }
+            assertEquals(5, store.size());
+            for (Trajectory<PopulationState> stored : store) {
+                assertEquals(trajectory.toString(), stored.toString());
+                for (int i = 0; i < trajectory.size(); i++) {
+                    assertEquals(trajectory.getTime(i), stored.getTime(i));
+                    assertEquals(trajectory.getState(i), stored.getState(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void modelsWithoutByteEncodingShouldBeRejected() {
+        LIOModel model = new LIOModel(new LIOAgentDefinitions());
+        assertThrows(IllegalArgumentException.class, () -> new MappedTrajectoryStore<>(model, getFile()));
+    }
+
+    @Test
+    void simulatedTrajectoriesShouldBeStreamedInTheStore() throws IOException, InterruptedException {
+        PopulationModel model = getModel();
+        try (MappedTrajectoryStore<PopulationState> store = new MappedTrajectoryStore<>(model, getFile())) {
+            SimulationEnvironment simulator = new SimulationEnvironment();
+            simulator.simulate(new DefaultRandomGenerator(), model, rg -> new PopulationState(new int[] { 20, 0 }), store, 50, 100.0);
+            assertEquals(50, store.size());
+            for (Trajectory<PopulationState> trajectory : store) {
+                assertEquals(20, trajectory.getState(0).getOccupancy(0));
+                assertTrue(trajectory.getState(trajectory.size() - 1).getOccupancy(1) > 0);
+            }
+            double[] p = QualitativeMonitor.computeProbability(
+                    QualitativeMonitor.atomicFormula(s -> s.getOccupancy(0) + s.getOccupancy(1) == 20), store, new double[] { 0.0, 1.0 });
+            assertArrayEquals(new double[] { 1.0, 1.0 }, p);
+        }
+    }
+
+}
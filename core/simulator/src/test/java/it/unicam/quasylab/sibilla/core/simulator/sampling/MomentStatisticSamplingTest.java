@@ -0,0 +1,129 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import it.unicam.quasylab.sibilla.core.models.Model;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MomentStatisticSamplingTest {
+
+    private final static int SAMPLINGS = 10;
+    private final static int REPLICAS = 1000;
+
+    @Test
+    void momentsShouldBeEqualToSummaryStatistics() throws InterruptedException {
+        StatisticSampling<PopulationState> summary = SummaryStatisticSampling.measure("A", SAMPLINGS, SAMPLINGS, s -> s.getOccupancy(0));
+        StatisticSampling<PopulationState> moments = MomentStatisticSampling.measure("A", SAMPLINGS, SAMPLINGS, s -> s.getOccupancy(0));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int r = 0; r < REPLICAS; r++) {
+            int replica = r;
+            sampleReplica(summary, replica);
+            executor.submit(() -> sampleReplica(moments, replica));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        double[][] expected = summary.getData();
+        double[][] actual = moments.getData();
+        for (int i = 0; i < SAMPLINGS; i++) {
+            assertEquals(expected[i].length, actual[i].length);
+            assertArrayEquals(expected[i], actual[i], 1E-8);
+        }
+    }
+
+    @Test
+    void mergedPartialsShouldContainAllValues() {
+        MomentStatisticSampling<PopulationState> moments = new MomentStatisticSampling<>(SAMPLINGS, 1.0, new SimpleMeasure<>("A", s -> s.getOccupancy(0)));
+        MergeableSamplingFunction<PopulationState> partial = moments.newPartial();
+        sampleReplica(partial, 1);
+        sampleReplica(partial, 3);
+        sampleReplica(moments, 5);
+        moments.merge(partial);
+        double[][] data = moments.getData();
+        assertEquals(3.0, data[0][1], 1E-10);
+        assertEquals(2.0, data[0][2], 1E-10);
+        assertEquals(1.0, moments.getMin(0), 1E-10);
+        assertEquals(5.0, moments.getMax(0), 1E-10);
+    }
+
+    @Test
+    void summaryModelsShouldUseMoments() {
+        Model<PopulationState> model = new PopulationModel(PopulationRegistry.createRegistry(1), List.of(), new HashMap<>(), new HashMap<>());
+        assertTrue(model.getSamplingStatistic(true, SAMPLINGS, 1.0, new OccupancyMeasure()) instanceof MomentStatisticSampling);
+    }
+
+    @Test
+    void momentsShouldSurviveSerialization() throws IOException, ClassNotFoundException {
+        MomentStatisticSampling<PopulationState> moments = new MomentStatisticSampling<>(SAMPLINGS, 1.0, new OccupancyMeasure());
+        sampleReplica(moments, 1);
+        sampleReplica(moments, 3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(moments);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            MomentStatisticSampling<?> copy = (MomentStatisticSampling<?>) in.readObject();
+            assertArrayEquals(moments.getData()[0], copy.getData()[0], 1E-10);
+        }
+    }
+
+    private void sampleReplica(SamplingFunction<PopulationState> function, int replica) {
+        SamplingHandler<PopulationState> handler = function.getSamplingHandler();
+        handler.start();
+        for (int i = 0; i < SAMPLINGS; i++) {
+            handler.sample(i, new PopulationState(new int[] { replica * (i + 1) % 17 }));
+        }
+        handler.end(SAMPLINGS);
+    }
+
+    private static class OccupancyMeasure implements Measure<PopulationState> {
+
+        @Override
+        public double measure(PopulationState state) {
+            return state.getOccupancy(0);
+        }
+
+        @Override
+        public String getName() {
+            return "A";
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedProbabilityMatrixTest {
+
+    private static final int SIZE = 50;
+
+    private static ProbabilityVector<Integer> randomWalk(int i) {
+        ProbabilityVector<Integer> row = new ProbabilityVector<>();
+        row.add(Math.max(0, i - 1), 0.25);
+        row.add(i, 0.25);
+        row.add(Math.min(SIZE, i + 1), 0.5);
+        return row;
+    }
+
+    @Test
+    void multiplyShouldAgreeWithProbabilityMatrix() {
+        ProbabilityMatrix<Integer> matrix = new ProbabilityMatrix<>(IndexedProbabilityMatrixTest::randomWalk);
+        IndexedProbabilityMatrix<Integer> indexed = new IndexedProbabilityMatrix<>(IndexedProbabilityMatrixTest::randomWalk);
+        ProbabilityVector<Integer> expected = ProbabilityVector.dirac(10);
+        IndexedProbabilityVector actual = indexed.dirac(10);
+        for (int k = 0; k < 30; k++) {
+            expected = matrix.multiply(expected);
+            actual = indexed.multiply(actual);
+            for (int i = 0; i <= SIZE; i++) {
+                assertEquals(expected.getProbability(i), actual.getProbability(indexed.indexOf(i)), 1E-12);
+            }
+            assertEquals(1.0, actual.sum(), 1E-12);
+        }
+    }
+
+    @Test
+    void kStepsShouldAgreeWithIteratedSteps() {
+        IndexedProbabilityMatrix<Integer> indexed = new IndexedProbabilityMatrix<>(IndexedProbabilityMatrixTest::randomWalk);
+        IndexedProbabilityVector iterated = indexed.dirac(0);
+        for (int k = 0; k < 20; k++) {
+            iterated = indexed.multiply(iterated);
+        }
+        IndexedProbabilityVector direct = indexed.multiply(indexed.dirac(0), 20);
+        assertEquals(iterated.size(), direct.size());
+        for (int k = 0; k < direct.size(); k++) {
+            assertEquals(iterated.getProbability(direct.idAt(k)), direct.probabilityAt(k), 1E-15);
+        }
+        assertEquals(indexed.compute(direct, i -> i), indexed.toProbabilityVector(direct).compute(i -> i), 1E-12);
+        assertEquals(indexed.get(direct, i -> i < 5), indexed.filter(direct, i -> i < 5).sum(), 1E-15);
+    }
+
+}
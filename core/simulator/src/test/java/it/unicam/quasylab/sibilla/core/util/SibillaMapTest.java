@@ -120,6 +120,17 @@ class SibillaMapTest {
         map.add(3,3);
     }
 
+    @Test
+    void keysShouldBeIteratedInOrder() {
+        SibillaMap<Integer, Integer> map = new SibillaMap<>();
+        for (int i = 0; i < 100; i++) {
+            int key = (i * 37) % 100;
+            map = map.applyOrAddIfNotExists(key, v -> v, () -> key);
+        }
+        assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()), map.streamOfKeys().collect(Collectors.toList()));
+        assertEquals(Integer.valueOf(0), map.removeFirst().orElseThrow().getKey().getKey());
+    }
+
 
 
 }
\ No newline at end of file
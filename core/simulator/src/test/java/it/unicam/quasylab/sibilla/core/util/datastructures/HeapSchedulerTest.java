@@ -0,0 +1,128 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.core.util.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapSchedulerTest {
+
+    @Test
+    void emptySchedulerShouldHaveNoNextElements() {
+        HeapScheduler<Integer> scheduler = new HeapScheduler<>();
+        assertTrue(scheduler.isEmpty());
+        assertTrue(Double.isNaN(scheduler.getNextTime()));
+        assertTrue(scheduler.scheduleNext().isEmpty());
+    }
+
+    @Test
+    void elementsScheduledAtTheSameTimeShouldBeReturnedTogether() {
+        Scheduler<Integer> scheduler = new HeapScheduler<Integer>().schedule(3, 1.0).schedule(1, 2.0).schedule(2, 1.0);
+        assertEquals(1.0, scheduler.getNextTime());
+        assertEquals(2.0, scheduler.getLastTime());
+        ScheduledElements<Integer> next = scheduler.scheduleNext().orElseThrow().getKey();
+        assertEquals(1.0, next.getTime());
+        assertEquals(List.of(2, 3), toList(next));
+    }
+
+    @Test
+    void unscheduledElementsShouldBeSkipped() {
+        Scheduler<Integer> scheduler = new HeapScheduler<Integer>().schedule(1, 1.0).schedule(2, 2.0).unscheduled(1.0, 1);
+        assertEquals(2.0, scheduler.getNextTime());
+        assertEquals(List.of(2), toList(scheduler.scheduleNext().orElseThrow().getKey()));
+        assertTrue(scheduler.isEmpty());
+    }
+
+    @Test
+    void rescheduledElementsShouldBeReturnedOnce() {
+        Scheduler<Integer> scheduler = new HeapScheduler<Integer>().schedule(1, 1.0).unscheduled(1.0, 1).schedule(1, 1.0).schedule(2, 2.0);
+        assertEquals(List.of(1), toList(scheduler.scheduleNext().orElseThrow().getKey()));
+        assertEquals(List.of(2), toList(scheduler.scheduleNext().orElseThrow().getKey()));
+        assertTrue(scheduler.isEmpty());
+    }
+
+    @Test
+    void unscheduledShouldOnlyRemoveElementsAtTheGivenTime() {
+        Scheduler<Integer> scheduler = new HeapScheduler<Integer>().schedule(1, 1.0).schedule(1, 3.0).unscheduled(3.0, 1);
+        assertEquals(1.0, scheduler.getLastTime());
+        assertEquals(List.of(1), toList(scheduler.scheduleNext().orElseThrow().getKey()));
+        assertTrue(scheduler.isEmpty());
+        assertTrue(Double.isNaN(scheduler.getLastTime()));
+    }
+
+    @Test
+    void elementsThatAreNotScheduledShouldNotBeCancelled() {
+        Scheduler<Integer> scheduler = new HeapScheduler<Integer>().unscheduled(1.0, 1).schedule(1, 1.0);
+        assertEquals(1.0, scheduler.getNextTime());
+        assertEquals(List.of(1), toList(scheduler.scheduleNext().orElseThrow().getKey()));
+    }
+
+    @Test
+    void shouldBehaveAsMapScheduler() {
+        Random random = new Random(42);
+        Scheduler<Integer> persistent = new MapScheduler<>();
+        Scheduler<Integer> mutable = new HeapScheduler<>();
+        for (int i = 0; i < 1000; i++) {
+            double time = random.nextInt(100);
+            persistent = persistent.schedule(i, time);
+            mutable = mutable.schedule(i, time);
+        }
+        assertEquals(drain(persistent), drain(mutable));
+    }
+
+    @Test
+    void copyShouldContainAllScheduledElements() {
+        Scheduler<Integer> persistent = new MapScheduler<Integer>().schedule(1, 3.0).schedule(2, 1.0).schedule(3, 3.0);
+        assertEquals(drain(persistent), drain(HeapScheduler.copyOf(persistent)));
+        assertFalse(persistent.isEmpty());
+    }
+
+    private List<Double> drain(Scheduler<Integer> scheduler) {
+        List<Double> result = new ArrayList<>();
+        Optional<Pair<ScheduledElements<Integer>, Scheduler<Integer>>> next = scheduler.scheduleNext();
+        while (next.isPresent()) {
+            ScheduledElements<Integer> elements = next.get().getKey();
+            for (Integer element : elements.getScheduledElements()) {
+                result.add(elements.getTime());
+                result.add(element.doubleValue());
+            }
+            next = next.get().getValue().scheduleNext();
+        }
+        return result;
+    }
+
+    private List<Integer> toList(ScheduledElements<Integer> elements) {
+        List<Integer> result = new ArrayList<>();
+        elements.getScheduledElements().forEach(result::add);
+        return result;
+    }
+
+}
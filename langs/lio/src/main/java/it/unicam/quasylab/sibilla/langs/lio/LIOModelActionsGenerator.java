@@ -23,6 +23,7 @@
 
 package it.unicam.quasylab.sibilla.langs.lio;
 
+import it.unicam.quasylab.sibilla.core.models.lio.LIOActionProbabilityFunction;
 import it.unicam.quasylab.sibilla.core.models.lio.LIOAgentDefinitions;
 import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 import it.unicam.quasylab.sibilla.langs.util.ErrorCollector;
@@ -41,8 +42,10 @@ public class LIOModelActionsGenerator extends LIOModelAgentDependentChecker {
 
     @Override
     public Boolean visitElementAction(LIOModelParser.ElementActionContext ctx) {
-        CollectiveExpressionEvaluationFunction evaluationFunction = evalCollectiveExpression(ctx.probability);
-        this.definition.addAction(ctx.name.getText(), s -> evaluationFunction.eval(s).doubleOf());
+        StateExpressionEvaluator evaluator = new StateExpressionEvaluator(errors, definition, constantsAndParameters);
+        CollectiveExpressionEvaluationFunction evaluationFunction = ctx.probability.accept(evaluator);
+        this.definition.addAction(ctx.name.getText(),
+                LIOActionProbabilityFunction.of(s -> evaluationFunction.eval(s).doubleOf(), evaluator.getDependencies()));
         return true;
     }
 
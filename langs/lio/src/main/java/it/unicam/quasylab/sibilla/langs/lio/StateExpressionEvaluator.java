@@ -34,6 +34,7 @@ import it.unicam.quasylab.sibilla.langs.util.ErrorCollector;
 import it.unicam.quasylab.sibilla.langs.util.ParseError;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -49,6 +50,8 @@ public class StateExpressionEvaluator extends LIOModelBaseVisitor<CollectiveExpr
 
     private final ErrorCollector errors;
 
+    private final Set<LIOAgent> dependencies = new HashSet<>();
+
     public StateExpressionEvaluator(ErrorCollector errors, LIOAgentDefinitions definition, Map<String, SibillaValue> evaluationContext) {
         this.definition = definition;
         this.evaluationContext = evaluationContext;
@@ -56,6 +59,15 @@ public class StateExpressionEvaluator extends LIOModelBaseVisitor<CollectiveExpr
     }
 
 
+    /**
+     * Returns the agents whose fractions occur in the expressions evaluated by this visitor.
+     *
+     * @return the agents whose fractions occur in the expressions evaluated by this visitor.
+     */
+    public Set<LIOAgent> getDependencies() {
+        return dependencies;
+    }
+
     @Override
     public CollectiveExpressionEvaluationFunction visitExpressionConjunction(LIOModelParser.ExpressionConjunctionContext ctx) {
         CollectiveExpressionEvaluationFunction leftFunction = ctx.left.accept(this);
@@ -188,6 +200,7 @@ public class StateExpressionEvaluator extends LIOModelBaseVisitor<CollectiveExpr
         }
         Predicate<LIOAgentName> predicate = getAgentNamePredicate(ctx.agentPattern());
         Set<LIOAgent> agents = definition.getAgents(predicate);
+        dependencies.addAll(agents);
         if (agents.size()==1) {
             LIOAgent a = agents.stream().findAny().get();
             return s -> new SibillaDouble(s.fractionOf(a));
@@ -73,7 +73,13 @@ public class PopulationRuleGenerator extends PopulationModelBaseVisitor<List<Pop
     }
 
     public PopulationRule getRule(String name, Function<String,Optional<SibillaValue>> evaluator, Map<String,SibillaValue> map, PopulationModelParser.Rule_bodyContext body) {
-        RateExpressionEvaluator expressionEvaluator =  new RateExpressionEvaluator(PopulationModelGenerator.combine(evaluator,map), registry);
+        Function<String,Optional<SibillaValue>> resolver = PopulationModelGenerator.combine(evaluator,map);
+        RateExpressionEvaluator expressionEvaluator =  new RateExpressionEvaluator(resolver, registry);
+        RateDependencyCollector dependencyCollector = new RateDependencyCollector(resolver, registry);
+        if (body.guard != null) {
+            body.guard.accept(dependencyCollector);
+        }
+        body.rate.accept(dependencyCollector);
         RatePopulationFunction biPredicate = (body.guard==null?null:body.guard.accept(expressionEvaluator));
         Predicate<PopulationState> predicate = null;
         if (biPredicate != null) {
@@ -84,7 +90,9 @@ public class PopulationRuleGenerator extends PopulationModelBaseVisitor<List<Pop
                 predicate,
                 PopulationModelGenerator.getPopulationArray(registry, evaluator, map, body.pre.species_pattern_element()),
                 PopulationModelGenerator.getPopulationArray(registry, evaluator, map, body.post.species_pattern_element()),
-                body.rate.accept(expressionEvaluator)
+                body.rate.accept(expressionEvaluator),
+                dependencyCollector.getSpecies(),
+                dependencyCollector.isPopulationDependent()
         );
     }
 
@@ -0,0 +1,84 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.langs.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * This visitor collects the indexes of the species occurring in a rate, or guard, expression. It also records
+ * whether the expression refers to the fraction of a species, hence it depends on the total population size.
+ */
+public class RateDependencyCollector extends PopulationModelBaseVisitor<Void> {
+
+    private final Function<String, Optional<SibillaValue>> resolver;
+    private final PopulationRegistry registry;
+    private final Set<Integer> species;
+    private boolean populationDependent;
+
+    public RateDependencyCollector(Function<String, Optional<SibillaValue>> resolver, PopulationRegistry registry) {
+        this.resolver = resolver;
+        this.registry = registry;
+        this.species = new TreeSet<>();
+        this.populationDependent = false;
+    }
+
+    @Override
+    public Void visitPopulationFractionExpression(PopulationModelParser.PopulationFractionExpressionContext ctx) {
+        IntStream.of(PopulationModelGenerator.getIndexes(resolver, registry, ctx.agent)).forEach(species::add);
+        populationDependent = true;
+        return null;
+    }
+
+    @Override
+    public Void visitPopulationSizeExpression(PopulationModelParser.PopulationSizeExpressionContext ctx) {
+        IntStream.of(PopulationModelGenerator.getIndexes(resolver, registry, ctx.agent)).forEach(species::add);
+        return null;
+    }
+
+    /**
+     * Returns the indexes of the species collected so far.
+     *
+     * @return the indexes of the species collected so far.
+     */
+    public int[] getSpecies() {
+        return species.stream().mapToInt(i -> i).toArray();
+    }
+
+    /**
+     * Returns true if the visited expressions depend on the total population size.
+     *
+     * @return true if the visited expressions depend on the total population size.
+     */
+    public boolean isPopulationDependent() {
+        return populationDependent;
+    }
+}
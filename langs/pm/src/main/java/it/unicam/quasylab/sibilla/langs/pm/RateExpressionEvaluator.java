@@ -33,8 +33,16 @@ import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 
 import java.util.Optional;
 import java.util.function.BiPredicate;
+import java.util.function.DoubleBinaryOperator;
 import java.util.function.Function;
 
+/**
+ * Builds the rate functions of a population model. Sub-expressions that always evaluate to a real number,
+ * like population sizes and fractions, are compiled to functions working on primitive doubles (see
+ * {@link RatePopulationFunction#ofDouble(RatePopulationFunction.DoubleRate)}), so that rates can be
+ * computed without allocating intermediate values. Integer arithmetic is preserved on the other
+ * sub-expressions.
+ */
 public class RateExpressionEvaluator extends PopulationModelBaseVisitor<RatePopulationFunction> {
 
     private final Function<String, Optional<SibillaValue>> resolver;
@@ -54,8 +62,7 @@ public class RateExpressionEvaluator extends PopulationModelBaseVisitor<RatePopu
     public RatePopulationFunction visitReferenceExpression(PopulationModelParser.ReferenceExpressionContext ctx) {
         Optional<SibillaValue> v = resolver.apply(ctx.reference.getText());
         if (v.isPresent()) {
-            SibillaValue val = v.get();
-            return (n, s) -> val;
+            return new ConstantRate(v.get());
         } else {
             return (n, s) -> SibillaValue.ERROR_VALUE;
         }
@@ -65,13 +72,12 @@ public class RateExpressionEvaluator extends PopulationModelBaseVisitor<RatePopu
     public RatePopulationFunction visitExponentExpression(PopulationModelParser.ExponentExpressionContext ctx) {
         RatePopulationFunction left = ctx.left.accept(this);
         RatePopulationFunction right = ctx.right.accept(this);
-        return (n,s) -> SibillaValue.eval(Math::pow, left.apply(n,s),right.apply(n,s));
+        return RatePopulationFunction.ofDouble((n,s) -> Math.pow(left.applyAsDouble(n,s),right.applyAsDouble(n,s)));
     }
 
     @Override
     public RatePopulationFunction visitIntValue(PopulationModelParser.IntValueContext ctx) {
-        SibillaInteger v = new SibillaInteger(Integer.parseInt(ctx.getText()));
-        return (n,s) -> v;
+        return new ConstantRate(new SibillaInteger(Integer.parseInt(ctx.getText())));
     }
 
     @Override
@@ -82,7 +88,7 @@ public class RateExpressionEvaluator extends PopulationModelBaseVisitor<RatePopu
     @Override
     public RatePopulationFunction visitPopulationFractionExpression(PopulationModelParser.PopulationFractionExpressionContext ctx) {
         int[] indexes = PopulationModelGenerator.getIndexes(resolver, registry, ctx.agent);
-        return (n,s) -> new SibillaDouble(s.getFraction(indexes));
+        return RatePopulationFunction.ofDouble((n,s) -> s.getFraction(indexes));
     }
 
     @Override
@@ -90,14 +96,16 @@ public class RateExpressionEvaluator extends PopulationModelBaseVisitor<RatePopu
         RatePopulationFunction guard = ctx.guard.accept(this);
         RatePopulationFunction thenBranch = ctx.thenBranch.accept(this);
         RatePopulationFunction elseBranch = ctx.elseBranch.accept(this);
+        if (isDouble(thenBranch) && isDouble(elseBranch)) {
+            return RatePopulationFunction.ofDouble((n,s) -> (guard.apply(n,s).booleanOf()?thenBranch.applyAsDouble(n,s):elseBranch.applyAsDouble(n,s)));
+        }
         return (n,s) -> (guard.apply(n,s).booleanOf()?thenBranch.apply(n,s):elseBranch.apply(n,s));
     }
 
 
     @Override
     public RatePopulationFunction visitRealValue(PopulationModelParser.RealValueContext ctx) {
-        SibillaDouble val = new SibillaDouble(Double.parseDouble(ctx.getText()));
-        return (n,s) -> val;
+        return new ConstantRate(new SibillaDouble(Double.parseDouble(ctx.getText())));
     }
 
     @Override
@@ -106,15 +114,36 @@ public class RateExpressionEvaluator extends PopulationModelBaseVisitor<RatePopu
     }
 
     private RatePopulationFunction evalBinaryExpression(PopulationModelParser.ExprContext left, String op, PopulationModelParser.ExprContext right) {
-        return PopulationModelGenerator.combine(left.accept(this),
+        RatePopulationFunction leftFunction = left.accept(this);
+        RatePopulationFunction rightFunction = right.accept(this);
+        DoubleBinaryOperator doubleOperator = SibillaValue.getDoubleOperator(op);
+        if ((doubleOperator != null) && isNumber(leftFunction) && isNumber(rightFunction)
+                && (isDouble(leftFunction) || isDouble(rightFunction))) {
+            return RatePopulationFunction.ofDouble((n,s) -> doubleOperator.applyAsDouble(leftFunction.applyAsDouble(n,s), rightFunction.applyAsDouble(n,s)));
+        }
+        return PopulationModelGenerator.combine(leftFunction,
                 SibillaValue.getOperator(op),
-                right.accept(this));
+                rightFunction);
+    }
+
+    /**
+     * Returns true if the given function always returns a real number.
+     */
+    private static boolean isDouble(RatePopulationFunction f) {
+        return f.isDoubleValued() || ((f instanceof ConstantRate) && (((ConstantRate) f).value instanceof SibillaDouble));
+    }
+
+    /**
+     * Returns true if the given function always returns either an integer or a real number.
+     */
+    private static boolean isNumber(RatePopulationFunction f) {
+        return isDouble(f) || ((f instanceof ConstantRate) && (((ConstantRate) f).value instanceof SibillaInteger));
     }
 
     @Override
     public RatePopulationFunction visitPopulationSizeExpression(PopulationModelParser.PopulationSizeExpressionContext ctx) {
         int[] indexes = PopulationModelGenerator.getIndexes(resolver, registry, ctx.agent);
-        return (n,s) -> new SibillaDouble(s.getOccupancy(indexes));
+        return RatePopulationFunction.ofDouble((n,s) -> s.getOccupancy(indexes));
     }
 
     @Override
@@ -126,6 +155,9 @@ public class RateExpressionEvaluator extends PopulationModelBaseVisitor<RatePopu
     public RatePopulationFunction visitUnaryExpression(PopulationModelParser.UnaryExpressionContext ctx) {
         RatePopulationFunction arg = ctx.arg.accept(this);
         if (ctx.op.getText().equals("-")) {
+            if (arg.isDoubleValued()) {
+                return RatePopulationFunction.ofDouble((n,s) -> -arg.applyAsDouble(n,s));
+            }
             return (n,s) -> SibillaValue.minus(arg.apply(n,s));
         } else {
             return arg;
@@ -169,4 +201,31 @@ public class RateExpressionEvaluator extends PopulationModelBaseVisitor<RatePopu
         RatePopulationFunction rightFunction = ctx.right.accept(this);
         return (now, s) -> SibillaValue.and(leftFunction.apply(now, s), rightFunction.apply(now, s));
     }
+
+    /**
+     * A rate function returning a value known when the model is generated.
+     */
+    private static final class ConstantRate implements RatePopulationFunction {
+
+        private static final long serialVersionUID = 2207469915232466531L;
+
+        private final SibillaValue value;
+
+        private final double doubleValue;
+
+        private ConstantRate(SibillaValue value) {
+            this.value = value;
+            this.doubleValue = value.doubleOf();
+        }
+
+        @Override
+        public SibillaValue apply(double now, PopulationState state) {
+            return value;
+        }
+
+        @Override
+        public double applyAsDouble(double now, PopulationState state) {
+            return doubleValue;
+        }
+    }
 }
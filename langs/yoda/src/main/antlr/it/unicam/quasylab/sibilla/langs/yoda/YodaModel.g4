@@ -125,11 +125,11 @@ expr    : INTEGER                                                          # exp
         | '[' fieldAssignment (',' fieldAssignment)* ']'                   # expressionRecord
         | 'U''['min=expr',' max=expr']'                                    # expressionWeightedRandom
         | 'rnd'                                                            # expressionRandom
-        | 'all' (groupName=ID)? ':' expr                                   # expressionForAll
-        | 'any' (groupName=ID)? ':' expr                                   # expressionExists
-        | 'min' (groupName=ID)? ('[' guard=expr ']' )? '.' value=expr      # expressionMinimum
-        | 'max' (groupName=ID)? ('[' guard=expr ']' )? '.' value=expr      # expressionMaximum
-        | 'mean' (groupName=ID)? ('[' guard=expr ']' )? '.' value=expr     # expressionMean
+        | 'all' (groupName=ID)? (area=neighbourhood)? ':' expr                                       # expressionForAll
+        | 'any' (groupName=ID)? (area=neighbourhood)? ':' expr                                       # expressionExists
+        | 'min' (groupName=ID)? (area=neighbourhood)? ('[' guard=expr ']' )? '.' value=expr          # expressionMinimum
+        | 'max' (groupName=ID)? (area=neighbourhood)? ('[' guard=expr ']' )? '.' value=expr          # expressionMaximum
+        | 'mean' (groupName=ID)? (area=neighbourhood)? ('[' guard=expr ']' )? '.' value=expr         # expressionMean
         |  record=expr '.' fieldName =ID                                   # expressionRecordAccess
         | 'it.' ref=ID                                                     # expressionItselfRef
         | 'sin' '(' argument=expr ')'                                      # expressionSin
@@ -147,6 +147,8 @@ expr    : INTEGER                                                          # exp
 ;
 
 
+neighbourhood: 'within' radius=expr 'on' '(' position+=ID (',' position+=ID)* ')';
+
 fieldAssignment: name=ID '=' value=expr;
 
 type    : 'int'                                                     # typeInteger
@@ -266,16 +266,16 @@ public class TypeInferenceVisitor extends YodaModelBaseVisitor<YodaType>{
     @Override
     public YodaType visitExpressionMinimum(YodaModelParser.ExpressionMinimumContext ctx) {
         if (groupExpressionsAllowed) {
-            return checkGroupExpression(ctx, ctx.groupName, ctx.value, ctx.guard);
+            return checkGroupExpression(ctx, ctx.groupName, ctx.area, ctx.value, ctx.guard);
         }
         return YodaType.NONE_TYPE;
     }
 
-    private YodaType checkGroupExpression(YodaModelParser.ExprContext ctx, Token groupName, YodaModelParser.ExprContext value, YodaModelParser.ExprContext guard) {
+    private YodaType checkGroupExpression(YodaModelParser.ExprContext ctx, Token groupName, YodaModelParser.NeighbourhoodContext area, YodaModelParser.ExprContext value, YodaModelParser.ExprContext guard) {
         if (groupExpressionsAllowed) {
             Predicate<String> validAttributePredicate = getValidGroupPredicate(groupName);
             TypeInferenceVisitor visitor = new TypeInferenceVisitor(this.errors, typeFunction, elementAttributeTable, fieldsRecordType, validAttributePredicate, validItAttributePredicates, false, false);
-            if (visitor.checkNumericType(value)&&((guard == null)||(visitor.checkType(YodaType.BOOLEAN_TYPE, guard)))) {
+            if (checkNeighbourhood(area, validAttributePredicate)&&visitor.checkNumericType(value)&&((guard == null)||(visitor.checkType(YodaType.BOOLEAN_TYPE, guard)))) {
                 return YodaType.REAL_TYPE;
             }
         }
@@ -283,6 +283,21 @@ public class TypeInferenceVisitor extends YodaModelBaseVisitor<YodaType>{
 
     }
 
+    private boolean checkNeighbourhood(YodaModelParser.NeighbourhoodContext area, Predicate<String> validAttributePredicate) {
+        if (area == null) {
+            return true;
+        }
+        boolean flag = checkNumericType(area.radius);
+        for (Token position: area.position) {
+            String name = position.getText();
+            if (!validAttributePredicate.test(name)||!validItAttributePredicates.test(name)||!elementAttributeTable.getTypeOf(name).isNumericType()) {
+                this.errors.record(ParseUtil.illegalSymbolError(name, area));
+                flag = false;
+            }
+        }
+        return flag;
+    }
+
     private Predicate<String> getValidGroupPredicate(Token groupName) {
         Predicate<String> validAttributePredicate = elementAttributeTable.getGroupExpressionValidAttributePredicate();
         if (groupName != null) {
@@ -298,7 +313,7 @@ public class TypeInferenceVisitor extends YodaModelBaseVisitor<YodaType>{
     @Override
     public YodaType visitExpressionMaximum(YodaModelParser.ExpressionMaximumContext ctx) {
         if (groupExpressionsAllowed) {
-            return checkGroupExpression(ctx, ctx.groupName, ctx.value, ctx.guard);
+            return checkGroupExpression(ctx, ctx.groupName, ctx.area, ctx.value, ctx.guard);
         }
         return YodaType.NONE_TYPE;
     }
@@ -306,7 +321,7 @@ public class TypeInferenceVisitor extends YodaModelBaseVisitor<YodaType>{
     @Override
     public YodaType visitExpressionMean(YodaModelParser.ExpressionMeanContext ctx) {
         if (groupExpressionsAllowed) {
-            return checkGroupExpression(ctx, ctx.groupName, ctx.value, ctx.guard);
+            return checkGroupExpression(ctx, ctx.groupName, ctx.area, ctx.value, ctx.guard);
         }
         return YodaType.NONE_TYPE;
     }
@@ -325,21 +340,24 @@ public class TypeInferenceVisitor extends YodaModelBaseVisitor<YodaType>{
     @Override
     public YodaType visitExpressionForAll(YodaModelParser.ExpressionForAllContext ctx) {
         if (groupExpressionsAllowed) {
-            return checkGroupPredicateExpression(ctx, ctx.groupName, ctx.expr());
+            return checkGroupPredicateExpression(ctx, ctx.groupName, ctx.area, ctx.expr());
         }
         return YodaType.NONE_TYPE;
     }
 
-    private YodaType checkGroupPredicateExpression(YodaModelParser.ExprContext ctx, Token groupName, YodaModelParser.ExprContext expr) {
+    private YodaType checkGroupPredicateExpression(YodaModelParser.ExprContext ctx, Token groupName, YodaModelParser.NeighbourhoodContext area, YodaModelParser.ExprContext expr) {
         Predicate<String> validAttributePredicate = getValidGroupPredicate(groupName);
         TypeInferenceVisitor visitor = new TypeInferenceVisitor(this.errors, typeFunction, elementAttributeTable, fieldsRecordType, validAttributePredicate, validItAttributePredicates, false, false);
+        if (!checkNeighbourhood(area, validAttributePredicate)) {
+            return YodaType.NONE_TYPE;
+        }
         return visitor.checkAndReturn(YodaType.BOOLEAN_TYPE, expr);
     }
 
     @Override
     public YodaType visitExpressionExists(YodaModelParser.ExpressionExistsContext ctx) {
         if (groupExpressionsAllowed) {
-            return checkGroupPredicateExpression(ctx, ctx.groupName, ctx.expr());
+            return checkGroupPredicateExpression(ctx, ctx.groupName, ctx.area, ctx.expr());
         }
         return YodaType.NONE_TYPE;
     }
@@ -0,0 +1,101 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package it.unicam.quasylab.sibilla.langs.yoda;
+
+/**
+ * This visitor is used to check if the value of an expression evaluated over the elements of a group depends on
+ * the agent evaluating it. This happens when the expression refers to the attributes of the agent, via
+ * <code>it.</code>, or when it contains random expressions or nested group expressions.
+ */
+public class YodaAgentDependencyChecker extends YodaModelBaseVisitor<Boolean> {
+
+    private static final YodaAgentDependencyChecker CHECKER = new YodaAgentDependencyChecker();
+
+    /**
+     * Returns true if none of the given expressions depends on the agent evaluating it. Null expressions are
+     * ignored.
+     *
+     * @param expressions the expressions to check.
+     * @return true if none of the given expressions depends on the agent evaluating it.
+     */
+    public static boolean isAgentIndependent(YodaModelParser.ExprContext ... expressions) {
+        for (YodaModelParser.ExprContext expr : expressions) {
+            if ((expr != null) && expr.accept(CHECKER)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Boolean visitExpressionItselfRef(YodaModelParser.ExpressionItselfRefContext ctx) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitExpressionRandom(YodaModelParser.ExpressionRandomContext ctx) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitExpressionWeightedRandom(YodaModelParser.ExpressionWeightedRandomContext ctx) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitExpressionForAll(YodaModelParser.ExpressionForAllContext ctx) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitExpressionExists(YodaModelParser.ExpressionExistsContext ctx) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitExpressionMinimum(YodaModelParser.ExpressionMinimumContext ctx) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitExpressionMaximum(YodaModelParser.ExpressionMaximumContext ctx) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitExpressionMean(YodaModelParser.ExpressionMeanContext ctx) {
+        return true;
+    }
+
+    @Override
+    protected Boolean defaultResult() {
+        return false;
+    }
+
+    @Override
+    protected Boolean aggregateResult(Boolean aggregate, Boolean nextResult) {
+        return aggregate || nextResult;
+    }
+}
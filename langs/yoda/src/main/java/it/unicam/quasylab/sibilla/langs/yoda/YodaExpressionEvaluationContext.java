@@ -24,6 +24,8 @@
 package it.unicam.quasylab.sibilla.langs.yoda;
 
 import it.unicam.quasylab.sibilla.core.models.yoda.YodaElementName;
+import it.unicam.quasylab.sibilla.core.models.yoda.YodaGroupAggregate;
+import it.unicam.quasylab.sibilla.core.models.yoda.YodaNeighbourhood;
 import it.unicam.quasylab.sibilla.core.models.yoda.YodaVariable;
 import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
 
@@ -124,6 +126,54 @@ public interface YodaExpressionEvaluationContext<T> {
         return SibillaValue.ERROR_VALUE;
     }
 
+    default SibillaValue min(T context, Set<YodaElementName> group, YodaNeighbourhood neighbourhood, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression)  {
+        return SibillaValue.ERROR_VALUE;
+    }
+
+    default SibillaValue max(T context, Set<YodaElementName> group, YodaNeighbourhood neighbourhood, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression)  {
+        return SibillaValue.ERROR_VALUE;
+    }
+
+    default SibillaValue mean(T context, Set<YodaElementName> group, YodaNeighbourhood neighbourhood, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression)  {
+        return SibillaValue.ERROR_VALUE;
+    }
+
+    default SibillaValue exists(T context, Set<YodaElementName> group, YodaNeighbourhood neighbourhood, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predicate)  {
+        return SibillaValue.ERROR_VALUE;
+    }
+
+    default SibillaValue forAll(T context, Set<YodaElementName> group, YodaNeighbourhood neighbourhood, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predicate)  {
+        return SibillaValue.ERROR_VALUE;
+    }
+
+    /**
+     * Returns the statistics of the given expression computed over the elements in the given group that satisfy the
+     * given guard. The statistics are shared by all the evaluations performed on the same system state with the same
+     * key, hence this method can be used only when guard and expression do not depend on the evaluating agent. The
+     * method returns <code>null</code> when shared statistics are not available in this context.
+     *
+     * @param context context where the expression is evaluated
+     * @param key the key identifying the aggregate
+     * @param group the group of considered elements, <code>null</code> if all the elements are considered
+     * @param guard the guard used to select elements
+     * @param expression the expression to aggregate
+     * @return the statistics of the given expression computed over the elements in the given group that satisfy the
+     * given guard, or <code>null</code> if shared statistics are not available in this context.
+     */
+    default YodaGroupAggregate getAggregate(T context, Object key, Set<YodaElementName> group, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression) {
+        return null;
+    }
+
+    /**
+     * Returns the identifier of the element evaluating the expression, or -1 if no element is evaluating it.
+     *
+     * @param context context where the expression is evaluated
+     * @return the identifier of the element evaluating the expression.
+     */
+    default int getElementId(T context) {
+        return -1;
+    }
+
     default SibillaValue itGet(T arg, YodaVariable name)  {
         return SibillaValue.ERROR_VALUE;
     }
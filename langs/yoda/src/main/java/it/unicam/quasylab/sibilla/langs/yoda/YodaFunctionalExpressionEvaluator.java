@@ -24,15 +24,19 @@
 package it.unicam.quasylab.sibilla.langs.yoda;
 
 import it.unicam.quasylab.sibilla.core.models.yoda.YodaElementName;
+import it.unicam.quasylab.sibilla.core.models.yoda.YodaGroupAggregate;
+import it.unicam.quasylab.sibilla.core.models.yoda.YodaNeighbourhood;
 import it.unicam.quasylab.sibilla.core.models.yoda.YodaVariable;
 import it.unicam.quasylab.sibilla.core.models.yoda.YodaVariableRegistry;
 import it.unicam.quasylab.sibilla.core.util.values.SibillaBoolean;
 import it.unicam.quasylab.sibilla.core.util.values.SibillaRecord;
 import it.unicam.quasylab.sibilla.core.util.values.SibillaValue;
+import org.antlr.v4.runtime.Token;
 
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
@@ -144,8 +148,22 @@ public class YodaFunctionalExpressionEvaluator<T> extends YodaModelBaseVisitor<F
         Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupExpression = ctx.value.accept(
                 new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
         );
+        if (ctx.area != null) {
+            Function<T, YodaNeighbourhood> neighbourhood = getNeighbourhood(ctx.area);
+            Set<YodaElementName> group = getGroup(ctx.groupName);
+            Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupGuard = getGroupGuard(ctx.guard);
+            return arg -> expressionEvaluationContext.min(arg, group, neighbourhood.apply(arg), groupGuard, groupExpression);
+        }
+        Function<T, SibillaValue> evaluation = getMinimum(ctx, groupExpression);
+        if (YodaAgentDependencyChecker.isAgentIndependent(ctx.guard, ctx.value)) {
+            return getSharedAggregate(ctx.groupName, getGroupGuard(ctx.guard), groupExpression, (aggregate, id) -> SibillaValue.of(aggregate.min(id)), evaluation);
+        }
+        return evaluation;
+    }
+
+    private Function<T, SibillaValue> getMinimum(YodaModelParser.ExpressionMinimumContext ctx, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupExpression) {
         if (ctx.guard != null) {
-            Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupGuard = ctx.value.accept(
+            Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupGuard = ctx.guard.accept(
                     new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
             );
             if (ctx.groupName != null) {
@@ -182,6 +200,19 @@ public class YodaFunctionalExpressionEvaluator<T> extends YodaModelBaseVisitor<F
         Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predExpression = ctx.expr().accept(
                 new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
         );
+        if (ctx.area != null) {
+            Function<T, YodaNeighbourhood> neighbourhood = getNeighbourhood(ctx.area);
+            Set<YodaElementName> group = getGroup(ctx.groupName);
+            return arg -> expressionEvaluationContext.exists(arg, group, neighbourhood.apply(arg), predExpression);
+        }
+        Function<T, SibillaValue> evaluation = getExists(ctx, predExpression);
+        if (YodaAgentDependencyChecker.isAgentIndependent(ctx.expr())) {
+            return getSharedAggregate(ctx.groupName, predExpression, p -> SibillaValue.of(1.0), (aggregate, id) -> SibillaValue.of(aggregate.count(id) > 0), evaluation);
+        }
+        return evaluation;
+    }
+
+    private Function<T, SibillaValue> getExists(YodaModelParser.ExpressionExistsContext ctx, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predExpression) {
         if (ctx.groupName != null) {
             Set<YodaElementName> elements = groupSolver.apply(ctx.groupName.getText());
             return arg -> expressionEvaluationContext.exists(arg, elements, predExpression);
@@ -213,6 +244,20 @@ public class YodaFunctionalExpressionEvaluator<T> extends YodaModelBaseVisitor<F
         Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupExpression = ctx.value.accept(
                 new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
         );
+        if (ctx.area != null) {
+            Function<T, YodaNeighbourhood> neighbourhood = getNeighbourhood(ctx.area);
+            Set<YodaElementName> group = getGroup(ctx.groupName);
+            Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupGuard = getGroupGuard(ctx.guard);
+            return arg -> expressionEvaluationContext.mean(arg, group, neighbourhood.apply(arg), groupGuard, groupExpression);
+        }
+        Function<T, SibillaValue> evaluation = getMean(ctx, groupExpression);
+        if (YodaAgentDependencyChecker.isAgentIndependent(ctx.guard, ctx.value)) {
+            return getSharedAggregate(ctx.groupName, getGroupGuard(ctx.guard), groupExpression, (aggregate, id) -> SibillaValue.of(aggregate.mean(id)), evaluation);
+        }
+        return evaluation;
+    }
+
+    private Function<T, SibillaValue> getMean(YodaModelParser.ExpressionMeanContext ctx, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupExpression) {
         if (ctx.guard != null) {
             Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupGuard = ctx.guard.accept(
                     new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
@@ -262,8 +307,22 @@ public class YodaFunctionalExpressionEvaluator<T> extends YodaModelBaseVisitor<F
         Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupExpression = ctx.value.accept(
                 new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
         );
+        if (ctx.area != null) {
+            Function<T, YodaNeighbourhood> neighbourhood = getNeighbourhood(ctx.area);
+            Set<YodaElementName> group = getGroup(ctx.groupName);
+            Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupGuard = getGroupGuard(ctx.guard);
+            return arg -> expressionEvaluationContext.max(arg, group, neighbourhood.apply(arg), groupGuard, groupExpression);
+        }
+        Function<T, SibillaValue> evaluation = getMaximum(ctx, groupExpression);
+        if (YodaAgentDependencyChecker.isAgentIndependent(ctx.guard, ctx.value)) {
+            return getSharedAggregate(ctx.groupName, getGroupGuard(ctx.guard), groupExpression, (aggregate, id) -> SibillaValue.of(aggregate.max(id)), evaluation);
+        }
+        return evaluation;
+    }
+
+    private Function<T, SibillaValue> getMaximum(YodaModelParser.ExpressionMaximumContext ctx, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupExpression) {
         if (ctx.guard != null) {
-            Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupGuard = ctx.value.accept(
+            Function<YodaGroupExpressionEvaluationParameters, SibillaValue> groupGuard = ctx.guard.accept(
                     new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
             );
             if (ctx.groupName != null) {
@@ -296,6 +355,19 @@ public class YodaFunctionalExpressionEvaluator<T> extends YodaModelBaseVisitor<F
         Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predExpression = ctx.expr().accept(
                 new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
         );
+        if (ctx.area != null) {
+            Function<T, YodaNeighbourhood> neighbourhood = getNeighbourhood(ctx.area);
+            Set<YodaElementName> group = getGroup(ctx.groupName);
+            return arg -> expressionEvaluationContext.forAll(arg, group, neighbourhood.apply(arg), predExpression);
+        }
+        Function<T, SibillaValue> evaluation = getForAll(ctx, predExpression);
+        if (YodaAgentDependencyChecker.isAgentIndependent(ctx.expr())) {
+            return getSharedAggregate(ctx.groupName, p -> SibillaValue.of(!predExpression.apply(p).booleanOf()), p -> SibillaValue.of(1.0), (aggregate, id) -> SibillaValue.of(aggregate.count(id) == 0), evaluation);
+        }
+        return evaluation;
+    }
+
+    private Function<T, SibillaValue> getForAll(YodaModelParser.ExpressionForAllContext ctx, Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predExpression) {
         if (ctx.groupName != null) {
             Set<YodaElementName> elements = groupSolver.apply(ctx.groupName.getText());
             return arg -> expressionEvaluationContext.forAll(arg, elements, predExpression);
@@ -376,4 +448,43 @@ public class YodaFunctionalExpressionEvaluator<T> extends YodaModelBaseVisitor<F
         Function<T, SibillaValue> argumentEvaluation = ctx.argument.accept(this);
         return arg -> SibillaValue.abs(argumentEvaluation.apply(arg));
     }
+
+    private Function<T, YodaNeighbourhood> getNeighbourhood(YodaModelParser.NeighbourhoodContext ctx) {
+        YodaVariable[] position = ctx.position.stream().map(t -> registry.get(t.getText())).toArray(YodaVariable[]::new);
+        Function<T, SibillaValue> radius = ctx.radius.accept(this);
+        return arg -> new YodaNeighbourhood(position, radius.apply(arg).doubleOf());
+    }
+
+    private Set<YodaElementName> getGroup(Token groupName) {
+        if (groupName == null) {
+            return null;
+        }
+        return groupSolver.apply(groupName.getText());
+    }
+
+    private Function<YodaGroupExpressionEvaluationParameters, SibillaValue> getGroupGuard(YodaModelParser.ExprContext guard) {
+        if (guard == null) {
+            return arg -> SibillaBoolean.TRUE;
+        }
+        return guard.accept(
+                new YodaFunctionalExpressionEvaluator<>(this.constantsAndParameters, YodaGroupExpressionEvaluationParameters.EXPRESSION_EVALUATION_CONTEXT, registry, groupSolver)
+        );
+    }
+
+    private Function<T, SibillaValue> getSharedAggregate(Token groupName,
+                                                        Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard,
+                                                        Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression,
+                                                        BiFunction<YodaGroupAggregate, Integer, SibillaValue> result,
+                                                        Function<T, SibillaValue> evaluation) {
+        Object key = new Object();
+        Set<YodaElementName> group = getGroup(groupName);
+        return arg -> {
+            YodaGroupAggregate aggregate = expressionEvaluationContext.getAggregate(arg, key, group, guard, expression);
+            if (aggregate == null) {
+                return evaluation.apply(arg);
+            }
+            return result.apply(aggregate, expressionEvaluationContext.getElementId(arg));
+        };
+    }
+
 }
@@ -230,12 +230,102 @@ public class YodaSensingFunctionEvaluationParameters {
         @Override
         public SibillaValue forAll(YodaSensingFunctionEvaluationParameters context,
                                    Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predicate) {
+            return SibillaValue.of(context.systemState.forall(
+                    context.agent,
+                    YodaGroupExpressionEvaluationParameters.getPredicate(context.agent, predicate))
+            );
+        }
+
+        @Override
+        public SibillaValue min(YodaSensingFunctionEvaluationParameters context,
+                                Set<YodaElementName> group,
+                                YodaNeighbourhood neighbourhood,
+                                Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard,
+                                Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression) {
+            return context.systemState.min(
+                    context.agent,
+                    group,
+                    neighbourhood,
+                    YodaGroupExpressionEvaluationParameters.getPredicate(context.agent, guard),
+                    YodaGroupExpressionEvaluationParameters.getDoubleFunction(context.agent, expression)
+            );
+        }
+
+        @Override
+        public SibillaValue max(YodaSensingFunctionEvaluationParameters context,
+                                Set<YodaElementName> group,
+                                YodaNeighbourhood neighbourhood,
+                                Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard,
+                                Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression) {
+            return context.systemState.max(
+                    context.agent,
+                    group,
+                    neighbourhood,
+                    YodaGroupExpressionEvaluationParameters.getPredicate(context.agent, guard),
+                    YodaGroupExpressionEvaluationParameters.getDoubleFunction(context.agent, expression)
+            );
+        }
+
+        @Override
+        public SibillaValue mean(YodaSensingFunctionEvaluationParameters context,
+                                 Set<YodaElementName> group,
+                                 YodaNeighbourhood neighbourhood,
+                                 Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard,
+                                 Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression) {
+            return context.systemState.mean(
+                    context.agent,
+                    group,
+                    neighbourhood,
+                    YodaGroupExpressionEvaluationParameters.getPredicate(context.agent, guard),
+                    YodaGroupExpressionEvaluationParameters.getDoubleFunction(context.agent, expression)
+            );
+        }
+
+        @Override
+        public SibillaValue exists(YodaSensingFunctionEvaluationParameters context,
+                                   Set<YodaElementName> group,
+                                   YodaNeighbourhood neighbourhood,
+                                   Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predicate) {
             return SibillaValue.of(context.systemState.exists(
                     context.agent,
+                    group,
+                    neighbourhood,
+                    YodaGroupExpressionEvaluationParameters.getPredicate(context.agent, predicate))
+            );
+        }
+
+        @Override
+        public SibillaValue forAll(YodaSensingFunctionEvaluationParameters context,
+                                   Set<YodaElementName> group,
+                                   YodaNeighbourhood neighbourhood,
+                                   Function<YodaGroupExpressionEvaluationParameters, SibillaValue> predicate) {
+            return SibillaValue.of(context.systemState.forall(
+                    context.agent,
+                    group,
+                    neighbourhood,
                     YodaGroupExpressionEvaluationParameters.getPredicate(context.agent, predicate))
             );
         }
 
+        @Override
+        public YodaGroupAggregate getAggregate(YodaSensingFunctionEvaluationParameters context,
+                                               Object key,
+                                               Set<YodaElementName> group,
+                                               Function<YodaGroupExpressionEvaluationParameters, SibillaValue> guard,
+                                               Function<YodaGroupExpressionEvaluationParameters, SibillaValue> expression) {
+            return context.systemState.getAggregate(
+                    key,
+                    group,
+                    YodaGroupExpressionEvaluationParameters.getPredicate(guard),
+                    YodaGroupExpressionEvaluationParameters.getDoubleFunction(expression)
+            );
+        }
+
+        @Override
+        public int getElementId(YodaSensingFunctionEvaluationParameters context) {
+            return context.agent.getId();
+        }
+
         @Override
         public SibillaValue itGet(YodaSensingFunctionEvaluationParameters context, YodaVariable name) {
             return context.agent.get(name);
@@ -24,3 +24,13 @@ include("langs:yoda")
 include("langs:slam")
 include("langs:stl")
 include("shell")
+
+/*
+ * The benchmark project applies the JMH plugin, that is resolved from the plugin portal. It is only included
+ * when one of its tasks is requested (for instance ./gradlew :core:benchmark:jmh) or when the property
+ * sibilla.benchmark is set, so that the other builds do not resolve the plugin.
+ */
+if (providers.gradleProperty("sibilla.benchmark").isPresent
+    || gradle.startParameter.taskNames.any { it.startsWith(":core:benchmark") || it.startsWith("core:benchmark") }) {
+    include("core:benchmark")
+}
@@ -54,8 +54,14 @@ command : module_command
         | sample_command
         | save_samples_command
         | trace_command
+        | manager_command
+        | mode_command
         ;
 
+manager_command: 'manager' kind=STRING (size=INTEGER)?;
+
+mode_command: 'mode' (name=STRING)?;
+
 trace_command: 'trace' (output=STRING)?;
 
 reachability_command: 'probreach' goal=STRING ('while' condition=STRING)? 'with' 'alpha' '='  alpha=REAL 'and' 'delta' '=' delta=REAL;
@@ -26,6 +26,10 @@ package it.unicam.quasylab.sibilla.shell;
 
 import it.unicam.quasylab.sibilla.core.runtime.CommandExecutionException;
 import it.unicam.quasylab.sibilla.core.runtime.SibillaRuntime;
+import it.unicam.quasylab.sibilla.core.simulator.ForkJoinSimulationManager;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationManagerFactory;
+import it.unicam.quasylab.sibilla.core.simulator.ThreadSimulationManager;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTimeResults;
 import it.unicam.quasylab.sibilla.langs.util.ParseError;
 import it.unicam.quasylab.sibilla.langs.util.SibillaParseErrorListener;
@@ -50,6 +54,8 @@ public class SibillaShellInterpreter extends SibillaScriptBaseVisitor<Boolean> {
     private static final String OK_MESSAGE = "Ok\n";
     private static final String CODE_LOADED = "Code %s has been successfully loaded\n";
     private static final String GOODBYE_MESSAGE = "Goodbye...";
+    private static final String UNKNOWN_MANAGER_MESSAGE = "Unknown simulation manager %s (expected one of sequential, fixed, cached, workstealing, forkjoin, virtual)";
+    private static final String ILLEGAL_MANAGER_SIZE_MESSAGE = "Illegal simulation manager size %d (a positive value is expected)";
 
     private final SibillaRuntime runtime;
     private final PrintStream output;
@@ -509,6 +515,56 @@ public class SibillaShellInterpreter extends SibillaScriptBaseVisitor<Boolean> {
         return true;
     }
 
+    @Override
+    public Boolean visitManager_command(SibillaScriptParser.Manager_commandContext ctx) {
+        String kind = getStringContent(ctx.kind.getText());
+        int size = (ctx.size == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(ctx.size.getText()));
+        try {
+            if (size <= 0) {
+                throw new CommandExecutionException(String.format(ILLEGAL_MANAGER_SIZE_MESSAGE, size));
+            }
+            SimulationManagerFactory factory = getSimulationManagerFactory(kind, size, ctx.size != null);
+            if (factory == null) {
+                showErrorMessage(String.format(UNKNOWN_MANAGER_MESSAGE, kind));
+                return false;
+            }
+            runtime.setSimulationManagerFactory(factory);
+            showMessage(OK_MESSAGE);
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+            return false;
+        }
+    }
+
+    @Override
+    public Boolean visitMode_command(SibillaScriptParser.Mode_commandContext ctx) {
+        try {
+            if (ctx.name == null) {
+                showMessage(String.format("Current mode=%s (available modes: %s)", runtime.getMode(), String.join(", ", runtime.getModes())));
+                return true;
+            }
+            runtime.setMode(getStringContent(ctx.name.getText()));
+            showMessage(OK_MESSAGE);
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+            return false;
+        }
+    }
+
+    private SimulationManagerFactory getSimulationManagerFactory(String kind, int size, boolean withSize) {
+        switch (kind) {
+            case "sequential": return SimulationEnvironment.DEFAULT_FACTORY;
+            case "fixed": return ThreadSimulationManager.getFixedThreadSimulationManagerFactory(size);
+            case "cached": return ThreadSimulationManager.getCachedThreadSimulationManagerFactory();
+            case "workstealing": return ThreadSimulationManager.getWorkStealingPoolSimulationManagerFactory();
+            case "forkjoin": return (withSize ? ForkJoinSimulationManager.getForkJoinSimulationManagerFactory(size, 0) : ForkJoinSimulationManager.getForkJoinSimulationManagerFactory());
+            case "virtual": return (withSize ? ThreadSimulationManager.getBoundedVirtualThreadSimulationManagerFactory(size) : ThreadSimulationManager.getVirtualThreadSimulationManagerFactory());
+            default: return null;
+        }
+    }
+
     @Override
     public Boolean visitReachability_command(SibillaScriptParser.Reachability_commandContext ctx) {
         ShellSimulationMonitor monitor = null;